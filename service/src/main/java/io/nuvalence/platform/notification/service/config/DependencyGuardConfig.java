@@ -0,0 +1,94 @@
+package io.nuvalence.platform.notification.service.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.nuvalence.platform.notification.service.service.DependencyGuard;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configures the circuit breakers and bulkheads around SendGrid, Twilio and the user management
+ * service. The breakers share their settings, each bulkhead has its own size.
+ */
+@Configuration
+public class DependencyGuardConfig {
+
+    @Value("${dependency-guards.circuit-breaker.failure-rate-threshold:50}")
+    private double failureRateThreshold;
+
+    @Value("${dependency-guards.circuit-breaker.sliding-window-size:20}")
+    private int slidingWindowSize;
+
+    @Value("${dependency-guards.circuit-breaker.open-duration:PT30S}")
+    private Duration openDuration;
+
+    @Value("${dependency-guards.circuit-breaker.slow-call-duration:PT10S}")
+    private Duration slowCallDuration;
+
+    @Value("${dependency-guards.circuit-breaker.half-open-calls:5}")
+    private int halfOpenCalls;
+
+    @Value("${dependency-guards.bulkhead.max-wait:PT1S}")
+    private Duration maxWait;
+
+    /**
+     * Guard of the calls to SendGrid.
+     *
+     * @param maxConcurrentCalls maximum number of calls in progress
+     * @param meterRegistry      registry where the state and outcomes are published
+     * @return guard of the calls to SendGrid
+     */
+    @Bean
+    public DependencyGuard sendGridGuard(
+            @Value("${dependency-guards.bulkhead.sendgrid.max-concurrent-calls:500}")
+                    int maxConcurrentCalls,
+            MeterRegistry meterRegistry) {
+        return guard("sendgrid", maxConcurrentCalls, meterRegistry);
+    }
+
+    /**
+     * Guard of the calls to Twilio.
+     *
+     * @param maxConcurrentCalls maximum number of calls in progress
+     * @param meterRegistry      registry where the state and outcomes are published
+     * @return guard of the calls to Twilio
+     */
+    @Bean
+    public DependencyGuard twilioGuard(
+            @Value("${dependency-guards.bulkhead.twilio.max-concurrent-calls:200}")
+                    int maxConcurrentCalls,
+            MeterRegistry meterRegistry) {
+        return guard("twilio", maxConcurrentCalls, meterRegistry);
+    }
+
+    /**
+     * Guard of the calls to the user management service.
+     *
+     * @param maxConcurrentCalls maximum number of calls in progress
+     * @param meterRegistry      registry where the state and outcomes are published
+     * @return guard of the calls to the user management service
+     */
+    @Bean
+    public DependencyGuard userManagementGuard(
+            @Value("${dependency-guards.bulkhead.user-management.max-concurrent-calls:50}")
+                    int maxConcurrentCalls,
+            MeterRegistry meterRegistry) {
+        return guard("user-management", maxConcurrentCalls, meterRegistry);
+    }
+
+    private DependencyGuard guard(
+            String name, int maxConcurrentCalls, MeterRegistry meterRegistry) {
+        return new DependencyGuard(
+                name,
+                failureRateThreshold,
+                slidingWindowSize,
+                openDuration,
+                slowCallDuration,
+                halfOpenCalls,
+                maxConcurrentCalls,
+                maxWait,
+                meterRegistry);
+    }
+}
@@ -0,0 +1,44 @@
+package io.nuvalence.platform.notification.service.config;
+
+import io.nuvalence.platform.notification.service.service.DependencyGuard;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Actuator endpoint listing the circuit breaker state, failure rate and calls in progress of each
+ * dependency, at {@code /actuator/circuitbreakers}.
+ */
+@Component
+@Endpoint(id = "circuitbreakers")
+public class DependencyGuardEndpoint {
+
+    private final List<DependencyGuard> guards;
+
+    public DependencyGuardEndpoint(List<DependencyGuard> guards) {
+        this.guards = guards;
+    }
+
+    /**
+     * Describe the guards of the dependencies.
+     *
+     * @return state, failure rate and calls in progress by dependency
+     */
+    @ReadOperation
+    public Map<String, Map<String, Object>> circuitBreakers() {
+        Map<String, Map<String, Object>> circuitBreakers = new TreeMap<>();
+        for (DependencyGuard guard : guards) {
+            circuitBreakers.put(
+                    guard.getName(),
+                    Map.of(
+                            "state", guard.getState(),
+                            "failureRate", guard.getFailureRate(),
+                            "inFlight", guard.getInFlight()));
+        }
+        return circuitBreakers;
+    }
+}
@@ -0,0 +1,114 @@
+package io.nuvalence.platform.notification.service.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Configures how messages received from PubSub are dispatched to the notification processing
+ * subscriber.
+ */
+@Slf4j
+@Configuration
+public class NotificationProcessingConfig {
+
+    static final String QUEUE_DEPTH_METRIC = "notification.processing.queue.depth";
+
+    static final String IN_FLIGHT_METRIC = "notification.processing.in.flight";
+
+    private static final int AWAIT_TERMINATION_SECONDS = 30;
+
+    private final int concurrency;
+
+    private final int maxInFlight;
+
+    private final MeterRegistry meterRegistry;
+
+    private ThreadPoolTaskExecutor processingExecutor;
+
+    /**
+     * Constructor.
+     *
+     * @param concurrency   number of messages processed in parallel, 1 to process them on the
+     *                      Pub/Sub subscriber thread
+     * @param maxInFlight   maximum number of messages received and not yet processed, including
+     *                      those being processed
+     * @param meterRegistry registry where processing metrics are published
+     */
+    public NotificationProcessingConfig(
+            @Value("${notificationProcessing.concurrency:1}") int concurrency,
+            @Value("${notificationProcessing.max-in-flight:100}") int maxInFlight,
+            MeterRegistry meterRegistry) {
+        this.concurrency = concurrency;
+        this.maxInFlight = maxInFlight;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Creates a message channel that receives messages from PubSub.
+     *
+     * <p>When concurrency is greater than 1, messages are handed to a bounded pool of processing
+     * threads. Once {@code max-in-flight} messages are waiting or being processed, the Pub/Sub
+     * subscriber thread processes the next message itself, which stops it from pulling more until
+     * the backlog drains.</p>
+     *
+     * @return Message Channel
+     */
+    @Bean
+    public MessageChannel inputMessageChannel() {
+        if (concurrency <= 1) {
+            return new DirectChannel();
+        }
+        return threadPoolChannel();
+    }
+
+    private MessageChannel threadPoolChannel() {
+        processingExecutor = new ThreadPoolTaskExecutor();
+        processingExecutor.setCorePoolSize(concurrency);
+        processingExecutor.setMaxPoolSize(concurrency);
+        processingExecutor.setQueueCapacity(Math.max(maxInFlight - concurrency, 0));
+        processingExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        processingExecutor.setThreadNamePrefix("notification-processing-");
+        processingExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        processingExecutor.setAwaitTerminationSeconds(AWAIT_TERMINATION_SECONDS);
+        processingExecutor.initialize();
+
+        BlockingQueue<Runnable> queue = processingExecutor.getThreadPoolExecutor().getQueue();
+        Gauge.builder(QUEUE_DEPTH_METRIC, queue, BlockingQueue::size)
+                .description("Messages received and waiting for a processing thread")
+                .register(meterRegistry);
+        Gauge.builder(
+                        IN_FLIGHT_METRIC,
+                        processingExecutor,
+                        executor -> executor.getActiveCount() + queue.size())
+                .description("Messages received and not yet acknowledged")
+                .register(meterRegistry);
+
+        log.info(
+                "Processing notifications with {} threads, at most {} in flight",
+                concurrency,
+                maxInFlight);
+        return new ExecutorChannel(processingExecutor);
+    }
+
+    /**
+     * Waits for the messages being processed before shutting down.
+     */
+    @PreDestroy
+    public void shutdownProcessingExecutor() {
+        if (processingExecutor != null) {
+            processingExecutor.shutdown();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.google.cloud.spring.pubsub.core.PubSubTemplate;
 import com.google.cloud.spring.pubsub.integration.AckMode;
 import com.google.cloud.spring.pubsub.integration.inbound.PubSubInboundChannelAdapter;
 import com.google.pubsub.v1.DeadLetterPolicy;
+import com.google.pubsub.v1.RetryPolicy;
 import com.google.pubsub.v1.Subscription;
 import io.nuvalence.platform.notification.service.service.NotificationProcessingSubscriber;
 import lombok.extern.slf4j.Slf4j;
@@ -13,10 +14,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.integration.annotation.ServiceActivator;
-import org.springframework.integration.channel.DirectChannel;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
 
+import java.time.Duration;
+
 /**
  * Configures PubSub Inbound.
  */
@@ -34,6 +36,14 @@ public class PubSubInboundConfig {
 
     private final boolean createTopicAndSubs;
 
+    private final Duration ackDeadline;
+
+    private final Duration retention;
+
+    private final int maxDeliveryAttempts;
+
+    private final Duration maxRetryBackoff;
+
     private final NotificationProcessingSubscriber subscriber;
 
     /**
@@ -43,6 +53,12 @@ public class PubSubInboundConfig {
      * @param deadLetterTopic    the name of the dead letter topic for failed requests
      * @param subscription       the name of the subscription to pull messages from
      * @param createTopicAndSubs whether to create the topic and subscription if they don't exist
+     * @param ackDeadline        ack deadline of the created subscription
+     * @param retention          message retention of the created subscription
+     * @param maxDeliveryAttempts delivery attempts before dead-lettering, 0 for no dead-letter
+     *                           policy
+     * @param maxRetryBackoff    maximum retry backoff of the created subscription, 0 for no
+     *                           retry policy
      * @param subscriber         the subscriber bean
      */
     public PubSubInboundConfig(
@@ -50,24 +66,25 @@ public class PubSubInboundConfig {
             @Value("${spring.cloud.gcp.pubsub.deadLetterTopic}") String deadLetterTopic,
             @Value("${spring.cloud.gcp.pubsub.subscription2}") String subscription,
             @Value("${spring.cloud.gcp.pubsub.enableTopicCreation}") boolean createTopicAndSubs,
+            @Value("${notificationProcessing.subscription.ack-deadline:PT20S}")
+                    Duration ackDeadline,
+            @Value("${notificationProcessing.subscription.retention:P7D}") Duration retention,
+            @Value("${notificationProcessing.subscription.max-delivery-attempts:5}")
+                    int maxDeliveryAttempts,
+            @Value("${notificationProcessing.subscription.max-retry-backoff:PT0S}")
+                    Duration maxRetryBackoff,
             NotificationProcessingSubscriber subscriber) {
         this.subscription = subscription;
         this.topic = topic;
         this.createTopicAndSubs = createTopicAndSubs;
+        this.ackDeadline = ackDeadline;
+        this.retention = retention;
+        this.maxDeliveryAttempts = maxDeliveryAttempts;
+        this.maxRetryBackoff = maxRetryBackoff;
         this.subscriber = subscriber;
         this.deadLetterTopic = deadLetterTopic;
     }
 
-    /**
-     * Creates a message channel that receives messages from PubSub.
-     *
-     * @return Message Channel
-     */
-    @Bean
-    public MessageChannel inputMessageChannel() {
-        return new DirectChannel();
-    }
-
     /**
      * Creates a message adapter that receives messages from PubSub.
      *
@@ -92,18 +109,25 @@ public class PubSubInboundConfig {
         if (createTopicAndSubs && admin.getSubscription(subscription) == null) {
             log.info("Creating subscription: {}, topic: {}", subscription, topic);
 
-            DeadLetterPolicy deadLetterPolicy =
-                    DeadLetterPolicy.newBuilder()
-                            .setDeadLetterTopic(deadLetterTopic)
-                            .setMaxDeliveryAttempts(5)
-                            .build();
-
             Subscription.Builder subscriptionBuilder =
                     Subscription.newBuilder()
                             .setName(subscription)
                             .setTopic(topic)
-                            .setAckDeadlineSeconds(20)
-                            .setDeadLetterPolicy(deadLetterPolicy);
+                            .setAckDeadlineSeconds((int) ackDeadline.toSeconds())
+                            .setMessageRetentionDuration(toProtobuf(retention));
+            if (maxDeliveryAttempts > 0) {
+                subscriptionBuilder.setDeadLetterPolicy(
+                        DeadLetterPolicy.newBuilder()
+                                .setDeadLetterTopic(deadLetterTopic)
+                                .setMaxDeliveryAttempts(maxDeliveryAttempts)
+                                .build());
+            }
+            if (!maxRetryBackoff.isZero()) {
+                subscriptionBuilder.setRetryPolicy(
+                        RetryPolicy.newBuilder()
+                                .setMaximumBackoff(toProtobuf(maxRetryBackoff))
+                                .build());
+            }
 
             admin.createSubscription(subscriptionBuilder);
         }
@@ -125,4 +149,11 @@ public class PubSubInboundConfig {
     public MessageHandler messageReceiverNotificationProcessing() {
         return subscriber;
     }
+
+    private static com.google.protobuf.Duration toProtobuf(Duration duration) {
+        return com.google.protobuf.Duration.newBuilder()
+                .setSeconds(duration.getSeconds())
+                .setNanos(duration.getNano())
+                .build();
+    }
 }
@@ -51,7 +51,10 @@ public class PubSubOutboundConfig {
             log.info("Creating topic: {}", topic);
             admin.createTopic(topic);
         }
-        return new PubSubMessageHandler(pubsubTemplate, topic);
+        PubSubMessageHandler handler = new PubSubMessageHandler(pubsubTemplate, topic);
+        // when publishing synchronously, failures must reach the caller for it to retry
+        handler.setSync(true);
+        return handler;
     }
 
     /**
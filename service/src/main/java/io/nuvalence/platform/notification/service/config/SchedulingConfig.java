@@ -0,0 +1,19 @@
+package io.nuvalence.platform.notification.service.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the background jobs, such as the outbox relay. Tests disable it to run the jobs
+ * explicitly.
+ *
+ * <p>The jobs share Spring's task scheduler, whose pool is sized by
+ * {@code spring.task.scheduling.pool.size}. It defaults to one thread per job so a long run of
+ * the backfill, the sweeper or the partition maintenance never delays the outbox relay, the only
+ * path from the database to PubSub. Raise it when adding a job.</p>
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(value = "scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {}
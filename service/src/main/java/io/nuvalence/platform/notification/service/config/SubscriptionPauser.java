@@ -0,0 +1,92 @@
+package io.nuvalence.platform.notification.service.config;
+
+import com.google.cloud.spring.pubsub.integration.inbound.PubSubInboundChannelAdapter;
+import io.nuvalence.platform.notification.service.service.DependencyGuard;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops pulling from the notification processing subscription while the circuit breaker of a
+ * dependency is open, so undeliverable messages stay in the subscription instead of being pulled,
+ * refused and redelivered over and over.
+ *
+ * <p>Pulling resumes once the breaker has been open for its open duration, letting the trial
+ * calls of the half open breaker through, unless another breaker is still open. When disabled,
+ * messages keep being pulled and are nacked straight away while a breaker is open.</p>
+ */
+@Slf4j
+@Component
+public class SubscriptionPauser {
+
+    private final PubSubInboundChannelAdapter adapter;
+
+    private final List<DependencyGuard> guards;
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Constructor.
+     *
+     * @param adapter adapter pulling from the notification processing subscription
+     * @param guards  guards of the dependencies
+     * @param enabled whether pulling stops while a breaker is open
+     */
+    public SubscriptionPauser(
+            @Qualifier("inboundChannelAdapter") PubSubInboundChannelAdapter adapter,
+            List<DependencyGuard> guards,
+            @Value("${dependency-guards.pause-subscription:true}") boolean enabled) {
+        this.adapter = adapter;
+        this.guards = guards;
+
+        CustomizableThreadFactory threadFactory =
+                new CustomizableThreadFactory("subscription-pauser-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        if (enabled) {
+            guards.forEach(guard -> guard.addStateListener(this::onStateChange));
+        }
+    }
+
+    /**
+     * Stops the thread pausing and resuming the subscription.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    // stopping and starting happen on the scheduler, never on the thread of a failed call
+    private void onStateChange(DependencyGuard guard) {
+        if (guard.getState() != DependencyGuard.State.OPEN) {
+            return;
+        }
+        scheduler.execute(() -> pause(guard));
+        scheduler.schedule(this::resume, guard.getOpenDuration().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void pause(DependencyGuard guard) {
+        if (adapter.isRunning()) {
+            log.warn(
+                    "Circuit breaker of {} is open, pausing the notification processing"
+                            + " subscription",
+                    guard.getName());
+            adapter.stop();
+        }
+    }
+
+    private void resume() {
+        if (!adapter.isRunning() && guards.stream().allMatch(DependencyGuard::isCallPermitted)) {
+            log.info("Resuming the notification processing subscription");
+            adapter.start();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.nuvalence.platform.notification.service.controller;
+
+import io.nuvalence.auth.access.AuthorizationHandler;
+import io.nuvalence.platform.notification.service.domain.Campaign;
+import io.nuvalence.platform.notification.service.generated.controllers.CampaignsApiDelegate;
+import io.nuvalence.platform.notification.service.generated.models.CampaignRequestModel;
+import io.nuvalence.platform.notification.service.generated.models.CampaignResponseModel;
+import io.nuvalence.platform.notification.service.mapper.CampaignMapper;
+import io.nuvalence.platform.notification.service.service.CampaignService;
+import jakarta.ws.rs.ForbiddenException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Implementation of CampaignsApiDelegate.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Service
+public class CampaignsApiDelegateImpl implements CampaignsApiDelegate {
+    private static final String UPDATE_PERMISSION = "update";
+    private final CampaignMapper campaignMapper;
+    private final CampaignService campaignService;
+    private final AuthorizationHandler authorizationHandler;
+
+    @Override
+    public ResponseEntity<CampaignResponseModel> createCampaign(
+            CampaignRequestModel campaignRequestModel) {
+        if (!authorizationHandler.isAllowed("create", Campaign.class)) {
+            throw new ForbiddenException();
+        }
+        Campaign campaign =
+                campaignService.create(
+                        campaignMapper.campaignRequestModelToCampaign(campaignRequestModel));
+        return ResponseEntity.ok(campaignMapper.campaignToCampaignResponseModel(campaign));
+    }
+
+    @Override
+    public ResponseEntity<CampaignResponseModel> getCampaignById(UUID id) {
+        if (!authorizationHandler.isAllowed("view", Campaign.class)) {
+            throw new ForbiddenException();
+        }
+        return campaignService
+                .findBy(id)
+                .map(
+                        campaign ->
+                                ResponseEntity.ok(
+                                        campaignMapper.campaignToCampaignResponseModel(campaign)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @Override
+    public ResponseEntity<CampaignResponseModel> pauseCampaign(UUID id) {
+        if (!authorizationHandler.isAllowed(UPDATE_PERMISSION, Campaign.class)) {
+            throw new ForbiddenException();
+        }
+        return ResponseEntity.ok(
+                campaignMapper.campaignToCampaignResponseModel(campaignService.pause(id)));
+    }
+
+    @Override
+    public ResponseEntity<CampaignResponseModel> resumeCampaign(UUID id) {
+        if (!authorizationHandler.isAllowed(UPDATE_PERMISSION, Campaign.class)) {
+            throw new ForbiddenException();
+        }
+        return ResponseEntity.ok(
+                campaignMapper.campaignToCampaignResponseModel(campaignService.resume(id)));
+    }
+}
@@ -3,17 +3,27 @@ package io.nuvalence.platform.notification.service.controller;
 import io.nuvalence.auth.access.AuthorizationHandler;
 import io.nuvalence.platform.notification.service.domain.Message;
 import io.nuvalence.platform.notification.service.generated.controllers.SendNotificationApiDelegate;
+import io.nuvalence.platform.notification.service.generated.models.BatchMessageRequestModel;
+import io.nuvalence.platform.notification.service.generated.models.BatchMessageResponseModel;
+import io.nuvalence.platform.notification.service.generated.models.BatchMessageResultModel;
+import io.nuvalence.platform.notification.service.generated.models.MessagePageDTO;
 import io.nuvalence.platform.notification.service.generated.models.MessageRequestModel;
 import io.nuvalence.platform.notification.service.generated.models.MessageResponseModel;
 import io.nuvalence.platform.notification.service.mapper.MessageMapperImpl;
+import io.nuvalence.platform.notification.service.mapper.PagingMetadataMapper;
+import io.nuvalence.platform.notification.service.model.SearchMessageFilter;
 import io.nuvalence.platform.notification.service.service.MessageService;
 import jakarta.ws.rs.ForbiddenException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of SendNotificationApiDelegate.
@@ -25,6 +35,7 @@ public class SendNotificationApiDelegateImpl implements SendNotificationApiDeleg
 
     private final MessageMapperImpl messageMapperImpl;
     private final MessageService messageService;
+    private final PagingMetadataMapper pagingMetadataMapper;
     private final AuthorizationHandler authorizationHandler;
 
     @Override
@@ -39,6 +50,77 @@ public class SendNotificationApiDelegateImpl implements SendNotificationApiDeleg
         return ResponseEntity.ok(messageMapperImpl.messageToMessageResponseModel(message));
     }
 
+    @Override
+    public ResponseEntity<BatchMessageResponseModel> sendMessages(
+            BatchMessageRequestModel batchMessageRequestModel) {
+        if (!authorizationHandler.isAllowed("send", Message.class)) {
+            throw new ForbiddenException();
+        }
+        List<MessageService.SaveResult> results =
+                messageService.saveAll(
+                        batchMessageRequestModel.getMessages().stream()
+                                .map(messageMapperImpl::messageRequestModelToMessage)
+                                .collect(Collectors.toList()));
+
+        BatchMessageResponseModel response = new BatchMessageResponseModel();
+        for (int i = 0; i < results.size(); i++) {
+            MessageService.SaveResult result = results.get(i);
+            BatchMessageResultModel resultModel = new BatchMessageResultModel().index(i);
+            if (result.getMessage() != null) {
+                resultModel
+                        .id(result.getMessage().getId())
+                        .status(BatchMessageResultModel.StatusEnum.QUEUED);
+            } else {
+                resultModel
+                        .status(BatchMessageResultModel.StatusEnum.REJECTED)
+                        .error(result.getError());
+            }
+            response.addResultsItem(resultModel);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @Override
+    public ResponseEntity<MessagePageDTO> getMessages(
+            UUID userId,
+            String status,
+            OffsetDateTime requestedAfter,
+            OffsetDateTime requestedBefore,
+            Integer pageSize,
+            String sortOrder,
+            String cursor) {
+        if (!authorizationHandler.isAllowed("view", Message.class)) {
+            throw new ForbiddenException();
+        }
+        SearchMessageFilter filter =
+                SearchMessageFilter.builder()
+                        .userId(userId)
+                        .status(status)
+                        .requestedAfter(requestedAfter)
+                        .requestedBefore(requestedBefore)
+                        .pageSize(pageSize)
+                        .sortOrder(sortOrder)
+                        .cursor(cursor)
+                        .build();
+        Slice<Message> result = messageService.search(filter);
+        String nextCursor =
+                result.hasContent()
+                        ? SearchMessageFilter.cursorAfter(
+                                result.getContent().get(result.getNumberOfElements() - 1))
+                        : null;
+        MessagePageDTO response =
+                new MessagePageDTO(
+                        result.getContent().stream()
+                                .filter(
+                                        message ->
+                                                authorizationHandler.isAllowedForInstance(
+                                                        "view", message))
+                                .map(messageMapperImpl::messageToMessageResponseModel)
+                                .collect(Collectors.toList()),
+                        pagingMetadataMapper.toPagingMetadata(result, nextCursor));
+        return ResponseEntity.ok(response);
+    }
+
     @Override
     public ResponseEntity<MessageResponseModel> getMessageById(String id) {
         if (!authorizationHandler.isAllowed("view", Message.class)) {
@@ -0,0 +1,111 @@
+package io.nuvalence.platform.notification.service.domain;
+
+import io.nuvalence.auth.access.AccessResource;
+import io.nuvalence.platform.notification.service.utils.jpa.StringMapPersistenceConverter;
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.MapKeyColumn;
+import jakarta.persistence.OrderColumn;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Represents a template sent to a whole audience, fanned out into messages in chunks.
+ *
+ * <p>The audience is either an explicit list of user ids, or the query parameters of a user
+ * management users search. {@code nextPosition} is the index of the next recipient of the list,
+ * or the number of the next page of the search.</p>
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+@AccessResource("campaign")
+@Entity
+@Table(name = "campaign")
+@SuppressWarnings("checkstyle:ClassFanOutComplexity")
+public class Campaign {
+
+    @Id
+    @GeneratedValue(generator = "uuid2")
+    @GenericGenerator(name = "uuid2", strategy = "org.hibernate.id.UUIDGenerator")
+    @Column(name = "id", length = 36, updatable = false, nullable = false)
+    private UUID id;
+
+    @Column(name = "message_template_key", updatable = false)
+    private String messageTemplateKey;
+
+    @Column(name = "status")
+    private String status;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @MapKeyColumn(name = "parameter_name")
+    @Column(name = "parameter_value")
+    @CollectionTable(
+            name = "campaign_parameter",
+            joinColumns = @JoinColumn(name = "campaign_id", nullable = false))
+    private Map<String, String> parameters;
+
+    @ToString.Exclude
+    @ElementCollection(fetch = FetchType.LAZY)
+    @OrderColumn(name = "recipient_index")
+    @Column(name = "user_id")
+    @CollectionTable(
+            name = "campaign_recipient",
+            joinColumns = @JoinColumn(name = "campaign_id", nullable = false))
+    private List<String> userIds;
+
+    @Convert(converter = StringMapPersistenceConverter.class)
+    @Column(name = "audience_query", updatable = false)
+    private Map<String, String> audienceQuery;
+
+    @Column(name = "next_position")
+    private int nextPosition;
+
+    @Column(name = "total_count")
+    private Integer totalCount;
+
+    @Column(name = "processed_count")
+    private int processedCount;
+
+    @Column(name = "queued_count")
+    private int queuedCount;
+
+    @Column(name = "rejected_count")
+    private int rejectedCount;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "createdby", length = 64)
+    private String createdBy;
+
+    @Column(name = "created_timestamp", updatable = false)
+    private OffsetDateTime createdTimestamp;
+
+    @Column(name = "last_updated_timestamp")
+    private OffsetDateTime lastUpdatedTimestamp;
+
+    @Column(name = "completed_timestamp")
+    private OffsetDateTime completedTimestamp;
+}
@@ -1,5 +1,6 @@
 package io.nuvalence.platform.notification.service.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.nuvalence.auth.access.AccessResource;
 import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
@@ -14,9 +15,12 @@ import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.io.Serializable;
 import java.time.OffsetDateTime;
@@ -34,6 +38,7 @@ import java.util.UUID;
 @AccessResource("message")
 @Entity
 @Table(name = "message")
+@SuppressWarnings("checkstyle:ClassFanOutComplexity")
 public class Message implements Serializable {
 
     private static final long serialVersionUID = -1428351642619871288L;
@@ -53,17 +58,64 @@ public class Message implements Serializable {
     @Column(name = "status")
     private String status;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "parameters")
+    private Map<String, String> parameters;
+
+    /**
+     * Parameters of messages saved before they were stored in the {@code parameters} column,
+     * read until {@link io.nuvalence.platform.notification.service.service.MessageParametersBackfill}
+     * moved them.
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ElementCollection(fetch = FetchType.LAZY)
     @MapKeyColumn(name = "parameter_name")
     @Column(name = "parameter_value")
     @CollectionTable(
             name = "message_parameter",
             joinColumns = @JoinColumn(name = "message_id", nullable = false))
-    private Map<String, String> parameters;
+    private Map<String, String> legacyParameters;
 
     @Column(name = "requested_timestamp", updatable = false)
     private OffsetDateTime requestedTimestamp;
 
     @Column(name = "sent_timestamp")
     private OffsetDateTime sentTimestamp;
+
+    /** Time between the request and the start of processing, in milliseconds. */
+    @Column(name = "queue_wait_millis")
+    private Long queueWaitMillis;
+
+    /** Time spent resolving the user, in milliseconds. */
+    @Column(name = "user_lookup_millis")
+    private Long userLookupMillis;
+
+    /** Time spent rendering the templates, in milliseconds. */
+    @Column(name = "render_millis")
+    private Long renderMillis;
+
+    /** Time spent in the email or SMS provider call, in milliseconds. */
+    @Column(name = "provider_millis")
+    private Long providerMillis;
+
+    /** Last time the message was found stuck in QUEUED and queued again. */
+    @JsonIgnore
+    @Column(name = "swept_timestamp")
+    private OffsetDateTime sweptTimestamp;
+
+    /** Number of times the message was found stuck in QUEUED and queued again. */
+    @JsonIgnore
+    @Column(name = "sweep_count", nullable = false)
+    private int sweepCount;
+
+    /**
+     * Get the parameters, falling back to the legacy ones while the message is not backfilled.
+     *
+     * @return the parameters
+     */
+    public Map<String, String> getParameters() {
+        return parameters != null ? parameters : legacyParameters;
+    }
 }
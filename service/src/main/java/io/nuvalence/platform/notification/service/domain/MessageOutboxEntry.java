@@ -0,0 +1,54 @@
+package io.nuvalence.platform.notification.service.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A message waiting to be published to PubSub, written in the same transaction as the message.
+ */
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Entity
+@Table(name = "message_outbox")
+public class MessageOutboxEntry {
+
+    @Id
+    @GeneratedValue(generator = "uuid2")
+    @GenericGenerator(name = "uuid2", strategy = "org.hibernate.id.UUIDGenerator")
+    @Column(name = "id", length = 36, updatable = false, nullable = false)
+    private UUID id;
+
+    @Column(name = "message_id", updatable = false, nullable = false)
+    private UUID messageId;
+
+    @Column(name = "payload", updatable = false, nullable = false)
+    private String payload;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "created_timestamp", updatable = false, nullable = false)
+    private OffsetDateTime createdTimestamp;
+
+    @Column(name = "next_attempt_timestamp", nullable = false)
+    private OffsetDateTime nextAttemptTimestamp;
+
+    @Column(name = "published_timestamp")
+    private OffsetDateTime publishedTimestamp;
+}
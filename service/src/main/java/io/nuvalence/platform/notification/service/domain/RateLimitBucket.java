@@ -0,0 +1,153 @@
+package io.nuvalence.platform.notification.service.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Token bucket limiting the rate of calls to a provider, refilled continuously up to its burst.
+ *
+ * <p>A caller finding the bucket empty still takes a token, overdrawing it, and waits until the
+ * token is paid back; later callers then wait behind it, so waiting callers go through in order
+ * and the rate is smoothed instead of failing the calls over the limit.</p>
+ */
+@Data
+@AllArgsConstructor
+public class RateLimitBucket {
+
+    private static final double MICROS_PER_SECOND = 1e6;
+
+    private double tokens;
+
+    /** Time the tokens were last refilled, in microseconds since the epoch. */
+    private long refreshedMicros;
+
+    /**
+     * Take a token.
+     *
+     * @param nowMicros        current time, in microseconds since the epoch
+     * @param permitsPerSecond rate at which the bucket is refilled
+     * @param burst            maximum number of tokens the bucket holds
+     * @param maxWaitMicros    maximum wait for the token, in microseconds
+     * @return wait in microseconds before the token may be used, or -1 when it would exceed the
+     *     maximum wait, in which case no token is taken
+     */
+    public long reserve(long nowMicros, double permitsPerSecond, double burst, long maxWaitMicros) {
+        // clocks of other replicas may be behind the time the bucket was refilled at
+        long elapsedMicros = Math.max(0, nowMicros - refreshedMicros);
+        tokens = Math.min(burst, tokens + elapsedMicros * permitsPerSecond / MICROS_PER_SECOND);
+        refreshedMicros = Math.max(refreshedMicros, nowMicros);
+
+        long waitMicros =
+                tokens >= 1
+                        ? 0
+                        : (long) Math.ceil((1 - tokens) * MICROS_PER_SECOND / permitsPerSecond);
+        if (waitMicros > maxWaitMicros) {
+            return -1;
+        }
+        tokens -= 1;
+        return waitMicros;
+    }
+
+    /**
+     * Take several tokens at once, for a replica to hand them out without coming back to the
+     * bucket for each call. As many tokens as may be used within the maximum wait are taken, up
+     * to the requested number.
+     *
+     * @param nowMicros        current time, in microseconds since the epoch
+     * @param permitsPerSecond rate at which the bucket is refilled
+     * @param burst            maximum number of tokens the bucket holds
+     * @param maxWaitMicros    maximum wait for the tokens, in microseconds
+     * @param maxTokens        maximum number of tokens to take
+     * @return lease of the tokens taken, holding none when the first one would exceed the
+     *     maximum wait
+     */
+    public Lease lease(
+            long nowMicros,
+            double permitsPerSecond,
+            double burst,
+            long maxWaitMicros,
+            int maxTokens) {
+        long elapsedMicros = Math.max(0, nowMicros - refreshedMicros);
+        tokens = Math.min(burst, tokens + elapsedMicros * permitsPerSecond / MICROS_PER_SECOND);
+        refreshedMicros = Math.max(refreshedMicros, nowMicros);
+
+        double usable = tokens + maxWaitMicros * permitsPerSecond / MICROS_PER_SECOND;
+        int count = (int) Math.max(0, Math.min(maxTokens, Math.floor(usable)));
+        Lease lease = new Lease(tokens, count, nowMicros);
+        tokens -= count;
+        return lease;
+    }
+
+    /**
+     * Tokens taken from a bucket at once, handed out in order. The n-th token may be used once
+     * the bucket would have held n tokens, so the calls keep the rate of the bucket. Tokens are
+     * kept until used, so a replica may exceed the burst by the tokens it leased while idle.
+     */
+    public static class Lease {
+
+        private final double tokensBefore;
+
+        private final int count;
+
+        private final long takenMicros;
+
+        private int handedOut;
+
+        /**
+         * Constructor.
+         *
+         * @param tokensBefore tokens in the bucket before the lease, once refilled
+         * @param count        number of tokens taken
+         * @param takenMicros  time the tokens were taken, in microseconds since the epoch
+         */
+        public Lease(double tokensBefore, int count, long takenMicros) {
+            this.tokensBefore = tokensBefore;
+            this.count = count;
+            this.takenMicros = takenMicros;
+        }
+
+        /**
+         * Whether no token could be taken, the first one exceeding the maximum wait.
+         *
+         * @return whether the lease holds no token
+         */
+        public boolean isEmpty() {
+            return count == 0;
+        }
+
+        /**
+         * Whether every token was handed out.
+         *
+         * @return whether the lease is used up
+         */
+        public boolean isUsedUp() {
+            return handedOut >= count;
+        }
+
+        /**
+         * Hand out the next token.
+         *
+         * @param nowMicros        current time, in microseconds since the epoch
+         * @param permitsPerSecond rate at which the bucket is refilled
+         * @return wait in microseconds before the token may be used, or -1 when the lease is
+         *     used up
+         */
+        public long take(long nowMicros, double permitsPerSecond) {
+            if (isUsedUp()) {
+                return -1;
+            }
+            handedOut++;
+            return Math.max(0, availableMicros(handedOut, permitsPerSecond) - nowMicros);
+        }
+
+        // time the bucket would have held the n-th token of the lease
+        private long availableMicros(int token, double permitsPerSecond) {
+            return takenMicros
+                    + (long)
+                            Math.ceil(
+                                    Math.max(0, token - tokensBefore)
+                                            * MICROS_PER_SECOND
+                                            / permitsPerSecond);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package io.nuvalence.platform.notification.service.exception;
+
+/**
+ * Exception to be thrown when a call to a dependency is refused without being made, because its
+ * circuit breaker is open or its bulkhead is full.
+ */
+public class DependencyUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 6038342757815146251L;
+
+    public DependencyUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package io.nuvalence.platform.notification.service.exception;
+
+/**
+ * Exception to be thrown when a provider call would wait longer than allowed for its rate limit.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = -3164385924217394522L;
+
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -19,9 +19,11 @@ public interface MessageMapper {
      * @return message
      */
     @Mapping(source = "templateKey", target = "messageTemplateKey")
+    @Mapping(target = "legacyParameters", ignore = true)
     Message messageRequestModelToMessage(MessageRequestModel messageRequestModel);
 
     @Mapping(source = "templateKey", target = "messageTemplateKey")
+    @Mapping(target = "legacyParameters", ignore = true)
     Message notificationEventToMessage(NotificationEvent notificationEvent);
 
     /**
@@ -6,6 +6,7 @@ import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Component;
 import org.springframework.util.MultiValueMapAdapter;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -55,6 +56,24 @@ public class PagingMetadataMapper {
                 .nextPage(nextPage);
     }
 
+    /**
+     * Converts a page of a keyset search to api paging metadata. The next page is reached
+     * through its cursor, and the matches are not counted.
+     *
+     * @param slice      slice object
+     * @param nextCursor cursor of the next page, or null if this is the last one
+     * @param <T>        slice item type
+     * @return paging metadata
+     */
+    public <T> PagingMetadata toPagingMetadata(Slice<T> slice, String nextCursor) {
+        String nextPage = null;
+        if (slice.hasNext() && nextCursor != null) {
+            nextPage =
+                    currentRequestUri().replaceQueryParam("cursor", nextCursor).build().toString();
+        }
+        return new PagingMetadata().pageSize(slice.getSize()).nextPage(nextPage);
+    }
+
     /**
      * Builds the next page uri.
      *
@@ -63,18 +82,7 @@ public class PagingMetadataMapper {
      */
     private URI buildNextPageUri(Pageable nextPage) {
         if (nextPage.isPaged()) {
-            var request = requestSupplier.get();
-
-            var queryParams =
-                    request.getParameterMap().entrySet().stream()
-                            .collect(
-                                    Collectors.toMap(
-                                            Map.Entry::getKey, e -> Arrays.asList(e.getValue())));
-
-            return UriComponentsBuilder.fromUriString(request.getRequestURI())
-                    .host(request.getServerName())
-                    .scheme(request.getScheme())
-                    .queryParams(new MultiValueMapAdapter<>(queryParams))
+            return currentRequestUri()
                     .replaceQueryParam("pageNumber", nextPage.getPageNumber())
                     .build()
                     .toUri();
@@ -82,4 +90,19 @@ public class PagingMetadataMapper {
             return null;
         }
     }
+
+    private UriComponentsBuilder currentRequestUri() {
+        var request = requestSupplier.get();
+
+        var queryParams =
+                request.getParameterMap().entrySet().stream()
+                        .collect(
+                                Collectors.toMap(
+                                        Map.Entry::getKey, e -> Arrays.asList(e.getValue())));
+
+        return UriComponentsBuilder.fromUriString(request.getRequestURI())
+                .host(request.getServerName())
+                .scheme(request.getScheme())
+                .queryParams(new MultiValueMapAdapter<>(queryParams));
+    }
 }
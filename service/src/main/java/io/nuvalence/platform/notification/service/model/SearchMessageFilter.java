@@ -0,0 +1,146 @@
+package io.nuvalence.platform.notification.service.model;
+
+import io.nuvalence.platform.notification.service.domain.Message;
+import io.nuvalence.platform.notification.service.exception.BadDataException;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.SuperBuilder;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Filter for searching messages.
+ *
+ * <p>Messages are paged with a keyset rather than an offset: they are ordered by requested
+ * timestamp and id, and a page starts after the position encoded in the cursor. With the
+ * user and status filters this matches the (user_id, requested_timestamp, id) and
+ * (status, requested_timestamp, id) indexes, so every page is an index range scan whatever its
+ * depth.</p>
+ */
+@SuperBuilder
+public class SearchMessageFilter extends BaseFilter {
+    private static final String REQUESTED_TIMESTAMP = "requestedTimestamp";
+    private static final String ID = "id";
+    private static final String CURSOR_SEPARATOR = "_";
+
+    private UUID userId;
+    private String status;
+    private OffsetDateTime requestedAfter;
+    private OffsetDateTime requestedBefore;
+    private String cursor;
+
+    /**
+     * Returns a Specification object based on the filter's user, status, requested time range and
+     * cursor.
+     *
+     * @return Specification object
+     * @throws BadDataException if the cursor is not valid
+     */
+    public Specification<Message> getMessageSpecifications() {
+        Position after = cursor == null ? null : decodeCursor(cursor);
+        boolean ascending = isAscending();
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (userId != null) {
+                predicates.add(cb.equal(root.get("userId"), userId.toString()));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            if (requestedAfter != null) {
+                predicates.add(
+                        cb.greaterThanOrEqualTo(root.get(REQUESTED_TIMESTAMP), requestedAfter));
+            }
+            if (requestedBefore != null) {
+                predicates.add(cb.lessThan(root.get(REQUESTED_TIMESTAMP), requestedBefore));
+            }
+            if (after != null) {
+                // the bound on the timestamp alone lets the index range scan start at the cursor
+                Path<OffsetDateTime> requestedTimestamp = root.get(REQUESTED_TIMESTAMP);
+                Path<UUID> id = root.get(ID);
+                Predicate sameTimestamp = cb.equal(requestedTimestamp, after.requestedTimestamp);
+                if (ascending) {
+                    predicates.add(
+                            cb.greaterThanOrEqualTo(requestedTimestamp, after.requestedTimestamp));
+                    predicates.add(
+                            cb.or(
+                                    cb.greaterThan(requestedTimestamp, after.requestedTimestamp),
+                                    cb.and(sameTimestamp, cb.greaterThan(id, after.id))));
+                } else {
+                    predicates.add(
+                            cb.lessThanOrEqualTo(requestedTimestamp, after.requestedTimestamp));
+                    predicates.add(
+                            cb.or(
+                                    cb.lessThan(requestedTimestamp, after.requestedTimestamp),
+                                    cb.and(sameTimestamp, cb.lessThan(id, after.id))));
+                }
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Returns the keyset order, by requested timestamp then id, ascending unless a descending
+     * sort order was requested.
+     *
+     * @return Sort object
+     */
+    public Sort getSort() {
+        Sort.Direction direction = isAscending() ? Sort.Direction.ASC : Sort.Direction.DESC;
+        return Sort.by(direction, REQUESTED_TIMESTAMP, ID);
+    }
+
+    /**
+     * Returns the number of messages in a page.
+     *
+     * @return page size
+     */
+    public int getPageSize() {
+        return getPageRequest().getPageSize();
+    }
+
+    /**
+     * Returns the cursor of the page starting after a message.
+     *
+     * @param last last message of the current page
+     * @return opaque cursor
+     */
+    public static String cursorAfter(Message last) {
+        String position = last.getRequestedTimestamp() + CURSOR_SEPARATOR + last.getId();
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean isAscending() {
+        return !"desc".equalsIgnoreCase(sortOrder);
+    }
+
+    private static Position decodeCursor(String cursor) {
+        try {
+            String position =
+                    new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf(CURSOR_SEPARATOR);
+            return new Position(
+                    OffsetDateTime.parse(position.substring(0, separator)),
+                    UUID.fromString(position.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadDataException("Invalid cursor");
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Position {
+        private final OffsetDateTime requestedTimestamp;
+        private final UUID id;
+    }
+}
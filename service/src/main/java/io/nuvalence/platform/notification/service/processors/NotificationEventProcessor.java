@@ -12,7 +12,6 @@ import io.nuvalence.platform.notification.service.repository.MessageRepository;
 import io.nuvalence.platform.notification.service.service.MessageService;
 import io.nuvalence.platform.notification.service.service.SendMessageService;
 import io.nuvalence.platform.notification.service.service.TemplateService;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -51,8 +50,12 @@ public class NotificationEventProcessor implements EventProcessor<NotificationEv
         return event;
     }
 
+    /**
+     * Stores the notification and sends it. The message is saved and its status updated in
+     * separate short transactions, so no database connection is held while the provider is
+     * called.
+     */
     @Override
-    @Transactional
     public void execute() {
         log.debug(
                 "Received event {} of type {}",
@@ -99,9 +102,9 @@ public class NotificationEventProcessor implements EventProcessor<NotificationEv
         Message savedMessaged = messageRepository.save(message);
         try {
             sendMessageService.sendMessage(savedMessaged);
-            messageService.updateMessageStatus(savedMessaged.getId(), SENT_STATUS);
+            messageService.updateMessageStatus(savedMessaged, SENT_STATUS);
         } catch (UnprocessableNotificationException e) {
-            messageService.updateMessageStatus(savedMessaged.getId(), UNPROCESSABLE_STATUS);
+            messageService.updateMessageStatus(savedMessaged, UNPROCESSABLE_STATUS);
         } catch (Exception e) {
             log.error("An error occurred processing request", e);
         }
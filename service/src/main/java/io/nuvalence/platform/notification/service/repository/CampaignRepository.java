@@ -0,0 +1,57 @@
+package io.nuvalence.platform.notification.service.repository;
+
+import io.nuvalence.platform.notification.service.domain.Campaign;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Repository for {@link Campaign} entities.
+ */
+public interface CampaignRepository extends CrudRepository<Campaign, UUID> {
+
+    /**
+     * Lock the campaign with the given status that progressed the longest time ago. Campaigns
+     * locked by another replica are skipped where the database supports it.
+     *
+     * @param status   campaign status
+     * @param pageable maximum number of campaigns to lock
+     * @return campaigns with the status
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT c FROM Campaign c WHERE c.status = :status ORDER BY c.lastUpdatedTimestamp")
+    List<Campaign> findLeastRecentlyUpdated(@Param("status") String status, Pageable pageable);
+
+    /**
+     * Lock a campaign, so its status can be changed without racing the fan-out.
+     *
+     * @param id campaign id
+     * @return the campaign
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Campaign c WHERE c.id = :id")
+    Optional<Campaign> findLockedById(@Param("id") UUID id);
+
+    /**
+     * Read a chunk of the explicit audience of a campaign.
+     *
+     * @param id       campaign id
+     * @param from     index of the first recipient
+     * @param pageable maximum number of recipients
+     * @return ids of the recipients, in audience order
+     */
+    @Query(
+            "SELECT u FROM Campaign c JOIN c.userIds u WHERE c.id = :id AND INDEX(u) >= :from"
+                    + " ORDER BY INDEX(u)")
+    List<String> findRecipients(@Param("id") UUID id, @Param("from") int from, Pageable pageable);
+}
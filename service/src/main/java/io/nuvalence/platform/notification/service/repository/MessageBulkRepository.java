@@ -0,0 +1,28 @@
+package io.nuvalence.platform.notification.service.repository;
+
+import io.nuvalence.platform.notification.service.domain.Message;
+
+import java.util.Collection;
+
+/**
+ * Bulk operations on {@link Message} entities, bypassing the persistence context.
+ */
+public interface MessageBulkRepository {
+
+    /**
+     * Insert new messages with a single batched statement. Messages without an id are given one.
+     * The messages are not attached to the persistence context.
+     *
+     * @param messages messages to insert
+     */
+    void insertAll(Collection<Message> messages);
+
+    /**
+     * Update the status, sent timestamp and stage durations of existing messages with a single
+     * multi-row statement. Messages already sent or found unprocessable, by an earlier delivery
+     * of the same message, are left alone.
+     *
+     * @param messages messages to update, found by their id and requested timestamp
+     */
+    void updateStatuses(Collection<Message> messages);
+}
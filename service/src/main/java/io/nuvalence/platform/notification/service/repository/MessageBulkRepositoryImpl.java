@@ -0,0 +1,185 @@
+package io.nuvalence.platform.notification.service.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.nuvalence.platform.notification.service.domain.Message;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * JDBC implementation of {@link MessageBulkRepository}.
+ *
+ * <p>Saving through JPA issues one insert per message, batched at best by
+ * {@code hibernate.jdbc.batch_size} after each entity went through the persistence context. Here
+ * rows are sent straight to the driver in a single batch, which the PostgreSQL driver further
+ * rewrites into multi-row inserts when {@code reWriteBatchedInserts} is enabled.</p>
+ *
+ * <p>The parameters are sent as JSON text, cast to {@code jsonb} by PostgreSQL.</p>
+ *
+ * <p>Statuses are written with one {@code UPDATE ... FROM (VALUES ...)} statement joining the
+ * messages to a list of their new values, rather than one single-row update per message, which
+ * the driver does not rewrite. Messages are matched on their requested timestamp as well as their
+ * id, so only the partitions holding them are searched. Databases without
+ * {@code UPDATE ... FROM}, such as the H2 test database, get a batch of single-row updates
+ * instead.</p>
+ *
+ * <p>The first outcome recorded for a message wins: a message already sent or found
+ * unprocessable, by an earlier delivery of its PubSub message, keeps its status and timings.</p>
+ */
+public class MessageBulkRepositoryImpl implements MessageBulkRepository {
+
+    private static final String INSERT_MESSAGE =
+            "INSERT INTO message (id, user_id, message_template_key, status, requested_timestamp,"
+                    + " sent_timestamp, parameters) VALUES (?, ?, ?, ?, ?, ?, CAST(? AS jsonb))";
+
+    private static final String UPDATE_STATUSES =
+            "UPDATE message SET status = v.status, sent_timestamp = v.sent_timestamp,"
+                    + " queue_wait_millis = v.queue_wait_millis,"
+                    + " user_lookup_millis = v.user_lookup_millis, render_millis = v.render_millis,"
+                    + " provider_millis = v.provider_millis"
+                    + " FROM (VALUES %s) AS v (id, requested_timestamp, status, sent_timestamp,"
+                    + " queue_wait_millis, user_lookup_millis, render_millis, provider_millis)"
+                    + " WHERE message.id = v.id"
+                    + " AND message.requested_timestamp = v.requested_timestamp"
+                    + " AND message.status NOT IN ('SENT', 'UNPROCESSABLE')";
+
+    private static final String UPDATE_STATUS =
+            "UPDATE message SET status = ?, sent_timestamp = ?, queue_wait_millis = ?,"
+                    + " user_lookup_millis = ?, render_millis = ?, provider_millis = ?"
+                    + " WHERE id = ? AND requested_timestamp = ?"
+                    + " AND status NOT IN ('SENT', 'UNPROCESSABLE')";
+
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    // typed, as the types of a VALUES list are otherwise inferred from its first row
+    private static final String STATUS_ROW =
+            "(CAST(? AS uuid), CAST(? AS timestamp), CAST(? AS varchar), CAST(? AS timestamp),"
+                + " CAST(? AS bigint), CAST(? AS bigint), CAST(? AS bigint), CAST(? AS bigint))";
+
+    // keeps a statement well under the 32767 bind parameters PostgreSQL accepts
+    private static final int MAX_ROWS_PER_UPDATE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private volatile Boolean updateFromSupported;
+
+    /**
+     * Constructor.
+     *
+     * @param jdbcTemplate template used to run the inserts
+     * @param objectMapper mapper used to serialize the parameters
+     */
+    public MessageBulkRepositoryImpl(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void insertAll(Collection<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        List<Object[]> messageRows = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            if (message.getId() == null) {
+                message.setId(UUID.randomUUID());
+            }
+            messageRows.add(
+                    new Object[] {
+                        message.getId(),
+                        message.getUserId(),
+                        message.getMessageTemplateKey(),
+                        message.getStatus(),
+                        message.getRequestedTimestamp(),
+                        message.getSentTimestamp(),
+                        new SqlParameterValue(Types.OTHER, toJson(message))
+                    });
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_MESSAGE, messageRows);
+    }
+
+    @Override
+    public void updateStatuses(Collection<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        if (!isUpdateFromSupported()) {
+            updateStatusesOneByOne(messages);
+            return;
+        }
+        List<Message> rows = new ArrayList<>(messages);
+        for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_UPDATE) {
+            List<Message> chunk =
+                    rows.subList(from, Math.min(from + MAX_ROWS_PER_UPDATE, rows.size()));
+            List<Object> arguments = new ArrayList<>();
+            for (Message message : chunk) {
+                arguments.add(message.getId());
+                arguments.add(message.getRequestedTimestamp());
+                arguments.add(message.getStatus());
+                arguments.add(message.getSentTimestamp());
+                arguments.add(message.getQueueWaitMillis());
+                arguments.add(message.getUserLookupMillis());
+                arguments.add(message.getRenderMillis());
+                arguments.add(message.getProviderMillis());
+            }
+            jdbcTemplate.update(
+                    String.format(
+                            UPDATE_STATUSES,
+                            String.join(", ", Collections.nCopies(chunk.size(), STATUS_ROW))),
+                    arguments.toArray());
+        }
+    }
+
+    private void updateStatusesOneByOne(Collection<Message> messages) {
+        List<Object[]> statusRows = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            statusRows.add(
+                    new Object[] {
+                        message.getStatus(),
+                        message.getSentTimestamp(),
+                        message.getQueueWaitMillis(),
+                        message.getUserLookupMillis(),
+                        message.getRenderMillis(),
+                        message.getProviderMillis(),
+                        message.getId(),
+                        message.getRequestedTimestamp()
+                    });
+        }
+        jdbcTemplate.batchUpdate(UPDATE_STATUS, statusRows);
+    }
+
+    private boolean isUpdateFromSupported() {
+        if (updateFromSupported == null) {
+            updateFromSupported =
+                    jdbcTemplate.execute(
+                            (ConnectionCallback<Boolean>)
+                                    connection ->
+                                            POSTGRESQL.equals(
+                                                    connection
+                                                            .getMetaData()
+                                                            .getDatabaseProductName()));
+        }
+        return updateFromSupported;
+    }
+
+    private String toJson(Message message) {
+        try {
+            return message.getParameters() == null
+                    ? null
+                    : objectMapper.writeValueAsString(message.getParameters());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Message parameters could not be serialized", e);
+        }
+    }
+}
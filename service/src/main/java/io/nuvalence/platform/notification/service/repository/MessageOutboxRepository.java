@@ -0,0 +1,60 @@
+package io.nuvalence.platform.notification.service.repository;
+
+import io.nuvalence.platform.notification.service.domain.MessageOutboxEntry;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for {@link MessageOutboxEntry} entities.
+ */
+public interface MessageOutboxRepository extends CrudRepository<MessageOutboxEntry, UUID> {
+
+    /**
+     * Lock the oldest entries due for publishing. Rows locked by another replica are skipped
+     * where the database supports it.
+     *
+     * @param now      current time
+     * @param pageable maximum number of entries to lock
+     * @return entries due for publishing
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query(
+            "SELECT e FROM MessageOutboxEntry e WHERE e.publishedTimestamp IS NULL"
+                    + " AND e.nextAttemptTimestamp <= :now ORDER BY e.nextAttemptTimestamp")
+    List<MessageOutboxEntry> findDueForPublishing(
+            @Param("now") OffsetDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query(
+            "UPDATE MessageOutboxEntry e SET e.publishedTimestamp = :publishedTimestamp"
+                    + " WHERE e.id IN :ids")
+    void markPublished(
+            @Param("ids") Collection<UUID> ids,
+            @Param("publishedTimestamp") OffsetDateTime publishedTimestamp);
+
+    @Modifying
+    @Query(
+            "UPDATE MessageOutboxEntry e SET e.attempts = e.attempts + 1, e.lastError = :error,"
+                    + " e.nextAttemptTimestamp = :nextAttemptTimestamp WHERE e.id = :id")
+    void markFailed(
+            @Param("id") UUID id,
+            @Param("error") String error,
+            @Param("nextAttemptTimestamp") OffsetDateTime nextAttemptTimestamp);
+
+    @Modifying
+    @Query("DELETE FROM MessageOutboxEntry e WHERE e.publishedTimestamp < :before")
+    int deletePublishedBefore(@Param("before") OffsetDateTime before);
+}
@@ -1,18 +1,103 @@
 package io.nuvalence.platform.notification.service.repository;
 
 import io.nuvalence.platform.notification.service.domain.Message;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
 
 /**
  * Message repository.
  */
-public interface MessageRepository extends CrudRepository<Message, UUID> {
+public interface MessageRepository
+        extends CrudRepository<Message, UUID>,
+                JpaSpecificationExecutor<Message>,
+                MessageBulkRepository {
+    String STUCK_MESSAGES =
+            "SELECT m FROM Message m WHERE m.status = 'QUEUED' AND m.requestedTimestamp < :before"
+                    + " AND (m.sweptTimestamp IS NULL OR m.sweptTimestamp < :before)"
+                    + " AND NOT EXISTS (SELECT e FROM MessageOutboxEntry e"
+                    + " WHERE e.messageId = m.id AND e.publishedTimestamp IS NULL)";
+    String STUCK_MESSAGES_ORDER = " ORDER BY m.requestedTimestamp, m.id";
+
+    /**
+     * Update the status of a message, unless it was already sent or found unprocessable by an
+     * earlier delivery of the message. The requested timestamp, the partition key of the message
+     * table, lets the database update only the partition holding the message.
+     *
+     * @param id                 the message id
+     * @param requestedTimestamp the requested timestamp of the message
+     * @param status             the new status
+     * @param sentTimestamp      the sent timestamp, null if not sent
+     */
     @Modifying
-    @Query("UPDATE Message m SET m.status = :status WHERE m.id = :id")
-    void updateMessageStatus(@Param("id") UUID id, @Param("status") String status);
+    @Query(
+            "UPDATE Message m SET m.status = :status, m.sentTimestamp = :sentTimestamp"
+                    + " WHERE m.id = :id AND m.requestedTimestamp = :requestedTimestamp"
+                    + " AND m.status NOT IN ('SENT', 'UNPROCESSABLE')")
+    void updateMessageStatus(
+            @Param("id") UUID id,
+            @Param("requestedTimestamp") OffsetDateTime requestedTimestamp,
+            @Param("status") String status,
+            @Param("sentTimestamp") OffsetDateTime sentTimestamp);
+
+    /**
+     * Lock messages whose parameters are not stored in the parameters column yet. Messages locked
+     * by another replica are skipped where the database supports it.
+     *
+     * @param pageable maximum number of messages to lock
+     * @return messages to backfill
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT m FROM Message m WHERE m.parameters IS NULL")
+    List<Message> findWithoutParameters(Pageable pageable);
+
+    /**
+     * Lock the oldest QUEUED messages requested before a time, which were not swept since then
+     * and are not waiting in the outbox. Messages locked by another replica are skipped where
+     * the database supports it.
+     *
+     * @param before   messages requested or swept after this time are left alone
+     * @param pageable maximum number of messages to lock
+     * @return stuck messages, by requested timestamp and id
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query(STUCK_MESSAGES + STUCK_MESSAGES_ORDER)
+    List<Message> findStuck(@Param("before") OffsetDateTime before, Pageable pageable);
+
+    /**
+     * Lock the next stuck messages after a position of the requested timestamp and id order, as
+     * {@link #findStuck(OffsetDateTime, Pageable)} does from the start.
+     *
+     * @param before         messages requested or swept after this time are left alone
+     * @param afterTimestamp requested timestamp of the last message of the previous chunk
+     * @param afterId        id of the last message of the previous chunk
+     * @param pageable       maximum number of messages to lock
+     * @return stuck messages, by requested timestamp and id
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query(
+            STUCK_MESSAGES
+                    + " AND m.requestedTimestamp >= :afterTimestamp"
+                    + " AND (m.requestedTimestamp > :afterTimestamp"
+                    + " OR (m.requestedTimestamp = :afterTimestamp AND m.id > :afterId))"
+                    + STUCK_MESSAGES_ORDER)
+    List<Message> findStuckAfter(
+            @Param("before") OffsetDateTime before,
+            @Param("afterTimestamp") OffsetDateTime afterTimestamp,
+            @Param("afterId") UUID afterId,
+            Pageable pageable);
 }
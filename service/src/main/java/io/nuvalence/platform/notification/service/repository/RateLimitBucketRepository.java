@@ -0,0 +1,164 @@
+package io.nuvalence.platform.notification.service.repository;
+
+import io.nuvalence.platform.notification.service.domain.RateLimitBucket;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Stores the rate limit buckets shared by every replica in the rate_limit_bucket table.
+ *
+ * <p>Callers take several tokens per lease, see {@link RateLimitBucket#lease}, so the bucket row
+ * is updated once per block of calls rather than for every call. On PostgreSQL a lease is a
+ * single statement: it locks the row, refills and takes the tokens, and returns what it took, so
+ * replicas take their tokens from the same budget one after the other without holding a
+ * transaction open across round trips. Other databases, such as the H2 test database, lock the
+ * row, update it and commit in a transaction instead.</p>
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class RateLimitBucketRepository {
+
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private static final String LEASE_TOKENS =
+            "WITH refilled AS (SELECT bucket_key,"
+                    + " LEAST(CAST(? AS double precision), tokens"
+                    + " + GREATEST(0, ? - refreshed_micros) * CAST(? AS double precision))"
+                    + " AS tokens,"
+                    + " GREATEST(refreshed_micros, ?) AS refreshed_micros"
+                    + " FROM rate_limit_bucket WHERE bucket_key = ? FOR UPDATE),"
+                    + " leased AS (SELECT bucket_key, tokens, refreshed_micros,"
+                    + " GREATEST(0, LEAST(?, FLOOR(tokens + CAST(? AS double precision))))"
+                    + " AS taken FROM refilled)"
+                    + " UPDATE rate_limit_bucket SET tokens = leased.tokens - leased.taken,"
+                    + " refreshed_micros = leased.refreshed_micros FROM leased"
+                    + " WHERE rate_limit_bucket.bucket_key = leased.bucket_key"
+                    + " RETURNING leased.tokens, leased.taken";
+
+    private static final String LOCK_BUCKET =
+            "SELECT tokens, refreshed_micros FROM rate_limit_bucket"
+                    + " WHERE bucket_key = ? FOR UPDATE";
+
+    private static final String INSERT_BUCKET =
+            "INSERT INTO rate_limit_bucket (bucket_key, tokens, refreshed_micros) VALUES (?, ?, ?)";
+
+    private static final String UPDATE_BUCKET =
+            "UPDATE rate_limit_bucket SET tokens = ?, refreshed_micros = ? WHERE bucket_key = ?";
+
+    private static final double MICROS_PER_SECOND = 1e6;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Boolean singleStatementLease;
+
+    /**
+     * Take several tokens from a shared bucket, creating the bucket full when missing.
+     *
+     * @param key              key of the bucket
+     * @param nowMicros        current time, in microseconds since the epoch
+     * @param permitsPerSecond rate at which the bucket is refilled
+     * @param burst            maximum number of tokens the bucket holds
+     * @param maxWaitMicros    maximum wait for the tokens, in microseconds
+     * @param maxTokens        maximum number of tokens to take
+     * @return lease of the tokens taken, holding none when the first one would exceed the
+     *     maximum wait
+     */
+    public RateLimitBucket.Lease lease(
+            String key,
+            long nowMicros,
+            double permitsPerSecond,
+            double burst,
+            long maxWaitMicros,
+            int maxTokens) {
+        RateLimitBucket.Lease lease =
+                leaseExisting(key, nowMicros, permitsPerSecond, burst, maxWaitMicros, maxTokens);
+        if (lease == null) {
+            try {
+                jdbcTemplate.update(INSERT_BUCKET, key, burst, nowMicros);
+            } catch (DuplicateKeyException e) {
+                log.debug("Rate limit bucket {} was created by another replica", key);
+            }
+            lease =
+                    leaseExisting(
+                            key, nowMicros, permitsPerSecond, burst, maxWaitMicros, maxTokens);
+        }
+        return lease;
+    }
+
+    private RateLimitBucket.Lease leaseExisting(
+            String key,
+            long nowMicros,
+            double permitsPerSecond,
+            double burst,
+            long maxWaitMicros,
+            int maxTokens) {
+        if (!isSingleStatementLeaseSupported()) {
+            return transactionTemplate.execute(
+                    status ->
+                            lockAndLease(
+                                    key,
+                                    bucket ->
+                                            bucket.lease(
+                                                    nowMicros,
+                                                    permitsPerSecond,
+                                                    burst,
+                                                    maxWaitMicros,
+                                                    maxTokens)));
+        }
+        List<RateLimitBucket.Lease> leases =
+                jdbcTemplate.query(
+                        LEASE_TOKENS,
+                        (rs, rowNum) ->
+                                new RateLimitBucket.Lease(
+                                        rs.getDouble(1), (int) rs.getDouble(2), nowMicros),
+                        burst,
+                        nowMicros,
+                        permitsPerSecond / MICROS_PER_SECOND,
+                        nowMicros,
+                        key,
+                        maxTokens,
+                        maxWaitMicros * permitsPerSecond / MICROS_PER_SECOND);
+        return leases.isEmpty() ? null : leases.get(0);
+    }
+
+    private RateLimitBucket.Lease lockAndLease(
+            String key, Function<RateLimitBucket, RateLimitBucket.Lease> lease) {
+        List<RateLimitBucket> buckets =
+                jdbcTemplate.query(
+                        LOCK_BUCKET,
+                        (rs, rowNum) -> new RateLimitBucket(rs.getDouble(1), rs.getLong(2)),
+                        key);
+        if (buckets.isEmpty()) {
+            return null;
+        }
+        RateLimitBucket bucket = buckets.get(0);
+        RateLimitBucket.Lease result = lease.apply(bucket);
+        jdbcTemplate.update(UPDATE_BUCKET, bucket.getTokens(), bucket.getRefreshedMicros(), key);
+        return result;
+    }
+
+    private boolean isSingleStatementLeaseSupported() {
+        if (singleStatementLease == null) {
+            singleStatementLease =
+                    jdbcTemplate.execute(
+                            (ConnectionCallback<Boolean>)
+                                    connection ->
+                                            POSTGRESQL.equals(
+                                                    connection
+                                                            .getMetaData()
+                                                            .getDatabaseProductName()));
+        }
+        return singleStatementLease;
+    }
+}
@@ -0,0 +1,207 @@
+package io.nuvalence.platform.notification.service.service;
+
+import io.nuvalence.platform.notification.service.exception.UnprocessableNotificationException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Sends the requests of a provider called through a non-blocking HTTP client.
+ *
+ * <p>Sends return as soon as the request is written. Once {@code maxInFlight} requests are
+ * awaiting an answer, the caller blocks until one completes. A request over the rate of its
+ * limiter is scheduled for when its token is available instead of making the caller sleep. Only
+ * then does the request go through the provider's guard, so throttled requests do not hold its
+ * bulkhead.</p>
+ *
+ * <p>A 2xx answer completes the send. A client error other than throttling, such as a bad request
+ * or an authentication error, is a rejection of the notification and fails it with an
+ * {@link UnprocessableNotificationException}. Throttling and server errors fail it with the
+ * provider's retryable exception, as do network errors, so it is retried. See
+ * {@link ProviderStatusCodes}.</p>
+ *
+ * @param <E> type of the exception failing the sends to retry
+ */
+@Slf4j
+class AsyncHttpSender<E extends Exception> {
+
+    private final String provider;
+
+    private final String notification;
+
+    private final HttpClient httpClient;
+
+    private final Semaphore inFlight;
+
+    private final ProviderRateLimiter rateLimiter;
+
+    private final DependencyGuard guard;
+
+    private final Class<E> errorType;
+
+    private final Function<Throwable, E> networkError;
+
+    private final IntFunction<E> retryableAnswer;
+
+    /**
+     * Constructor.
+     *
+     * @param provider        name of the provider, used in the logs
+     * @param notification    kind of notification sent, such as email, used in the logs
+     * @param httpClient      client sending the requests
+     * @param maxInFlight     maximum number of requests awaiting an answer
+     * @param rateLimiter     limiter of the requests to the provider
+     * @param guard           circuit breaker and bulkhead of the requests to the provider
+     * @param errorType       type of the exception failing the sends to retry
+     * @param networkError    wraps a network error into the exception failing the send
+     * @param retryableAnswer creates the exception failing a send answered with a status code
+     */
+    AsyncHttpSender(
+            String provider,
+            String notification,
+            HttpClient httpClient,
+            int maxInFlight,
+            ProviderRateLimiter rateLimiter,
+            DependencyGuard guard,
+            Class<E> errorType,
+            Function<Throwable, E> networkError,
+            IntFunction<E> retryableAnswer) {
+        this.provider = provider;
+        this.notification = notification;
+        this.httpClient = httpClient;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.rateLimiter = rateLimiter;
+        this.guard = guard;
+        this.errorType = errorType;
+        this.networkError = networkError;
+        this.retryableAnswer = retryableAnswer;
+    }
+
+    /**
+     * Send a request once the rate limit allows it.
+     *
+     * @param rateLimitKey key of the rate limit the request counts against
+     * @param request      request to send
+     * @param to           recipient of the notification, used in the logs
+     * @return future completed once the provider accepted the notification, failed with a
+     *     {@link io.nuvalence.platform.notification.service.exception.DependencyUnavailableException}
+     *     if the guard refuses the request
+     */
+    CompletableFuture<Void> send(String rateLimitKey, HttpRequest request, String to) {
+        long waitMicros;
+        try {
+            waitMicros = rateLimiter.reserve(rateLimitKey);
+            inFlight.acquire();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(networkError.apply(e));
+        }
+
+        CompletableFuture<Void> sent =
+                waitMicros == 0
+                        ? guard.callAsync(() -> sendNow(request, to))
+                        : CompletableFuture.runAsync(
+                                        () -> {},
+                                        CompletableFuture.delayedExecutor(
+                                                waitMicros, TimeUnit.MICROSECONDS))
+                                .thenCompose(
+                                        ignored -> guard.callAsync(() -> sendNow(request, to)));
+        // the place in flight is also given back when the guard refuses the request
+        sent.whenComplete((ignored, error) -> inFlight.release());
+        return sent;
+    }
+
+    /**
+     * Wait for a send to complete, for the providers' blocking api.
+     *
+     * @param sent future of the send
+     * @throws E if the send failed and should be retried
+     * @throws UnprocessableNotificationException if the provider rejects the notification
+     */
+    void await(CompletableFuture<Void> sent) throws E {
+        try {
+            sent.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw networkError.apply(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (errorType.isInstance(cause)) {
+                throw errorType.cast(cause);
+            }
+            throw networkError.apply(cause);
+        }
+    }
+
+    private CompletableFuture<Void> sendNow(HttpRequest request, String to) {
+        CompletableFuture<Void> sent = new CompletableFuture<>();
+        try {
+            httpClient
+                    .sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, error) -> complete(sent, to, response, error));
+        } catch (RuntimeException e) {
+            sent.completeExceptionally(e);
+        }
+        return sent;
+    }
+
+    private void complete(
+            CompletableFuture<Void> sent,
+            String to,
+            HttpResponse<String> response,
+            Throwable error) {
+        if (error != null) {
+            Throwable cause =
+                    error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause()
+                            : error;
+            log.warn(
+                    "Network issue encountered while sending {} to {}. This operation will be"
+                            + " retried. Error details: {}",
+                    notification,
+                    to,
+                    cause.getMessage());
+            sent.completeExceptionally(
+                    errorType.isInstance(cause) ? cause : networkError.apply(cause));
+            return;
+        }
+
+        int statusCode = response.statusCode();
+        if (statusCode >= 200 && statusCode <= 299) {
+            log.trace("{} sent to {} with status code {}", notification, to, statusCode);
+            sent.complete(null);
+        } else if (ProviderStatusCodes.isRejection(statusCode)) {
+            String badRequest =
+                    String.format(
+                            "Bad request response obtained from %s with code %d, could not send"
+                                    + " %s to %s",
+                            provider, statusCode, notification, to);
+            log.error("{}: {}", badRequest, response.body());
+            sent.completeExceptionally(new UnprocessableNotificationException(badRequest));
+        } else {
+            log.warn(
+                    "{} answered with status code {} while sending {} to {}. This operation will"
+                            + " be retried. Error details: {}",
+                    provider,
+                    statusCode,
+                    notification,
+                    to,
+                    response.body());
+            sent.completeExceptionally(retryableAnswer.apply(statusCode));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package io.nuvalence.platform.notification.service.service;
+
+import com.google.cloud.pubsub.v1.Subscriber;
+import com.google.cloud.spring.pubsub.PubSubAdmin;
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+import com.google.protobuf.Duration;
+import com.google.pubsub.v1.ExpirationPolicy;
+import com.google.pubsub.v1.Subscription;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Propagates cache invalidations to every replica of the service.
+ *
+ * <p>Each replica owns a short-lived subscription to the invalidation topic, so an entry
+ * invalidated on one replica is dropped by all of them. When broadcasting is disabled the
+ * invalidation only applies to the local caches.</p>
+ */
+@Slf4j
+@Service
+public class CacheInvalidationService {
+
+    static final String CACHE_ATTRIBUTE = "cache";
+    static final String ORIGIN_ATTRIBUTE = "origin";
+
+    private static final long SUBSCRIPTION_EXPIRATION_SECONDS = 24 * 60 * 60L;
+
+    private final Map<String, Consumer<String>> listeners = new ConcurrentHashMap<>();
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final PubSubTemplate pubSubTemplate;
+
+    private final PubSubAdmin pubSubAdmin;
+
+    private final boolean broadcastEnabled;
+
+    private final String topic;
+
+    private final boolean createTopic;
+
+    private String subscription;
+
+    private Subscriber subscriber;
+
+    /**
+     * Constructor.
+     *
+     * @param pubSubTemplate   PubSub template used to publish and pull invalidations
+     * @param pubSubAdmin      PubSub admin used to manage the replica subscription
+     * @param broadcastEnabled whether invalidations are broadcast to other replicas
+     * @param topic            the name of the topic invalidations are published to
+     * @param createTopic      whether to create the topic if it doesn't exist
+     */
+    public CacheInvalidationService(
+            PubSubTemplate pubSubTemplate,
+            PubSubAdmin pubSubAdmin,
+            @Value("${cache.invalidation.enabled:false}") boolean broadcastEnabled,
+            @Value("${spring.cloud.gcp.pubsub.cacheInvalidationTopic:}") String topic,
+            @Value("${spring.cloud.gcp.pubsub.enableTopicCreation:false}") boolean createTopic) {
+        this.pubSubTemplate = pubSubTemplate;
+        this.pubSubAdmin = pubSubAdmin;
+        this.broadcastEnabled = broadcastEnabled;
+        this.topic = topic;
+        this.createTopic = createTopic;
+    }
+
+    /**
+     * Creates this replica's subscription and starts listening for invalidations.
+     */
+    @PostConstruct
+    public void subscribe() {
+        if (!broadcastEnabled) {
+            return;
+        }
+        if (createTopic && pubSubAdmin.getTopic(topic) == null) {
+            log.info("Creating topic: {}", topic);
+            pubSubAdmin.createTopic(topic);
+        }
+
+        subscription = topic.replace("/topics/", "/subscriptions/") + "-" + instanceId;
+        log.info("Creating subscription: {}, topic: {}", subscription, topic);
+        pubSubAdmin.createSubscription(
+                Subscription.newBuilder()
+                        .setName(subscription)
+                        .setTopic(topic)
+                        .setExpirationPolicy(
+                                ExpirationPolicy.newBuilder()
+                                        .setTtl(
+                                                Duration.newBuilder()
+                                                        .setSeconds(
+                                                                SUBSCRIPTION_EXPIRATION_SECONDS))));
+        subscriber = pubSubTemplate.subscribe(subscription, this::handleMessage);
+    }
+
+    /**
+     * Stops listening for invalidations and removes this replica's subscription.
+     */
+    @PreDestroy
+    public void unsubscribe() {
+        if (subscriber != null) {
+            subscriber.stopAsync();
+        }
+        if (subscription != null) {
+            try {
+                pubSubAdmin.deleteSubscription(subscription);
+            } catch (RuntimeException e) {
+                log.warn("Could not delete subscription {}", subscription, e);
+            }
+        }
+    }
+
+    /**
+     * Registers the action invoked when an entry of the given cache is invalidated.
+     *
+     * @param cacheName cache name
+     * @param listener  action receiving the invalidated key
+     */
+    public void registerListener(String cacheName, Consumer<String> listener) {
+        listeners.put(cacheName, listener);
+    }
+
+    /**
+     * Invalidates a cache entry on this and every other replica. When called inside a
+     * transaction, the invalidation is deferred until the transaction commits so other readers
+     * cannot reload the previous state.
+     *
+     * @param cacheName cache name
+     * @param key       key of the entry to invalidate
+     */
+    public void invalidate(String cacheName, String key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronization() {
+                        @Override
+                        public void afterCommit() {
+                            invalidateNow(cacheName, key);
+                        }
+                    });
+        } else {
+            invalidateNow(cacheName, key);
+        }
+    }
+
+    private void invalidateNow(String cacheName, String key) {
+        applyLocally(cacheName, key);
+        if (!broadcastEnabled) {
+            return;
+        }
+        pubSubTemplate
+                .publish(
+                        topic,
+                        key,
+                        Map.of(CACHE_ATTRIBUTE, cacheName, ORIGIN_ATTRIBUTE, instanceId))
+                .whenComplete(
+                        (messageId, e) -> {
+                            if (e != null) {
+                                log.error(
+                                        "Could not broadcast invalidation of {} in cache {}",
+                                        key,
+                                        cacheName,
+                                        e);
+                            }
+                        });
+    }
+
+    void handleMessage(BasicAcknowledgeablePubsubMessage message) {
+        Map<String, String> attributes = message.getPubsubMessage().getAttributesMap();
+        if (!instanceId.equals(attributes.get(ORIGIN_ATTRIBUTE))) {
+            applyLocally(
+                    attributes.get(CACHE_ATTRIBUTE),
+                    message.getPubsubMessage().getData().toStringUtf8());
+        }
+        message.ack();
+    }
+
+    private void applyLocally(String cacheName, String key) {
+        Consumer<String> listener = listeners.get(cacheName);
+        if (listener != null) {
+            log.debug("Invalidating {} in cache {}", key, cacheName);
+            listener.accept(key);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package io.nuvalence.platform.notification.service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fans the running campaigns out into messages, one chunk at a time.
+ *
+ * <p>Chunks are throttled with a token bucket refilled at
+ * {@code campaigns.fan-out.max-messages-per-second}, so a large campaign does not flood the
+ * outbox and the providers behind it. Running campaigns take turns, the least recently progressed
+ * one going first.</p>
+ */
+@Slf4j
+@Component
+public class CampaignFanOut {
+
+    private final CampaignService campaignService;
+
+    private final double maxMessagesPerSecond;
+
+    private final double maxBudget;
+
+    private double budget;
+
+    private long lastRefill;
+
+    /**
+     * Constructor.
+     *
+     * @param campaignService      service fanning out the campaign chunks
+     * @param chunkSize            maximum number of recipients fanned out per chunk
+     * @param maxMessagesPerSecond maximum rate at which campaign messages are queued
+     */
+    public CampaignFanOut(
+            CampaignService campaignService,
+            @Value("${campaigns.fan-out.chunk-size:500}") int chunkSize,
+            @Value("${campaigns.fan-out.max-messages-per-second:1000}")
+                    double maxMessagesPerSecond) {
+        this.campaignService = campaignService;
+        this.maxMessagesPerSecond = maxMessagesPerSecond;
+        this.maxBudget = Math.max(chunkSize, maxMessagesPerSecond);
+        this.budget = maxBudget;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Fan out as many chunks as the rate limit allows.
+     */
+    @Scheduled(fixedDelayString = "${campaigns.fan-out.interval:PT1S}")
+    public synchronized void fanOut() {
+        long now = System.nanoTime();
+        budget = Math.min(maxBudget, budget + maxMessagesPerSecond * (now - lastRefill) / 1e9);
+        lastRefill = now;
+
+        // a chunk may overdraw the budget, the next runs wait until it is paid back
+        while (budget >= 1) {
+            int processed = campaignService.processNextChunk();
+            if (processed <= 0) {
+                break;
+            }
+            log.debug("Queued a chunk of {} campaign messages", processed);
+            budget -= processed;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package io.nuvalence.platform.notification.service.service;
+
+import io.nuvalence.auth.token.UserToken;
+import io.nuvalence.platform.notification.service.domain.Campaign;
+import io.nuvalence.platform.notification.service.domain.Message;
+import io.nuvalence.platform.notification.service.exception.BadDataException;
+import io.nuvalence.platform.notification.service.exception.NotFoundException;
+import io.nuvalence.platform.notification.service.repository.CampaignRepository;
+import io.nuvalence.platform.notification.service.service.usermanagementapi.UserManagementClientService;
+import io.nuvalence.platform.notification.usermanagent.client.ApiException;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Service for managing {@link Campaign} entities and fanning them out into messages.
+ */
+@Slf4j
+@Service
+public class CampaignService {
+
+    static final String RUNNING_STATUS = "RUNNING";
+    static final String PAUSED_STATUS = "PAUSED";
+    static final String COMPLETED_STATUS = "COMPLETED";
+    static final String FAILED_STATUS = "FAILED";
+
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final CampaignRepository campaignRepository;
+
+    private final TemplateService templateService;
+
+    private final MessageService messageService;
+
+    private final UserManagementClientService userManagementClientService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+
+    /**
+     * Constructor.
+     *
+     * @param campaignRepository          campaign repository
+     * @param templateService             service used to check the campaign template exists
+     * @param messageService              service queuing the messages of each chunk
+     * @param userManagementClientService service resolving query audiences
+     * @param transactionTemplate         template of the short fan-out transactions
+     * @param chunkSize                   maximum number of recipients fanned out per chunk
+     */
+    public CampaignService(
+            CampaignRepository campaignRepository,
+            TemplateService templateService,
+            MessageService messageService,
+            UserManagementClientService userManagementClientService,
+            TransactionTemplate transactionTemplate,
+            @Value("${campaigns.fan-out.chunk-size:500}") int chunkSize) {
+        this.campaignRepository = campaignRepository;
+        this.templateService = templateService;
+        this.messageService = messageService;
+        this.userManagementClientService = userManagementClientService;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Get a campaign by id.
+     *
+     * @param id the campaign id
+     * @return the campaign
+     */
+    public Optional<Campaign> findBy(UUID id) {
+        return campaignRepository.findById(id);
+    }
+
+    /**
+     * Start a campaign. Only the campaign is saved here, its messages are queued in the
+     * background by {@link CampaignFanOut}.
+     *
+     * @param campaign the campaign
+     * @return the saved campaign
+     * @throws NotFoundException when the template does not exist
+     * @throws BadDataException  when the audience is not exactly one of a list or a non-empty
+     *     query
+     */
+    @Transactional
+    public Campaign create(Campaign campaign) {
+        if (templateService.getTemplate(campaign.getMessageTemplateKey()).isEmpty()) {
+            throw new NotFoundException("Template not found");
+        }
+        boolean hasUserIds = campaign.getUserIds() != null && !campaign.getUserIds().isEmpty();
+        boolean hasQuery =
+                campaign.getAudienceQuery() != null && !campaign.getAudienceQuery().isEmpty();
+        if (hasUserIds == hasQuery) {
+            throw new BadDataException("Audience must be either a list of user ids or a query");
+        }
+        if (!hasQuery) {
+            campaign.setAudienceQuery(null);
+        }
+
+        OffsetDateTime now = now();
+        campaign.setId(null);
+        campaign.setStatus(RUNNING_STATUS);
+        campaign.setNextPosition(0);
+        campaign.setTotalCount(hasUserIds ? campaign.getUserIds().size() : null);
+        campaign.setCreatedBy(getCreatedBy().orElse(null));
+        campaign.setCreatedTimestamp(now);
+        campaign.setLastUpdatedTimestamp(now);
+        return campaignRepository.save(campaign);
+    }
+
+    /**
+     * Pause a running campaign. The chunk being fanned out, if any, is completed first.
+     *
+     * @param id the campaign id
+     * @return the paused campaign
+     * @throws NotFoundException when the campaign does not exist
+     * @throws BadDataException  when the campaign is not running
+     */
+    @Transactional
+    public Campaign pause(UUID id) {
+        return changeStatus(id, RUNNING_STATUS, PAUSED_STATUS);
+    }
+
+    /**
+     * Resume a paused campaign where it stopped.
+     *
+     * @param id the campaign id
+     * @return the resumed campaign
+     * @throws NotFoundException when the campaign does not exist
+     * @throws BadDataException  when the campaign is not paused
+     */
+    @Transactional
+    public Campaign resume(UUID id) {
+        return changeStatus(id, PAUSED_STATUS, RUNNING_STATUS);
+    }
+
+    /**
+     * Fan out the next chunk of the running campaign that progressed the longest time ago.
+     *
+     * <p>The campaign is claimed in a short transaction, which moves it to the back of the queue,
+     * and its audience is read outside of any transaction, so no database connection nor row lock
+     * is held while user management is called. The messages and the progress of the campaign are
+     * then saved in one transaction, after checking under lock that the campaign is still running
+     * at the same position, so a chunk is never queued twice nor skipped.</p>
+     *
+     * @return number of recipients processed, 0 when no campaign is running, its audience could
+     *     not be read or it progressed in the meantime
+     */
+    public int processNextChunk() {
+        Campaign campaign = transactionTemplate.execute(status -> claimNextCampaign());
+        if (campaign == null) {
+            return 0;
+        }
+
+        boolean isQuery = campaign.getAudienceQuery() != null;
+        List<String> recipients;
+        try {
+            recipients = readRecipients(campaign, isQuery);
+        } catch (ApiException e) {
+            log.warn("Could not read the audience of campaign {}", campaign.getId(), e);
+            String error = truncate(e.getMessage());
+            transactionTemplate.executeWithoutResult(
+                    status -> lockIfAt(campaign).ifPresent(current -> current.setLastError(error)));
+            return 0;
+        }
+
+        Integer processed =
+                transactionTemplate.execute(
+                        status ->
+                                lockIfAt(campaign)
+                                        .map(current -> applyChunk(current, isQuery, recipients))
+                                        .orElse(0));
+        return processed == null ? 0 : processed;
+    }
+
+    private Campaign claimNextCampaign() {
+        List<Campaign> campaigns =
+                campaignRepository.findLeastRecentlyUpdated(RUNNING_STATUS, PageRequest.of(0, 1));
+        if (campaigns.isEmpty()) {
+            return null;
+        }
+        Campaign campaign = campaigns.get(0);
+        campaign.setLastUpdatedTimestamp(now());
+        return campaign;
+    }
+
+    // locks the campaign, unless it was paused or another replica fanned out the chunk meanwhile
+    private Optional<Campaign> lockIfAt(Campaign claimed) {
+        Optional<Campaign> current =
+                campaignRepository
+                        .findLockedById(claimed.getId())
+                        .filter(campaign -> RUNNING_STATUS.equals(campaign.getStatus()))
+                        .filter(
+                                campaign ->
+                                        campaign.getNextPosition() == claimed.getNextPosition());
+        if (current.isEmpty()) {
+            log.debug("Campaign {} changed while its audience was read", claimed.getId());
+        }
+        return current;
+    }
+
+    private int applyChunk(Campaign campaign, boolean isQuery, List<String> recipients) {
+        OffsetDateTime now = now();
+        List<MessageService.SaveResult> results =
+                messageService.saveAll(
+                        recipients.stream()
+                                .map(userId -> toMessage(campaign, userId))
+                                .collect(Collectors.toList()));
+        int queued = (int) results.stream().filter(result -> result.getMessage() != null).count();
+        campaign.setProcessedCount(campaign.getProcessedCount() + recipients.size());
+        campaign.setQueuedCount(campaign.getQueuedCount() + queued);
+        campaign.setRejectedCount(campaign.getRejectedCount() + recipients.size() - queued);
+        campaign.setNextPosition(campaign.getNextPosition() + (isQuery ? 1 : recipients.size()));
+        campaign.setLastUpdatedTimestamp(now);
+
+        if (!recipients.isEmpty() && queued == 0) {
+            // every message of the chunk is rejected the same way, so the rest would be too
+            campaign.setStatus(FAILED_STATUS);
+            campaign.setLastError(truncate(results.get(0).getError()));
+            campaign.setCompletedTimestamp(now);
+        } else if (recipients.size() < chunkSize) {
+            campaign.setStatus(COMPLETED_STATUS);
+            campaign.setCompletedTimestamp(now);
+            if (isQuery) {
+                campaign.setTotalCount(campaign.getProcessedCount());
+            }
+        }
+        return recipients.size();
+    }
+
+    private List<String> readRecipients(Campaign campaign, boolean isQuery) throws ApiException {
+        if (isQuery) {
+            return userManagementClientService
+                    .findUserIds(campaign.getAudienceQuery(), campaign.getNextPosition(), chunkSize)
+                    .stream()
+                    .map(UUID::toString)
+                    .collect(Collectors.toList());
+        }
+        return campaignRepository.findRecipients(
+                campaign.getId(), campaign.getNextPosition(), PageRequest.of(0, chunkSize));
+    }
+
+    private Message toMessage(Campaign campaign, String userId) {
+        return Message.builder()
+                .userId(userId)
+                .messageTemplateKey(campaign.getMessageTemplateKey())
+                .parameters(new HashMap<>(campaign.getParameters()))
+                .build();
+    }
+
+    private Campaign changeStatus(UUID id, String from, String to) {
+        Campaign campaign =
+                campaignRepository
+                        .findLockedById(id)
+                        .orElseThrow(() -> new NotFoundException("Campaign not found"));
+        if (!from.equals(campaign.getStatus())) {
+            throw new BadDataException("Campaign is " + campaign.getStatus());
+        }
+        campaign.setStatus(to);
+        campaign.setLastUpdatedTimestamp(now());
+        return campaign;
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH
+                ? error.substring(0, MAX_ERROR_LENGTH)
+                : error;
+    }
+
+    private static OffsetDateTime now() {
+        return OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private Optional<String> getCreatedBy() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String createdByUserId = null;
+        if ((authentication instanceof UserToken)) {
+            final UserToken token = (UserToken) authentication;
+            createdByUserId = token.getApplicationUserId();
+        }
+        return Optional.ofNullable(createdByUserId);
+    }
+}
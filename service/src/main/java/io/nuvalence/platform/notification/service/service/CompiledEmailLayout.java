@@ -0,0 +1,49 @@
+package io.nuvalence.platform.notification.service.service;
+
+import com.github.jknack.handlebars.Template;
+import io.nuvalence.platform.notification.service.domain.EmailLayout;
+import io.nuvalence.platform.notification.service.exception.TemplateCompilationException;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Email layout together with its compiled content and declared inputs, ready to be rendered.
+ */
+@Getter
+public class CompiledEmailLayout {
+
+    private final EmailLayout emailLayout;
+
+    private final Template template;
+
+    private final List<String> inputs;
+
+    /**
+     * Constructor.
+     *
+     * @param emailLayout email layout
+     * @param template    compiled layout content
+     */
+    public CompiledEmailLayout(EmailLayout emailLayout, Template template) {
+        this.emailLayout = emailLayout;
+        this.template = template;
+        this.inputs = List.copyOf(emailLayout.getInputs());
+    }
+
+    /**
+     * Render the layout with the given input values.
+     *
+     * @param inputValues values for the layout inputs
+     * @return rendered layout
+     * @throws TemplateCompilationException when an error occurs applying the template
+     */
+    public String render(Map<String, String> inputValues) {
+        try {
+            return template.apply(inputValues);
+        } catch (Exception e) {
+            throw new TemplateCompilationException(emailLayout.getContent(), e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package io.nuvalence.platform.notification.service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.jknack.handlebars.Handlebars;
+import com.github.jknack.handlebars.Template;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.nuvalence.platform.notification.service.exception.TemplateCompilationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Bounded cache of compiled Handlebars templates, keyed by the template source.
+ *
+ * <p>Compiling a template is far more expensive than applying it, and the same sources (sms
+ * bodies, email subjects, email contents and email layouts) are rendered for every message, so
+ * all message builders share this cache instead of compiling inline on each call.</p>
+ */
+@Slf4j
+@Component
+public class CompiledTemplateCache {
+
+    static final String CACHE_NAME = "compiledTemplates";
+
+    private final Handlebars handlebars;
+
+    private final Cache<String, Template> cache;
+
+    /**
+     * Constructor.
+     *
+     * @param maximumSize       maximum number of compiled templates kept in memory
+     * @param expireAfterAccess time after which a compiled template not used is evicted
+     * @param meterRegistry     registry where hit/miss/eviction metrics are published
+     */
+    public CompiledTemplateCache(
+            @Value("${cache.compiled-templates.maximum-size:1000}") long maximumSize,
+            @Value("${cache.compiled-templates.expire-after-access:PT1H}")
+                    Duration expireAfterAccess,
+            MeterRegistry meterRegistry) {
+        this.handlebars = new Handlebars();
+        this.cache =
+                Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterAccess(expireAfterAccess)
+                        .recordStats()
+                        .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Get the compiled version of a template, compiling and caching it if needed.
+     *
+     * @param template template source
+     * @return compiled template
+     * @throws TemplateCompilationException when an error occurs compiling the template
+     */
+    public Template getCompiledTemplate(String template) {
+        Objects.requireNonNull(template, "template");
+        return cache.get(template, this::compile);
+    }
+
+    /**
+     * Drop the compiled versions of the given template sources.
+     *
+     * @param templates template sources that are no longer current
+     */
+    public void evict(Collection<String> templates) {
+        templates.stream().filter(Objects::nonNull).forEach(cache::invalidate);
+    }
+
+    /**
+     * Drop every compiled template.
+     */
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    private Template compile(String template) {
+        try {
+            return handlebars.compileInline(template);
+        } catch (Exception e) {
+            log.error("Error compiling template: {}", template, e);
+            throw new TemplateCompilationException(template, e);
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package io.nuvalence.platform.notification.service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuvalence.platform.notification.service.exception.DependencyUnavailableException;
+import io.nuvalence.platform.notification.service.exception.RateLimitExceededException;
+import io.nuvalence.platform.notification.service.exception.UnprocessableNotificationException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker and bulkhead around the calls to a dependency.
+ *
+ * <p>The breaker keeps the outcome of the last {@code slidingWindowSize} calls. Once the window
+ * is full and the share of failures reaches {@code failureRateThreshold} percent, it opens and
+ * refuses every call for {@code openDuration}. It then lets {@code halfOpenCalls} trial calls
+ * through, closing again if they all succeed and opening again on the first failure. Rejections
+ * of a single message, such as a bad request or a missing user, do not count as failures, while
+ * calls taking {@code slowCallDuration} or longer do even when they succeed. A call only counts
+ * toward the state it was let through in: calls still in progress when the breaker changes state
+ * are not recorded, so a late failure from before the breaker closed cannot open it again.</p>
+ *
+ * <p>The bulkhead caps the calls in progress at {@code maxConcurrentCalls}, waiting at most
+ * {@code maxWait} for a call to finish, so a slow dependency cannot hold every processing
+ * thread. Refused calls fail with a {@link DependencyUnavailableException}.</p>
+ *
+ * <p>The state is published as the {@value #STATE_METRIC} gauge (0 closed, 1 half open, 2 open),
+ * the calls in progress as the {@value #IN_FLIGHT_METRIC} gauge and the outcomes (success, slow,
+ * failure or rejected) as the {@value #CALLS_METRIC} counter, all tagged with the dependency.</p>
+ */
+@Slf4j
+public class DependencyGuard {
+
+    static final String STATE_METRIC = "dependency.circuit_breaker.state";
+
+    static final String IN_FLIGHT_METRIC = "dependency.bulkhead.in_flight";
+
+    static final String CALLS_METRIC = "dependency.calls";
+
+    /**
+     * State of the circuit breaker.
+     */
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    /**
+     * Call to a dependency.
+     *
+     * @param <T> type of the result
+     * @param <E> type of the checked exception thrown
+     */
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    @Getter private final String name;
+
+    private final double failureRateThreshold;
+
+    private final long openNanos;
+
+    private final long slowCallNanos;
+
+    private final int halfOpenCalls;
+
+    private final int maxConcurrentCalls;
+
+    private final long maxWaitNanos;
+
+    private final Semaphore bulkhead;
+
+    private final boolean[] outcomes;
+
+    private final List<Consumer<DependencyGuard>> listeners = new CopyOnWriteArrayList<>();
+
+    private final Counter successes;
+
+    private final Counter slowCalls;
+
+    private final Counter failures;
+
+    private final Counter rejections;
+
+    private State state = State.CLOSED;
+
+    // incremented on every state change, so outcomes of calls let through before are ignored
+    private long generation;
+
+    private int recordedCalls;
+
+    private int nextOutcome;
+
+    private int failedCalls;
+
+    private long openedNanos;
+
+    private int halfOpenPermits;
+
+    private int halfOpenSuccesses;
+
+    /**
+     * Constructor.
+     *
+     * @param name                 name of the dependency
+     * @param failureRateThreshold percentage of failed calls that opens the breaker
+     * @param slidingWindowSize    number of calls the failure rate is computed on
+     * @param openDuration         time the breaker stays open before trial calls
+     * @param slowCallDuration     time from which a call counts as failed, zero for no limit
+     * @param halfOpenCalls        number of successful trial calls that close the breaker
+     * @param maxConcurrentCalls   maximum number of calls in progress
+     * @param maxWait              time a call waits for the bulkhead before being refused
+     * @param meterRegistry        registry where the state and outcomes are published
+     */
+    public DependencyGuard(
+            String name,
+            double failureRateThreshold,
+            int slidingWindowSize,
+            Duration openDuration,
+            Duration slowCallDuration,
+            int halfOpenCalls,
+            int maxConcurrentCalls,
+            Duration maxWait,
+            MeterRegistry meterRegistry) {
+        this.name = name;
+        this.failureRateThreshold = failureRateThreshold;
+        this.outcomes = new boolean[slidingWindowSize];
+        this.openNanos = openDuration.toNanos();
+        this.slowCallNanos =
+                slowCallDuration.isZero() ? Long.MAX_VALUE : slowCallDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+
+        Gauge.builder(STATE_METRIC, this, guard -> guard.getState().ordinal())
+                .tag("dependency", name)
+                .description("Circuit breaker state, 0 closed, 1 half open, 2 open")
+                .register(meterRegistry);
+        Gauge.builder(IN_FLIGHT_METRIC, this, DependencyGuard::getInFlight)
+                .tag("dependency", name)
+                .description("Calls in progress")
+                .register(meterRegistry);
+        this.successes =
+                meterRegistry.counter(CALLS_METRIC, "dependency", name, "outcome", "success");
+        this.slowCalls = meterRegistry.counter(CALLS_METRIC, "dependency", name, "outcome", "slow");
+        this.failures =
+                meterRegistry.counter(CALLS_METRIC, "dependency", name, "outcome", "failure");
+        this.rejections =
+                meterRegistry.counter(CALLS_METRIC, "dependency", name, "outcome", "rejected");
+    }
+
+    /**
+     * Create a guard letting every call through, for providers used without a guard.
+     *
+     * @param name name of the dependency
+     * @return guard that never opens nor refuses calls
+     */
+    public static DependencyGuard unguarded(String name) {
+        return new DependencyGuard(
+                name,
+                101,
+                1,
+                Duration.ZERO,
+                Duration.ZERO,
+                1,
+                Integer.MAX_VALUE,
+                Duration.ZERO,
+                new SimpleMeterRegistry());
+    }
+
+    /**
+     * Register a listener notified after every state change.
+     *
+     * @param listener listener, called with this guard
+     */
+    public void addStateListener(Consumer<DependencyGuard> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Make a blocking call through the breaker and the bulkhead.
+     *
+     * @param call call to the dependency
+     * @param <T>  type of the result
+     * @param <E>  type of the checked exception thrown
+     * @return result of the call
+     * @throws E as thrown by the call
+     * @throws DependencyUnavailableException if the call is refused
+     */
+    public <T, E extends Exception> T call(Call<T, E> call) throws E {
+        Admission admission = acquirePermission();
+        Throwable error = null;
+        try {
+            return call.call();
+        } catch (Exception e) {
+            error = e;
+            throw e;
+        } finally {
+            onCompletion(admission, error);
+        }
+    }
+
+    /**
+     * Make a non-blocking call through the breaker and the bulkhead, which holds a place in the
+     * bulkhead until its future completes.
+     *
+     * @param call call to the dependency
+     * @param <T>  type of the result
+     * @return future of the call, failed with a {@link DependencyUnavailableException} if the call
+     *     is refused
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> call) {
+        Admission admission;
+        try {
+            admission = acquirePermission();
+        } catch (DependencyUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            onCompletion(admission, e);
+            return CompletableFuture.failedFuture(e);
+        }
+        return result.whenComplete((value, error) -> onCompletion(admission, error));
+    }
+
+    /**
+     * Get the state of the breaker, open until a call is attempted after the open duration.
+     *
+     * @return state of the breaker
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Whether a call would be let through by the breaker, that is the breaker is not open or has
+     * been open for the whole open duration.
+     *
+     * @return whether calls are let through
+     */
+    public synchronized boolean isCallPermitted() {
+        return state != State.OPEN || System.nanoTime() - openedNanos >= openNanos;
+    }
+
+    /**
+     * Get the share of failures among the calls of the sliding window.
+     *
+     * @return percentage of failed calls, 0 while the window is not full
+     */
+    public synchronized double getFailureRate() {
+        if (recordedCalls < outcomes.length) {
+            return 0;
+        }
+        return failedCalls * 100.0 / recordedCalls;
+    }
+
+    public int getInFlight() {
+        return maxConcurrentCalls - bulkhead.availablePermits();
+    }
+
+    /**
+     * Get the time the breaker stays open before trial calls.
+     *
+     * @return open duration
+     */
+    public Duration getOpenDuration() {
+        return Duration.ofNanos(openNanos);
+    }
+
+    private Admission acquirePermission() {
+        Admission admission = acquireBreakerPermission();
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            if (admission.trialCall) {
+                synchronized (this) {
+                    if (admission.generation == generation) {
+                        halfOpenPermits++;
+                    }
+                }
+            }
+            rejections.increment();
+            throw new DependencyUnavailableException(String.format("Bulkhead of %s is full", name));
+        }
+        return new Admission(admission.generation, admission.trialCall, System.nanoTime());
+    }
+
+    private Admission acquireBreakerPermission() {
+        boolean trialCall;
+        long admittedGeneration;
+        boolean halfOpened = false;
+        synchronized (this) {
+            if (state == State.OPEN && System.nanoTime() - openedNanos >= openNanos) {
+                transition(State.HALF_OPEN);
+                halfOpenPermits = halfOpenCalls;
+                halfOpenSuccesses = 0;
+                halfOpened = true;
+            }
+            trialCall = state == State.HALF_OPEN;
+            if (state == State.OPEN || (trialCall && halfOpenPermits == 0)) {
+                rejections.increment();
+                throw new DependencyUnavailableException(
+                        String.format("Circuit breaker of %s is %s", name, state));
+            }
+            if (trialCall) {
+                halfOpenPermits--;
+            }
+            admittedGeneration = generation;
+        }
+        if (halfOpened) {
+            notifyListeners();
+        }
+        return new Admission(admittedGeneration, trialCall, 0);
+    }
+
+    private void onCompletion(Admission admission, Throwable error) {
+        bulkhead.release();
+        boolean failure = error != null && countsAsFailure(error);
+        boolean slow = System.nanoTime() - admission.startNanos >= slowCallNanos;
+        if (failure) {
+            failures.increment();
+        } else if (slow) {
+            slowCalls.increment();
+        } else {
+            successes.increment();
+        }
+
+        boolean changed = false;
+        synchronized (this) {
+            if (admission.generation == generation) {
+                changed = recordOutcome(failure || slow);
+            } else {
+                log.debug(
+                        "Ignoring the outcome of a call to {} let through before the circuit"
+                                + " breaker became {}",
+                        name,
+                        state);
+            }
+        }
+        if (changed) {
+            notifyListeners();
+        }
+    }
+
+    // returns whether the outcome changed the state
+    private boolean recordOutcome(boolean failure) {
+        State previous = state;
+        if (state == State.CLOSED) {
+            record(failure);
+        } else if (state == State.HALF_OPEN) {
+            if (failure) {
+                open();
+            } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                transition(State.CLOSED);
+                recordedCalls = 0;
+                nextOutcome = 0;
+                failedCalls = 0;
+            }
+        }
+        return previous != state;
+    }
+
+    private void record(boolean failure) {
+        if (recordedCalls == outcomes.length) {
+            if (outcomes[nextOutcome]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        outcomes[nextOutcome] = failure;
+        nextOutcome = (nextOutcome + 1) % outcomes.length;
+        if (failure) {
+            failedCalls++;
+        }
+        if (recordedCalls == outcomes.length
+                && failedCalls * 100.0 / recordedCalls >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    private void open() {
+        transition(State.OPEN);
+        openedNanos = System.nanoTime();
+    }
+
+    private void transition(State newState) {
+        log.warn("Circuit breaker of {} changed from {} to {}", name, state, newState);
+        state = newState;
+        generation++;
+    }
+
+    private void notifyListeners() {
+        listeners.forEach(listener -> listener.accept(this));
+    }
+
+    private static boolean countsAsFailure(Throwable error) {
+        Throwable cause =
+                error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+        return !(cause instanceof UnprocessableNotificationException
+                || cause instanceof RateLimitExceededException
+                || cause instanceof DependencyUnavailableException);
+    }
+
+    /**
+     * State generation a call was let through in, whether it is a trial call and when it started.
+     */
+    private static final class Admission {
+
+        private final long generation;
+
+        private final boolean trialCall;
+
+        private final long startNanos;
+
+        private Admission(long generation, boolean trialCall, long startNanos) {
+            this.generation = generation;
+            this.trialCall = trialCall;
+            this.startNanos = startNanos;
+        }
+    }
+}
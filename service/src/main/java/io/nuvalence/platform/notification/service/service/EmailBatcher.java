@@ -0,0 +1,197 @@
+package io.nuvalence.platform.notification.service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.nuvalence.platform.notification.service.exception.UnprocessableNotificationException;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coalesces the emails with the same subject and body sent within a short window, so they go out
+ * in a single provider request with one recipient each.
+ *
+ * <p>The first email of a batch opens it and its caller waits for the window before sending it,
+ * unless the batch fills up first, in which case the caller adding the last email sends it
+ * straight away. The other callers only wait for the outcome, so no thread is needed besides the
+ * callers'. When the provider rejects a batch, with a client error other than throttling, its
+ * emails are sent again one at a time, so only the emails at fault are rejected. Any other
+ * failure, such as throttling or a server error, fails every email of the batch so they are all
+ * retried later.</p>
+ *
+ * <p>Batch sizes are published as the {@value #BATCH_SIZE_METRIC} summary and the requests spared
+ * by batching as the {@value #SAVED_REQUESTS_METRIC} counter.</p>
+ */
+@Slf4j
+class EmailBatcher {
+
+    static final String BATCH_SIZE_METRIC = "email.batch.size";
+    static final String SAVED_REQUESTS_METRIC = "email.batch.requests.saved";
+
+    /**
+     * Sends an email to several recipients in a single request.
+     */
+    @FunctionalInterface
+    interface BatchSender {
+        void send(List<String> recipients, String subject, String body) throws IOException;
+    }
+
+    private final BatchSender sender;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final Map<BatchKey, Batch> openBatches = new HashMap<>();
+
+    private final DistributionSummary batchSize;
+
+    private final Counter savedRequests;
+
+    /**
+     * Constructor.
+     *
+     * @param sender        sender of the batches
+     * @param window        time a batch stays open for more emails
+     * @param maxBatchSize  maximum number of recipients per batch
+     * @param meterRegistry registry where the batching metrics are published
+     */
+    EmailBatcher(
+            BatchSender sender, Duration window, int maxBatchSize, MeterRegistry meterRegistry) {
+        this.sender = sender;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.batchSize = meterRegistry.summary(BATCH_SIZE_METRIC);
+        this.savedRequests = meterRegistry.counter(SAVED_REQUESTS_METRIC);
+    }
+
+    /**
+     * Send an email as part of a batch and wait for its outcome.
+     *
+     * @param to      recipient
+     * @param subject subject of the email
+     * @param body    body of the email
+     * @throws IOException if the batch could not be sent
+     */
+    void send(String to, String subject, String body) throws IOException {
+        BatchKey key = new BatchKey(subject, body);
+        PendingEmail email = new PendingEmail(to);
+        Batch batch;
+        boolean opened;
+        boolean closed = false;
+        synchronized (openBatches) {
+            batch = openBatches.get(key);
+            opened = batch == null;
+            if (opened) {
+                batch = new Batch(subject, body);
+                openBatches.put(key, batch);
+            }
+            batch.emails.add(email);
+            if (batch.emails.size() >= maxBatchSize) {
+                closed = openBatches.remove(key, batch);
+            }
+        }
+
+        if (opened && !closed) {
+            awaitWindow(email.sent);
+            synchronized (openBatches) {
+                closed = openBatches.remove(key, batch);
+            }
+        }
+        if (closed) {
+            sendBatch(batch);
+        }
+        await(email.sent);
+    }
+
+    private void sendBatch(Batch batch) {
+        List<String> recipients = new ArrayList<>(batch.emails.size());
+        batch.emails.forEach(email -> recipients.add(email.to));
+        batchSize.record(recipients.size());
+        try {
+            sender.send(recipients, batch.subject, batch.body);
+            savedRequests.increment(recipients.size() - 1.0);
+            batch.emails.forEach(email -> email.sent.complete(null));
+        } catch (UnprocessableNotificationException e) {
+            if (recipients.size() == 1) {
+                batch.emails.get(0).sent.completeExceptionally(e);
+                return;
+            }
+            log.warn("Batch of {} emails rejected, sending them one at a time", recipients.size());
+            batch.emails.forEach(email -> sendAlone(email, batch));
+        } catch (IOException | RuntimeException e) {
+            batch.emails.forEach(email -> email.sent.completeExceptionally(e));
+        }
+    }
+
+    private void sendAlone(PendingEmail email, Batch batch) {
+        try {
+            sender.send(List.of(email.to), batch.subject, batch.body);
+            email.sent.complete(null);
+        } catch (IOException | RuntimeException e) {
+            email.sent.completeExceptionally(e);
+        }
+    }
+
+    // returns early when the batch filled up and was sent by another caller
+    private void awaitWindow(CompletableFuture<Void> sent) {
+        try {
+            sent.get(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            log.trace("Email batch window closed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CompletableFuture<Void> sent) throws IOException {
+        try {
+            sent.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the email batch");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class BatchKey {
+        private final String subject;
+        private final String body;
+    }
+
+    @RequiredArgsConstructor
+    private static class Batch {
+        private final String subject;
+        private final String body;
+        private final List<PendingEmail> emails = new ArrayList<>();
+    }
+
+    @RequiredArgsConstructor
+    private static class PendingEmail {
+        private final String to;
+        private final CompletableFuture<Void> sent = new CompletableFuture<>();
+    }
+}
@@ -1,21 +1,28 @@
 package io.nuvalence.platform.notification.service.service;
 
-import com.github.jknack.handlebars.Handlebars;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import io.nuvalence.auth.token.UserToken;
 import io.nuvalence.platform.notification.service.domain.EmailLayout;
 import io.nuvalence.platform.notification.service.exception.BadDataException;
+import io.nuvalence.platform.notification.service.exception.TemplateCompilationException;
 import io.nuvalence.platform.notification.service.model.SearchEmailLayoutFilter;
 import io.nuvalence.platform.notification.service.repository.EmailLayoutRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Optional;
 import java.util.Set;
 
@@ -26,18 +33,44 @@ import java.util.Set;
 @Service
 public class EmailLayoutService {
 
+    static final String CACHE_NAME = "emailLayouts";
+
     private final EmailLayoutRepository emailLayoutRepository;
 
-    private final Handlebars handlebars;
+    private final CompiledTemplateCache templateCache;
+
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private final Cache<String, CompiledEmailLayout> emailLayoutCache;
 
     /**
      * Constructor.
      *
      * @param emailLayoutRepository Email Layout Repository
+     * @param templateCache cache of compiled templates
+     * @param cacheInvalidationService service propagating invalidations to every replica
+     * @param maximumSize maximum number of email layouts kept in memory
+     * @param expireAfterWrite time after which a cached email layout is reloaded
+     * @param meterRegistry registry where cache metrics are published
      */
-    public EmailLayoutService(EmailLayoutRepository emailLayoutRepository) {
+    public EmailLayoutService(
+            EmailLayoutRepository emailLayoutRepository,
+            CompiledTemplateCache templateCache,
+            CacheInvalidationService cacheInvalidationService,
+            @Value("${cache.email-layouts.maximum-size:100}") long maximumSize,
+            @Value("${cache.email-layouts.expire-after-write:PT5M}") Duration expireAfterWrite,
+            MeterRegistry meterRegistry) {
         this.emailLayoutRepository = emailLayoutRepository;
-        this.handlebars = new Handlebars();
+        this.templateCache = templateCache;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.emailLayoutCache =
+                Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(expireAfterWrite)
+                        .recordStats()
+                        .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, emailLayoutCache, CACHE_NAME);
+        cacheInvalidationService.registerListener(CACHE_NAME, emailLayoutCache::invalidate);
     }
 
     /**
@@ -52,7 +85,7 @@ public class EmailLayoutService {
         OffsetDateTime now = OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
 
         Set<String> variableNames =
-                MessageBuilderUtils.getVariablesInTemplate(emailLayout.getContent(), handlebars);
+                MessageBuilderUtils.getVariablesInTemplate(emailLayout.getContent(), templateCache);
 
         Collection<String> missingElements =
                 returnMissingElements(variableNames, emailLayout.getInputs());
@@ -65,12 +98,15 @@ public class EmailLayoutService {
                 emailLayoutRepository.findFirstByKeyOrderByVersionDesc(key);
         if (emailLayoutFound.isPresent()) {
             EmailLayout existingEmailLayout = emailLayoutFound.get();
+            templateCache.evict(Collections.singletonList(existingEmailLayout.getContent()));
             existingEmailLayout.setName(emailLayout.getName());
             existingEmailLayout.setDescription(emailLayout.getDescription());
             existingEmailLayout.setContent(emailLayout.getContent());
             existingEmailLayout.setInputs(emailLayout.getInputs());
             existingEmailLayout.setLastUpdatedTimestamp(now);
-            return emailLayoutRepository.save(existingEmailLayout);
+            EmailLayout savedEmailLayout = emailLayoutRepository.save(existingEmailLayout);
+            cacheInvalidationService.invalidate(CACHE_NAME, key);
+            return savedEmailLayout;
         }
 
         emailLayout.setKey(key);
@@ -79,7 +115,9 @@ public class EmailLayoutService {
         emailLayout.setCreatedBy(getCreatedBy().orElse(null));
         emailLayout.setCreatedTimestamp(now);
         emailLayout.setLastUpdatedTimestamp(now);
-        return emailLayoutRepository.save(emailLayout);
+        EmailLayout savedEmailLayout = emailLayoutRepository.save(emailLayout);
+        cacheInvalidationService.invalidate(CACHE_NAME, key);
+        return savedEmailLayout;
     }
 
     /**
@@ -92,6 +130,30 @@ public class EmailLayoutService {
         return emailLayoutRepository.findFirstByKeyOrderByVersionDesc(key);
     }
 
+    /**
+     * Get Email Layout by key, with its content compiled. Compiled layouts are served from an
+     * in-memory cache which is invalidated whenever the layout is created or updated.
+     *
+     * @param key Email Layout key
+     * @return compiled Email Layout
+     * @throws TemplateCompilationException when an error occurs compiling the layout content
+     */
+    public Optional<CompiledEmailLayout> getCompiledEmailLayout(final String key) {
+        return Optional.ofNullable(emailLayoutCache.get(key, this::loadCompiledEmailLayout));
+    }
+
+    private CompiledEmailLayout loadCompiledEmailLayout(final String key) {
+        return emailLayoutRepository
+                .findFirstByKeyOrderByVersionDesc(key)
+                .map(
+                        emailLayout ->
+                                new CompiledEmailLayout(
+                                        emailLayout,
+                                        templateCache.getCompiledTemplate(
+                                                emailLayout.getContent())))
+                .orElse(null);
+    }
+
     /**
      * Get Email Layouts.
      *
@@ -3,15 +3,14 @@ package io.nuvalence.platform.notification.service.service;
 import static io.nuvalence.platform.notification.service.service.MessageBuilderUtils.getLocalizedTemplate;
 import static io.nuvalence.platform.notification.service.service.MessageBuilderUtils.replaceParameterInTemplate;
 
-import com.github.jknack.handlebars.Handlebars;
 import io.nuvalence.platform.notification.service.domain.EmailFormat;
-import io.nuvalence.platform.notification.service.domain.EmailLayout;
 import io.nuvalence.platform.notification.service.domain.LocalizedStringTemplateLanguage;
 import io.nuvalence.platform.notification.service.domain.Message;
 import io.nuvalence.platform.notification.service.domain.MessageTemplate;
 import io.nuvalence.platform.notification.service.exception.UnprocessableNotificationException;
 import io.nuvalence.platform.notification.usermanagent.client.generated.models.UserDTO;
 import io.nuvalence.platform.notification.usermanagent.client.generated.models.UserPreferenceDTO;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -19,9 +18,13 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Message provider for email messages.
+ * Message provider for email messages. The email provider sends each request to SendGrid through
+ * the SendGrid guard, so emails are refused without calling SendGrid while its circuit breaker is
+ * open or its bulkhead is full.
  */
 @Slf4j
 @Service
@@ -33,28 +36,53 @@ public class EmailMessageProvider implements SendMessageProvider {
 
     private final EmailProvider emailProvider;
 
-    private final Handlebars handlebars;
+    private final CompiledTemplateCache templateCache;
 
     /**
      * Constructor.
      *
      * @param emailLayoutService email layout service
      * @param emailProvider      email provider
+     * @param templateCache      cache of compiled templates
      */
     public EmailMessageProvider(
-            EmailLayoutService emailLayoutService, EmailProvider emailProvider) {
+            EmailLayoutService emailLayoutService,
+            EmailProvider emailProvider,
+            CompiledTemplateCache templateCache) {
         this.emailLayoutService = emailLayoutService;
         this.emailProvider = emailProvider;
-        this.handlebars = new Handlebars();
+        this.templateCache = templateCache;
     }
 
     @Override
     public void sendMessage(UserDTO user, Message message, MessageTemplate template)
             throws IOException {
+        RenderedEmail email = render(user, message, template);
+        long providerStart = System.nanoTime();
+        emailProvider.sendEmail(user.getEmail(), email.subject, email.body);
+        message.setProviderMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - providerStart));
+    }
+
+    @Override
+    public CompletableFuture<Void> sendMessageAsync(
+            UserDTO user, Message message, MessageTemplate template) {
+        RenderedEmail email = render(user, message, template);
+        long providerStart = System.nanoTime();
+        return emailProvider
+                .sendEmailAsync(user.getEmail(), email.subject, email.body)
+                .thenRun(
+                        () ->
+                                message.setProviderMillis(
+                                        TimeUnit.NANOSECONDS.toMillis(
+                                                System.nanoTime() - providerStart)));
+    }
+
+    private RenderedEmail render(UserDTO user, Message message, MessageTemplate template) {
+        final long renderStart = System.nanoTime();
         UserPreferenceDTO userPreferences = user.getPreferences();
 
-        Optional<EmailLayout> emailLayout =
-                emailLayoutService.getEmailLayout(template.getEmailLayoutKey());
+        Optional<CompiledEmailLayout> emailLayout =
+                emailLayoutService.getCompiledEmailLayout(template.getEmailLayoutKey());
         if (emailLayout.isEmpty()) {
             String emailLayoutNotFound =
                     String.format(
@@ -82,7 +110,7 @@ public class EmailMessageProvider implements SendMessageProvider {
                 replaceParameterInTemplate(
                         emailSubjectTemplate.get().getTemplate(),
                         message.getParameters(),
-                        handlebars);
+                        templateCache);
         Map<String, String> emailLayoutInputToTemplate = new HashMap<>();
         emailFormat
                 .getEmailFormatContents()
@@ -107,17 +135,22 @@ public class EmailMessageProvider implements SendMessageProvider {
                                     replaceParameterInTemplate(
                                             emailContentTemplate.get().getTemplate(),
                                             message.getParameters(),
-                                            handlebars));
+                                            templateCache));
                         });
-        String emailBodyToSend =
-                replaceParameterInTemplate(
-                        emailLayout.get().getContent(), emailLayoutInputToTemplate, handlebars);
+        String emailBodyToSend = emailLayout.get().render(emailLayoutInputToTemplate);
 
-        emailProvider.sendEmail(user.getEmail(), subjectEmail, emailBodyToSend);
+        message.setRenderMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - renderStart));
+        return new RenderedEmail(subjectEmail, emailBodyToSend);
     }
 
     @Override
     public String supportedMethod() {
         return SUPPORTED_METHOD;
     }
+
+    @RequiredArgsConstructor
+    private static class RenderedEmail {
+        private final String subject;
+        private final String body;
+    }
 }
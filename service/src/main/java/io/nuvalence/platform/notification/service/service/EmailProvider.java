@@ -1,6 +1,7 @@
 package io.nuvalence.platform.notification.service.service;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface for email providers.
@@ -15,4 +16,22 @@ public interface EmailProvider {
      * @throws IOException possibly thrown by apis.
      */
     void sendEmail(String to, String subject, String body) throws IOException;
+
+    /**
+     * Sends an email without waiting for the provider to answer. Providers without a
+     * non-blocking transport send it on the calling thread.
+     * @param to recipient.
+     * @param subject email subject.
+     * @param body email body.
+     * @return future completed once the provider accepts the email, or failed with the error
+     *     {@link #sendEmail} would have thrown.
+     */
+    default CompletableFuture<Void> sendEmailAsync(String to, String subject, String body) {
+        try {
+            sendEmail(to, subject, body);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
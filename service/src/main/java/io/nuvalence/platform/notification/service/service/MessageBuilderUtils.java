@@ -1,14 +1,17 @@
 package io.nuvalence.platform.notification.service.service;
 
-import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.TagType;
 import com.github.jknack.handlebars.Template;
+import io.nuvalence.platform.notification.service.domain.EmailFormat;
 import io.nuvalence.platform.notification.service.domain.LocalizedStringTemplate;
 import io.nuvalence.platform.notification.service.domain.LocalizedStringTemplateLanguage;
+import io.nuvalence.platform.notification.service.domain.MessageTemplate;
 import io.nuvalence.platform.notification.service.exception.TemplateCompilationException;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -61,17 +64,19 @@ public class MessageBuilderUtils {
     /**
      * Replace parameters in a template.
      *
-     * @param template    template
-     * @param parameters  parameters
-     * @param handlebars  handlebars
+     * @param template      template
+     * @param parameters    parameters
+     * @param templateCache cache of compiled templates
      * @return template with parameters replaced
      * @throws TemplateCompilationException when an error occurs compiling the template
      */
     public static String replaceParameterInTemplate(
-            String template, Map<String, String> parameters, Handlebars handlebars) {
+            String template, Map<String, String> parameters, CompiledTemplateCache templateCache) {
         try {
-            Template handleBarTemplate = handlebars.compileInline(template);
+            Template handleBarTemplate = templateCache.getCompiledTemplate(template);
             return handleBarTemplate.apply(parameters);
+        } catch (TemplateCompilationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error compiling template: {}", template, e);
             throw new TemplateCompilationException(template, e);
@@ -81,18 +86,60 @@ public class MessageBuilderUtils {
     /**
      * Get the variables in a template.
      *
-     * @param template   template
-     * @param handlebars handlebars
+     * @param template      template
+     * @param templateCache cache of compiled templates
      * @return variables in template
      * @throws TemplateCompilationException when an error occurs compiling the template
      */
-    public static Set<String> getVariablesInTemplate(String template, Handlebars handlebars) {
+    public static Set<String> getVariablesInTemplate(
+            String template, CompiledTemplateCache templateCache) {
         try {
-            Template handleBarTemplate = handlebars.compileInline(template);
+            Template handleBarTemplate = templateCache.getCompiledTemplate(template);
             return new HashSet<>(handleBarTemplate.collect(TagType.VAR));
+        } catch (TemplateCompilationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error compiling template: {}", template, e);
             throw new TemplateCompilationException(template, e);
         }
     }
+
+    /**
+     * Get every localized template source (sms, email subject and email contents) of a message
+     * template.
+     *
+     * @param messageTemplate message template
+     * @return template sources
+     */
+    public static List<String> getTemplateSources(MessageTemplate messageTemplate) {
+        List<String> sources = new ArrayList<>();
+        if (messageTemplate.getSmsFormat() != null) {
+            addTemplateSources(
+                    sources, messageTemplate.getSmsFormat().getLocalizedStringTemplate());
+        }
+        EmailFormat emailFormat = messageTemplate.getEmailFormat();
+        if (emailFormat != null) {
+            addTemplateSources(sources, emailFormat.getLocalizedSubjectStringTemplate());
+            if (emailFormat.getEmailFormatContents() != null) {
+                emailFormat
+                        .getEmailFormatContents()
+                        .forEach(
+                                content ->
+                                        addTemplateSources(
+                                                sources, content.getLocalizedStringTemplate()));
+            }
+        }
+        return sources;
+    }
+
+    private static void addTemplateSources(
+            List<String> sources, LocalizedStringTemplate localizedStringTemplate) {
+        if (localizedStringTemplate == null
+                || localizedStringTemplate.getLocalizedTemplateStrings() == null) {
+            return;
+        }
+        localizedStringTemplate
+                .getLocalizedTemplateStrings()
+                .forEach(language -> sources.add(language.getTemplate()));
+    }
 }
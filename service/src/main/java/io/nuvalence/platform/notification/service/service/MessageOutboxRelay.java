@@ -0,0 +1,165 @@
+package io.nuvalence.platform.notification.service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.nuvalence.platform.notification.service.domain.MessageOutboxEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes the messages waiting in the outbox to PubSub, in batches.
+ *
+ * <p>Entries are claimed in a short transaction and handed to PubSub together outside of it, so
+ * the publisher can batch them. Published entries are marked in a single update; failed ones are
+ * retried with an exponential backoff until they go through, so a PubSub outage delays messages
+ * instead of stranding them.</p>
+ */
+@Slf4j
+@Component
+public class MessageOutboxRelay {
+
+    static final String PUBLISHED_METRIC = "message.outbox.published";
+    static final String FAILURES_METRIC = "message.outbox.failures";
+
+    private static final int MAX_BACKOFF_EXPONENT = 20;
+
+    private final MessageOutboxService outboxService;
+
+    private final PubSubService pubSubService;
+
+    private final int batchSize;
+
+    private final Duration retryBackoff;
+
+    private final Duration maxRetryBackoff;
+
+    private final Duration retention;
+
+    private final Duration publishTimeout;
+
+    private final Counter publishedCounter;
+
+    private final Counter failuresCounter;
+
+    /**
+     * Constructor.
+     *
+     * @param outboxService   service managing the outbox entries
+     * @param pubSubService   service publishing to PubSub
+     * @param batchSize       maximum number of entries published per batch
+     * @param retryBackoff    wait before the first retry, doubled on each further failure
+     * @param maxRetryBackoff maximum wait between retries
+     * @param retention       time published entries are kept before being deleted
+     * @param publishTimeout  maximum wait for PubSub to acknowledge a batch
+     * @param meterRegistry   registry where relay metrics are published
+     */
+    public MessageOutboxRelay(
+            MessageOutboxService outboxService,
+            PubSubService pubSubService,
+            @Value("${outbox.relay.batch-size:100}") int batchSize,
+            @Value("${outbox.relay.retry-backoff:PT1S}") Duration retryBackoff,
+            @Value("${outbox.relay.max-retry-backoff:PT5M}") Duration maxRetryBackoff,
+            @Value("${outbox.relay.retention:P7D}") Duration retention,
+            @Value("${outbox.relay.publish-timeout:PT30S}") Duration publishTimeout,
+            MeterRegistry meterRegistry) {
+        this.outboxService = outboxService;
+        this.pubSubService = pubSubService;
+        this.batchSize = batchSize;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.retention = retention;
+        this.publishTimeout = publishTimeout;
+        this.publishedCounter = meterRegistry.counter(PUBLISHED_METRIC);
+        this.failuresCounter = meterRegistry.counter(FAILURES_METRIC);
+    }
+
+    /**
+     * Publish every entry currently due, one batch at a time.
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.interval:PT1S}")
+    public void relay() {
+        int claimed;
+        do {
+            claimed = relayBatch();
+        } while (claimed == batchSize);
+    }
+
+    /**
+     * Delete the entries published longer ago than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.cleanup-interval:PT1H}")
+    public void purgePublished() {
+        int deleted = outboxService.deletePublishedBefore(OffsetDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.debug("Deleted {} published outbox entries", deleted);
+        }
+    }
+
+    int relayBatch() {
+        List<MessageOutboxEntry> entries = outboxService.claim(batchSize);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        List<CompletableFuture<String>> futures =
+                pubSubService.publishAll(
+                        entries.stream()
+                                .map(MessageOutboxEntry::getPayload)
+                                .collect(Collectors.toList()));
+        List<UUID> published = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            MessageOutboxEntry entry = entries.get(i);
+            Throwable failure = awaitPublished(futures.get(i));
+            if (failure == null) {
+                published.add(entry.getId());
+            } else {
+                Duration backoff = backoff(entry.getAttempts());
+                log.warn(
+                        "Could not publish message {} (attempt {}), retrying in {}",
+                        entry.getMessageId(),
+                        entry.getAttempts() + 1,
+                        backoff,
+                        failure);
+                outboxService.markFailed(entry.getId(), failure.getMessage(), backoff);
+                failuresCounter.increment();
+            }
+        }
+        if (!published.isEmpty()) {
+            outboxService.markPublished(published);
+            publishedCounter.increment(published.size());
+        }
+        return entries.size();
+    }
+
+    Duration backoff(int attempts) {
+        Duration backoff =
+                retryBackoff.multipliedBy(1L << Math.min(attempts, MAX_BACKOFF_EXPONENT));
+        return backoff.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : backoff;
+    }
+
+    private Throwable awaitPublished(CompletableFuture<String> future) {
+        try {
+            future.get(publishTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (TimeoutException e) {
+            return e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return e;
+        }
+    }
+}
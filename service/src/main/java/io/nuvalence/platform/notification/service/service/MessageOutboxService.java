@@ -0,0 +1,151 @@
+package io.nuvalence.platform.notification.service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.nuvalence.platform.notification.service.domain.Message;
+import io.nuvalence.platform.notification.service.domain.MessageOutboxEntry;
+import io.nuvalence.platform.notification.service.repository.MessageOutboxRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Stores messages to publish in the outbox table, so they are queued atomically with the message
+ * itself and published later by {@link MessageOutboxRelay}.
+ */
+@Service
+public class MessageOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final MessageOutboxRepository repository;
+
+    private final ObjectMapper mapper;
+
+    private final Duration lease;
+
+    /**
+     * Constructor.
+     *
+     * @param repository outbox repository
+     * @param mapper     mapper used to serialize the messages
+     * @param lease      time a claimed entry is hidden from other relays before it can be retried
+     */
+    public MessageOutboxService(
+            MessageOutboxRepository repository,
+            ObjectMapper mapper,
+            @Value("${outbox.relay.lease:PT1M}") Duration lease) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.lease = lease;
+    }
+
+    /**
+     * Add a message to the outbox. Joins the caller's transaction, so the entry is only visible
+     * once the message itself is committed.
+     *
+     * @param message saved message
+     * @throws IllegalStateException when the message cannot be serialized
+     */
+    @Transactional
+    public void enqueue(Message message) {
+        repository.save(toEntry(message, now()));
+    }
+
+    /**
+     * Add messages to the outbox. Joins the caller's transaction, so the entries are only visible
+     * once the messages themselves are committed.
+     *
+     * @param messages saved messages
+     * @throws IllegalStateException when a message cannot be serialized
+     */
+    @Transactional
+    public void enqueueAll(Collection<Message> messages) {
+        OffsetDateTime now = now();
+        repository.saveAll(
+                messages.stream()
+                        .map(message -> toEntry(message, now))
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Claim the oldest entries due for publishing. Claimed entries are leased, so other relays
+     * skip them until they are marked or the lease expires.
+     *
+     * @param batchSize maximum number of entries to claim
+     * @return claimed entries
+     */
+    @Transactional
+    public List<MessageOutboxEntry> claim(int batchSize) {
+        OffsetDateTime now = now();
+        List<MessageOutboxEntry> entries =
+                repository.findDueForPublishing(now, PageRequest.of(0, batchSize));
+        entries.forEach(entry -> entry.setNextAttemptTimestamp(now.plus(lease)));
+        return entries;
+    }
+
+    /**
+     * Mark entries as published.
+     *
+     * @param ids ids of the published entries
+     */
+    @Transactional
+    public void markPublished(Collection<UUID> ids) {
+        repository.markPublished(ids, now());
+    }
+
+    /**
+     * Record a failed publishing attempt and schedule the next one.
+     *
+     * @param id      id of the entry
+     * @param error   reason of the failure
+     * @param backoff time to wait before the next attempt
+     */
+    @Transactional
+    public void markFailed(UUID id, String error, Duration backoff) {
+        String truncatedError =
+                error != null && error.length() > MAX_ERROR_LENGTH
+                        ? error.substring(0, MAX_ERROR_LENGTH)
+                        : error;
+        repository.markFailed(id, truncatedError, now().plus(backoff));
+    }
+
+    /**
+     * Delete entries published before the given time.
+     *
+     * @param before entries published before this time are deleted
+     * @return number of deleted entries
+     */
+    @Transactional
+    public int deletePublishedBefore(OffsetDateTime before) {
+        return repository.deletePublishedBefore(before);
+    }
+
+    private MessageOutboxEntry toEntry(Message message, OffsetDateTime now) {
+        String payload;
+        try {
+            payload = mapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Message could not be serialized", e);
+        }
+        return MessageOutboxEntry.builder()
+                .messageId(message.getId())
+                .payload(payload)
+                .createdTimestamp(now)
+                .nextAttemptTimestamp(now)
+                .build();
+    }
+
+    private static OffsetDateTime now() {
+        return OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
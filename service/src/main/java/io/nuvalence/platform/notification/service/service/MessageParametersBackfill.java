@@ -0,0 +1,71 @@
+package io.nuvalence.platform.notification.service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the parameters of messages saved before they were stored as JSON on the message row out
+ * of the message_parameter table, one batch at a time. Until a message is backfilled its
+ * parameters are still read from message_parameter.
+ *
+ * <p>Each run backfills at most {@code max-batches-per-run} batches, so a large legacy table is
+ * worked through over several runs instead of holding a scheduler thread for the whole backfill.
+ * Messages are no longer saved without the parameters column, so once a run finds nothing to
+ * backfill the job stops for the lifetime of the replica instead of scanning the message table
+ * again.</p>
+ */
+@Slf4j
+@Component
+public class MessageParametersBackfill {
+
+    private final MessageService messageService;
+
+    private final int batchSize;
+
+    private final int maxBatchesPerRun;
+
+    private volatile boolean completed;
+
+    /**
+     * Constructor.
+     *
+     * @param messageService   service backfilling the messages
+     * @param batchSize        maximum number of messages backfilled per transaction
+     * @param maxBatchesPerRun maximum number of batches backfilled per run
+     */
+    public MessageParametersBackfill(
+            MessageService messageService,
+            @Value("${messages.parameters-backfill.batch-size:500}") int batchSize,
+            @Value("${messages.parameters-backfill.max-batches-per-run:20}") int maxBatchesPerRun) {
+        this.messageService = messageService;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    /**
+     * Backfill the messages left, one batch at a time, until a batch is not full or the run
+     * reached its maximum number of batches.
+     */
+    @Scheduled(fixedDelayString = "${messages.parameters-backfill.interval:PT1M}")
+    public void backfill() {
+        if (completed) {
+            return;
+        }
+        int backfilled;
+        int batches = 0;
+        int total = 0;
+        do {
+            backfilled = messageService.backfillParameters(batchSize);
+            total += backfilled;
+            batches++;
+        } while (backfilled == batchSize && batches < maxBatchesPerRun);
+        if (total > 0) {
+            log.info("Moved the parameters of {} messages to the parameters column", total);
+        } else {
+            completed = true;
+            log.info("No message parameters left to backfill, stopping the backfill");
+        }
+    }
+}
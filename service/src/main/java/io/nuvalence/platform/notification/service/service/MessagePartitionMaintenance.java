@@ -0,0 +1,297 @@
+package io.nuvalence.platform.notification.service.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of the message table ahead of time and expires the old ones.
+ *
+ * <p>Partitions for the current month and the next premade months are created when missing.
+ * Messages of a month without a partition, should this job stop running, land in the default
+ * partition instead of failing; they are moved to the month's partition when it is created.
+ * Partitions whose newest month is older than the retention are detached, then dropped or kept as
+ * standalone tables for archiving, along with the parameters and outbox entries of their
+ * messages. Dropping a partition is a metadata change, unlike deleting its rows one by one.</p>
+ *
+ * <p>Detaching without {@code CONCURRENTLY}, which PostgreSQL refuses while the table has a
+ * default partition, locks the message table. The detach only updates the catalog, and is given
+ * up after a lock timeout rather than queueing every message query behind a long-running one.
+ * The detached table is then dropped without locking the message table. A partition that could
+ * not be detached is expired on the next run.</p>
+ *
+ * <p>Every replica schedules the job, but a session advisory lock lets only one of them run it
+ * at a time. Nothing is done until the message table is partitioned.</p>
+ */
+@Slf4j
+@Component
+public class MessagePartitionMaintenance {
+
+    static final String RETENTION_MODE_DROP = "drop";
+    static final String RETENTION_MODE_DETACH = "detach";
+
+    private static final String PARTITION_PREFIX = "message_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter BOUND =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.ROOT);
+    private static final Pattern RANGE_BOUNDS =
+            Pattern.compile("FROM \\((.+)\\) TO \\((.+)\\)", Pattern.CASE_INSENSITIVE);
+
+    private static final String TRY_LOCK =
+            "SELECT pg_try_advisory_lock(hashtext('message_partition_maintenance'))";
+    private static final String UNLOCK =
+            "SELECT pg_advisory_unlock(hashtext('message_partition_maintenance'))";
+    private static final String IS_PARTITIONED =
+            "SELECT count(*) FROM pg_partitioned_table WHERE partrelid = 'message'::regclass";
+    private static final String LIST_PARTITIONS =
+            "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i"
+                    + " JOIN pg_class c ON c.oid = i.inhrelid"
+                    + " WHERE i.inhparent = 'message'::regclass";
+    private static final String HAS_MESSAGES_BETWEEN =
+            "SELECT EXISTS (SELECT 1 FROM %s WHERE requested_timestamp >= ?"
+                    + " AND requested_timestamp < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int premadeMonths;
+
+    private final int retentionMonths;
+
+    private final String retentionMode;
+
+    private final Duration lockTimeout;
+
+    /**
+     * Constructor.
+     *
+     * @param jdbcTemplate    template used to manage the partitions
+     * @param premadeMonths   number of months after the current one to create partitions for
+     * @param retentionMonths number of whole months kept before the current one
+     * @param retentionMode   whether expired partitions are dropped or detached for archiving
+     * @param lockTimeout     maximum wait for the lock on the message table to detach a partition
+     * @throws IllegalArgumentException if the retention mode is neither drop nor detach
+     */
+    public MessagePartitionMaintenance(
+            JdbcTemplate jdbcTemplate,
+            @Value("${messages.partitions.premade-months:3}") int premadeMonths,
+            @Value("${messages.partitions.retention-months:13}") int retentionMonths,
+            @Value("${messages.partitions.retention-mode:drop}") String retentionMode,
+            @Value("${messages.partitions.lock-timeout:PT5S}") Duration lockTimeout) {
+        if (!RETENTION_MODE_DROP.equals(retentionMode)
+                && !RETENTION_MODE_DETACH.equals(retentionMode)) {
+            throw new IllegalArgumentException(
+                    "Unknown message partition retention mode: " + retentionMode);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.premadeMonths = premadeMonths;
+        this.retentionMonths = retentionMonths;
+        this.retentionMode = retentionMode;
+        this.lockTimeout = lockTimeout;
+    }
+
+    /**
+     * Create the upcoming partitions and expire the old ones, unless another replica is doing so.
+     */
+    @Scheduled(fixedDelayString = "${messages.partitions.interval:PT6H}")
+    public void maintain() {
+        maintain(LocalDate.now());
+    }
+
+    void maintain(LocalDate today) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> maintain(connection, today));
+    }
+
+    private Void maintain(Connection connection, LocalDate today) {
+        // the advisory lock belongs to the session, so every statement runs on this connection
+        JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+        if (!Boolean.TRUE.equals(session.queryForObject(TRY_LOCK, Boolean.class))) {
+            log.debug("Message partitions are maintained by another replica");
+            return null;
+        }
+        try {
+            maintainPartitions(session, today);
+        } finally {
+            session.queryForObject(UNLOCK, Boolean.class);
+        }
+        return null;
+    }
+
+    void maintainPartitions(JdbcTemplate session, LocalDate today) {
+        if (session.queryForObject(IS_PARTITIONED, Integer.class).intValue() == 0) {
+            return;
+        }
+        LocalDate currentMonth = today.withDayOfMonth(1);
+        List<Partition> partitions =
+                session.query(
+                        LIST_PARTITIONS,
+                        (rs, rowNum) -> Partition.parse(rs.getString(1), rs.getString(2)));
+        String defaultPartition =
+                partitions.stream()
+                        .filter(Partition::isDefaultPartition)
+                        .map(Partition::getName)
+                        .findFirst()
+                        .orElse(null);
+
+        for (int month = 0; month <= premadeMonths; month++) {
+            LocalDateTime from = currentMonth.plusMonths(month).atStartOfDay();
+            LocalDateTime to = from.plusMonths(1);
+            // a month already covered, by the legacy partition for one, must not be created again
+            if (partitions.stream().noneMatch(partition -> partition.overlaps(from, to))) {
+                createPartition(session, defaultPartition, from, to);
+            }
+        }
+
+        LocalDateTime cutoff = currentMonth.minusMonths(retentionMonths).atStartOfDay();
+        for (Partition partition : partitions) {
+            if (partition.getTo() != null && !partition.getTo().isAfter(cutoff)) {
+                expire(session, partition.getName());
+            }
+        }
+    }
+
+    private void createPartition(
+            JdbcTemplate session, String defaultPartition, LocalDateTime from, LocalDateTime to) {
+        String name = PARTITION_PREFIX + PARTITION_SUFFIX.format(from);
+        if (defaultPartition == null
+                || !Boolean.TRUE.equals(
+                        session.queryForObject(
+                                String.format(HAS_MESSAGES_BETWEEN, defaultPartition),
+                                Boolean.class,
+                                from,
+                                to))) {
+            session.execute(
+                    String.format(
+                            "CREATE TABLE IF NOT EXISTS %s PARTITION OF message"
+                                    + " FOR VALUES FROM ('%s') TO ('%s')",
+                            name, BOUND.format(from), BOUND.format(to)));
+            log.info("Created message partition {}", name);
+            return;
+        }
+
+        log.warn(
+                "Messages were stored in {} for lack of partition {}, moving them",
+                defaultPartition,
+                name);
+        new TransactionTemplate(new DataSourceTransactionManager(session.getDataSource()))
+                .executeWithoutResult(
+                        status -> moveToNewPartition(session, defaultPartition, name, from, to));
+        log.info("Created message partition {} from the default partition", name);
+    }
+
+    // the month cannot be attached while the default partition holds messages of it
+    private static void moveToNewPartition(
+            JdbcTemplate session,
+            String defaultPartition,
+            String name,
+            LocalDateTime from,
+            LocalDateTime to) {
+        session.execute(String.format("CREATE TABLE %s (LIKE message INCLUDING DEFAULTS)", name));
+        session.update(
+                String.format(
+                        "WITH moved AS (DELETE FROM %s WHERE requested_timestamp >= ?"
+                                + " AND requested_timestamp < ? RETURNING *)"
+                                + " INSERT INTO %s SELECT * FROM moved",
+                        defaultPartition, name),
+                from,
+                to);
+        session.execute(
+                String.format(
+                        "ALTER TABLE message ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')",
+                        name, BOUND.format(from), BOUND.format(to)));
+    }
+
+    private void expire(JdbcTemplate session, String name) {
+        try {
+            detach(session, name);
+        } catch (DataAccessException e) {
+            log.warn(
+                    "Expired message partition {} could not be detached, retrying on the next run:"
+                            + " {}",
+                    name,
+                    e.getMessage());
+            return;
+        }
+        session.update(
+                String.format(
+                        "DELETE FROM message_parameter WHERE message_id IN (SELECT id FROM %s)",
+                        name));
+        session.update(
+                String.format(
+                        "DELETE FROM message_outbox WHERE message_id IN (SELECT id FROM %s)",
+                        name));
+        if (RETENTION_MODE_DETACH.equals(retentionMode)) {
+            log.info("Detached expired message partition {} for archiving", name);
+        } else {
+            session.execute(String.format("DROP TABLE %s", name));
+            log.info("Dropped expired message partition {}", name);
+        }
+    }
+
+    private void detach(JdbcTemplate session, String name) {
+        session.execute(String.format("SET lock_timeout = '%dms'", lockTimeout.toMillis()));
+        try {
+            session.execute(String.format("ALTER TABLE message DETACH PARTITION %s", name));
+        } finally {
+            session.execute("RESET lock_timeout");
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    static class Partition {
+        private final String name;
+        // null when unbounded
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final boolean defaultPartition;
+
+        static Partition parse(String name, String bounds) {
+            if ("DEFAULT".equalsIgnoreCase(bounds.trim())) {
+                return new Partition(name, null, null, true);
+            }
+            Matcher matcher = RANGE_BOUNDS.matcher(bounds);
+            if (!matcher.find()) {
+                throw new IllegalStateException(
+                        "Unexpected bounds of message partition " + name + ": " + bounds);
+            }
+            return new Partition(
+                    name, parseBound(matcher.group(1)), parseBound(matcher.group(2)), false);
+        }
+
+        private static LocalDateTime parseBound(String bound) {
+            String value = bound.trim();
+            if (value.toUpperCase(Locale.ROOT).endsWith("VALUE")) {
+                return null;
+            }
+            value = value.replace("'", "");
+            // timestamp literals may carry fractional seconds
+            int fraction = value.indexOf('.');
+            return LocalDateTime.parse(fraction < 0 ? value : value.substring(0, fraction), BOUND);
+        }
+
+        boolean overlaps(LocalDateTime rangeFrom, LocalDateTime rangeTo) {
+            return !defaultPartition
+                    && (from == null || from.isBefore(rangeTo))
+                    && (to == null || to.isAfter(rangeFrom));
+        }
+    }
+}
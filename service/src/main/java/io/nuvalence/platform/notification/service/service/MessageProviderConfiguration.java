@@ -1,10 +1,18 @@
 package io.nuvalence.platform.notification.service.service;
 
 import com.sendgrid.SendGrid;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.nuvalence.platform.notification.service.repository.RateLimitBucketRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 /**
  * Configuration for message providers.
  */
@@ -12,23 +20,172 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class MessageProviderConfiguration {
 
+    @Value("${rate-limits.shared:false}")
+    private boolean sharedRateLimits;
+
+    @Value("${rate-limits.max-wait:PT0.5S}")
+    private Duration maxRateLimitWait;
+
+    @Value("${rate-limits.lease-size:10}")
+    private int rateLimitLeaseSize;
+
     /**
-     * Create a message provider for email.
+     * Create a message provider for email, sending through the SendGrid SDK.
      * @param sendGrid api.
+     * @param permitsPerSecond maximum rate of requests to SendGrid, unlimited when not positive.
+     * @param burst number of requests allowed at once after an idle period.
+     * @param batchingEnabled whether emails with the same subject and body are sent together.
+     * @param batchWindow time a batch stays open for more emails.
+     * @param maxPersonalizations maximum number of recipients per request.
+     * @param rateLimitBuckets repository of the rate limit buckets shared between replicas.
+     * @param guard circuit breaker and bulkhead of the requests to SendGrid.
+     * @param meterRegistry registry where the rate limit and batching metrics are published.
      * @return SendGridEmailProvider object.
      */
     @Bean
-    public EmailProvider emailMessageProvider(SendGrid sendGrid) {
-        return new SendGridEmailProvider(sendGrid);
+    @ConditionalOnProperty(name = "sendgrid.transport", havingValue = "sdk", matchIfMissing = true)
+    public EmailProvider emailMessageProvider(
+            SendGrid sendGrid,
+            @Value("${sendgrid.rate-limit.permits-per-second:0}") double permitsPerSecond,
+            @Value("${sendgrid.rate-limit.burst:0}") double burst,
+            @Value("${sendgrid.batching.enabled:true}") boolean batchingEnabled,
+            @Value("${sendgrid.batching.window:PT0.05S}") Duration batchWindow,
+            @Value("${sendgrid.batching.max-personalizations:1000}") int maxPersonalizations,
+            RateLimitBucketRepository rateLimitBuckets,
+            @Qualifier("sendGridGuard") DependencyGuard guard,
+            MeterRegistry meterRegistry) {
+        ProviderRateLimiter rateLimiter =
+                rateLimiter("sendgrid", permitsPerSecond, burst, rateLimitBuckets, meterRegistry);
+        if (!batchingEnabled) {
+            return new SendGridEmailProvider(sendGrid, rateLimiter, guard);
+        }
+        return new SendGridEmailProvider(
+                sendGrid, rateLimiter, guard, batchWindow, maxPersonalizations, meterRegistry);
+    }
+
+    /**
+     * Create a message provider for email, sending through a non-blocking HTTP client negotiating
+     * HTTP/2 with SendGrid. Emails are not batched, each is sent in a request of its own.
+     *
+     * @param baseUrl          base url of the SendGrid api
+     * @param apiKey           SendGrid api key
+     * @param connectTimeout   time to wait for a connection to SendGrid
+     * @param requestTimeout   time to wait for SendGrid to answer a request
+     * @param maxInFlight      maximum number of requests awaiting an answer
+     * @param permitsPerSecond maximum rate of requests to SendGrid, unlimited when not positive
+     * @param burst            number of requests allowed at once after an idle period
+     * @param rateLimitBuckets repository of the rate limit buckets shared between replicas
+     * @param guard            circuit breaker and bulkhead of the requests to SendGrid
+     * @param meterRegistry    registry where the rate limit metrics are published
+     * @return SendGridHttpEmailProvider object
+     */
+    @Bean
+    @ConditionalOnProperty(name = "sendgrid.transport", havingValue = "http")
+    public EmailProvider httpEmailMessageProvider(
+            @Value("${sendgrid.http.base-url:https://api.sendgrid.com}") String baseUrl,
+            @Value("${sendgrid.apiKey}") String apiKey,
+            @Value("${sendgrid.http.connect-timeout:PT5S}") Duration connectTimeout,
+            @Value("${sendgrid.http.request-timeout:PT30S}") Duration requestTimeout,
+            @Value("${sendgrid.http.max-in-flight:500}") int maxInFlight,
+            @Value("${sendgrid.rate-limit.permits-per-second:0}") double permitsPerSecond,
+            @Value("${sendgrid.rate-limit.burst:0}") double burst,
+            RateLimitBucketRepository rateLimitBuckets,
+            @Qualifier("sendGridGuard") DependencyGuard guard,
+            MeterRegistry meterRegistry) {
+        HttpClient httpClient =
+                HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(connectTimeout)
+                        .build();
+        log.info("Sending emails over HTTP, at most {} requests in flight", maxInFlight);
+        return new SendGridHttpEmailProvider(
+                httpClient,
+                baseUrl,
+                apiKey,
+                requestTimeout,
+                maxInFlight,
+                rateLimiter("sendgrid", permitsPerSecond, burst, rateLimitBuckets, meterRegistry),
+                guard);
     }
 
     /**
-     * Create a message provider for SMS.
+     * Create a message provider for SMS, sending through the Twilio SDK.
      *
+     * @param permitsPerSecond maximum rate of SMS per sender number, unlimited when not positive
+     * @param burst            number of SMS allowed at once after an idle period
+     * @param rateLimitBuckets repository of the rate limit buckets shared between replicas
+     * @param guard            circuit breaker and bulkhead of the requests to Twilio
+     * @param meterRegistry    registry where the rate limit metrics are published
      * @return SMS message provider
      */
     @Bean
-    public SmsProvider smsMessageProvider() {
-        return new TwilioSmsProvider();
+    @ConditionalOnProperty(name = "twilio.transport", havingValue = "sdk", matchIfMissing = true)
+    public SmsProvider smsMessageProvider(
+            @Value("${twilio.rate-limit.permits-per-second:0}") double permitsPerSecond,
+            @Value("${twilio.rate-limit.burst:0}") double burst,
+            RateLimitBucketRepository rateLimitBuckets,
+            @Qualifier("twilioGuard") DependencyGuard guard,
+            MeterRegistry meterRegistry) {
+        TwilioSmsProvider smsProvider = new TwilioSmsProvider();
+        smsProvider.setRateLimiter(
+                rateLimiter("twilio", permitsPerSecond, burst, rateLimitBuckets, meterRegistry));
+        smsProvider.setGuard(guard);
+        return smsProvider;
+    }
+
+    /**
+     * Create a message provider for SMS, sending through a non-blocking HTTP client with a
+     * dedicated executor.
+     *
+     * @param baseUrl          base url of the Twilio api
+     * @param connectTimeout   time to wait for a connection to Twilio
+     * @param requestTimeout   time to wait for Twilio to answer a request
+     * @param maxInFlight      maximum number of requests awaiting an answer
+     * @param threads          number of threads handling the answers
+     * @param permitsPerSecond maximum rate of SMS per sender number, unlimited when not positive
+     * @param burst            number of SMS allowed at once after an idle period
+     * @param rateLimitBuckets repository of the rate limit buckets shared between replicas
+     * @param guard            circuit breaker and bulkhead of the requests to Twilio
+     * @param meterRegistry    registry where the rate limit metrics are published
+     * @return SMS message provider
+     */
+    @Bean
+    @ConditionalOnProperty(name = "twilio.transport", havingValue = "http")
+    public SmsProvider httpSmsMessageProvider(
+            @Value("${twilio.http.base-url:https://api.twilio.com}") String baseUrl,
+            @Value("${twilio.http.connect-timeout:PT5S}") Duration connectTimeout,
+            @Value("${twilio.http.request-timeout:PT15S}") Duration requestTimeout,
+            @Value("${twilio.http.max-in-flight:200}") int maxInFlight,
+            @Value("${twilio.http.threads:4}") int threads,
+            @Value("${twilio.rate-limit.permits-per-second:0}") double permitsPerSecond,
+            @Value("${twilio.rate-limit.burst:0}") double burst,
+            RateLimitBucketRepository rateLimitBuckets,
+            @Qualifier("twilioGuard") DependencyGuard guard,
+            MeterRegistry meterRegistry) {
+        log.info("Sending SMS over HTTP, at most {} requests in flight", maxInFlight);
+        return new TwilioHttpSmsProvider(
+                baseUrl,
+                connectTimeout,
+                requestTimeout,
+                maxInFlight,
+                threads,
+                rateLimiter("twilio", permitsPerSecond, burst, rateLimitBuckets, meterRegistry),
+                guard);
+    }
+
+    private ProviderRateLimiter rateLimiter(
+            String provider,
+            double permitsPerSecond,
+            double burst,
+            RateLimitBucketRepository rateLimitBuckets,
+            MeterRegistry meterRegistry) {
+        return new ProviderRateLimiter(
+                provider,
+                permitsPerSecond,
+                burst,
+                maxRateLimitWait,
+                sharedRateLimits ? rateLimitBuckets : null,
+                rateLimitLeaseSize,
+                meterRegistry);
     }
 }
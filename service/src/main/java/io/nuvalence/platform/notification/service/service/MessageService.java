@@ -4,9 +4,16 @@ import io.nuvalence.platform.notification.service.domain.Message;
 import io.nuvalence.platform.notification.service.domain.MessageTemplate;
 import io.nuvalence.platform.notification.service.exception.BadDataException;
 import io.nuvalence.platform.notification.service.exception.NotFoundException;
+import io.nuvalence.platform.notification.service.model.SearchMessageFilter;
 import io.nuvalence.platform.notification.service.repository.MessageRepository;
+import jakarta.transaction.Transactional;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -14,6 +21,11 @@ import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -25,8 +37,11 @@ import java.util.UUID;
 @Service
 public class MessageService {
 
+    static final String FAILED_STATUS = "FAILED";
+
     private static final String QUEUED_STATUS = "QUEUED";
-    private final PubSubService pubSubService;
+    private static final String SENT_STATUS = "SENT";
+    private final MessageOutboxService messageOutboxService;
     private final TemplateService templateService;
     private final MessageRepository messageRepository;
 
@@ -36,23 +51,183 @@ public class MessageService {
      * @param id the message id
      * @return the message
      */
+    @Transactional
     public Optional<Message> findBy(UUID id) {
-        return messageRepository.findById(id);
+        Optional<Message> message = messageRepository.findById(id);
+        // parameters of messages not backfilled yet are loaded from message_parameter
+        message.map(Message::getParameters).ifPresent(Hibernate::initialize);
+        return message;
+    }
+
+    /**
+     * Search messages a page at a time, without counting the matches.
+     *
+     * @param filter the search filter, whose cursor positions the page
+     * @return the page, telling whether more messages follow
+     */
+    @Transactional
+    public Slice<Message> search(SearchMessageFilter filter) {
+        int pageSize = filter.getPageSize();
+        List<Message> messages =
+                messageRepository.findBy(
+                        filter.getMessageSpecifications(),
+                        query -> query.sortBy(filter.getSort()).limit(pageSize + 1).all());
+        boolean hasNext = messages.size() > pageSize;
+        List<Message> page = hasNext ? messages.subList(0, pageSize) : messages;
+        page.stream().map(Message::getParameters).forEach(Hibernate::initialize);
+        return new SliceImpl<>(page, PageRequest.of(0, pageSize, filter.getSort()), hasNext);
     }
 
     /**
-     * Save a message.
+     * Save a message and queue it for sending. The message is added to the outbox in the same
+     * transaction and published by {@link MessageOutboxRelay}, so the caller does not wait on
+     * PubSub.
      *
      * @param message the message
      * @return the saved message
      */
+    @Transactional
     public Message save(Message message) {
-        // verify template exists
         MessageTemplate messageTemplate =
                 templateService
                         .getTemplate(message.getMessageTemplateKey())
                         .orElseThrow(() -> new NotFoundException("Template not found"));
-        // verify all parameters in message are in template, ignore those which are not
+        validateParameters(messageTemplate, message);
+        queue(message, OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        Message savedMessaged = messageRepository.save(message);
+
+        messageOutboxService.enqueue(savedMessaged);
+
+        return savedMessaged;
+    }
+
+    /**
+     * Save a batch of messages and queue them for sending. Each template is looked up once for
+     * the whole batch, and messages failing validation are rejected individually instead of
+     * failing the batch. Accepted messages are inserted in bulk, without going through the
+     * persistence context.
+     *
+     * @param messages the messages
+     * @return the result of each message, in the order of the messages
+     */
+    @Transactional
+    public List<SaveResult> saveAll(List<Message> messages) {
+        OffsetDateTime now = OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Map<String, Optional<MessageTemplate>> templates = new HashMap<>();
+        List<SaveResult> results = new ArrayList<>(messages.size());
+        List<Message> accepted = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            try {
+                MessageTemplate messageTemplate =
+                        templates
+                                .computeIfAbsent(
+                                        message.getMessageTemplateKey(),
+                                        templateService::getTemplate)
+                                .orElseThrow(() -> new NotFoundException("Template not found"));
+                validateParameters(messageTemplate, message);
+                queue(message, now);
+                accepted.add(message);
+                results.add(new SaveResult(message, null));
+            } catch (NotFoundException | BadDataException e) {
+                results.add(new SaveResult(null, e.getMessage()));
+            }
+        }
+
+        messageRepository.insertAll(accepted);
+        messageOutboxService.enqueueAll(accepted);
+
+        return results;
+    }
+
+    /**
+     * Update the status of a message in its own short transaction, so callers can reach the
+     * providers without holding a database connection. Sent messages get their sent timestamp.
+     *
+     * @param message the message, with its id and requested timestamp
+     * @param status  the new status
+     */
+    @Transactional
+    public void updateMessageStatus(Message message, String status) {
+        OffsetDateTime sentTimestamp =
+                SENT_STATUS.equals(status)
+                        ? OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS)
+                        : null;
+        messageRepository.updateMessageStatus(
+                message.getId(), message.getRequestedTimestamp(), status, sentTimestamp);
+    }
+
+    /**
+     * Update the status, sent timestamp and stage durations of several messages in one
+     * transaction, with a single multi-row statement.
+     *
+     * @param messages messages carrying their new status and timings
+     */
+    @Transactional
+    public void updateMessageStatuses(Collection<Message> messages) {
+        messageRepository.updateStatuses(messages);
+    }
+
+    /**
+     * Move the parameters of messages saved before the parameters column existed into it, and
+     * drop their message_parameter rows.
+     *
+     * @param batchSize maximum number of messages to backfill
+     * @return number of backfilled messages
+     */
+    @Transactional
+    public int backfillParameters(int batchSize) {
+        List<Message> messages =
+                messageRepository.findWithoutParameters(PageRequest.of(0, batchSize));
+        for (Message message : messages) {
+            Map<String, String> legacyParameters = message.getLegacyParameters();
+            message.setParameters(
+                    legacyParameters == null ? new HashMap<>() : new HashMap<>(legacyParameters));
+            if (legacyParameters != null) {
+                legacyParameters.clear();
+            }
+        }
+        return messages.size();
+    }
+
+    /**
+     * Queue again a chunk of messages stuck in QUEUED, by adding them to the outbox. Each message
+     * is leased with its swept timestamp, so neither this replica nor another one picks it again
+     * before it is stuck for as long once more. Messages already queued again {@code maxSweeps}
+     * times are moved to FAILED instead, so a message that is never processed is not queued again
+     * forever.
+     *
+     * @param before    messages requested or swept after this time are not stuck yet
+     * @param after     last message of the previous chunk, or null to start from the oldest one
+     * @param batchSize maximum number of messages to sweep
+     * @param maxSweeps number of times a message is queued again before it fails
+     * @return swept messages, by requested timestamp and id, either queued again or failed
+     */
+    @Transactional
+    public List<Message> requeueStuckMessages(
+            OffsetDateTime before, Message after, int batchSize, int maxSweeps) {
+        PageRequest chunk = PageRequest.of(0, batchSize);
+        List<Message> messages =
+                after == null
+                        ? messageRepository.findStuck(before, chunk)
+                        : messageRepository.findStuckAfter(
+                                before, after.getRequestedTimestamp(), after.getId(), chunk);
+        OffsetDateTime now = OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<Message> requeued = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            message.setSweptTimestamp(now);
+            if (message.getSweepCount() >= maxSweeps) {
+                message.setStatus(FAILED_STATUS);
+            } else {
+                message.setSweepCount(message.getSweepCount() + 1);
+                requeued.add(message);
+            }
+        }
+        messageOutboxService.enqueueAll(requeued);
+        return messages;
+    }
+
+    // verify all parameters in message are in template, ignore those which are not
+    private void validateParameters(MessageTemplate messageTemplate, Message message) {
         messageTemplate
                 .getParameters()
                 .forEach(
@@ -76,20 +251,11 @@ public class MessageService {
                                 }
                             }
                         });
-        // queue message for sending
-        OffsetDateTime now = OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
 
+    private void queue(Message message, OffsetDateTime now) {
         message.setStatus(QUEUED_STATUS);
         message.setRequestedTimestamp(now);
-        Message savedMessaged = messageRepository.save(message);
-
-        pubSubService.publish(savedMessaged);
-
-        return savedMessaged;
-    }
-
-    public void updateMessageStatus(UUID id, String status) {
-        messageRepository.updateMessageStatus(id, status);
     }
 
     private boolean isCorrectType(String parameterValue, String parameterType) {
@@ -131,4 +297,17 @@ public class MessageService {
             return false;
         }
     }
+
+    /**
+     * Result of saving one message of a batch.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class SaveResult {
+        /** The saved message, or null when it was rejected. */
+        private final Message message;
+
+        /** Why the message was rejected, or null when it was saved. */
+        private final String error;
+    }
 }
@@ -0,0 +1,204 @@
+package io.nuvalence.platform.notification.service.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.nuvalence.platform.notification.service.domain.Message;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Records message status transitions in the background.
+ *
+ * <p>Transitions are buffered and written in one transaction, with a single multi-row update,
+ * when the buffer reaches the maximum batch size or the flush interval elapses. Along with the
+ * status each row gets the sent timestamp and the stage durations carried by the message.
+ * Callers get a future completed once the transition is committed, so they can hold on to
+ * whatever must not happen before the status is durable. When buffering is disabled each
+ * transition is written straight away.</p>
+ *
+ * <p>Once committed, the durations are also published as the {@value #LATENCY_METRIC} timer,
+ * tagged with the stage, with their percentiles.</p>
+ */
+@Slf4j
+@Component
+public class MessageStatusRecorder {
+
+    static final String FLUSH_SIZE_METRIC = "message.status.flush.size";
+    static final String LATENCY_METRIC = "message.latency";
+    private static final double[] LATENCY_PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MessageService messageService;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final ConcurrentLinkedQueue<PendingStatus> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ScheduledExecutorService flushExecutor;
+    private final DistributionSummary flushSize;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructor.
+     *
+     * @param messageService service used to write the statuses
+     * @param enabled        whether transitions are buffered or written straight away
+     * @param maxBatchSize   number of buffered transitions that triggers a flush
+     * @param flushInterval  maximum time a transition stays buffered
+     * @param meterRegistry  registry where the flush size and latencies are published
+     */
+    public MessageStatusRecorder(
+            MessageService messageService,
+            @Value("${notificationProcessing.status-buffer.enabled:true}") boolean enabled,
+            @Value("${notificationProcessing.status-buffer.max-batch-size:500}") int maxBatchSize,
+            @Value("${notificationProcessing.status-buffer.flush-interval:PT0.2S}")
+                    Duration flushInterval,
+            MeterRegistry meterRegistry) {
+        this.messageService = messageService;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.flushSize = meterRegistry.summary(FLUSH_SIZE_METRIC);
+        this.meterRegistry = meterRegistry;
+        if (enabled) {
+            CustomizableThreadFactory threadFactory =
+                    new CustomizableThreadFactory("message-status-flush-");
+            threadFactory.setDaemon(true);
+            this.flushExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            this.flushExecutor.scheduleWithFixedDelay(
+                    this::flush,
+                    flushInterval.toMillis(),
+                    flushInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.flushExecutor = null;
+        }
+    }
+
+    /**
+     * Record a status transition, along with the sent timestamp and stage durations set on the
+     * message.
+     *
+     * @param message the message, which must not be modified until the future completes
+     * @param status  the new status
+     * @return future completed once the transition is committed
+     */
+    public CompletableFuture<Void> record(Message message, String status) {
+        message.setStatus(status);
+        if (!enabled) {
+            try {
+                messageService.updateMessageStatuses(List.of(message));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            recordLatencies(message);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        PendingStatus transition = new PendingStatus(message);
+        pending.add(transition);
+        if (pendingCount.incrementAndGet() == maxBatchSize) {
+            flushExecutor.execute(this::flush);
+        }
+        return transition.future;
+    }
+
+    /**
+     * Write every buffered transition. Runs on the single flush thread, so batches are written
+     * one at a time.
+     */
+    void flush() {
+        List<PendingStatus> batch = new ArrayList<>(maxBatchSize);
+        PendingStatus transition;
+        while ((transition = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(transition);
+            if (batch.size() == maxBatchSize) {
+                write(batch);
+                batch = new ArrayList<>(maxBatchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<PendingStatus> batch) {
+        List<Message> messages =
+                batch.stream().map(PendingStatus::getMessage).collect(Collectors.toList());
+        try {
+            messageService.updateMessageStatuses(messages);
+        } catch (RuntimeException e) {
+            log.error("Failed to record the status of {} messages", batch.size(), e);
+            batch.forEach(failed -> failed.future.completeExceptionally(e));
+            return;
+        }
+        flushSize.record(batch.size());
+        messages.forEach(this::recordLatencies);
+        batch.forEach(recorded -> recorded.future.complete(null));
+    }
+
+    private void recordLatencies(Message message) {
+        recordLatency("queue_wait", message.getQueueWaitMillis());
+        recordLatency("user_lookup", message.getUserLookupMillis());
+        recordLatency("render", message.getRenderMillis());
+        recordLatency("provider", message.getProviderMillis());
+        if (message.getRequestedTimestamp() != null && message.getSentTimestamp() != null) {
+            recordLatency(
+                    "end_to_end",
+                    Duration.between(message.getRequestedTimestamp(), message.getSentTimestamp())
+                            .toMillis());
+        }
+    }
+
+    private void recordLatency(String stage, Long millis) {
+        if (millis == null) {
+            return;
+        }
+        Timer.builder(LATENCY_METRIC)
+                .tag("stage", stage)
+                .publishPercentiles(LATENCY_PERCENTILES)
+                .register(meterRegistry)
+                .record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write the transitions still buffered and stop the flush thread.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (flushExecutor == null) {
+            return;
+        }
+        flushExecutor.execute(this::flush);
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Message statuses still being recorded at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class PendingStatus {
+        private final Message message;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+    }
+}
@@ -4,15 +4,20 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
 import com.google.cloud.spring.pubsub.support.GcpPubSubHeaders;
 import io.nuvalence.platform.notification.service.domain.Message;
+import io.nuvalence.platform.notification.service.exception.DependencyUnavailableException;
 import io.nuvalence.platform.notification.service.exception.MessageParsingException;
+import io.nuvalence.platform.notification.service.exception.RateLimitExceededException;
 import io.nuvalence.platform.notification.service.exception.UnprocessableNotificationException;
-import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.MessageHandler;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service to handle messages from the PubSub subscription, for notification processing.
@@ -25,47 +30,102 @@ public class NotificationProcessingSubscriber implements MessageHandler {
 
     private static final String UNPROCESSABLE_STATUS = "UNPROCESSABLE";
     private final ObjectMapper mapper;
-    private final MessageService messageService;
+    private final MessageStatusRecorder statusRecorder;
     private final SendMessageService sendMessageService;
 
     /**
      * Subscriber constructor.
      *
      * @param mapper the object mapper bean
-     * @param messageService service to update message status
+     * @param statusRecorder recorder of the message status
      * @param sendMessageService service to process notifications.
      */
     public NotificationProcessingSubscriber(
             ObjectMapper mapper,
-            MessageService messageService,
+            MessageStatusRecorder statusRecorder,
             SendMessageService sendMessageService) {
         this.mapper = mapper;
-        this.messageService = messageService;
+        this.statusRecorder = statusRecorder;
         this.sendMessageService = sendMessageService;
     }
 
+    /**
+     * Sends the notification described by the message. No transaction is held while the user is
+     * resolved and the provider is called. With a non-blocking provider, the status is recorded
+     * and the message acknowledged once the provider answers, without holding the calling thread.
+     * The time spent in each stage is set on the message and, along with the sent timestamp,
+     * recorded with the new status. The new status is handed to the
+     * {@link MessageStatusRecorder} and the PubSub message is only acknowledged once the status
+     * is committed, so a send is never acknowledged without being recorded. Messages refused
+     * because a dependency is unavailable, or because their provider's rate limit would make them
+     * wait too long, are nacked straight away.
+     *
+     * <p>Copies of a message, for instance one queued again by the {@link StuckMessageSweeper}
+     * while PubSub still delivers it, are not looked up before sending, which would cost a
+     * transaction per message; only the first outcome recorded for a message is kept. A message
+     * nacked for redelivery stays in QUEUED.</p>
+     *
+     * @param message PubSub message
+     */
     @Override
-    @Transactional
     public void handleMessage(org.springframework.messaging.Message<?> message) {
         log.trace("Received message for notification processing.");
 
         Message messageToSend = parseSubscriptionPayload(message);
+        OffsetDateTime processingStart = OffsetDateTime.now();
+        if (messageToSend.getRequestedTimestamp() != null) {
+            messageToSend.setQueueWaitMillis(
+                    Duration.between(messageToSend.getRequestedTimestamp(), processingStart)
+                            .toMillis());
+        }
 
         try {
-            sendMessageService.sendMessage(messageToSend);
-            messageService.updateMessageStatus(messageToSend.getId(), SENT_STATUS);
-            acknowledgeMessage(message);
+            sendMessageService
+                    .sendMessageAsync(messageToSend)
+                    .whenComplete((sent, e) -> recordOutcome(message, messageToSend, e));
         } catch (UnprocessableNotificationException e) {
-            acknowledgeMessage(message);
-            messageService.updateMessageStatus(messageToSend.getId(), UNPROCESSABLE_STATUS);
+            recordStatus(message, messageToSend, UNPROCESSABLE_STATUS);
+        } catch (DependencyUnavailableException | RateLimitExceededException e) {
+            log.warn("Message not processed, will be redelivered: {}", e.getMessage());
+            acknowledgeMessage(message, false);
         } catch (Exception e) {
             log.error("An error occurred processing request", e);
             acknowledgeMessage(message, false);
         }
     }
 
-    private void acknowledgeMessage(org.springframework.messaging.Message<?> message) {
-        acknowledgeMessage(message, true);
+    private void recordOutcome(
+            org.springframework.messaging.Message<?> message,
+            Message messageToSend,
+            Throwable error) {
+        if (error == null) {
+            messageToSend.setSentTimestamp(OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS));
+            recordStatus(message, messageToSend, SENT_STATUS);
+            return;
+        }
+        Throwable cause =
+                error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+        if (cause instanceof UnprocessableNotificationException) {
+            recordStatus(message, messageToSend, UNPROCESSABLE_STATUS);
+        } else if (cause instanceof DependencyUnavailableException
+                || cause instanceof RateLimitExceededException) {
+            log.warn("Message not processed, will be redelivered: {}", cause.getMessage());
+            acknowledgeMessage(message, false);
+        } else {
+            log.error("An error occurred processing request", cause);
+            acknowledgeMessage(message, false);
+        }
+    }
+
+    private void recordStatus(
+            org.springframework.messaging.Message<?> message,
+            Message messageToSend,
+            String status) {
+        statusRecorder
+                .record(messageToSend, status)
+                .whenComplete((recorded, e) -> acknowledgeMessage(message, e == null));
     }
 
     private void acknowledgeMessage(
@@ -0,0 +1,237 @@
+package io.nuvalence.platform.notification.service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuvalence.platform.notification.service.domain.RateLimitBucket;
+import io.nuvalence.platform.notification.service.exception.RateLimitExceededException;
+import io.nuvalence.platform.notification.service.repository.RateLimitBucketRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate of calls to a provider, with a token bucket per key such as the sender number.
+ *
+ * <p>Calls over the rate wait for their token instead of reaching the provider and getting
+ * throttled there, so the rate should be set just under the provider quota. A call that would
+ * wait longer than the maximum wait fails with a {@link RateLimitExceededException} instead, and
+ * its notification is redelivered later. The maximum wait is kept short, as {@link #acquire}
+ * waits on the thread processing the notification. Buckets are kept in memory, limiting each
+ * replica on its own, or in the database to share one budget between replicas. A replica takes
+ * the tokens of a shared bucket {@code leaseSize} at a time and hands them out itself, so the
+ * bucket row is only updated once per lease; the burst may then be exceeded by the tokens each
+ * replica holds. One call fetches the next lease from the database while the other calls for the
+ * same key wait for it, without holding the monitor of the lease meanwhile.</p>
+ *
+ * <p>The time spent waiting is published as the {@value #WAIT_METRIC} timer and the calls
+ * refused as the {@value #REJECTED_METRIC} counter, both tagged with the provider.</p>
+ */
+public class ProviderRateLimiter {
+
+    static final String WAIT_METRIC = "provider.rate_limit.wait";
+    static final String REJECTED_METRIC = "provider.rate_limit.rejected";
+
+    private final String provider;
+
+    private final double permitsPerSecond;
+
+    private final double burst;
+
+    private final long maxWaitMicros;
+
+    private final RateLimitBucketRepository sharedBuckets;
+
+    private final int leaseSize;
+
+    private final Map<String, RateLimitBucket> localBuckets = new ConcurrentHashMap<>();
+
+    private final Map<String, SharedBucketLease> leases = new ConcurrentHashMap<>();
+
+    private final Timer waitTimer;
+
+    private final Counter rejectedCounter;
+
+    /**
+     * Constructor.
+     *
+     * @param provider         name of the provider, used in the bucket keys and metric tags
+     * @param permitsPerSecond maximum rate of calls per key, unlimited when not positive
+     * @param burst            number of calls allowed at once after an idle period, defaulting
+     *                         to one second worth of calls when not positive
+     * @param maxWait          maximum time a call waits for its token
+     * @param sharedBuckets    repository of the buckets shared between replicas, or null to keep
+     *                         them in memory
+     * @param leaseSize        maximum number of tokens taken from a shared bucket at once
+     * @param meterRegistry    registry where the rate limit metrics are published
+     */
+    public ProviderRateLimiter(
+            String provider,
+            double permitsPerSecond,
+            double burst,
+            Duration maxWait,
+            RateLimitBucketRepository sharedBuckets,
+            int leaseSize,
+            MeterRegistry meterRegistry) {
+        this.provider = provider;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst > 0 ? burst : Math.max(1, permitsPerSecond);
+        this.maxWaitMicros = TimeUnit.MILLISECONDS.toMicros(maxWait.toMillis());
+        this.sharedBuckets = sharedBuckets;
+        this.leaseSize = Math.max(1, leaseSize);
+        this.waitTimer =
+                Timer.builder(WAIT_METRIC).tag("provider", provider).register(meterRegistry);
+        this.rejectedCounter =
+                Counter.builder(REJECTED_METRIC).tag("provider", provider).register(meterRegistry);
+    }
+
+    /**
+     * Create a limiter letting every call through.
+     *
+     * @param provider name of the provider
+     * @return unlimited limiter
+     */
+    public static ProviderRateLimiter unlimited(String provider) {
+        return new ProviderRateLimiter(
+                provider, 0, 0, Duration.ZERO, null, 1, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Wait until a call is allowed for a key.
+     *
+     * @param key key whose calls share the rate, such as the sender number
+     * @throws RateLimitExceededException if the call would wait longer than the maximum wait
+     */
+    public void acquire(String key) {
+        long waitMicros = reserve(key);
+        if (waitMicros > 0) {
+            try {
+                TimeUnit.MICROSECONDS.sleep(waitMicros);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RateLimitExceededException(
+                        String.format("Interrupted waiting for the rate limit of %s", provider));
+            }
+        }
+    }
+
+    /**
+     * Reserve a call for a key without waiting, for callers that schedule the call themselves.
+     *
+     * @param key key whose calls share the rate, such as the sender number
+     * @return time in microseconds before the call is allowed, 0 when it is allowed now
+     * @throws RateLimitExceededException if the call would wait longer than the maximum wait
+     */
+    public long reserve(String key) {
+        if (permitsPerSecond <= 0) {
+            return 0;
+        }
+        String bucketKey = provider + ":" + key;
+        long waitMicros;
+        if (sharedBuckets != null) {
+            waitMicros =
+                    leases.computeIfAbsent(bucketKey, k -> new SharedBucketLease()).take(bucketKey);
+        } else {
+            long nowMicros = nowMicros();
+            RateLimitBucket bucket =
+                    localBuckets.computeIfAbsent(
+                            bucketKey, k -> new RateLimitBucket(burst, nowMicros));
+            synchronized (bucket) {
+                waitMicros = reserve(bucket, nowMicros);
+            }
+        }
+
+        if (waitMicros < 0) {
+            rejectedCounter.increment();
+            throw new RateLimitExceededException(
+                    String.format("Rate limit of %s exceeded for %s", provider, key));
+        }
+        waitTimer.record(waitMicros, TimeUnit.MICROSECONDS);
+        return waitMicros;
+    }
+
+    private long reserve(RateLimitBucket bucket, long nowMicros) {
+        return bucket.reserve(nowMicros, permitsPerSecond, burst, maxWaitMicros);
+    }
+
+    private static long nowMicros() {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+    }
+
+    // tokens of a shared bucket taken by this replica, guarded by its own monitor
+    private class SharedBucketLease {
+
+        private RateLimitBucket.Lease current;
+
+        // next lease, while a call fetches it from the database
+        private CompletableFuture<RateLimitBucket.Lease> next;
+
+        long take(String bucketKey) {
+            while (true) {
+                CompletableFuture<RateLimitBucket.Lease> fetching;
+                boolean fetcher = false;
+                synchronized (this) {
+                    if (current != null && !current.isUsedUp()) {
+                        return current.take(nowMicros(), permitsPerSecond);
+                    }
+                    if (next == null) {
+                        next = new CompletableFuture<>();
+                        fetcher = true;
+                    }
+                    fetching = next;
+                }
+                RateLimitBucket.Lease lease =
+                        fetcher ? fetch(bucketKey, fetching) : await(fetching);
+                if (lease.isEmpty()) {
+                    // the bucket has no token within the maximum wait
+                    return -1;
+                }
+            }
+        }
+
+        private RateLimitBucket.Lease fetch(
+                String bucketKey, CompletableFuture<RateLimitBucket.Lease> fetching) {
+            RateLimitBucket.Lease lease;
+            try {
+                lease =
+                        sharedBuckets.lease(
+                                bucketKey,
+                                nowMicros(),
+                                permitsPerSecond,
+                                burst,
+                                maxWaitMicros,
+                                leaseSize);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    next = null;
+                }
+                fetching.completeExceptionally(e);
+                throw e;
+            }
+            synchronized (this) {
+                current = lease;
+                next = null;
+            }
+            fetching.complete(lease);
+            return lease;
+        }
+
+        private RateLimitBucket.Lease await(CompletableFuture<RateLimitBucket.Lease> fetching) {
+            try {
+                return fetching.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package io.nuvalence.platform.notification.service.service;
+
+/**
+ * Classifies the error status codes the email and SMS providers answer with.
+ *
+ * <p>Throttling (429) and server errors (5xx) are transient, so the notification is retried. Any
+ * other client error, such as a bad request or an authentication error, is a rejection that
+ * retrying does not fix, so the notification is unprocessable.</p>
+ */
+final class ProviderStatusCodes {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private static final int CLIENT_ERROR_MIN = 400;
+
+    private static final int SERVER_ERROR_MIN = 500;
+
+    private ProviderStatusCodes() {}
+
+    /**
+     * Whether a status code rejects the notification for good.
+     *
+     * @param statusCode status code answered by the provider
+     * @return true for a client error other than throttling
+     */
+    static boolean isRejection(int statusCode) {
+        return statusCode >= CLIENT_ERROR_MIN
+                && statusCode < SERVER_ERROR_MIN
+                && statusCode != TOO_MANY_REQUESTS;
+    }
+}
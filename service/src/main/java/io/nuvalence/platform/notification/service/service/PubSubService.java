@@ -1,47 +1,132 @@
 package io.nuvalence.platform.notification.service.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.nuvalence.platform.notification.service.config.PubSubOutboundConfig;
 import io.nuvalence.platform.notification.service.domain.Message;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.MessageHeaders;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.MessagingException;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Handle PubSub writes & callbacks.
+ *
+ * <p>In asynchronous mode messages are handed to the PubSub publisher, which batches them
+ * according to the {@code spring.cloud.gcp.pubsub.publisher.batching} settings, and callers get a
+ * future completed when PubSub acknowledges the message. Otherwise messages go through the
+ * outbound gateway and the returned future is already complete.</p>
  */
-@RequiredArgsConstructor
 @Slf4j
 @Service
 public class PubSubService {
+
+    static final String PUBLISH_LATENCY_METRIC = "pubsub.publish.latency";
+    static final String BATCH_SIZE_METRIC = "pubsub.publish.batch.size";
+
     private final PubSubOutboundConfig.PubSubOutboundGateway messagingGateway;
+    private final PubSubTemplate pubSubTemplate;
     private final ObjectMapper objectMapper;
+    private final String topic;
+    private final boolean asyncPublishing;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary batchSize;
+
+    /**
+     * Constructor.
+     *
+     * @param messagingGateway gateway used when publishing synchronously
+     * @param pubSubTemplate   template used when publishing asynchronously
+     * @param objectMapper     mapper used to serialize the messages
+     * @param topic            the name of the topic to publish messages to
+     * @param asyncPublishing  whether to publish asynchronously through the batching publisher
+     * @param meterRegistry    registry where publishing metrics are published
+     */
+    public PubSubService(
+            PubSubOutboundConfig.PubSubOutboundGateway messagingGateway,
+            PubSubTemplate pubSubTemplate,
+            ObjectMapper objectMapper,
+            @Value("${spring.cloud.gcp.pubsub.topic}") String topic,
+            @Value("${spring.cloud.gcp.pubsub.asyncPublishing:true}") boolean asyncPublishing,
+            MeterRegistry meterRegistry) {
+        this.messagingGateway = messagingGateway;
+        this.pubSubTemplate = pubSubTemplate;
+        this.objectMapper = objectMapper;
+        this.topic = topic;
+        this.asyncPublishing = asyncPublishing;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = meterRegistry.summary(BATCH_SIZE_METRIC);
+    }
 
     /**
      * Serialize and write entity to PubSub.
      *
      * @param entity Message entity to write to PubSub
-     * @return original entity
+     * @return future completed with the PubSub message id once the message is published
      */
-    public Message publish(Message entity) {
+    public CompletableFuture<String> publish(Message entity) {
+        String payload;
         try {
-            String str = objectMapper.writeValueAsString(entity);
-            MessageHeaders messageHeaders =
-                    new MessageHeaders(Map.of("my-header", "my-header-value"));
-
-            org.springframework.messaging.Message<String> msg =
-                    MessageBuilder.createMessage(str, messageHeaders);
-            messagingGateway.publish(msg);
-        } catch (IOException | MessagingException ex) {
-            log.warn("PubSub message could not be written", ex);
+            payload = objectMapper.writeValueAsString(entity);
+        } catch (IOException ex) {
+            log.warn("PubSub message could not be serialized", ex);
+            return CompletableFuture.failedFuture(ex);
         }
+        return publishSerialized(payload);
+    }
+
+    /**
+     * Write an already serialized message to PubSub.
+     *
+     * @param payload serialized message
+     * @return future completed with the PubSub message id once the message is published
+     */
+    public CompletableFuture<String> publishSerialized(String payload) {
+        long start = System.nanoTime();
+        CompletableFuture<String> future =
+                asyncPublishing
+                        ? pubSubTemplate.publish(topic, payload)
+                        : publishThroughGateway(payload);
+        return future.whenComplete(
+                (messageId, e) -> {
+                    if (e != null) {
+                        log.warn("PubSub message could not be written", e);
+                    }
+                    Timer.builder(PUBLISH_LATENCY_METRIC)
+                            .tag("outcome", e == null ? "success" : "failure")
+                            .register(meterRegistry)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                });
+    }
+
+    /**
+     * Write a batch of serialized messages to PubSub without waiting for each one to be
+     * acknowledged.
+     *
+     * @param payloads serialized messages
+     * @return futures completed once each message is published, in the order of the payloads
+     */
+    public List<CompletableFuture<String>> publishAll(List<String> payloads) {
+        batchSize.record(payloads.size());
+        return payloads.stream().map(this::publishSerialized).collect(Collectors.toList());
+    }
 
-        return entity;
+    private CompletableFuture<String> publishThroughGateway(String payload) {
+        try {
+            messagingGateway.publish(MessageBuilder.withPayload(payload).build());
+            return CompletableFuture.completedFuture(null);
+        } catch (MessagingException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
     }
 }
@@ -1,6 +1,8 @@
 package io.nuvalence.platform.notification.service.service;
 
+import com.sendgrid.Client;
 import com.sendgrid.SendGrid;
+import org.apache.http.impl.client.HttpClientBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,8 +15,23 @@ public class SendGridConfiguration {
     @Value("${sendgrid.apiKey}")
     private String sendGridApiKey;
 
+    @Value("${sendgrid.max-connections:50}")
+    private int maxConnections;
+
+    /**
+     * Create the SendGrid api. The default client only keeps 2 connections to the SendGrid host,
+     * which would queue concurrent sends, so the connection pool is sized explicitly.
+     *
+     * @return SendGrid api.
+     */
     @Bean
     public SendGrid sendGrid() {
-        return new SendGrid(sendGridApiKey);
+        return new SendGrid(
+                sendGridApiKey,
+                new Client(
+                        HttpClientBuilder.create()
+                                .setMaxConnTotal(maxConnections)
+                                .setMaxConnPerRoute(maxConnections)
+                                .build()));
     }
 }
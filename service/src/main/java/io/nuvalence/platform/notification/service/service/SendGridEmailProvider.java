@@ -7,21 +7,34 @@ import com.sendgrid.SendGrid;
 import com.sendgrid.helpers.mail.Mail;
 import com.sendgrid.helpers.mail.objects.Content;
 import com.sendgrid.helpers.mail.objects.Email;
+import com.sendgrid.helpers.mail.objects.Personalization;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.nuvalence.platform.notification.service.exception.DependencyUnavailableException;
+import io.nuvalence.platform.notification.service.exception.RateLimitExceededException;
 import io.nuvalence.platform.notification.service.exception.UnprocessableNotificationException;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 
 /**
- * Concrete implementation of email provider.
+ * Concrete implementation of email provider. Sends are throttled by a rate limiter shared by the
+ * whole SendGrid account and, when a batching window is set, emails with the same subject and
+ * body are coalesced into a single request with one personalization per recipient. Each request
+ * goes through the SendGrid guard once its rate limit token is available, so the guard records
+ * one outcome per request and throttled sends do not hold its bulkhead.
  */
 @Slf4j
-@RequiredArgsConstructor
 public class SendGridEmailProvider implements EmailProvider {
 
+    /** Maximum number of personalizations SendGrid accepts in a request. */
+    static final int MAX_PERSONALIZATIONS = 1000;
+
+    private static final String RATE_LIMIT_KEY = "account";
+
     @Value("${sendgrid.contentType}")
     String contentType;
 
@@ -33,21 +46,96 @@ public class SendGridEmailProvider implements EmailProvider {
 
     private final SendGrid sg;
 
+    private final ProviderRateLimiter rateLimiter;
+
+    private final DependencyGuard guard;
+
+    private final EmailBatcher batcher;
+
+    /**
+     * Constructor for a provider sending each email in a request of its own.
+     *
+     * @param sg          SendGrid api
+     * @param rateLimiter limiter of the requests to SendGrid
+     * @param guard       circuit breaker and bulkhead of the requests to SendGrid
+     */
+    public SendGridEmailProvider(
+            SendGrid sg, ProviderRateLimiter rateLimiter, DependencyGuard guard) {
+        this.sg = sg;
+        this.rateLimiter = rateLimiter;
+        this.guard = guard;
+        this.batcher = null;
+    }
+
+    /**
+     * Constructor for a provider batching emails.
+     *
+     * @param sg                  SendGrid api
+     * @param rateLimiter         limiter of the requests to SendGrid
+     * @param guard               circuit breaker and bulkhead of the requests to SendGrid
+     * @param batchWindow         time a batch stays open for more emails
+     * @param maxPersonalizations maximum number of recipients per request, at most 1000
+     * @param meterRegistry       registry where the batching metrics are published
+     */
+    public SendGridEmailProvider(
+            SendGrid sg,
+            ProviderRateLimiter rateLimiter,
+            DependencyGuard guard,
+            Duration batchWindow,
+            int maxPersonalizations,
+            MeterRegistry meterRegistry) {
+        this.sg = sg;
+        this.rateLimiter = rateLimiter;
+        this.guard = guard;
+        this.batcher =
+                new EmailBatcher(
+                        this::sendEmails,
+                        batchWindow,
+                        Math.min(maxPersonalizations, MAX_PERSONALIZATIONS),
+                        meterRegistry);
+    }
+
     /**
-     * Sends an email via SendGrid.
+     * Sends an email via SendGrid, batched with the other emails with the same subject and body
+     * when batching is enabled.
      * @param to      recipient of the email.
      * @param subject subject for the email.
      * @param body    body for the email.
      * @throws IOException possibly thrown by api.
      * @throws UnprocessableNotificationException if an error occurs while sending the message
+     * @throws RateLimitExceededException if the email would wait too long for the rate limit
      */
     public void sendEmail(String to, String subject, String body) throws IOException {
-        Email sender = new Email(from);
-        Email receiver = new Email(to);
-
-        Content content = new Content(contentType, body);
+        if (batcher != null) {
+            batcher.send(to, subject, body);
+        } else {
+            sendEmails(List.of(to), subject, body);
+        }
+    }
 
-        Mail mail = new Mail(sender, subject, receiver, content);
+    /**
+     * Sends an email to several recipients in a single request, each recipient in a
+     * personalization of its own so they do not see each other.
+     * @param recipients recipients of the email.
+     * @param subject    subject for the email.
+     * @param body       body for the email.
+     * @throws IOException possibly thrown by api, or if SendGrid answered with throttling or a
+     *     server error, so the emails are retried.
+     * @throws UnprocessableNotificationException if SendGrid rejects the request with another
+     *     client error
+     * @throws RateLimitExceededException if the request would wait too long for the rate limit
+     * @throws DependencyUnavailableException if the SendGrid guard refuses the request
+     */
+    void sendEmails(List<String> recipients, String subject, String body) throws IOException {
+        Mail mail = new Mail();
+        mail.setFrom(new Email(from));
+        mail.setSubject(subject);
+        mail.addContent(new Content(contentType, body));
+        for (String recipient : recipients) {
+            Personalization personalization = new Personalization();
+            personalization.addTo(new Email(recipient));
+            mail.addPersonalization(personalization);
+        }
 
         Request request = new Request();
 
@@ -55,10 +143,29 @@ public class SendGridEmailProvider implements EmailProvider {
         request.setEndpoint(sendEndpoint);
         request.setBody(mail.build());
 
+        rateLimiter.acquire(RATE_LIMIT_KEY);
+        guard.call(
+                () -> {
+                    send(request, recipients);
+                    return null;
+                });
+    }
+
+    private void send(Request request, List<String> recipients) throws IOException {
+        // a batch is logged by its size, not its up to 1000 addresses
+        String to =
+                recipients.size() == 1
+                        ? recipients.get(0)
+                        : String.format("%d recipients", recipients.size());
         try {
             Response response = sg.api(request);
 
-            log.trace("Email sent to {} with status code {}", to, response.getStatusCode());
+            for (String recipient : recipients) {
+                log.trace(
+                        "Email sent to {} with status code {}",
+                        recipient,
+                        response.getStatusCode());
+            }
         } catch (IOException networkError) {
             String statusCodeString =
                     StringUtils.substringBetween(networkError.getMessage(), "status Code ", "Body");
@@ -71,7 +178,7 @@ public class SendGridEmailProvider implements EmailProvider {
                         networkError.getMessage());
             }
 
-            if (statusCode != null && statusCode >= 400 && statusCode <= 499) {
+            if (statusCode != null && ProviderStatusCodes.isRejection(statusCode)) {
                 String sendGridBadRequest =
                         String.format(
                                 "Bad request response obtained from SendGrid with code %d, could"
@@ -80,6 +187,14 @@ public class SendGridEmailProvider implements EmailProvider {
                 log.error(sendGridBadRequest);
                 throw new UnprocessableNotificationException(sendGridBadRequest);
             }
+            if (statusCode != null) {
+                log.warn(
+                        "SendGrid answered with status code {} while sending email to {}. This"
+                                + " operation will be retried.",
+                        statusCode,
+                        to);
+                throw networkError;
+            }
 
             log.warn(
                     "Network issue encountered while sending email to {}. This operation will be"
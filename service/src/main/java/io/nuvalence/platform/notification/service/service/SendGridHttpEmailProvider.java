@@ -0,0 +1,127 @@
+package io.nuvalence.platform.notification.service.service;
+
+import com.sendgrid.helpers.mail.Mail;
+import com.sendgrid.helpers.mail.objects.Content;
+import com.sendgrid.helpers.mail.objects.Email;
+import com.sendgrid.helpers.mail.objects.Personalization;
+import io.nuvalence.platform.notification.service.exception.RateLimitExceededException;
+import io.nuvalence.platform.notification.service.exception.UnprocessableNotificationException;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Email provider calling the SendGrid v3 mail send endpoint through a non-blocking HTTP client.
+ *
+ * <p>Sends return as soon as the request is written, so a few threads keep many emails in flight
+ * over the client's connections, multiplexed on a single connection when HTTP/2 is negotiated.
+ * Requests are throttled by the same account-wide rate limiter as the SDK provider, and answers
+ * are handled as described by {@link AsyncHttpSender}, retryable failures being
+ * {@link IOException}s.</p>
+ */
+public class SendGridHttpEmailProvider implements EmailProvider {
+
+    private static final String RATE_LIMIT_KEY = "account";
+
+    @Value("${sendgrid.contentType}")
+    String contentType;
+
+    @Value("${sendgrid.sendEmailEndpoint}")
+    String sendEndpoint;
+
+    @Value("${sendgrid.from}")
+    String from;
+
+    private final String baseUrl;
+
+    private final String apiKey;
+
+    private final Duration requestTimeout;
+
+    private final AsyncHttpSender<IOException> sender;
+
+    /**
+     * Constructor.
+     *
+     * @param httpClient     client shared by every send
+     * @param baseUrl        base url of the SendGrid api, without the version
+     * @param apiKey         SendGrid api key
+     * @param requestTimeout time to wait for SendGrid to answer a request
+     * @param maxInFlight    maximum number of requests awaiting an answer
+     * @param rateLimiter    limiter of the requests to SendGrid
+     * @param guard          circuit breaker and bulkhead of the requests to SendGrid
+     */
+    public SendGridHttpEmailProvider(
+            HttpClient httpClient,
+            String baseUrl,
+            String apiKey,
+            Duration requestTimeout,
+            int maxInFlight,
+            ProviderRateLimiter rateLimiter,
+            DependencyGuard guard) {
+        this.baseUrl = StringUtils.removeEnd(baseUrl, "/");
+        this.apiKey = apiKey;
+        this.requestTimeout = requestTimeout;
+        this.sender =
+                new AsyncHttpSender<>(
+                        "SendGrid",
+                        "email",
+                        httpClient,
+                        maxInFlight,
+                        rateLimiter,
+                        guard,
+                        IOException.class,
+                        IOException::new,
+                        statusCode ->
+                                new IOException(
+                                        "SendGrid answered with status code " + statusCode));
+    }
+
+    /**
+     * Sends an email via SendGrid and waits for the answer.
+     * @param to      recipient of the email.
+     * @param subject subject for the email.
+     * @param body    body for the email.
+     * @throws IOException if the request failed or SendGrid could not process it.
+     * @throws UnprocessableNotificationException if SendGrid rejects the email
+     * @throws RateLimitExceededException if the email would wait too long for the rate limit
+     */
+    @Override
+    public void sendEmail(String to, String subject, String body) throws IOException {
+        sender.await(sendEmailAsync(to, subject, body));
+    }
+
+    @Override
+    public CompletableFuture<Void> sendEmailAsync(String to, String subject, String body) {
+        HttpRequest request;
+        try {
+            request = buildRequest(to, subject, body);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return sender.send(RATE_LIMIT_KEY, request, to);
+    }
+
+    private HttpRequest buildRequest(String to, String subject, String body) throws IOException {
+        Mail mail = new Mail();
+        mail.setFrom(new Email(from));
+        mail.setSubject(subject);
+        mail.addContent(new Content(contentType, body));
+        Personalization personalization = new Personalization();
+        personalization.addTo(new Email(to));
+        mail.addPersonalization(personalization);
+
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/v3/" + sendEndpoint))
+                .timeout(requestTimeout)
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(mail.build()))
+                .build();
+    }
+}
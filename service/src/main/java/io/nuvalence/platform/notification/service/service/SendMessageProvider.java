@@ -5,6 +5,7 @@ import io.nuvalence.platform.notification.service.domain.MessageTemplate;
 import io.nuvalence.platform.notification.usermanagent.client.generated.models.UserDTO;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface for sending messages.
@@ -12,7 +13,7 @@ import java.io.IOException;
 public interface SendMessageProvider {
 
     /**
-     * Send a message.
+     * Send a message, setting the time spent rendering it and calling the provider on it.
      *
      * @param user     user
      * @param message  message
@@ -21,6 +22,26 @@ public interface SendMessageProvider {
      */
     void sendMessage(UserDTO user, Message message, MessageTemplate template) throws IOException;
 
+    /**
+     * Send a message without waiting for the provider to answer. Errors found before calling the
+     * provider are thrown, the others fail the future. Providers without a non-blocking
+     * transport send the message on the calling thread.
+     *
+     * @param user     user
+     * @param message  message, which must not be modified until the future completes
+     * @param template template
+     * @return future completed once the provider accepts the message
+     */
+    default CompletableFuture<Void> sendMessageAsync(
+            UserDTO user, Message message, MessageTemplate template) {
+        try {
+            sendMessage(user, message, template);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * Get the supported method.
      *
@@ -3,10 +3,11 @@ package io.nuvalence.platform.notification.service.service;
 import io.nuvalence.platform.notification.service.domain.Message;
 import io.nuvalence.platform.notification.service.domain.MessageTemplate;
 import io.nuvalence.platform.notification.service.exception.UnprocessableNotificationException;
-import io.nuvalence.platform.notification.service.service.usermanagementapi.UserManagementClientService;
+import io.nuvalence.platform.notification.service.service.usermanagementapi.BatchUserResolver;
 import io.nuvalence.platform.notification.usermanagent.client.ApiException;
 import io.nuvalence.platform.notification.usermanagent.client.generated.models.UserDTO;
 import io.nuvalence.platform.notification.usermanagent.client.generated.models.UserPreferenceDTO;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -16,6 +17,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for sending messages.
@@ -24,7 +27,7 @@ import java.util.UUID;
 @Service
 public class SendMessageService {
 
-    private final UserManagementClientService userManagementClientService;
+    private final BatchUserResolver batchUserResolver;
 
     private final TemplateService templateService;
 
@@ -33,15 +36,15 @@ public class SendMessageService {
     /**
      * Constructor.
      *
-     * @param userManagementClientService user management client service
-     * @param sendMessageProviders        list of send message providers
-     * @param templateService             template service
+     * @param batchUserResolver    resolver of the users messages are sent to
+     * @param sendMessageProviders list of send message providers
+     * @param templateService      template service
      */
     public SendMessageService(
-            UserManagementClientService userManagementClientService,
+            BatchUserResolver batchUserResolver,
             List<SendMessageProvider> sendMessageProviders,
             TemplateService templateService) {
-        this.userManagementClientService = userManagementClientService;
+        this.batchUserResolver = batchUserResolver;
         this.templateService = templateService;
         for (SendMessageProvider sendMessageProvider : sendMessageProviders) {
             sendMessageProviderMap.put(sendMessageProvider.supportedMethod(), sendMessageProvider);
@@ -49,7 +52,7 @@ public class SendMessageService {
     }
 
     /**
-     * Send a message.
+     * Send a message. The time spent in each stage is set on the message.
      *
      * @param message message
      * @throws ApiException if an error occurs while querying user management service
@@ -57,10 +60,33 @@ public class SendMessageService {
      * @throws UnprocessableNotificationException if an error occurs while sending the message
      */
     public void sendMessage(Message message) throws ApiException, IOException {
+        Delivery delivery = prepare(message);
+        delivery.provider.sendMessage(delivery.user, message, delivery.template);
+    }
+
+    /**
+     * Send a message without waiting for the provider to answer. The time spent in each stage is
+     * set on the message by the time the future completes.
+     *
+     * @param message message, which must not be modified until the future completes
+     * @return future completed once the provider accepts the message, failed with an
+     *     {@link UnprocessableNotificationException} if the provider rejects it
+     * @throws ApiException if an error occurs while querying user management service
+     * @throws UnprocessableNotificationException if the message cannot be sent to the user
+     */
+    public CompletableFuture<Void> sendMessageAsync(Message message) throws ApiException {
+        Delivery delivery = prepare(message);
+        return delivery.provider.sendMessageAsync(delivery.user, message, delivery.template);
+    }
+
+    private Delivery prepare(Message message) throws ApiException {
         UUID userId = UUID.fromString(message.getUserId());
 
         // Query user management service for user preferences
-        Optional<UserDTO> user = userManagementClientService.getUser(userId);
+        long userLookupStart = System.nanoTime();
+        Optional<UserDTO> user = batchUserResolver.getUser(userId);
+        message.setUserLookupMillis(
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - userLookupStart));
         if (user.isEmpty()) {
             String userNotFoundMessage =
                     String.format("Message could not be sent. User not found %s", userId);
@@ -103,6 +129,13 @@ public class SendMessageService {
             throw new UnprocessableNotificationException(templateNotFound);
         }
 
-        messageProvider.sendMessage(user.get(), message, template.get());
+        return new Delivery(user.get(), messageProvider, template.get());
+    }
+
+    @RequiredArgsConstructor
+    private static class Delivery {
+        private final UserDTO user;
+        private final SendMessageProvider provider;
+        private final MessageTemplate template;
     }
 }
@@ -3,7 +3,6 @@ package io.nuvalence.platform.notification.service.service;
 import static io.nuvalence.platform.notification.service.service.MessageBuilderUtils.getLocalizedTemplate;
 import static io.nuvalence.platform.notification.service.service.MessageBuilderUtils.replaceParameterInTemplate;
 
-import com.github.jknack.handlebars.Handlebars;
 import io.nuvalence.platform.notification.service.domain.LocalizedStringTemplateLanguage;
 import io.nuvalence.platform.notification.service.domain.Message;
 import io.nuvalence.platform.notification.service.domain.MessageTemplate;
@@ -15,9 +14,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Message provider for SMS messages.
+ * Message provider for SMS messages. The SMS provider sends each request to Twilio through the
+ * Twilio guard, so SMS are refused without calling Twilio while its circuit breaker is open or its
+ * bulkhead is full.
  */
 @Slf4j
 @Service
@@ -26,15 +29,43 @@ public class SmsMessageProvider implements SendMessageProvider {
     private static final String SUPPORTED_METHOD = "sms";
 
     private final SmsProvider smsProvider;
-    private final Handlebars handlebars;
+    private final CompiledTemplateCache templateCache;
 
-    public SmsMessageProvider(SmsProvider smsProvider) {
+    /**
+     * Constructor.
+     *
+     * @param smsProvider   SMS provider
+     * @param templateCache cache of compiled templates
+     */
+    public SmsMessageProvider(SmsProvider smsProvider, CompiledTemplateCache templateCache) {
         this.smsProvider = smsProvider;
-        this.handlebars = new Handlebars();
+        this.templateCache = templateCache;
     }
 
     @Override
     public void sendMessage(UserDTO user, Message message, MessageTemplate template) {
+        String smsToSend = render(user, message, template);
+        long providerStart = System.nanoTime();
+        smsProvider.sendSms(user.getPhoneNumber(), smsToSend);
+        message.setProviderMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - providerStart));
+    }
+
+    @Override
+    public CompletableFuture<Void> sendMessageAsync(
+            UserDTO user, Message message, MessageTemplate template) {
+        String smsToSend = render(user, message, template);
+        long providerStart = System.nanoTime();
+        return smsProvider
+                .sendSmsAsync(user.getPhoneNumber(), smsToSend)
+                .thenRun(
+                        () ->
+                                message.setProviderMillis(
+                                        TimeUnit.NANOSECONDS.toMillis(
+                                                System.nanoTime() - providerStart)));
+    }
+
+    private String render(UserDTO user, Message message, MessageTemplate template) {
+        long renderStart = System.nanoTime();
         UserPreferenceDTO userPreferences = user.getPreferences();
 
         SmsFormat smsFormat = template.getSmsFormat();
@@ -52,9 +83,10 @@ public class SmsMessageProvider implements SendMessageProvider {
         }
         String smsToSend =
                 replaceParameterInTemplate(
-                        smsTemplate.get().getTemplate(), message.getParameters(), handlebars);
+                        smsTemplate.get().getTemplate(), message.getParameters(), templateCache);
 
-        smsProvider.sendSms(user.getPhoneNumber(), smsToSend);
+        message.setRenderMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - renderStart));
+        return smsToSend;
     }
 
     @Override
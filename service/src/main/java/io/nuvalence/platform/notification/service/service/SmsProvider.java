@@ -1,5 +1,7 @@
 package io.nuvalence.platform.notification.service.service;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface for SMS providers.
  */
@@ -11,4 +13,22 @@ public interface SmsProvider {
      * @param message message
      */
     void sendSms(String to, String message);
+
+    /**
+     * Send an SMS without waiting for the provider to answer. Providers without a non-blocking
+     * transport send it on the calling thread.
+     *
+     * @param to      recipient
+     * @param message message
+     * @return future completed once the provider accepts the SMS, or failed with the error
+     *     {@link #sendSms} would have thrown
+     */
+    default CompletableFuture<Void> sendSmsAsync(String to, String message) {
+        try {
+            sendSms(to, message);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
@@ -0,0 +1,164 @@
+package io.nuvalence.platform.notification.service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.nuvalence.platform.notification.service.domain.Message;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Queues again the messages left in QUEUED, for instance when their PubSub message was
+ * dead-lettered or lost after the outbox published it.
+ *
+ * <p>A message is stuck once PubSub is no longer expected to deliver it. With a dead-letter
+ * policy, that is after the delivery attempts, each taking at most the ack deadline and the
+ * maximum retry backoff, have run out. Without one, that is after the retention of the
+ * subscription. A message still in the backlog past that time may be sent twice, but only its
+ * first outcome is recorded.</p>
+ *
+ * <p>Messages queued for longer than the threshold, and not waiting in the outbox, are claimed in
+ * chunks walked with a keyset on the requested timestamp and id, so each chunk is an index range
+ * scan. A claimed message is locked, skipping the ones locked by other replicas, leased for
+ * another threshold and added to the outbox in the same transaction; the outbox relay then
+ * publishes it in batches along with the other messages.</p>
+ *
+ * <p>A message found stuck more than the maximum number of sweeps, which is most likely never
+ * going to be processed, is moved to FAILED instead of being queued again.</p>
+ */
+@Slf4j
+@Component
+public class StuckMessageSweeper {
+
+    static final String REQUEUED_METRIC = "message.sweeper.requeued";
+    static final String FAILED_METRIC = "message.sweeper.failed";
+
+    private final MessageService messageService;
+
+    private final Duration stuckAfter;
+
+    private final int maxSweeps;
+
+    private final int batchSize;
+
+    private final Counter requeuedCounter;
+
+    private final Counter failedCounter;
+
+    /**
+     * Constructor.
+     *
+     * @param messageService      service queuing the messages again
+     * @param retention           message retention of the subscription
+     * @param ackDeadline         ack deadline of the subscription
+     * @param maxDeliveryAttempts delivery attempts before dead-lettering, 0 without dead-letter
+     *                            policy
+     * @param maxRetryBackoff     maximum retry backoff of the subscription
+     * @param maxSweeps           number of times a stuck message is queued again before it
+     *                            fails
+     * @param batchSize           maximum number of messages queued again per transaction
+     * @param meterRegistry       registry where the sweeper metrics are published
+     */
+    @Autowired
+    public StuckMessageSweeper(
+            MessageService messageService,
+            @Value("${notificationProcessing.subscription.retention:P7D}") Duration retention,
+            @Value("${notificationProcessing.subscription.ack-deadline:PT20S}")
+                    Duration ackDeadline,
+            @Value("${notificationProcessing.subscription.max-delivery-attempts:5}")
+                    int maxDeliveryAttempts,
+            @Value("${notificationProcessing.subscription.max-retry-backoff:PT0S}")
+                    Duration maxRetryBackoff,
+            @Value("${messages.sweeper.max-sweeps:3}") int maxSweeps,
+            @Value("${messages.sweeper.batch-size:100}") int batchSize,
+            MeterRegistry meterRegistry) {
+        this(
+                messageService,
+                stuckAfter(retention, ackDeadline, maxDeliveryAttempts, maxRetryBackoff),
+                maxSweeps,
+                batchSize,
+                meterRegistry);
+    }
+
+    StuckMessageSweeper(
+            MessageService messageService,
+            Duration stuckAfter,
+            int maxSweeps,
+            int batchSize,
+            MeterRegistry meterRegistry) {
+        this.messageService = messageService;
+        this.stuckAfter = stuckAfter;
+        this.maxSweeps = maxSweeps;
+        this.batchSize = batchSize;
+        this.requeuedCounter = meterRegistry.counter(REQUEUED_METRIC);
+        this.failedCounter = meterRegistry.counter(FAILED_METRIC);
+        log.info("Messages queued for more than {} are queued again", stuckAfter);
+    }
+
+    /**
+     * Compute the time after which PubSub is no longer expected to deliver a message.
+     *
+     * @param retention           message retention of the subscription
+     * @param ackDeadline         ack deadline of the subscription
+     * @param maxDeliveryAttempts delivery attempts before dead-lettering, 0 without dead-letter
+     *                            policy
+     * @param maxRetryBackoff     maximum retry backoff of the subscription
+     * @return time after which a QUEUED message is considered stuck
+     */
+    static Duration stuckAfter(
+            Duration retention,
+            Duration ackDeadline,
+            int maxDeliveryAttempts,
+            Duration maxRetryBackoff) {
+        if (maxDeliveryAttempts <= 0) {
+            return retention;
+        }
+        Duration deadLettered = ackDeadline.plus(maxRetryBackoff).multipliedBy(maxDeliveryAttempts);
+        return deadLettered.compareTo(retention) < 0 ? deadLettered : retention;
+    }
+
+    /**
+     * Queue again every stuck message, one chunk at a time, failing the ones swept too many times.
+     */
+    @Scheduled(fixedDelayString = "${messages.sweeper.interval:PT1M}")
+    public void sweep() {
+        OffsetDateTime before = OffsetDateTime.now().minus(stuckAfter);
+        Message last = null;
+        int requeuedTotal = 0;
+        int failedTotal = 0;
+        List<Message> swept;
+        do {
+            swept = messageService.requeueStuckMessages(before, last, batchSize, maxSweeps);
+            if (!swept.isEmpty()) {
+                last = swept.get(swept.size() - 1);
+                int failed =
+                        (int)
+                                swept.stream()
+                                        .filter(
+                                                message ->
+                                                        MessageService.FAILED_STATUS.equals(
+                                                                message.getStatus()))
+                                        .count();
+                failedTotal += failed;
+                requeuedTotal += swept.size() - failed;
+                failedCounter.increment(failed);
+                requeuedCounter.increment(swept.size() - failed);
+            }
+        } while (swept.size() == batchSize);
+        if (requeuedTotal > 0) {
+            log.warn("Queued again {} messages stuck for more than {}", requeuedTotal, stuckAfter);
+        }
+        if (failedTotal > 0) {
+            log.error(
+                    "Failed {} messages still stuck after being queued again {} times",
+                    failedTotal,
+                    maxSweeps);
+        }
+    }
+}
@@ -1,31 +1,81 @@
 package io.nuvalence.platform.notification.service.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import io.nuvalence.auth.token.UserToken;
+import io.nuvalence.platform.notification.service.domain.EmailFormat;
+import io.nuvalence.platform.notification.service.domain.EmailFormatContent;
+import io.nuvalence.platform.notification.service.domain.LocalizedStringTemplate;
+import io.nuvalence.platform.notification.service.domain.LocalizedStringTemplateLanguage;
 import io.nuvalence.platform.notification.service.domain.MessageTemplate;
+import io.nuvalence.platform.notification.service.domain.SmsFormat;
 import io.nuvalence.platform.notification.service.model.SearchTemplateFilter;
 import io.nuvalence.platform.notification.service.repository.MessageTemplateRepository;
 import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Service for managing {@link io.nuvalence.platform.notification.service.domain.MessageTemplate} entities.
  */
-@RequiredArgsConstructor
 @Slf4j
 @Service
 public class TemplateService {
 
+    static final String CACHE_NAME = "templates";
+
     private final MessageTemplateRepository templateRepository;
 
+    private final CompiledTemplateCache compiledTemplateCache;
+
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private final Cache<String, MessageTemplate> templateCache;
+
+    /**
+     * Constructor.
+     *
+     * @param templateRepository       template repository
+     * @param compiledTemplateCache    cache of compiled templates
+     * @param cacheInvalidationService service propagating invalidations to every replica
+     * @param maximumSize              maximum number of templates kept in memory
+     * @param expireAfterWrite         time after which a cached template is reloaded
+     * @param meterRegistry            registry where cache metrics are published
+     */
+    public TemplateService(
+            MessageTemplateRepository templateRepository,
+            CompiledTemplateCache compiledTemplateCache,
+            CacheInvalidationService cacheInvalidationService,
+            @Value("${cache.templates.maximum-size:500}") long maximumSize,
+            @Value("${cache.templates.expire-after-write:PT5M}") Duration expireAfterWrite,
+            MeterRegistry meterRegistry) {
+        this.templateRepository = templateRepository;
+        this.compiledTemplateCache = compiledTemplateCache;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.templateCache =
+                Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(expireAfterWrite)
+                        .recordStats()
+                        .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, templateCache, CACHE_NAME);
+        cacheInvalidationService.registerListener(CACHE_NAME, templateCache::invalidate);
+    }
+
     /**
      * Create or update a template.
      *
@@ -47,20 +97,36 @@ public class TemplateService {
         if (templateFound.isPresent()) {
             MessageTemplate existingTemplate = templateFound.get();
             templateToSave.setId(existingTemplate.getId());
+            List<String> staleSources = MessageBuilderUtils.getTemplateSources(existingTemplate);
+            staleSources.removeAll(MessageBuilderUtils.getTemplateSources(templateToSave));
+            compiledTemplateCache.evict(staleSources);
         }
 
         MessageTemplate resultingMessageTemplate = templateRepository.save(templateToSave);
+        cacheInvalidationService.invalidate(CACHE_NAME, key);
         return resultingMessageTemplate;
     }
 
     /**
-     * Get a template by key.
+     * Get a template by key. Templates are served from an in-memory cache which is invalidated
+     * whenever a template is created or updated on any replica. The cache holds copies detached
+     * from the persistence context, shared between threads, so their collections are read-only.
      *
      * @param key the template key
-     * @return the first template found by key (latest version)
+     * @return the first template found by key (latest version), empty if the key is null
      */
     public Optional<MessageTemplate> getTemplate(final String key) {
-        return templateRepository.findFirstByKeyOrderByVersionDesc(key);
+        if (key == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(
+                templateCache.get(
+                        key,
+                        k ->
+                                templateRepository
+                                        .findFirstByKeyOrderByVersionDesc(k)
+                                        .map(TemplateService::detachedCopy)
+                                        .orElse(null)));
     }
 
     /**
@@ -74,6 +140,90 @@ public class TemplateService {
                 filter.getTemplateSpecifications(), filter.getPageRequest());
     }
 
+    private static MessageTemplate detachedCopy(MessageTemplate template) {
+        MessageTemplate copy =
+                MessageTemplate.builder()
+                        .id(template.getId())
+                        .key(template.getKey())
+                        .name(template.getName())
+                        .description(template.getDescription())
+                        .version(template.getVersion())
+                        .status(template.getStatus())
+                        .emailLayoutKey(template.getEmailLayoutKey())
+                        .parameters(
+                                template.getParameters() == null
+                                        ? null
+                                        : Collections.unmodifiableMap(
+                                                new HashMap<>(template.getParameters())))
+                        .createdBy(template.getCreatedBy())
+                        .createdTimestamp(template.getCreatedTimestamp())
+                        .lastUpdatedTimestamp(template.getLastUpdatedTimestamp())
+                        .build();
+        if (template.getSmsFormat() != null) {
+            copy.setSmsFormat(
+                    SmsFormat.builder()
+                            .id(template.getSmsFormat().getId())
+                            .messageTemplate(copy)
+                            .localizedStringTemplate(
+                                    detachedCopy(
+                                            template.getSmsFormat().getLocalizedStringTemplate()))
+                            .build());
+        }
+        if (template.getEmailFormat() != null) {
+            copy.setEmailFormat(detachedCopy(template.getEmailFormat(), copy));
+        }
+        return copy;
+    }
+
+    private static EmailFormat detachedCopy(EmailFormat emailFormat, MessageTemplate template) {
+        EmailFormat copy =
+                EmailFormat.builder()
+                        .id(emailFormat.getId())
+                        .messageTemplate(template)
+                        .localizedSubjectStringTemplate(
+                                detachedCopy(emailFormat.getLocalizedSubjectStringTemplate()))
+                        .build();
+        if (emailFormat.getEmailFormatContents() != null) {
+            copy.setEmailFormatContents(
+                    emailFormat.getEmailFormatContents().stream()
+                            .map(content -> detachedCopy(content, copy))
+                            .toList());
+        }
+        return copy;
+    }
+
+    private static EmailFormatContent detachedCopy(
+            EmailFormatContent content, EmailFormat emailFormat) {
+        return EmailFormatContent.builder()
+                .id(content.getId())
+                .emailFormat(emailFormat)
+                .emailLayoutInput(content.getEmailLayoutInput())
+                .localizedStringTemplate(detachedCopy(content.getLocalizedStringTemplate()))
+                .build();
+    }
+
+    private static LocalizedStringTemplate detachedCopy(LocalizedStringTemplate template) {
+        if (template == null) {
+            return null;
+        }
+        LocalizedStringTemplate copy =
+                LocalizedStringTemplate.builder().id(template.getId()).build();
+        if (template.getLocalizedTemplateStrings() != null) {
+            copy.setLocalizedTemplateStrings(
+                    template.getLocalizedTemplateStrings().stream()
+                            .map(
+                                    language ->
+                                            LocalizedStringTemplateLanguage.builder()
+                                                    .id(language.getId())
+                                                    .localizedStringTemplate(copy)
+                                                    .language(language.getLanguage())
+                                                    .template(language.getTemplate())
+                                                    .build())
+                            .toList());
+        }
+        return copy;
+    }
+
     private Optional<String> getCreatedBy() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String createdByUserId = null;
@@ -0,0 +1,156 @@
+package io.nuvalence.platform.notification.service.service;
+
+import com.twilio.exception.ApiConnectionException;
+import com.twilio.exception.ApiException;
+import com.twilio.exception.TwilioException;
+import io.nuvalence.platform.notification.service.exception.RateLimitExceededException;
+import io.nuvalence.platform.notification.service.exception.UnprocessableNotificationException;
+import jakarta.annotation.PreDestroy;
+import lombok.Setter;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * SMS provider calling the Twilio Messages REST endpoint through a non-blocking HTTP client,
+ * instead of the blocking client Twilio's SDK keeps in a global.
+ *
+ * <p>Sends return as soon as the request is written and the answers are handled on a small
+ * executor of their own, so a few threads keep many SMS in flight. Requests are throttled by the
+ * same rate limiter per sender number as the SDK provider, and answers are handled as described
+ * by {@link AsyncHttpSender}, retryable failures being {@link ApiException}s for answers and
+ * {@link ApiConnectionException}s for network errors.</p>
+ */
+@Setter
+public class TwilioHttpSmsProvider implements SmsProvider {
+
+    @Value("${twilio.phoneNumber}")
+    private String twilioPhoneNumber;
+
+    @Value("${twilio.accountSID}")
+    private String twilioAccountSid;
+
+    @Value("${twilio.authToken}")
+    private String twilioAuthToken;
+
+    private final String baseUrl;
+
+    private final Duration requestTimeout;
+
+    private final ExecutorService executor;
+
+    private final AsyncHttpSender<TwilioException> sender;
+
+    /**
+     * Constructor.
+     *
+     * @param baseUrl        base url of the Twilio api, without the version
+     * @param connectTimeout time to wait for a connection to Twilio
+     * @param requestTimeout time to wait for Twilio to answer a request
+     * @param maxInFlight    maximum number of requests awaiting an answer
+     * @param threads        number of threads handling the answers
+     * @param rateLimiter    limiter of the requests per sender number
+     * @param guard          circuit breaker and bulkhead of the requests to Twilio
+     */
+    public TwilioHttpSmsProvider(
+            String baseUrl,
+            Duration connectTimeout,
+            Duration requestTimeout,
+            int maxInFlight,
+            int threads,
+            ProviderRateLimiter rateLimiter,
+            DependencyGuard guard) {
+        this.baseUrl = StringUtils.removeEnd(baseUrl, "/");
+        this.requestTimeout = requestTimeout;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("twilio-http-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(threads, threadFactory);
+        HttpClient httpClient =
+                HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(connectTimeout)
+                        .executor(executor)
+                        .build();
+        this.sender =
+                new AsyncHttpSender<>(
+                        "Twilio",
+                        "sms",
+                        httpClient,
+                        maxInFlight,
+                        rateLimiter,
+                        guard,
+                        TwilioException.class,
+                        cause -> new ApiConnectionException(cause.getMessage(), cause),
+                        statusCode ->
+                                new ApiException(
+                                        "Twilio answered with status code " + statusCode,
+                                        null,
+                                        null,
+                                        statusCode,
+                                        null));
+    }
+
+    /**
+     * Sends a sms via Twilio and waits for the answer.
+     * @param to      recipient.
+     * @param message message to be sent.
+     * @throws UnprocessableNotificationException if Twilio rejects the sms
+     * @throws RateLimitExceededException if the sms would wait too long for the rate limit
+     */
+    @Override
+    public void sendSms(String to, String message) {
+        sender.await(sendSmsAsync(to, message));
+    }
+
+    @Override
+    public CompletableFuture<Void> sendSmsAsync(String to, String message) {
+        return sender.send(twilioPhoneNumber, buildRequest(to, message), to);
+    }
+
+    /**
+     * Stops the threads handling the answers.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private HttpRequest buildRequest(String to, String message) {
+        String form =
+                "To="
+                        + URLEncoder.encode(to, StandardCharsets.UTF_8)
+                        + "&From="
+                        + URLEncoder.encode(twilioPhoneNumber, StandardCharsets.UTF_8)
+                        + "&Body="
+                        + URLEncoder.encode(message, StandardCharsets.UTF_8);
+        String credentials =
+                Base64.getEncoder()
+                        .encodeToString(
+                                (twilioAccountSid + ":" + twilioAuthToken)
+                                        .getBytes(StandardCharsets.UTF_8));
+
+        return HttpRequest.newBuilder(
+                        URI.create(
+                                baseUrl
+                                        + "/2010-04-01/Accounts/"
+                                        + twilioAccountSid
+                                        + "/Messages.json"))
+                .timeout(requestTimeout)
+                .header("Authorization", "Basic " + credentials)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+    }
+}
@@ -5,13 +5,17 @@ import com.twilio.exception.ApiConnectionException;
 import com.twilio.exception.ApiException;
 import com.twilio.rest.api.v2010.account.Message;
 import com.twilio.type.PhoneNumber;
+import io.nuvalence.platform.notification.service.exception.DependencyUnavailableException;
+import io.nuvalence.platform.notification.service.exception.RateLimitExceededException;
+import io.nuvalence.platform.notification.service.exception.UnprocessableNotificationException;
 import jakarta.annotation.PostConstruct;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 
 /**
- * Implementation to send sms messages through Twilio.
+ * Implementation to send sms messages through Twilio. Sends are throttled by a rate limiter per
+ * sender number, and only go through the Twilio guard once their token is available.
  */
 @Slf4j
 @Setter
@@ -26,6 +30,10 @@ public class TwilioSmsProvider implements SmsProvider {
     @Value("${twilio.authToken}")
     private String twilioAuthToken;
 
+    private ProviderRateLimiter rateLimiter = ProviderRateLimiter.unlimited("twilio");
+
+    private DependencyGuard guard = DependencyGuard.unguarded("twilio");
+
     @PostConstruct
     public void initialize() {
         Twilio.init(twilioAccountSid, twilioAuthToken);
@@ -35,8 +43,20 @@ public class TwilioSmsProvider implements SmsProvider {
      * Sends a sms via Twilio.
      * @param to      recipient.
      * @param message message to be sent.
+     * @throws RateLimitExceededException if the sms would wait too long for the rate limit
+     * @throws DependencyUnavailableException if the Twilio guard refuses the sms
+     * @throws UnprocessableNotificationException if Twilio rejects the sms with a client error
      */
     public void sendSms(String to, String message) {
+        rateLimiter.acquire(twilioPhoneNumber);
+        guard.call(
+                () -> {
+                    send(to, message);
+                    return null;
+                });
+    }
+
+    private void send(String to, String message) {
         try {
             Message.creator(new PhoneNumber(to), new PhoneNumber(twilioPhoneNumber), message)
                     .create();
@@ -48,6 +68,16 @@ public class TwilioSmsProvider implements SmsProvider {
                     connectionException.getMessage());
             throw connectionException;
         } catch (ApiException apiException) {
+            Integer statusCode = apiException.getStatusCode();
+            if (statusCode != null && ProviderStatusCodes.isRejection(statusCode)) {
+                String twilioBadRequest =
+                        String.format(
+                                "Bad request response obtained from Twilio with code %d, could"
+                                        + " not send sms to %s",
+                                statusCode, to);
+                log.error("{}: {}", twilioBadRequest, apiException.getMessage());
+                throw new UnprocessableNotificationException(twilioBadRequest);
+            }
             log.warn(
                     "Twilio api exception encountered while sending sms to {}. This operation will"
                             + " be retried. Error details: {}",
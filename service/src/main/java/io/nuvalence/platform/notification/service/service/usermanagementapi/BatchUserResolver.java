@@ -0,0 +1,155 @@
+package io.nuvalence.platform.notification.service.service.usermanagementapi;
+
+import io.nuvalence.platform.notification.service.exception.DependencyUnavailableException;
+import io.nuvalence.platform.notification.usermanagent.client.ApiException;
+import io.nuvalence.platform.notification.usermanagent.client.generated.models.UserDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the users of the messages being processed in batches.
+ *
+ * <p>Users that are not cached are collected for a short window, or until the batch is full,
+ * and then resolved together through {@link UserManagementClientService#getUsers}, so a burst of
+ * notifications costs a bounded number of parallel calls instead of one call per message. A zero
+ * window disables batching and resolves each user as it is requested.</p>
+ */
+@Slf4j
+@Component
+public class BatchUserResolver {
+
+    private final UserManagementClientService userManagementClientService;
+
+    private final Duration window;
+
+    private final int maxBatchSize;
+
+    private final ScheduledExecutorService scheduler;
+
+    private Map<UUID, CompletableFuture<Optional<UserDTO>>> pending = new HashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param userManagementClientService user management client service
+     * @param window                      time users are collected before a batch is resolved
+     * @param maxBatchSize                number of users that triggers resolving a batch early
+     */
+    public BatchUserResolver(
+            UserManagementClientService userManagementClientService,
+            @Value("${userManagement.batch.window:PT0S}") Duration window,
+            @Value("${userManagement.batch.max-size:100}") int maxBatchSize) {
+        this.userManagementClientService = userManagementClientService;
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("user-batch-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    /**
+     * Get user, waiting for the batch it belongs to when it is not cached.
+     *
+     * @param userId id of the user.
+     * @return User, empty if the user management service does not know it.
+     * @throws ApiException for possible errors reaching user management service.
+     * @throws DependencyUnavailableException if the user management service is not called
+     */
+    public Optional<UserDTO> getUser(UUID userId) throws ApiException {
+        if (window.isZero()) {
+            return userManagementClientService.getUser(userId);
+        }
+        Optional<UserDTO> cached =
+                userManagementClientService.getCachedUsers(Set.of(userId)).get(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<Optional<UserDTO>> user;
+        Map<UUID, CompletableFuture<Optional<UserDTO>>> fullBatch = null;
+        synchronized (this) {
+            user = pending.computeIfAbsent(userId, id -> new CompletableFuture<>());
+            if (pending.size() == 1) {
+                scheduler.schedule(this::flush, window.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = pending;
+                pending = new HashMap<>();
+            }
+        }
+        if (fullBatch != null) {
+            resolve(fullBatch);
+        }
+
+        try {
+            return user.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ApiException) {
+                throw (ApiException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the thread used to resolve batches.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void flush() {
+        Map<UUID, CompletableFuture<Optional<UserDTO>>> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        resolve(batch);
+    }
+
+    private void resolve(Map<UUID, CompletableFuture<Optional<UserDTO>>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        log.debug("Resolving batch of {} users", batch.size());
+        try {
+            Map<UUID, Optional<UserDTO>> users =
+                    userManagementClientService.getUsers(batch.keySet());
+            batch.forEach(
+                    (userId, user) -> {
+                        if (users.containsKey(userId)) {
+                            user.complete(users.get(userId));
+                        } else {
+                            user.completeExceptionally(
+                                    new ApiException(
+                                            String.format(
+                                                    "User %s could not be retrieved from user"
+                                                            + " management service",
+                                                    userId)));
+                        }
+                    });
+        } catch (RuntimeException e) {
+            batch.values().forEach(user -> user.completeExceptionally(e));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package io.nuvalence.platform.notification.service.service.usermanagementapi;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.nuvalence.platform.notification.usermanagent.client.ApiClient;
+import io.nuvalence.platform.notification.usermanagent.client.generated.api.UsersApi;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Configuration of the HTTP client used to reach the user management service.
+ *
+ * <p>A single {@link UsersApi} is shared by every caller, so connections, TLS sessions and
+ * HTTP/2 streams are reused across lookups instead of being renegotiated for each notification.
+ * </p>
+ */
+@Configuration
+public class UserManagementClientConfiguration {
+
+    static final String RESPONSES_METRIC = "user.management.client.responses";
+
+    /**
+     * Create the client shared by every user management API.
+     *
+     * <p>Only settings of this client are applied. The JDK reads its idle pool size and keep-alive
+     * from {@code jdk.httpclient.*} system properties shared by every client in the JVM, so they
+     * are left to the command line. Over HTTP/2 lookups share one connection, and over HTTP/1.1 the
+     * connections opened are bounded by the user management bulkhead.</p>
+     *
+     * @param baseUrl            base URL of the user management service
+     * @param httpVersion        preferred HTTP version, HTTP_2 multiplexes lookups on a connection
+     * @param connectTimeout     maximum time to establish a connection
+     * @param readTimeout        maximum time to wait for a response
+     * @param authTokenProvider  provider of the token used to authenticate requests
+     * @param meterRegistry      registry where client metrics are published
+     * @return api client
+     */
+    @Bean
+    public ApiClient userManagementApiClient(
+            @Value("${userManagement.baseUrl}") String baseUrl,
+            @Value("${userManagement.http.version:HTTP_2}") HttpClient.Version httpVersion,
+            @Value("${userManagement.http.connect-timeout:PT2S}") Duration connectTimeout,
+            @Value("${userManagement.http.read-timeout:PT5S}") Duration readTimeout,
+            AuthTokenProvider authTokenProvider,
+            MeterRegistry meterRegistry) {
+        final ApiClient apiClient = new ApiClient();
+        apiClient.setHttpClientBuilder(HttpClient.newBuilder().version(httpVersion));
+        apiClient.updateBaseUri(baseUrl);
+        apiClient.setConnectTimeout(connectTimeout);
+        apiClient.setReadTimeout(readTimeout);
+        apiClient.setRequestInterceptor(
+                request ->
+                        request.header("authorization", "Bearer " + authTokenProvider.getToken()));
+        apiClient.setResponseInterceptor(
+                response ->
+                        meterRegistry
+                                .counter(
+                                        RESPONSES_METRIC,
+                                        "version",
+                                        response.version().name(),
+                                        "status",
+                                        String.valueOf(response.statusCode()))
+                                .increment());
+        return apiClient;
+    }
+
+    /**
+     * Create the users API client.
+     *
+     * @param userManagementApiClient shared api client
+     * @return users api
+     */
+    @Bean
+    public UsersApi usersApi(ApiClient userManagementApiClient) {
+        return new UsersApi(userManagementApiClient);
+    }
+}
@@ -1,54 +1,382 @@
 package io.nuvalence.platform.notification.service.service.usermanagementapi;
 
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.nuvalence.platform.notification.service.exception.DependencyUnavailableException;
+import io.nuvalence.platform.notification.service.service.CacheInvalidationService;
+import io.nuvalence.platform.notification.service.service.DependencyGuard;
 import io.nuvalence.platform.notification.usermanagent.client.ApiClient;
 import io.nuvalence.platform.notification.usermanagent.client.ApiException;
 import io.nuvalence.platform.notification.usermanagent.client.generated.api.UsersApi;
 import io.nuvalence.platform.notification.usermanagent.client.generated.models.UserDTO;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Service for managing user management client.
+ *
+ * <p>Users are kept in a short-lived cache, so bursts of notifications to the same user only
+ * reach the user management service once. Users that do not exist are cached for a separate,
+ * usually shorter, time. When a stale-while-revalidate window is configured, expired users are
+ * still served during that window while they are reloaded in the background.</p>
+ *
+ * <p>Calls to the user management service go through its {@link DependencyGuard}. While the guard
+ * refuses calls, users that are not cached fail with a {@link DependencyUnavailableException}
+ * instead of being reported as not found. Likewise, only a 404 answer reports a user as not
+ * found, other errors fail with the {@link ApiException} so the message is retried.</p>
  */
-@RequiredArgsConstructor
 @Slf4j
 @Service
+@SuppressWarnings("checkstyle:ClassFanOutComplexity")
 public class UserManagementClientService {
 
-    @Value("${userManagement.baseUrl}")
-    private String baseUrl;
+    static final String REQUESTS_METRIC = "user.management.client.requests";
 
-    private final AuthTokenProvider authTokenProvider;
+    static final String CACHE_NAME = "users";
 
-    private UsersApi createUsersApi() {
-        final ApiClient apiClient = new ApiClient();
-        apiClient.updateBaseUri(baseUrl);
-        apiClient.setRequestInterceptor(
-                request ->
-                        request.header("authorization", "Bearer " + authTokenProvider.getToken()));
+    private static final String USERS_PATH = "/api/v1/users";
 
-        return new UsersApi(apiClient);
+    private final UsersApi usersApi;
+
+    private final ApiClient apiClient;
+
+    private final HttpClient searchHttpClient;
+
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private final MeterRegistry meterRegistry;
+
+    private final LoadingCache<UUID, Optional<UserDTO>> userCache;
+
+    private final ExecutorService batchExecutor;
+
+    private final DependencyGuard guard;
+
+    /**
+     * Constructor.
+     *
+     * @param usersApi                 user management api client
+     * @param apiClient                client shared by the user management apis
+     * @param cacheInvalidationService service propagating invalidations to every replica
+     * @param maximumSize              maximum number of users kept in memory
+     * @param ttl                      time a user is served from memory before being reloaded
+     * @param negativeTtl              time a user that was not found is remembered
+     * @param staleWhileRevalidate     extra time an expired user is served while it is reloaded
+     *                                 in the background, zero to disable
+     * @param maxConcurrency           maximum number of parallel calls made to resolve a batch
+     * @param guard                    circuit breaker and bulkhead of the user management calls
+     * @param meterRegistry            registry where client and cache metrics are published
+     */
+    public UserManagementClientService(
+            UsersApi usersApi,
+            ApiClient apiClient,
+            CacheInvalidationService cacheInvalidationService,
+            @Value("${cache.users.maximum-size:10000}") long maximumSize,
+            @Value("${cache.users.ttl:PT30S}") Duration ttl,
+            @Value("${cache.users.negative-ttl:PT10S}") Duration negativeTtl,
+            @Value("${cache.users.stale-while-revalidate:PT0S}") Duration staleWhileRevalidate,
+            @Value("${userManagement.batch.max-concurrency:8}") int maxConcurrency,
+            @Qualifier("userManagementGuard") DependencyGuard guard,
+            MeterRegistry meterRegistry) {
+        this.usersApi = usersApi;
+        this.apiClient = apiClient;
+        // the api client builds a new HttpClient on each call, keep one to reuse its connections
+        this.searchHttpClient = apiClient.getHttpClient();
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.meterRegistry = meterRegistry;
+        this.guard = guard;
+
+        CustomizableThreadFactory threadFactory =
+                new CustomizableThreadFactory("user-management-client-");
+        threadFactory.setDaemon(true);
+        this.batchExecutor = Executors.newFixedThreadPool(maxConcurrency, threadFactory);
+
+        Caffeine<UUID, Optional<UserDTO>> builder =
+                Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfter(new UserExpiry(ttl.plus(staleWhileRevalidate), negativeTtl))
+                        .recordStats();
+        if (!staleWhileRevalidate.isZero()) {
+            builder.refreshAfterWrite(ttl);
+        }
+        this.userCache =
+                builder.build(
+                        new CacheLoader<>() {
+                            @Override
+                            public Optional<UserDTO> load(UUID userId) throws ApiException {
+                                return fetchUser(userId);
+                            }
+
+                            @Override
+                            public Map<UUID, Optional<UserDTO>> loadAll(
+                                    Set<? extends UUID> userIds) {
+                                return fetchUsers(userIds);
+                            }
+                        });
+        CaffeineCacheMetrics.monitor(meterRegistry, userCache, CACHE_NAME);
+        cacheInvalidationService.registerListener(
+                CACHE_NAME, userId -> userCache.invalidate(UUID.fromString(userId)));
     }
 
     /**
      * Get user.
      *
      * @param userId id of the user.
-     * @return User.
-     * @throws ApiException for possible errors reaching user management service.
+     * @return User, empty if the user management service does not know it.
+     * @throws ApiException for possible errors reaching user management service, such as a server
+     *     error or a timeout, so the message is retried instead of being reported as sent to an
+     *     unknown user.
+     * @throws DependencyUnavailableException if the user is not cached and the user management
+     *     service is not called
      */
     public Optional<UserDTO> getUser(UUID userId) throws ApiException {
-        UsersApi api = createUsersApi();
         try {
-            return Optional.of(api.getUserById(userId));
+            return userCache.get(userId);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ApiException) {
+                throw (ApiException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Get several users at once. Users not in the cache are requested in parallel, with at most
+     * {@code userManagement.batch.max-concurrency} calls in flight.
+     *
+     * @param userIds ids of the users.
+     * @return users by id, empty for users that were not found, without the users that could not
+     *     be retrieved.
+     * @throws DependencyUnavailableException if some users are not cached and the user management
+     *     service is not called
+     */
+    public Map<UUID, Optional<UserDTO>> getUsers(Collection<UUID> userIds) {
+        return userCache.getAll(userIds);
+    }
+
+    /**
+     * Get the users already in the cache, without reaching the user management service.
+     *
+     * @param userIds ids of the users.
+     * @return cached users by id.
+     */
+    public Map<UUID, Optional<UserDTO>> getCachedUsers(Collection<UUID> userIds) {
+        return userCache.getAllPresent(userIds);
+    }
+
+    /**
+     * Search users page by page.
+     *
+     * @param query      query parameters of the users search, such as name or email
+     * @param pageNumber number of the page, starting at 0
+     * @param pageSize   maximum number of users in the page
+     * @return ids of the users of the page, empty past the last page
+     * @throws ApiException for possible errors reaching user management service.
+     */
+    public List<UUID> findUserIds(Map<String, String> query, int pageNumber, int pageSize)
+            throws ApiException {
+        try {
+            return guard.call(() -> searchUserIds(query, pageNumber, pageSize));
+        } catch (DependencyUnavailableException e) {
+            throw new ApiException(e);
+        }
+    }
+
+    private List<UUID> searchUserIds(Map<String, String> query, int pageNumber, int pageSize)
+            throws ApiException {
+        StringBuilder uri = new StringBuilder(apiClient.getBaseUri()).append(USERS_PATH);
+        uri.append("?pageNumber=").append(pageNumber).append("&pageSize=").append(pageSize);
+        query.forEach(
+                (name, value) ->
+                        uri.append('&')
+                                .append(URLEncoder.encode(name, StandardCharsets.UTF_8))
+                                .append('=')
+                                .append(URLEncoder.encode(value, StandardCharsets.UTF_8)));
+        HttpRequest.Builder request =
+                HttpRequest.newBuilder(URI.create(uri.toString()))
+                        .GET()
+                        .header("Accept", "application/json");
+        if (apiClient.getReadTimeout() != null) {
+            request.timeout(apiClient.getReadTimeout());
+        }
+        if (apiClient.getRequestInterceptor() != null) {
+            apiClient.getRequestInterceptor().accept(request);
+        }
+
+        try {
+            HttpResponse<InputStream> response =
+                    searchHttpClient.send(
+                            request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            if (apiClient.getResponseInterceptor() != null) {
+                apiClient.getResponseInterceptor().accept(response);
+            }
+            try (InputStream body = response.body()) {
+                if (response.statusCode() / 100 != 2) {
+                    throw new ApiException(
+                            response.statusCode(),
+                            "User search failed with status " + response.statusCode());
+                }
+                List<UUID> userIds = new ArrayList<>();
+                apiClient
+                        .getObjectMapper()
+                        .readTree(body)
+                        .path("users")
+                        .forEach(user -> userIds.add(UUID.fromString(user.path("id").asText())));
+                return userIds;
+            }
+        } catch (IOException e) {
+            throw new ApiException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException(e);
+        }
+    }
+
+    /**
+     * Drop a user from the cache of every replica, so changes to it are picked up by the next
+     * notification.
+     *
+     * @param userId id of the user.
+     */
+    public void invalidateUser(UUID userId) {
+        cacheInvalidationService.invalidate(CACHE_NAME, userId.toString());
+    }
+
+    /**
+     * Stops the threads used to resolve batches.
+     */
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdownNow();
+    }
+
+    private Map<UUID, Optional<UserDTO>> fetchUsers(Set<? extends UUID> userIds) {
+        Map<UUID, CompletableFuture<Optional<UserDTO>>> requests = new HashMap<>();
+        for (UUID userId : userIds) {
+            requests.put(
+                    userId,
+                    CompletableFuture.supplyAsync(
+                            () -> {
+                                try {
+                                    return fetchUser(userId);
+                                } catch (ApiException e) {
+                                    throw new CompletionException(e);
+                                }
+                            },
+                            batchExecutor));
+        }
+
+        Map<UUID, Optional<UserDTO>> users = new HashMap<>();
+        List<DependencyUnavailableException> refused = new ArrayList<>();
+        requests.forEach(
+                (userId, request) -> {
+                    try {
+                        users.put(userId, request.join());
+                    } catch (CompletionException e) {
+                        if (e.getCause() instanceof DependencyUnavailableException) {
+                            refused.add((DependencyUnavailableException) e.getCause());
+                            return;
+                        }
+                        log.error(
+                                "Error getting user {} from user management service",
+                                userId,
+                                e.getCause());
+                    }
+                });
+        if (!refused.isEmpty()) {
+            throw refused.get(0);
+        }
+        return users;
+    }
+
+    private Optional<UserDTO> fetchUser(UUID userId) throws ApiException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            Optional<UserDTO> user = guard.call(() -> getUserById(userId));
+            if (user.isEmpty()) {
+                outcome = "not_found";
+                log.warn("User {} not found in user management service", userId);
+            }
+            return user;
         } catch (ApiException e) {
-            log.error("Error getting user from user management service", e);
-            return Optional.empty();
+            outcome = "error";
+            throw e;
+        } catch (DependencyUnavailableException e) {
+            outcome = "rejected";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer(REQUESTS_METRIC, "outcome", outcome));
+        }
+    }
+
+    // not found is an answer of the service, it does not count as a failure of the guard
+    private Optional<UserDTO> getUserById(UUID userId) throws ApiException {
+        try {
+            return Optional.of(usersApi.getUserById(userId));
+        } catch (ApiException e) {
+            if (e.getCode() == HttpStatus.NOT_FOUND.value()) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class UserExpiry implements Expiry<UUID, Optional<UserDTO>> {
+
+        private final Duration found;
+
+        private final Duration notFound;
+
+        @Override
+        public long expireAfterCreate(UUID userId, Optional<UserDTO> user, long currentTime) {
+            return (user.isPresent() ? found : notFound).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(
+                UUID userId, Optional<UserDTO> user, long currentTime, long currentDuration) {
+            return expireAfterCreate(userId, user, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(
+                UUID userId, Optional<UserDTO> user, long currentTime, long currentDuration) {
+            return currentDuration;
         }
     }
 }
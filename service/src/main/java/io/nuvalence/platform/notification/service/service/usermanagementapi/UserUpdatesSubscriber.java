@@ -0,0 +1,93 @@
+package io.nuvalence.platform.notification.service.service.usermanagementapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.pubsub.v1.Subscriber;
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Listens to user updated events and drops the updated users from the user cache.
+ *
+ * <p>The event payload is expected to be a JSON object with a {@code userId} attribute. The
+ * subscription is optional; without it cached users are only refreshed when their TTL expires.
+ * </p>
+ */
+@Slf4j
+@Component
+public class UserUpdatesSubscriber {
+
+    private final PubSubTemplate pubSubTemplate;
+
+    private final UserManagementClientService userManagementClientService;
+
+    private final ObjectMapper mapper;
+
+    private final String subscription;
+
+    private Subscriber subscriber;
+
+    /**
+     * Constructor.
+     *
+     * @param pubSubTemplate              PubSub template used to pull user updated events
+     * @param userManagementClientService service owning the user cache
+     * @param mapper                      mapper used to read the events
+     * @param subscription                subscription to user updated events, empty to disable
+     */
+    public UserUpdatesSubscriber(
+            PubSubTemplate pubSubTemplate,
+            UserManagementClientService userManagementClientService,
+            ObjectMapper mapper,
+            @Value("${spring.cloud.gcp.pubsub.userUpdatesSubscription:}") String subscription) {
+        this.pubSubTemplate = pubSubTemplate;
+        this.userManagementClientService = userManagementClientService;
+        this.mapper = mapper;
+        this.subscription = subscription;
+    }
+
+    /**
+     * Starts listening for user updated events.
+     */
+    @PostConstruct
+    public void subscribe() {
+        if (subscription == null || subscription.isBlank()) {
+            return;
+        }
+        log.info("Listening for user updates on subscription: {}", subscription);
+        subscriber = pubSubTemplate.subscribe(subscription, this::handleMessage);
+    }
+
+    /**
+     * Stops listening for user updated events.
+     */
+    @PreDestroy
+    public void unsubscribe() {
+        if (subscriber != null) {
+            subscriber.stopAsync();
+        }
+    }
+
+    void handleMessage(BasicAcknowledgeablePubsubMessage message) {
+        try {
+            JsonNode event = mapper.readTree(message.getPubsubMessage().getData().toByteArray());
+            JsonNode userId = event.get("userId");
+            if (userId != null && userId.isTextual()) {
+                userManagementClientService.invalidateUser(UUID.fromString(userId.asText()));
+            } else {
+                log.warn("Ignoring user updated event without userId");
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Ignoring unreadable user updated event", e);
+        }
+        message.ack();
+    }
+}
@@ -0,0 +1,42 @@
+package io.nuvalence.platform.notification.service.utils.jpa;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+
+/**
+ * JPA converter to map a map of strings to a JSON db column.
+ */
+@Converter
+public class StringMapPersistenceConverter
+        implements AttributeConverter<Map<String, String>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final TypeReference<Map<String, String>> TYPE = new TypeReference<>() {};
+
+    @Override
+    public String convertToDatabaseColumn(Map<String, String> entityValue) {
+        try {
+            return (entityValue == null) ? null : MAPPER.writeValueAsString(entityValue);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Map could not be serialized", e);
+        }
+    }
+
+    @Override
+    public Map<String, String> convertToEntityAttribute(String databaseValue) {
+        try {
+            return StringUtils.hasLength(databaseValue)
+                    ? MAPPER.readValue(databaseValue, TYPE)
+                    : null;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Map could not be deserialized", e);
+        }
+    }
+}
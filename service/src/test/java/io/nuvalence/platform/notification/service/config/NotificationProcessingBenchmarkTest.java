@@ -0,0 +1,88 @@
+package io.nuvalence.platform.notification.service.config;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuvalence.platform.notification.service.service.NotificationProcessingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures notification processing throughput with a handler blocking as long as a typical
+ * provider call. Run with {@code ./gradlew benchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@ExtendWith(MockitoExtension.class)
+class NotificationProcessingBenchmarkTest {
+
+    private static final int MESSAGES = 5000;
+
+    private static final int MAX_IN_FLIGHT = 500;
+
+    private static final int PLATFORM_THREADS = 32;
+
+    private static final int PUBSUB_EXECUTOR_THREADS = 4;
+
+    private static final long PROVIDER_LATENCY_MILLIS = 50;
+
+    @Mock private NotificationProcessingSubscriber subscriber;
+
+    @Test
+    void platformThreads() throws InterruptedException {
+        run("platform threads", PLATFORM_THREADS);
+    }
+
+    private void run(String mode, int concurrency) throws InterruptedException {
+        CountDownLatch processed = new CountDownLatch(MESSAGES);
+        doAnswer(
+                        invocation -> {
+                            Thread.sleep(PROVIDER_LATENCY_MILLIS);
+                            processed.countDown();
+                            return null;
+                        })
+                .when(subscriber)
+                .handleMessage(any());
+
+        NotificationProcessingConfig config =
+                new NotificationProcessingConfig(
+                        concurrency, MAX_IN_FLIGHT, new SimpleMeterRegistry());
+        MessageChannel channel = config.inputMessageChannel();
+        ((ExecutorChannel) channel).subscribe(subscriber);
+        ExecutorService pubSubThreads = Executors.newFixedThreadPool(PUBSUB_EXECUTOR_THREADS);
+
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < MESSAGES; i++) {
+                pubSubThreads.execute(
+                        () -> channel.send(MessageBuilder.withPayload(new byte[0]).build()));
+            }
+            assertTrue(processed.await(5, TimeUnit.MINUTES));
+        } finally {
+            pubSubThreads.shutdownNow();
+            config.shutdownProcessingExecutor();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        log.info(
+                "{}: {} messages in {} s, {} messages/s",
+                mode,
+                MESSAGES,
+                String.format("%.2f", seconds),
+                String.format("%.0f", MESSAGES / seconds));
+    }
+}
@@ -0,0 +1,87 @@
+package io.nuvalence.platform.notification.service.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuvalence.platform.notification.service.service.NotificationProcessingSubscriber;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationProcessingConfigTest {
+
+    @Mock private NotificationProcessingSubscriber subscriber;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void inputMessageChannel_direct() {
+        NotificationProcessingConfig config = createConfig(1);
+
+        assertInstanceOf(DirectChannel.class, config.inputMessageChannel());
+        assertTrue(
+                meterRegistry
+                        .find(NotificationProcessingConfig.IN_FLIGHT_METRIC)
+                        .gauges()
+                        .isEmpty());
+    }
+
+    @Test
+    void inputMessageChannel_concurrent() throws InterruptedException {
+        NotificationProcessingConfig config = createConfig(2);
+        MessageChannel channel = config.inputMessageChannel();
+        assertInstanceOf(ExecutorChannel.class, channel);
+        ((ExecutorChannel) channel).subscribe(subscriber);
+
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(
+                        invocation -> {
+                            started.countDown();
+                            release.await(5, TimeUnit.SECONDS);
+                            return null;
+                        })
+                .when(subscriber)
+                .handleMessage(any());
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                channel.send(MessageBuilder.withPayload(new byte[0]).build());
+            }
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertEquals(
+                    3.0,
+                    meterRegistry
+                            .get(NotificationProcessingConfig.IN_FLIGHT_METRIC)
+                            .gauge()
+                            .value());
+            assertEquals(
+                    1.0,
+                    meterRegistry
+                            .get(NotificationProcessingConfig.QUEUE_DEPTH_METRIC)
+                            .gauge()
+                            .value());
+        } finally {
+            release.countDown();
+            config.shutdownProcessingExecutor();
+        }
+    }
+
+    private NotificationProcessingConfig createConfig(int concurrency) {
+        return new NotificationProcessingConfig(concurrency, 10, meterRegistry);
+    }
+}
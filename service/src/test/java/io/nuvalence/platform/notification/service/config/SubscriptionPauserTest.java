@@ -0,0 +1,81 @@
+package io.nuvalence.platform.notification.service.config;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.spring.pubsub.integration.inbound.PubSubInboundChannelAdapter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuvalence.platform.notification.service.service.DependencyGuard;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class SubscriptionPauserTest {
+
+    @Mock private PubSubInboundChannelAdapter adapter;
+
+    private SubscriptionPauser pauser;
+
+    @AfterEach
+    void shutdown() {
+        pauser.shutdown();
+    }
+
+    @Test
+    void pausesTheSubscriptionWhileABreakerIsOpen() {
+        DependencyGuard guard = guard(Duration.ofMillis(200));
+        pauser = new SubscriptionPauser(adapter, List.of(guard), true);
+        when(adapter.isRunning()).thenReturn(true, false);
+
+        openBreaker(guard);
+
+        verify(adapter, timeout(1000)).stop();
+        verify(adapter, timeout(1000)).start();
+    }
+
+    @Test
+    void keepsPullingWhenDisabled() throws InterruptedException {
+        DependencyGuard guard = guard(Duration.ofMillis(50));
+        pauser = new SubscriptionPauser(adapter, List.of(guard), false);
+
+        openBreaker(guard);
+
+        Thread.sleep(200);
+        verify(adapter, never()).stop();
+    }
+
+    private DependencyGuard guard(Duration openDuration) {
+        return new DependencyGuard(
+                "twilio",
+                50,
+                2,
+                openDuration,
+                Duration.ZERO,
+                1,
+                10,
+                Duration.ZERO,
+                new SimpleMeterRegistry());
+    }
+
+    private void openBreaker(DependencyGuard guard) {
+        for (int i = 0; i < 2; i++) {
+            assertThrows(
+                    IOException.class,
+                    () ->
+                            guard.call(
+                                    () -> {
+                                        throw new IOException("connection reset");
+                                    }));
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package io.nuvalence.platform.notification.service.controller;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.nuvalence.auth.access.AuthorizationHandler;
+import io.nuvalence.platform.notification.service.generated.models.CampaignAudienceModel;
+import io.nuvalence.platform.notification.service.generated.models.CampaignRequestModel;
+import io.nuvalence.platform.notification.service.generated.models.CampaignResponseModel;
+import io.nuvalence.platform.notification.service.generated.models.EmailFormatModel;
+import io.nuvalence.platform.notification.service.generated.models.EmailLayoutRequestModel;
+import io.nuvalence.platform.notification.service.generated.models.LocalizedTemplateModel;
+import io.nuvalence.platform.notification.service.generated.models.TemplateRequestModel;
+import io.nuvalence.platform.notification.service.generated.models.TemplateRequestModelSmsFormat;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@ActiveProfiles("test")
+class CampaignsApiDelegateImplTest {
+
+    @Autowired private MockMvc mockMvc;
+
+    @Autowired private ObjectMapper objectMapper;
+
+    @MockBean private AuthorizationHandler authorizationHandler;
+
+    @BeforeEach
+    void setup() {
+        when(authorizationHandler.isAllowed(any(), (Class<?>) any())).thenReturn(true);
+        when(authorizationHandler.isAllowed(any(), (String) any())).thenReturn(true);
+        when(authorizationHandler.isAllowedForInstance(any(), any())).thenReturn(true);
+        when(authorizationHandler.getAuthFilter(any(), any())).thenReturn(element -> true);
+    }
+
+    @Test
+    void testCreateCampaign() throws Exception {
+        String templateKey = RandomStringUtils.randomAlphanumeric(10);
+        createMessageTemplate(templateKey);
+        CampaignAudienceModel audience = new CampaignAudienceModel();
+        audience.setUserIds(List.of(UUID.randomUUID(), UUID.randomUUID()));
+        CampaignRequestModel campaignRequest =
+                new CampaignRequestModel(templateKey, Map.of("parameter1", "value"), audience);
+
+        mockMvc.perform(
+                        post("/api/v1/campaigns")
+                                .content(objectMapper.writeValueAsString(campaignRequest))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(notNullValue())))
+                .andExpect(jsonPath("$.templateKey", is(templateKey)))
+                .andExpect(jsonPath("$.status", is("RUNNING")))
+                .andExpect(jsonPath("$.totalCount", is(2)))
+                .andExpect(jsonPath("$.processedCount", is(0)));
+    }
+
+    @Test
+    void testCreateCampaign_template_not_found() throws Exception {
+        CampaignAudienceModel audience = new CampaignAudienceModel();
+        audience.setUserIds(List.of(UUID.randomUUID()));
+        CampaignRequestModel campaignRequest =
+                new CampaignRequestModel(
+                        RandomStringUtils.randomAlphanumeric(10), Map.of(), audience);
+
+        mockMvc.perform(
+                        post("/api/v1/campaigns")
+                                .content(objectMapper.writeValueAsString(campaignRequest))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testCreateCampaign_missing_audience() throws Exception {
+        String templateKey = RandomStringUtils.randomAlphanumeric(10);
+        createMessageTemplate(templateKey);
+        CampaignRequestModel campaignRequest =
+                new CampaignRequestModel(templateKey, Map.of(), new CampaignAudienceModel());
+
+        mockMvc.perform(
+                        post("/api/v1/campaigns")
+                                .content(objectMapper.writeValueAsString(campaignRequest))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetCampaignById() throws Exception {
+        String templateKey = RandomStringUtils.randomAlphanumeric(10);
+        createMessageTemplate(templateKey);
+        CampaignAudienceModel audience = new CampaignAudienceModel();
+        audience.setQuery(Map.of("name", "Jane"));
+        CampaignResponseModel campaign =
+                createCampaign(new CampaignRequestModel(templateKey, Map.of(), audience));
+
+        mockMvc.perform(get("/api/v1/campaigns/{id}", campaign.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(campaign.getId().toString())))
+                .andExpect(jsonPath("$.totalCount").doesNotExist());
+    }
+
+    @Test
+    void testGetCampaignById_not_found() throws Exception {
+        mockMvc.perform(get("/api/v1/campaigns/{id}", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testPauseAndResumeCampaign() throws Exception {
+        String templateKey = RandomStringUtils.randomAlphanumeric(10);
+        createMessageTemplate(templateKey);
+        CampaignAudienceModel audience = new CampaignAudienceModel();
+        audience.setUserIds(List.of(UUID.randomUUID()));
+        CampaignResponseModel campaign =
+                createCampaign(new CampaignRequestModel(templateKey, Map.of(), audience));
+
+        mockMvc.perform(post("/api/v1/campaigns/{id}/resume", campaign.getId()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/v1/campaigns/{id}/pause", campaign.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("PAUSED")));
+        mockMvc.perform(post("/api/v1/campaigns/{id}/resume", campaign.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("RUNNING")));
+        mockMvc.perform(post("/api/v1/campaigns/{id}/pause", UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
+    private CampaignResponseModel createCampaign(CampaignRequestModel campaignRequest)
+            throws Exception {
+        MvcResult result =
+                mockMvc.perform(
+                                post("/api/v1/campaigns")
+                                        .content(objectMapper.writeValueAsString(campaignRequest))
+                                        .contentType(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andReturn();
+        return objectMapper.readValue(
+                result.getResponse().getContentAsString(), CampaignResponseModel.class);
+    }
+
+    private void createMessageTemplate(String templateKey) throws Exception {
+        String emailLayoutKey = RandomStringUtils.randomAlphanumeric(10);
+        createEmailLayout(emailLayoutKey);
+
+        LocalizedTemplateModel emailFormatSubject =
+                new LocalizedTemplateModel(Map.of("en", "email-subject-english"));
+
+        EmailFormatModel emailFormat =
+                new EmailFormatModel(
+                        emailLayoutKey,
+                        emailFormatSubject,
+                        Map.of(
+                                "body",
+                                new LocalizedTemplateModel(Map.of("en", "email-body-english"))));
+
+        TemplateRequestModelSmsFormat smsFormat = new TemplateRequestModelSmsFormat();
+        smsFormat.setMessage(new LocalizedTemplateModel(Map.of("en", "email-sms-english")));
+
+        TemplateRequestModel templateRequestModel =
+                new TemplateRequestModel(
+                        "templateName",
+                        "templateDescription",
+                        Map.of("parameter1", "String"),
+                        emailFormat,
+                        smsFormat);
+
+        mockMvc.perform(
+                        put("/api/v1/admin/templates/{key}", templateKey)
+                                .content(objectMapper.writeValueAsString(templateRequestModel))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.key", is(templateKey)));
+    }
+
+    private void createEmailLayout(String emailLayoutKey) throws Exception {
+        EmailLayoutRequestModel emailLayoutRequestModel =
+                new EmailLayoutRequestModel(
+                        "name",
+                        "description",
+                        "content",
+                        new java.util.ArrayList<>(List.of("inputs")));
+
+        mockMvc.perform(
+                        put("/api/v1/admin/email-layout/{key}", emailLayoutKey)
+                                .content(objectMapper.writeValueAsString(emailLayoutRequestModel))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.key", is(emailLayoutKey)));
+    }
+}
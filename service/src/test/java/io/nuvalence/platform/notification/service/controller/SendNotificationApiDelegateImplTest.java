@@ -11,9 +11,12 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.nuvalence.auth.access.AuthorizationHandler;
+import io.nuvalence.platform.notification.service.generated.models.BatchMessageRequestModel;
+import io.nuvalence.platform.notification.service.generated.models.BatchMessageResponseModel;
 import io.nuvalence.platform.notification.service.generated.models.EmailFormatModel;
 import io.nuvalence.platform.notification.service.generated.models.EmailLayoutRequestModel;
 import io.nuvalence.platform.notification.service.generated.models.LocalizedTemplateModel;
+import io.nuvalence.platform.notification.service.generated.models.MessagePageDTO;
 import io.nuvalence.platform.notification.service.generated.models.MessageRequestModel;
 import io.nuvalence.platform.notification.service.generated.models.MessageResponseModel;
 import io.nuvalence.platform.notification.service.generated.models.TemplateRequestModel;
@@ -32,7 +35,9 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -145,6 +150,71 @@ class SendNotificationApiDelegateImplTest {
                 .andReturn();
     }
 
+    @Test
+    void testSendMessages() throws Exception {
+        String templateKey = RandomStringUtils.randomAlphanumeric(10);
+        createMessageTemplate(templateKey);
+        Map<String, String> messageParameters =
+                Map.of(
+                        "parameter1", "2023-01-01",
+                        "parameter2", "Mr Bean",
+                        "parameter3", "45",
+                        "parameter4", "2023-07-06T15:30:00");
+        BatchMessageRequestModel batchRequest =
+                new BatchMessageRequestModel(
+                        List.of(
+                                new MessageRequestModel(
+                                        UUID.randomUUID(), templateKey, messageParameters),
+                                new MessageRequestModel(
+                                        UUID.randomUUID(),
+                                        RandomStringUtils.randomAlphanumeric(10),
+                                        messageParameters),
+                                new MessageRequestModel(
+                                        UUID.randomUUID(),
+                                        templateKey,
+                                        Map.of("parameter1", "2023-01-01")),
+                                new MessageRequestModel(
+                                        UUID.randomUUID(), templateKey, messageParameters)));
+
+        MvcResult result =
+                mockMvc.perform(
+                                MockMvcRequestBuilders.post("/api/v1/messages/batch")
+                                        .content(objectMapper.writeValueAsString(batchRequest))
+                                        .contentType(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.results.length()", is(4)))
+                        .andExpect(jsonPath("$.results[0].index", is(0)))
+                        .andExpect(jsonPath("$.results[0].status", is("QUEUED")))
+                        .andExpect(jsonPath("$.results[0].id", is(notNullValue())))
+                        .andExpect(jsonPath("$.results[1].status", is("REJECTED")))
+                        .andExpect(jsonPath("$.results[1].error", is("Template not found")))
+                        .andExpect(jsonPath("$.results[2].status", is("REJECTED")))
+                        .andExpect(jsonPath("$.results[3].status", is("QUEUED")))
+                        .andReturn();
+
+        BatchMessageResponseModel batchResponse =
+                objectMapper.readValue(
+                        result.getResponse().getContentAsString(), BatchMessageResponseModel.class);
+        mockMvc.perform(
+                        get(
+                                "/api/v1/messages/{messageId}",
+                                batchResponse.getResults().get(3).getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("QUEUED")))
+                .andExpect(jsonPath("$.templateKey", is(templateKey)));
+    }
+
+    @Test
+    void testSendMessages_empty() throws Exception {
+        mockMvc.perform(
+                        MockMvcRequestBuilders.post("/api/v1/messages/batch")
+                                .content(
+                                        objectMapper.writeValueAsString(
+                                                new BatchMessageRequestModel(List.of())))
+                                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testGetMessageById() throws Exception {
         String templateKey = RandomStringUtils.randomAlphanumeric(10);
@@ -186,6 +256,86 @@ class SendNotificationApiDelegateImplTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void testGetMessages_pagesThroughUserMessages() throws Exception {
+        String templateKey = RandomStringUtils.randomAlphanumeric(10);
+        createMessageTemplate(templateKey);
+        UUID userId = UUID.randomUUID();
+        Map<String, String> messageParameters =
+                Map.of(
+                        "parameter1", "2023-01-01",
+                        "parameter2", "Mr Bean",
+                        "parameter3", "45",
+                        "parameter4", "2023-07-06T15:30:00");
+        List<UUID> messageIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            MvcResult result =
+                    mockMvc.perform(
+                                    MockMvcRequestBuilders.post("/api/v1/messages")
+                                            .content(
+                                                    objectMapper.writeValueAsString(
+                                                            new MessageRequestModel(
+                                                                    userId,
+                                                                    templateKey,
+                                                                    messageParameters)))
+                                            .contentType(MediaType.APPLICATION_JSON))
+                            .andExpect(status().isOk())
+                            .andReturn();
+            messageIds.add(
+                    objectMapper
+                            .readValue(
+                                    result.getResponse().getContentAsString(),
+                                    MessageResponseModel.class)
+                            .getId());
+        }
+
+        MvcResult firstPage =
+                mockMvc.perform(
+                                get("/api/v1/messages")
+                                        .param("userId", userId.toString())
+                                        .param("status", "QUEUED")
+                                        .param("pageSize", "2"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.items.length()", is(2)))
+                        .andExpect(jsonPath("$.items[0].id", is(messageIds.get(0).toString())))
+                        .andExpect(jsonPath("$.items[1].id", is(messageIds.get(1).toString())))
+                        .andExpect(jsonPath("$.pagingMetadata.totalCount").doesNotExist())
+                        .andReturn();
+        MessagePageDTO page =
+                objectMapper.readValue(
+                        firstPage.getResponse().getContentAsString(), MessagePageDTO.class);
+        String cursor =
+                UriComponentsBuilder.fromUriString(page.getPagingMetadata().getNextPage())
+                        .build()
+                        .getQueryParams()
+                        .getFirst("cursor");
+
+        mockMvc.perform(
+                        get("/api/v1/messages")
+                                .param("userId", userId.toString())
+                                .param("status", "QUEUED")
+                                .param("pageSize", "2")
+                                .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()", is(1)))
+                .andExpect(jsonPath("$.items[0].id", is(messageIds.get(2).toString())))
+                .andExpect(jsonPath("$.pagingMetadata.nextPage").doesNotExist());
+
+        mockMvc.perform(
+                        get("/api/v1/messages")
+                                .param("userId", userId.toString())
+                                .param("sortOrder", "DESC")
+                                .param("pageSize", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id", is(messageIds.get(2).toString())));
+    }
+
+    @Test
+    void testGetMessages_invalid_cursor() throws Exception {
+        mockMvc.perform(get("/api/v1/messages").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
     private void createMessageTemplate(String templateKey) throws Exception {
         String emailLayoutKey = RandomStringUtils.randomAlphanumeric(10);
         createEmailLayout(emailLayoutKey);
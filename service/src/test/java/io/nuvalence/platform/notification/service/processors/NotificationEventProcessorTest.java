@@ -219,7 +219,7 @@ class NotificationEventProcessorTest {
 
         // Assert
         verify(sendMessageService, times(1)).sendMessage(message);
-        verify(messageService, times(1)).updateMessageStatus(message.getId(), "SENT");
+        verify(messageService, times(1)).updateMessageStatus(message, "SENT");
     }
 
     @Test
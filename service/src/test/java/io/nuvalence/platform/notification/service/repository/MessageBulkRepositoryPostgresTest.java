@@ -0,0 +1,166 @@
+package io.nuvalence.platform.notification.service.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.nuvalence.platform.notification.service.domain.Message;
+import io.nuvalence.platform.notification.service.utils.PostgresTestDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Runs the bulk message statements against PostgreSQL, which the H2 test database cannot stand
+ * in for. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class MessageBulkRepositoryPostgresTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = PostgresTestDatabase.container();
+
+    private JdbcTemplate jdbcTemplate;
+
+    private MessageBulkRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DriverManagerDataSource dataSource = PostgresTestDatabase.empty(POSTGRES);
+        PostgresTestDatabase.migrate(dataSource, null);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new MessageBulkRepositoryImpl(jdbcTemplate, new ObjectMapper());
+    }
+
+    @Test
+    void insertAll_storesTheParametersAsJsonb() {
+        List<Message> messages = createMessages(3);
+
+        repository.insertAll(messages);
+
+        for (Message message : messages) {
+            assertNotNull(message.getId());
+            assertEquals(
+                    "object",
+                    jdbcTemplate.queryForObject(
+                            "SELECT jsonb_typeof(parameters) FROM message WHERE id = ?",
+                            String.class,
+                            message.getId()));
+            assertEquals(
+                    message.getParameters().get("name"),
+                    jdbcTemplate.queryForObject(
+                            "SELECT parameters ->> 'name' FROM message WHERE id = ?",
+                            String.class,
+                            message.getId()));
+        }
+    }
+
+    @Test
+    void insertAll_storesMessagesWithoutParameters() {
+        Message message = createMessages(1).get(0);
+        message.setParameters(null);
+
+        repository.insertAll(List.of(message));
+
+        assertTrue(
+                jdbcTemplate.queryForObject(
+                        "SELECT parameters IS NULL FROM message WHERE id = ?",
+                        Boolean.class,
+                        message.getId()));
+    }
+
+    @Test
+    void updateStatuses_updatesEveryMessageWithItsOwnValues() {
+        List<Message> messages = createMessages(3);
+        repository.insertAll(messages);
+        Message sent = messages.get(0);
+        sent.setStatus("SENT");
+        sent.setSentTimestamp(OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        sent.setQueueWaitMillis(1L);
+        sent.setUserLookupMillis(2L);
+        sent.setRenderMillis(3L);
+        sent.setProviderMillis(4L);
+        Message unprocessable = messages.get(1);
+        unprocessable.setStatus("UNPROCESSABLE");
+
+        repository.updateStatuses(List.of(sent, unprocessable));
+
+        Map<String, Object> sentRow = row(sent.getId());
+        assertEquals("SENT", sentRow.get("status"));
+        assertNotNull(sentRow.get("sent_timestamp"));
+        assertEquals(1L, sentRow.get("queue_wait_millis"));
+        assertEquals(2L, sentRow.get("user_lookup_millis"));
+        assertEquals(3L, sentRow.get("render_millis"));
+        assertEquals(4L, sentRow.get("provider_millis"));
+        Map<String, Object> unprocessableRow = row(unprocessable.getId());
+        assertEquals("UNPROCESSABLE", unprocessableRow.get("status"));
+        assertNull(unprocessableRow.get("sent_timestamp"));
+        assertNull(unprocessableRow.get("provider_millis"));
+        assertEquals("QUEUED", row(messages.get(2).getId()).get("status"));
+    }
+
+    @Test
+    void updateStatuses_findsTheMessagesByTheirRequestedTimestamp() {
+        Message message = createMessages(1).get(0);
+        repository.insertAll(List.of(message));
+        message.setStatus("SENT");
+        message.setRequestedTimestamp(message.getRequestedTimestamp().plusSeconds(1));
+
+        repository.updateStatuses(List.of(message));
+
+        assertEquals("QUEUED", row(message.getId()).get("status"));
+    }
+
+    @Test
+    void updateStatuses_keepsTheFirstOutcomeOfAMessage() {
+        Message message = createMessages(1).get(0);
+        repository.insertAll(List.of(message));
+        message.setStatus("SENT");
+        message.setProviderMillis(1L);
+        repository.updateStatuses(List.of(message));
+        message.setStatus("UNPROCESSABLE");
+        message.setProviderMillis(2L);
+
+        repository.updateStatuses(List.of(message));
+
+        Map<String, Object> row = row(message.getId());
+        assertEquals("SENT", row.get("status"));
+        assertEquals(1L, row.get("provider_millis"));
+    }
+
+    private Map<String, Object> row(UUID id) {
+        return jdbcTemplate.queryForMap(
+                "SELECT status, sent_timestamp, queue_wait_millis, user_lookup_millis,"
+                        + " render_millis, provider_millis FROM message WHERE id = ?",
+                id);
+    }
+
+    private List<Message> createMessages(int count) {
+        OffsetDateTime now = OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        return IntStream.range(0, count)
+                .mapToObj(
+                        i ->
+                                Message.builder()
+                                        .userId(UUID.randomUUID().toString())
+                                        .messageTemplateKey("key")
+                                        .status("QUEUED")
+                                        .parameters(Map.of("name", "value" + i))
+                                        .requestedTimestamp(now)
+                                        .build())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,257 @@
+package io.nuvalence.platform.notification.service.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.nuvalence.platform.notification.service.domain.Message;
+import io.nuvalence.platform.notification.service.model.SearchMessageFilter;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+class MessageRepositoryTest {
+
+    private static final int PARAMETERS_PER_MESSAGE = 3;
+    private static final String BENCHMARK_TEMPLATE_KEY = "benchmark";
+
+    @Autowired private MessageRepository messageRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private TransactionTemplate transactionTemplate;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void insertAll_insertsMessagesWithTheirParameters() {
+        List<Message> messages = createMessages(3);
+
+        transactionTemplate.executeWithoutResult(status -> messageRepository.insertAll(messages));
+
+        for (Message message : messages) {
+            assertNotNull(message.getId());
+            Message saved = messageRepository.findById(message.getId()).orElseThrow();
+            assertEquals(message.getUserId(), saved.getUserId());
+            assertEquals("QUEUED", saved.getStatus());
+            assertEquals(message.getRequestedTimestamp(), saved.getRequestedTimestamp());
+            assertEquals(message.getParameters(), saved.getParameters());
+        }
+    }
+
+    @Test
+    void saveAll_batchesMessageInserts() {
+        List<Message> messages = createMessages(50);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            transactionTemplate.executeWithoutResult(status -> messageRepository.saveAll(messages));
+
+            // without batching each message is a statement of its own
+            assertEquals(messages.size(), statistics.getEntityInsertCount());
+            assertEquals(1, statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    /**
+     * Compares saving messages through JPA and inserting them in bulk. H2 stands in for
+     * PostgreSQL, so the figures are only meaningful relative to each other.
+     */
+    @Tag("benchmark")
+    @Test
+    void benchmark_insertsPerSecond() {
+        final int messageCount = 10_000;
+        double jpaRate =
+                measure(
+                        "JPA saveAll",
+                        messageCount,
+                        messages -> messageRepository.saveAll(messages));
+        double bulkRate = measure("bulk insertAll", messageCount, messageRepository::insertAll);
+
+        assertTrue(bulkRate > jpaRate, "bulk inserts are slower than JPA saves");
+    }
+
+    @Test
+    void searchQueries_useTheMessageIndexes() {
+        assertPlanUses(
+                "SELECT * FROM message WHERE status = 'QUEUED' AND requested_timestamp < ?"
+                        + " ORDER BY requested_timestamp, id LIMIT 51",
+                "idx_message_status_requested",
+                OffsetDateTime.now());
+        assertPlanUses(
+                "SELECT * FROM message WHERE user_id = 'user' ORDER BY requested_timestamp, id"
+                        + " LIMIT 51",
+                "idx_message_user_requested");
+        // the cursor bounds the range scan, rather than filtering the rows before it
+        assertPlanUses(
+                "SELECT * FROM message WHERE status = 'QUEUED' AND requested_timestamp >= ?1 AND"
+                    + " (requested_timestamp > ?1 OR (requested_timestamp = ?1 AND id > ?2)) ORDER"
+                    + " BY requested_timestamp, id LIMIT 51",
+                "idx_message_status_requested: status = 'queued' and requested_timestamp >=",
+                OffsetDateTime.now(),
+                UUID.randomUUID());
+    }
+
+    /**
+     * Compares reaching a deep page of QUEUED messages with the search cursor and with a page
+     * number. H2 keeps offsets cheap in memory, so the timings are only logged; set
+     * bench.message-rows to run it against a larger table.
+     */
+    @Tag("benchmark")
+    @Test
+    void benchmark_deepPageWithCursorAndPageNumber() {
+        final int rowCount = Integer.getInteger("bench.message-rows", 200_000);
+        final int pageSize = 50;
+        // halfway through the QUEUED messages, a quarter of the rows
+        final int pageNumber = rowCount / 8 / pageSize;
+        List<String> statuses = List.of("QUEUED", "SENT", "UNPROCESSABLE", "SENT");
+        OffsetDateTime start = OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        for (int inserted = 0; inserted < rowCount; inserted += 10_000) {
+            int offset = inserted;
+            List<Message> messages =
+                    IntStream.range(offset, Math.min(offset + 10_000, rowCount))
+                            .mapToObj(
+                                    i ->
+                                            Message.builder()
+                                                    .userId("bench-user-" + i % 1000)
+                                                    .messageTemplateKey(BENCHMARK_TEMPLATE_KEY)
+                                                    .status(statuses.get(i % statuses.size()))
+                                                    .parameters(Map.of())
+                                                    .requestedTimestamp(start.minusSeconds(i))
+                                                    .build())
+                            .collect(Collectors.toList());
+            transactionTemplate.executeWithoutResult(
+                    status -> messageRepository.insertAll(messages));
+        }
+        try {
+            SearchMessageFilter filter =
+                    SearchMessageFilter.builder().status("QUEUED").pageSize(pageSize).build();
+            PageRequest pageRequest = PageRequest.of(pageNumber, pageSize, filter.getSort());
+            Page<Message> previousPage =
+                    messageRepository.findAll(
+                            filter.getMessageSpecifications(), pageRequest.previous());
+            SearchMessageFilter cursorFilter =
+                    SearchMessageFilter.builder()
+                            .status("QUEUED")
+                            .pageSize(pageSize)
+                            .cursor(
+                                    SearchMessageFilter.cursorAfter(
+                                            previousPage
+                                                    .getContent()
+                                                    .get(previousPage.getNumberOfElements() - 1)))
+                            .build();
+
+            List<Message> pageByNumber =
+                    messageRepository
+                            .findAll(filter.getMessageSpecifications(), pageRequest)
+                            .getContent();
+            List<Message> pageByCursor =
+                    messageRepository.findBy(
+                            cursorFilter.getMessageSpecifications(),
+                            query -> query.sortBy(cursorFilter.getSort()).limit(pageSize).all());
+            assertEquals(
+                    pageByNumber.stream().map(Message::getId).collect(Collectors.toList()),
+                    pageByCursor.stream().map(Message::getId).collect(Collectors.toList()));
+
+            double pageNumberMillis =
+                    averageMillis(
+                            () ->
+                                    messageRepository.findAll(
+                                            filter.getMessageSpecifications(), pageRequest));
+            double cursorMillis =
+                    averageMillis(
+                            () ->
+                                    messageRepository.findBy(
+                                            cursorFilter.getMessageSpecifications(),
+                                            query ->
+                                                    query.sortBy(cursorFilter.getSort())
+                                                            .limit(pageSize)
+                                                            .all()));
+            log.info(
+                    "page {} of QUEUED messages out of {} rows: {} ms with a page number, {} ms"
+                            + " with a cursor",
+                    pageNumber,
+                    rowCount,
+                    String.format("%.2f", pageNumberMillis),
+                    String.format("%.2f", cursorMillis));
+        } finally {
+            jdbcTemplate.update(
+                    "DELETE FROM message WHERE message_template_key = ?", BENCHMARK_TEMPLATE_KEY);
+        }
+    }
+
+    private double averageMillis(Runnable query) {
+        final int runs = 10;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            query.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / runs;
+    }
+
+    private void assertPlanUses(String query, String index, Object... args) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + query, String.class, args);
+        assertTrue(
+                plan.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").contains(index),
+                () -> "expected " + index + " in " + plan);
+    }
+
+    private double measure(String mode, int messageCount, Consumer<List<Message>> insert) {
+        List<Message> messages = createMessages(messageCount);
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> insert.accept(messages));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        log.info(
+                "{}: {} messages in {} s, {} inserts/s",
+                mode,
+                messageCount,
+                String.format("%.2f", seconds),
+                String.format("%.0f", messageCount / seconds));
+        return messageCount / seconds;
+    }
+
+    private List<Message> createMessages(int count) {
+        OffsetDateTime now = OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        return IntStream.range(0, count)
+                .mapToObj(
+                        i ->
+                                Message.builder()
+                                        .userId(UUID.randomUUID().toString())
+                                        .messageTemplateKey("key")
+                                        .status("QUEUED")
+                                        .parameters(
+                                                IntStream.range(0, PARAMETERS_PER_MESSAGE)
+                                                        .boxed()
+                                                        .collect(
+                                                                Collectors.toMap(
+                                                                        p -> "parameter" + p,
+                                                                        p -> "value" + i)))
+                                        .requestedTimestamp(now)
+                                        .build())
+                .collect(Collectors.toList());
+    }
+}
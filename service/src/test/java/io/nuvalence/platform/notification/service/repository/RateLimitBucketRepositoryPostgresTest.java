@@ -0,0 +1,125 @@
+package io.nuvalence.platform.notification.service.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.nuvalence.platform.notification.service.domain.RateLimitBucket;
+import io.nuvalence.platform.notification.service.utils.PostgresTestDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the single-statement lease of the shared rate limit buckets against PostgreSQL, which the
+ * H2 test database cannot stand in for. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RateLimitBucketRepositoryPostgresTest {
+
+    private static final long NOW_MICROS = 10_000_000;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = PostgresTestDatabase.container();
+
+    private JdbcTemplate jdbcTemplate;
+
+    private RateLimitBucketRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DriverManagerDataSource dataSource = PostgresTestDatabase.empty(POSTGRES);
+        PostgresTestDatabase.migrate(dataSource, null);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository =
+                new RateLimitBucketRepository(
+                        jdbcTemplate,
+                        new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+    }
+
+    @Test
+    void lease_createsTheBucketFullAndTakesTheTokens() {
+        RateLimitBucket.Lease lease = repository.lease("sendgrid:account", NOW_MICROS, 1, 5, 0, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, lease.take(NOW_MICROS, 1));
+        }
+        assertTrue(lease.isUsedUp());
+        assertEquals(2, tokens("sendgrid:account"), 1e-9);
+    }
+
+    @Test
+    void lease_refillsTheBucketAndTakesTheTokensWithinTheMaximumWait() {
+        repository.lease("twilio:+15550001", NOW_MICROS, 1, 2, 0, 2);
+
+        // one token refilled and a second one within the maximum wait
+        RateLimitBucket.Lease lease =
+                repository.lease("twilio:+15550001", NOW_MICROS + 1_000_000, 1, 2, 1_000_000, 5);
+
+        assertEquals(0, lease.take(NOW_MICROS + 1_000_000, 1));
+        assertEquals(1_000_000, lease.take(NOW_MICROS + 1_000_000, 1));
+        assertTrue(lease.isUsedUp());
+        assertEquals(-1, tokens("twilio:+15550001"), 1e-9);
+        assertEquals(
+                NOW_MICROS + 1_000_000,
+                jdbcTemplate.queryForObject(
+                        "SELECT refreshed_micros FROM rate_limit_bucket WHERE bucket_key = ?",
+                        Long.class,
+                        "twilio:+15550001"));
+    }
+
+    @Test
+    void lease_takesNothingWhenTheFirstTokenWouldWaitTooLong() {
+        repository.lease("twilio:+15550001", NOW_MICROS, 1, 1, 0, 1);
+
+        RateLimitBucket.Lease lease =
+                repository.lease("twilio:+15550001", NOW_MICROS, 1, 1, 999_999, 1);
+
+        assertTrue(lease.isEmpty());
+        assertEquals(0, tokens("twilio:+15550001"), 1e-9);
+    }
+
+    @Test
+    void lease_sharesTheBudgetBetweenConcurrentReplicas() throws Exception {
+        ExecutorService replicas = Executors.newFixedThreadPool(8);
+        List<Future<RateLimitBucket.Lease>> leases = new ArrayList<>();
+        try {
+            for (int i = 0; i < 40; i++) {
+                leases.add(
+                        replicas.submit(
+                                () ->
+                                        repository.lease(
+                                                "sendgrid:account", NOW_MICROS, 1, 100, 0, 3)));
+            }
+            int taken = 0;
+            for (Future<RateLimitBucket.Lease> lease : leases) {
+                RateLimitBucket.Lease leased = lease.get(30, TimeUnit.SECONDS);
+                while (leased.take(NOW_MICROS, 1) >= 0) {
+                    taken++;
+                }
+            }
+
+            assertEquals(100, taken);
+            assertEquals(0, tokens("sendgrid:account"), 1e-9);
+        } finally {
+            replicas.shutdownNow();
+        }
+    }
+
+    private double tokens(String key) {
+        return jdbcTemplate.queryForObject(
+                "SELECT tokens FROM rate_limit_bucket WHERE bucket_key = ?", Double.class, key);
+    }
+}
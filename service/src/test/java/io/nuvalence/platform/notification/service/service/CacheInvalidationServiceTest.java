@@ -0,0 +1,117 @@
+package io.nuvalence.platform.notification.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.spring.pubsub.PubSubAdmin;
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
+import com.google.pubsub.v1.Subscription;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationServiceTest {
+
+    @Mock private PubSubTemplate pubSubTemplate;
+    @Mock private PubSubAdmin pubSubAdmin;
+    @Mock private BasicAcknowledgeablePubsubMessage acknowledgeableMessage;
+
+    private final List<String> invalidatedKeys = new ArrayList<>();
+
+    @Test
+    void invalidate_localOnly() {
+        CacheInvalidationService service = createService(false);
+
+        service.invalidate("templates", "key");
+
+        assertEquals(List.of("key"), invalidatedKeys);
+        verify(pubSubTemplate, never()).publish(anyString(), anyString(), anyMap());
+    }
+
+    @Test
+    void invalidate_broadcast() {
+        CacheInvalidationService service = createService(true);
+        when(pubSubTemplate.publish(anyString(), anyString(), anyMap()))
+                .thenReturn(CompletableFuture.completedFuture("id"));
+
+        service.invalidate("templates", "key");
+
+        ArgumentCaptor<Map<String, String>> headers = ArgumentCaptor.forClass(Map.class);
+        verify(pubSubTemplate).publish(eq("topic"), eq("key"), headers.capture());
+        assertEquals("templates", headers.getValue().get(CacheInvalidationService.CACHE_ATTRIBUTE));
+        assertEquals(List.of("key"), invalidatedKeys);
+    }
+
+    @Test
+    void invalidate_deferredUntilCommit() {
+        CacheInvalidationService service = createService(false);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.invalidate("templates", "key");
+            assertTrue(invalidatedKeys.isEmpty());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of("key"), invalidatedKeys);
+    }
+
+    @Test
+    void handleMessage_fromOtherReplica() {
+        CacheInvalidationService service = createService(true);
+        when(acknowledgeableMessage.getPubsubMessage())
+                .thenReturn(
+                        PubsubMessage.newBuilder()
+                                .setData(ByteString.copyFromUtf8("key"))
+                                .putAttributes(
+                                        CacheInvalidationService.CACHE_ATTRIBUTE, "templates")
+                                .putAttributes(CacheInvalidationService.ORIGIN_ATTRIBUTE, "other")
+                                .build());
+
+        service.handleMessage(acknowledgeableMessage);
+
+        assertEquals(List.of("key"), invalidatedKeys);
+        verify(acknowledgeableMessage).ack();
+    }
+
+    @Test
+    void subscribe_createsReplicaSubscription() {
+        CacheInvalidationService service = createService(true);
+
+        service.subscribe();
+
+        verify(pubSubAdmin).createSubscription(any(Subscription.Builder.class));
+        verify(pubSubTemplate).subscribe(anyString(), any());
+    }
+
+    private CacheInvalidationService createService(boolean broadcastEnabled) {
+        CacheInvalidationService service =
+                new CacheInvalidationService(
+                        pubSubTemplate, pubSubAdmin, broadcastEnabled, "topic", false);
+        service.registerListener("templates", invalidatedKeys::add);
+        return service;
+    }
+}
@@ -0,0 +1,36 @@
+package io.nuvalence.platform.notification.service.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CampaignFanOutTest {
+
+    @Mock private CampaignService campaignService;
+
+    @Test
+    void fanOut_stopsWhenRateLimitIsReached() {
+        Mockito.when(campaignService.processNextChunk()).thenReturn(2);
+        CampaignFanOut fanOut = new CampaignFanOut(campaignService, 2, 3);
+
+        fanOut.fanOut();
+        Mockito.verify(campaignService, Mockito.times(2)).processNextChunk();
+
+        // the last chunk overdrew the budget, nothing is left until it is refilled
+        fanOut.fanOut();
+        Mockito.verify(campaignService, Mockito.times(2)).processNextChunk();
+    }
+
+    @Test
+    void fanOut_stopsWhenNothingIsLeft() {
+        Mockito.when(campaignService.processNextChunk()).thenReturn(2, 0);
+        CampaignFanOut fanOut = new CampaignFanOut(campaignService, 2, 1000);
+
+        fanOut.fanOut();
+
+        Mockito.verify(campaignService, Mockito.times(2)).processNextChunk();
+    }
+}
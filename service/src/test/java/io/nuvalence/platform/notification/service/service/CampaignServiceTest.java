@@ -0,0 +1,235 @@
+package io.nuvalence.platform.notification.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+
+import io.nuvalence.platform.notification.service.domain.Campaign;
+import io.nuvalence.platform.notification.service.domain.Message;
+import io.nuvalence.platform.notification.service.domain.MessageTemplate;
+import io.nuvalence.platform.notification.service.exception.BadDataException;
+import io.nuvalence.platform.notification.service.repository.CampaignRepository;
+import io.nuvalence.platform.notification.service.service.usermanagementapi.UserManagementClientService;
+import io.nuvalence.platform.notification.usermanagent.client.ApiException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@SpringBootTest(properties = "campaigns.fan-out.chunk-size=2")
+@ActiveProfiles("test")
+class CampaignServiceTest {
+
+    @Autowired private CampaignService service;
+    @Autowired private CampaignRepository campaignRepository;
+    @MockBean private TemplateService templateService;
+    @MockBean private MessageService messageService;
+    @MockBean private UserManagementClientService userManagementClientService;
+
+    private final List<Message> queuedMessages = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        campaignRepository.deleteAll();
+        Mockito.when(templateService.getTemplate(anyString()))
+                .thenReturn(Optional.of(new MessageTemplate()));
+        Mockito.when(messageService.saveAll(anyList()))
+                .thenAnswer(
+                        invocation -> {
+                            List<Message> messages = invocation.getArgument(0);
+                            queuedMessages.addAll(messages);
+                            return messages.stream()
+                                    .map(message -> new MessageService.SaveResult(message, null))
+                                    .collect(Collectors.toList());
+                        });
+    }
+
+    @Test
+    void processNextChunk_fansOutUserIdsInChunks() {
+        List<String> userIds =
+                Stream.generate(() -> UUID.randomUUID().toString())
+                        .limit(5)
+                        .collect(Collectors.toList());
+        Campaign campaign =
+                service.create(
+                        Campaign.builder()
+                                .messageTemplateKey("key")
+                                .parameters(Map.of("name", "value"))
+                                .userIds(userIds)
+                                .build());
+
+        assertEquals(2, service.processNextChunk());
+        assertEquals(2, service.processNextChunk());
+        assertEquals(1, service.processNextChunk());
+        assertEquals(0, service.processNextChunk());
+
+        assertEquals(
+                userIds,
+                queuedMessages.stream().map(Message::getUserId).collect(Collectors.toList()));
+        assertEquals(Map.of("name", "value"), queuedMessages.get(0).getParameters());
+        Campaign completed = service.findBy(campaign.getId()).orElseThrow();
+        assertEquals(CampaignService.COMPLETED_STATUS, completed.getStatus());
+        assertEquals(5, completed.getTotalCount());
+        assertEquals(5, completed.getProcessedCount());
+        assertEquals(5, completed.getQueuedCount());
+        assertNotNull(completed.getCompletedTimestamp());
+    }
+
+    @Test
+    void processNextChunk_fansOutQueryPages() throws ApiException {
+        Map<String, String> query = Map.of("name", "Jane");
+        List<UUID> firstPage = List.of(UUID.randomUUID(), UUID.randomUUID());
+        Mockito.when(userManagementClientService.findUserIds(query, 0, 2)).thenReturn(firstPage);
+        Mockito.when(userManagementClientService.findUserIds(query, 1, 2))
+                .thenThrow(new ApiException(503, "unavailable"))
+                .thenReturn(List.of());
+        Campaign campaign =
+                service.create(
+                        Campaign.builder()
+                                .messageTemplateKey("key")
+                                .parameters(Map.of())
+                                .audienceQuery(query)
+                                .build());
+        assertNull(campaign.getTotalCount());
+
+        assertEquals(2, service.processNextChunk());
+        assertEquals(0, service.processNextChunk());
+        assertEquals("unavailable", service.findBy(campaign.getId()).orElseThrow().getLastError());
+        assertEquals(0, service.processNextChunk());
+
+        Campaign completed = service.findBy(campaign.getId()).orElseThrow();
+        assertEquals(CampaignService.COMPLETED_STATUS, completed.getStatus());
+        assertEquals(2, completed.getTotalCount());
+        assertEquals(2, completed.getQueuedCount());
+    }
+
+    @Test
+    void processNextChunk_readsTheAudienceOutsideTransactions() throws ApiException {
+        Map<String, String> query = Map.of("name", "Jane");
+        AtomicBoolean inTransaction = new AtomicBoolean(true);
+        Mockito.when(userManagementClientService.findUserIds(query, 0, 2))
+                .thenAnswer(
+                        invocation -> {
+                            inTransaction.set(
+                                    TransactionSynchronizationManager.isActualTransactionActive());
+                            return List.of(UUID.randomUUID());
+                        });
+        service.create(
+                Campaign.builder()
+                        .messageTemplateKey("key")
+                        .parameters(Map.of())
+                        .audienceQuery(query)
+                        .build());
+
+        assertEquals(1, service.processNextChunk());
+        assertFalse(inTransaction.get());
+    }
+
+    @Test
+    void processNextChunk_discardsTheChunkOfACampaignPausedWhileReadingIt() throws ApiException {
+        Map<String, String> query = Map.of("name", "Jane");
+        AtomicReference<UUID> campaignId = new AtomicReference<>();
+        Mockito.when(userManagementClientService.findUserIds(query, 0, 2))
+                .thenAnswer(
+                        invocation -> {
+                            service.pause(campaignId.get());
+                            return List.of(UUID.randomUUID(), UUID.randomUUID());
+                        });
+        campaignId.set(
+                service.create(
+                                Campaign.builder()
+                                        .messageTemplateKey("key")
+                                        .parameters(Map.of())
+                                        .audienceQuery(query)
+                                        .build())
+                        .getId());
+
+        assertEquals(0, service.processNextChunk());
+
+        Campaign paused = service.findBy(campaignId.get()).orElseThrow();
+        assertEquals(CampaignService.PAUSED_STATUS, paused.getStatus());
+        assertEquals(0, paused.getNextPosition());
+        assertTrue(queuedMessages.isEmpty());
+    }
+
+    @Test
+    void pause_stopsFanOutUntilResumed() {
+        Campaign campaign =
+                service.create(
+                        Campaign.builder()
+                                .messageTemplateKey("key")
+                                .parameters(Map.of())
+                                .userIds(List.of("user-1", "user-2", "user-3"))
+                                .build());
+        assertEquals(2, service.processNextChunk());
+
+        service.pause(campaign.getId());
+        assertEquals(0, service.processNextChunk());
+        assertThrows(BadDataException.class, () -> service.pause(campaign.getId()));
+
+        service.resume(campaign.getId());
+        assertEquals(1, service.processNextChunk());
+        assertEquals(3, queuedMessages.size());
+    }
+
+    @Test
+    void processNextChunk_failsCampaignWhenEveryMessageIsRejected() {
+        Mockito.when(messageService.saveAll(anyList()))
+                .thenAnswer(
+                        invocation ->
+                                invocation.<List<Message>>getArgument(0).stream()
+                                        .map(
+                                                message ->
+                                                        new MessageService.SaveResult(
+                                                                null,
+                                                                "Parameter not found in template"))
+                                        .collect(Collectors.toList()));
+        Campaign campaign =
+                service.create(
+                        Campaign.builder()
+                                .messageTemplateKey("key")
+                                .parameters(Map.of())
+                                .userIds(List.of("user-1", "user-2", "user-3"))
+                                .build());
+
+        assertEquals(2, service.processNextChunk());
+        assertEquals(0, service.processNextChunk());
+
+        Campaign failed = service.findBy(campaign.getId()).orElseThrow();
+        assertEquals(CampaignService.FAILED_STATUS, failed.getStatus());
+        assertEquals(2, failed.getRejectedCount());
+        assertEquals("Parameter not found in template", failed.getLastError());
+    }
+
+    @Test
+    void create_requiresExactlyOneAudience() {
+        Campaign campaign =
+                Campaign.builder()
+                        .messageTemplateKey("key")
+                        .parameters(Map.of())
+                        .userIds(List.of("user-1"))
+                        .audienceQuery(Map.of("name", "Jane"))
+                        .build();
+
+        assertThrows(BadDataException.class, () -> service.create(campaign));
+    }
+}
@@ -0,0 +1,93 @@
+package io.nuvalence.platform.notification.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.jknack.handlebars.Template;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuvalence.platform.notification.service.exception.TemplateCompilationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+class CompiledTemplateCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CompiledTemplateCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CompiledTemplateCache(10, Duration.ofMinutes(5), meterRegistry);
+    }
+
+    @Test
+    void getCompiledTemplate_reusesCompiledTemplate() {
+        Template first = cache.getCompiledTemplate("Hello {{name}}");
+        Template second = cache.getCompiledTemplate("Hello {{name}}");
+
+        assertSame(first, second);
+        assertEquals(1, cache.size());
+        assertEquals(
+                1.0,
+                meterRegistry
+                        .get("cache.gets")
+                        .tag("cache", CompiledTemplateCache.CACHE_NAME)
+                        .tag("result", "hit")
+                        .functionCounter()
+                        .count());
+        assertEquals(
+                1.0,
+                meterRegistry
+                        .get("cache.gets")
+                        .tag("cache", CompiledTemplateCache.CACHE_NAME)
+                        .tag("result", "miss")
+                        .functionCounter()
+                        .count());
+    }
+
+    @Test
+    void evict_dropsCompiledTemplate() {
+        Template first = cache.getCompiledTemplate("Hello {{name}}");
+        cache.getCompiledTemplate("Bye {{name}}");
+
+        cache.evict(List.of("Hello {{name}}"));
+
+        assertEquals(1, cache.size());
+        assertNotSame(first, cache.getCompiledTemplate("Hello {{name}}"));
+    }
+
+    @Test
+    void evictAll_dropsEveryCompiledTemplate() {
+        cache.getCompiledTemplate("Hello {{name}}");
+        cache.getCompiledTemplate("Bye {{name}}");
+
+        cache.evictAll();
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void getCompiledTemplate_invalidTemplate() {
+        assertThrows(
+                TemplateCompilationException.class,
+                () -> cache.getCompiledTemplate("Hello {{name"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void replaceParameterInTemplate_usesCache() {
+        String result =
+                MessageBuilderUtils.replaceParameterInTemplate(
+                        "Hello {{name}}", Map.of("name", "Jane"), cache);
+
+        assertEquals("Hello Jane", result);
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,214 @@
+package io.nuvalence.platform.notification.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuvalence.platform.notification.service.exception.DependencyUnavailableException;
+import io.nuvalence.platform.notification.service.exception.UnprocessableNotificationException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+class DependencyGuardTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private int calls;
+
+    @Test
+    void call_refusesCallsOnceTheFailureRateIsReached() throws IOException {
+        DependencyGuard guard = guard(Duration.ofMinutes(1), 10, Duration.ZERO);
+
+        succeed(guard);
+        succeed(guard);
+        fail(guard);
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+        fail(guard);
+
+        assertEquals(DependencyGuard.State.OPEN, guard.getState());
+        assertThrows(DependencyUnavailableException.class, () -> succeed(guard));
+        assertEquals(4, calls);
+        assertEquals(
+                2,
+                meterRegistry
+                        .get(DependencyGuard.STATE_METRIC)
+                        .tag("dependency", "sendgrid")
+                        .gauge()
+                        .value());
+        assertEquals(
+                1,
+                meterRegistry
+                        .get(DependencyGuard.CALLS_METRIC)
+                        .tag("outcome", "rejected")
+                        .counter()
+                        .count());
+    }
+
+    @Test
+    void call_doesNotCountRejectionsOfASingleMessage() {
+        DependencyGuard guard = guard(Duration.ofMinutes(1), 10, Duration.ZERO);
+
+        for (int i = 0; i < 8; i++) {
+            assertThrows(
+                    UnprocessableNotificationException.class,
+                    () ->
+                            guard.call(
+                                    () -> {
+                                        throw new UnprocessableNotificationException("Bad request");
+                                    }));
+        }
+
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void call_closesAfterSuccessfulTrialCalls() throws Exception {
+        DependencyGuard guard = guard(Duration.ofMillis(50), 10, Duration.ZERO);
+        List<DependencyGuard.State> states = new ArrayList<>();
+        guard.addStateListener(changed -> states.add(changed.getState()));
+        openBreaker(guard);
+        assertThrows(DependencyUnavailableException.class, () -> succeed(guard));
+
+        Thread.sleep(100);
+        assertTrue(guard.isCallPermitted());
+        succeed(guard);
+        succeed(guard);
+
+        assertEquals(
+                List.of(
+                        DependencyGuard.State.OPEN,
+                        DependencyGuard.State.HALF_OPEN,
+                        DependencyGuard.State.CLOSED),
+                states);
+    }
+
+    @Test
+    void call_reopensOnAFailedTrialCall() throws Exception {
+        DependencyGuard guard = guard(Duration.ofMillis(50), 10, Duration.ZERO);
+        openBreaker(guard);
+
+        Thread.sleep(100);
+        fail(guard);
+
+        assertEquals(DependencyGuard.State.OPEN, guard.getState());
+        assertThrows(DependencyUnavailableException.class, () -> succeed(guard));
+    }
+
+    @Test
+    void call_countsSlowCallsAsFailures() throws Exception {
+        DependencyGuard guard =
+                guard(Duration.ofMinutes(1), Duration.ofMillis(20), 10, Duration.ZERO);
+
+        for (int i = 0; i < 4; i++) {
+            guard.call(
+                    () -> {
+                        Thread.sleep(30);
+                        return null;
+                    });
+        }
+
+        assertEquals(DependencyGuard.State.OPEN, guard.getState());
+        assertEquals(
+                4,
+                meterRegistry
+                        .get(DependencyGuard.CALLS_METRIC)
+                        .tag("outcome", "slow")
+                        .counter()
+                        .count());
+    }
+
+    @Test
+    void callAsync_ignoresOutcomesOfCallsLetThroughBeforeTheBreakerClosed() throws Exception {
+        DependencyGuard guard = guard(Duration.ofMillis(50), 10, Duration.ZERO);
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            CompletableFuture<Void> call = new CompletableFuture<>();
+            guard.callAsync(() -> call);
+            pending.add(call);
+        }
+        openBreaker(guard);
+        Thread.sleep(100);
+        succeed(guard);
+        succeed(guard);
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+
+        pending.forEach(call -> call.completeExceptionally(new IOException("Late failure")));
+
+        assertEquals(DependencyGuard.State.CLOSED, guard.getState());
+        assertEquals(0, guard.getInFlight());
+    }
+
+    @Test
+    void callAsync_holdsABulkheadPlaceUntilTheCallCompletes() throws Exception {
+        DependencyGuard guard = guard(Duration.ofMinutes(1), 1, Duration.ZERO);
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+
+        CompletableFuture<Void> first = guard.callAsync(() -> pending);
+        ExecutionException refused =
+                assertThrows(
+                        ExecutionException.class,
+                        () -> guard.callAsync(() -> CompletableFuture.completedFuture(null)).get());
+
+        assertInstanceOf(DependencyUnavailableException.class, refused.getCause());
+        assertEquals(1, guard.getInFlight());
+        pending.complete(null);
+        first.get();
+        guard.callAsync(() -> CompletableFuture.completedFuture(null)).get();
+        assertEquals(0, guard.getInFlight());
+    }
+
+    private DependencyGuard guard(Duration openDuration, int maxConcurrentCalls, Duration maxWait) {
+        return guard(openDuration, Duration.ZERO, maxConcurrentCalls, maxWait);
+    }
+
+    private DependencyGuard guard(
+            Duration openDuration,
+            Duration slowCallDuration,
+            int maxConcurrentCalls,
+            Duration maxWait) {
+        return new DependencyGuard(
+                "sendgrid",
+                50,
+                4,
+                openDuration,
+                slowCallDuration,
+                2,
+                maxConcurrentCalls,
+                maxWait,
+                meterRegistry);
+    }
+
+    private void openBreaker(DependencyGuard guard) {
+        for (int i = 0; i < 4; i++) {
+            fail(guard);
+        }
+        assertEquals(DependencyGuard.State.OPEN, guard.getState());
+    }
+
+    private void succeed(DependencyGuard guard) throws IOException {
+        guard.call(
+                () -> {
+                    calls++;
+                    return null;
+                });
+    }
+
+    private void fail(DependencyGuard guard) {
+        assertThrows(
+                IOException.class,
+                () ->
+                        guard.call(
+                                () -> {
+                                    calls++;
+                                    throw new IOException("connection reset");
+                                }));
+    }
+}
@@ -0,0 +1,158 @@
+package io.nuvalence.platform.notification.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuvalence.platform.notification.service.exception.UnprocessableNotificationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class EmailBatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final List<List<String>> requests = Collections.synchronizedList(new ArrayList<>());
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void send_coalescesEmailsWithTheSameSubjectAndBody() throws Exception {
+        EmailBatcher batcher =
+                new EmailBatcher(this::record, Duration.ofMillis(200), 1000, meterRegistry);
+
+        List<CompletableFuture<Throwable>> sends =
+                IntStream.range(0, 10)
+                        .mapToObj(i -> sendAsync(batcher, "user" + i + "@example.com", "body"))
+                        .collect(Collectors.toList());
+
+        for (CompletableFuture<Throwable> send : sends) {
+            assertNull(send.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, requests.size());
+        assertEquals(10, requests.get(0).size());
+        assertEquals(9, meterRegistry.counter(EmailBatcher.SAVED_REQUESTS_METRIC).count(), 0.0);
+    }
+
+    @Test
+    void send_keepsDifferentBodiesApart() throws Exception {
+        EmailBatcher batcher =
+                new EmailBatcher(this::record, Duration.ofMillis(100), 1000, meterRegistry);
+
+        CompletableFuture<Throwable> first = sendAsync(batcher, "a@example.com", "body a");
+        CompletableFuture<Throwable> second = sendAsync(batcher, "b@example.com", "body b");
+
+        assertNull(first.get(5, TimeUnit.SECONDS));
+        assertNull(second.get(5, TimeUnit.SECONDS));
+        Set<List<String>> sent = new HashSet<>(requests);
+        assertEquals(Set.of(List.of("a@example.com"), List.of("b@example.com")), sent);
+    }
+
+    @Test
+    void send_sendsAFullBatchWithoutWaitingForTheWindow() throws Exception {
+        EmailBatcher batcher =
+                new EmailBatcher(this::record, Duration.ofHours(1), 2, meterRegistry);
+
+        CompletableFuture<Throwable> first = sendAsync(batcher, "a@example.com", "body");
+        CompletableFuture<Throwable> second = sendAsync(batcher, "b@example.com", "body");
+
+        assertNull(first.get(5, TimeUnit.SECONDS));
+        assertNull(second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    void send_rejectsOnlyTheEmailsAtFaultWhenABatchIsRejected() throws Exception {
+        EmailBatcher batcher =
+                new EmailBatcher(
+                        (recipients, subject, body) -> {
+                            record(recipients, subject, body);
+                            if (recipients.contains("bad")) {
+                                throw new UnprocessableNotificationException("Bad request");
+                            }
+                        },
+                        Duration.ofHours(1),
+                        2,
+                        meterRegistry);
+
+        CompletableFuture<Throwable> good = sendAsync(batcher, "good@example.com", "body");
+        CompletableFuture<Throwable> bad = sendAsync(batcher, "bad", "body");
+
+        assertNull(good.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(UnprocessableNotificationException.class, bad.get(5, TimeUnit.SECONDS));
+        // the batch, then each email on its own
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    void send_failsEveryEmailOfABatchOnANetworkError() {
+        EmailBatcher batcher =
+                new EmailBatcher(
+                        (recipients, subject, body) -> {
+                            throw new IOException("connection reset");
+                        },
+                        Duration.ZERO,
+                        1000,
+                        meterRegistry);
+
+        assertThrows(IOException.class, () -> batcher.send("a@example.com", "subject", "body"));
+    }
+
+    @Test
+    void send_doesNotSplitABatchThatIsThrottled() throws Exception {
+        EmailBatcher batcher =
+                new EmailBatcher(
+                        (recipients, subject, body) -> {
+                            record(recipients, subject, body);
+                            throw new IOException("Request returned status Code 429Body: {}");
+                        },
+                        Duration.ofHours(1),
+                        2,
+                        meterRegistry);
+
+        CompletableFuture<Throwable> first = sendAsync(batcher, "a@example.com", "body");
+        CompletableFuture<Throwable> second = sendAsync(batcher, "b@example.com", "body");
+
+        assertInstanceOf(IOException.class, first.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, requests.size());
+    }
+
+    private CompletableFuture<Throwable> sendAsync(EmailBatcher batcher, String to, String body) {
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    try {
+                        batcher.send(to, "subject", body);
+                        return null;
+                    } catch (IOException | RuntimeException e) {
+                        return e;
+                    }
+                },
+                callers);
+    }
+
+    private void record(List<String> recipients, String subject, String body) {
+        requests.add(List.copyOf(recipients));
+    }
+}
@@ -18,6 +18,7 @@ import org.springframework.test.context.ActiveProfiles;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @SpringBootTest
@@ -169,6 +170,39 @@ class EmailLayoutServiceTest {
         assertEquals(createdEmailLayout.getId(), emailLayout.get().getId());
     }
 
+    @Test
+    void testGetCompiledEmailLayout() {
+        final String key = "compiledKey";
+        EmailLayout newEmailLayout = new EmailLayout();
+        newEmailLayout.setName("name");
+        newEmailLayout.setDescription("description");
+        newEmailLayout.setContent("<div>{{input1}}</div>");
+        newEmailLayout.setInputs(List.of("input1"));
+        service.createEmailLayout(key, newEmailLayout);
+
+        Optional<CompiledEmailLayout> compiledEmailLayout = service.getCompiledEmailLayout(key);
+
+        assertThat(compiledEmailLayout).isNotEmpty();
+        assertEquals(List.of("input1"), compiledEmailLayout.get().getInputs());
+        assertEquals("<div>body</div>", compiledEmailLayout.get().render(Map.of("input1", "body")));
+
+        EmailLayout updatedEmailLayout = new EmailLayout();
+        updatedEmailLayout.setName("name");
+        updatedEmailLayout.setDescription("description");
+        updatedEmailLayout.setContent("<p>{{input1}}</p>");
+        updatedEmailLayout.setInputs(List.of("input1"));
+        service.createEmailLayout(key, updatedEmailLayout);
+
+        assertEquals(
+                "<p>body</p>",
+                service.getCompiledEmailLayout(key).orElseThrow().render(Map.of("input1", "body")));
+    }
+
+    @Test
+    void testGetCompiledEmailLayout_not_found() {
+        assertThat(service.getCompiledEmailLayout("unknownKey")).isEmpty();
+    }
+
     @Test
     void testGetEmailLayouts() {
         final String key1 = "key";
@@ -0,0 +1,140 @@
+package io.nuvalence.platform.notification.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+
+import io.nuvalence.platform.notification.service.domain.Message;
+import io.nuvalence.platform.notification.service.domain.MessageOutboxEntry;
+import io.nuvalence.platform.notification.service.repository.MessageOutboxRepository;
+import io.nuvalence.platform.notification.service.repository.MessageRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MessageOutboxRelayTest {
+
+    @Autowired private MessageOutboxRelay relay;
+    @Autowired private MessageOutboxService outboxService;
+    @Autowired private MessageOutboxRepository outboxRepository;
+    @Autowired private MessageRepository messageRepository;
+    @MockBean private PubSubService pubSubService;
+
+    @Test
+    void relay_publishesAndMarksEntries() {
+        Message message = enqueueMessage();
+        List<String> payloads = new ArrayList<>();
+        Mockito.when(pubSubService.publishAll(anyList()))
+                .thenAnswer(
+                        invocation -> {
+                            List<String> batch = invocation.getArgument(0);
+                            payloads.addAll(batch);
+                            return batch.stream()
+                                    .map(payload -> CompletableFuture.completedFuture("id"))
+                                    .collect(Collectors.toList());
+                        });
+
+        relay.relay();
+
+        assertEquals(1, countPayloadsOf(message, payloads));
+        MessageOutboxEntry entry = findEntry(message);
+        assertNotNull(entry.getPublishedTimestamp());
+        assertEquals(0, entry.getAttempts());
+
+        relay.relay();
+        assertEquals(1, countPayloadsOf(message, payloads));
+    }
+
+    @Test
+    void relay_schedulesRetryOnFailure() {
+        Message message = enqueueMessage();
+        Mockito.when(pubSubService.publishAll(anyList()))
+                .thenAnswer(
+                        invocation ->
+                                invocation.<List<String>>getArgument(0).stream()
+                                        .map(
+                                                payload ->
+                                                        CompletableFuture.<String>failedFuture(
+                                                                new MessageDeliveryException(
+                                                                        "PubSub unavailable")))
+                                        .collect(Collectors.toList()));
+
+        relay.relay();
+
+        MessageOutboxEntry entry = findEntry(message);
+        assertNull(entry.getPublishedTimestamp());
+        assertEquals(1, entry.getAttempts());
+        assertEquals("PubSub unavailable", entry.getLastError());
+        assertTrue(entry.getNextAttemptTimestamp().isAfter(OffsetDateTime.now()));
+        assertFalse(
+                outboxService.claim(Integer.MAX_VALUE).stream()
+                        .anyMatch(claimed -> claimed.getId().equals(entry.getId())));
+    }
+
+    @Test
+    void purgePublished_deletesOldEntries() {
+        Message message = enqueueMessage();
+        MessageOutboxEntry entry = findEntry(message);
+        entry.setPublishedTimestamp(OffsetDateTime.now().minusDays(30));
+        outboxRepository.save(entry);
+
+        relay.purgePublished();
+
+        assertFalse(outboxRepository.existsById(entry.getId()));
+    }
+
+    @Test
+    void backoff_growsExponentiallyUpToMaximum() {
+        assertEquals(Duration.ofSeconds(1), relay.backoff(0));
+        assertEquals(Duration.ofSeconds(4), relay.backoff(2));
+        assertEquals(Duration.ofMinutes(5), relay.backoff(100));
+    }
+
+    private Message enqueueMessage() {
+        Message message =
+                messageRepository.save(
+                        Message.builder()
+                                .userId(UUID.randomUUID().toString())
+                                .messageTemplateKey("key")
+                                .status("QUEUED")
+                                .parameters(Map.of())
+                                .requestedTimestamp(
+                                        OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS))
+                                .build());
+        outboxService.enqueue(message);
+        return message;
+    }
+
+    private long countPayloadsOf(Message message, List<String> payloads) {
+        return payloads.stream()
+                .filter(payload -> payload.contains(message.getId().toString()))
+                .count();
+    }
+
+    private MessageOutboxEntry findEntry(Message message) {
+        return StreamSupport.stream(outboxRepository.findAll().spliterator(), false)
+                .filter(entry -> message.getId().equals(entry.getMessageId()))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,48 @@
+package io.nuvalence.platform.notification.service.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class MessageParametersBackfillTest {
+
+    @Mock private MessageService messageService;
+
+    @Test
+    void backfill_runsBatchesUntilOneIsNotFull() {
+        Mockito.when(messageService.backfillParameters(2)).thenReturn(2, 2, 1);
+        MessageParametersBackfill backfill = new MessageParametersBackfill(messageService, 2, 5);
+
+        backfill.backfill();
+
+        Mockito.verify(messageService, Mockito.times(3)).backfillParameters(2);
+    }
+
+    @Test
+    void backfill_runsAtMostTheMaximumNumberOfBatchesPerRun() {
+        Mockito.when(messageService.backfillParameters(2)).thenReturn(2);
+        MessageParametersBackfill backfill = new MessageParametersBackfill(messageService, 2, 5);
+
+        backfill.backfill();
+        Mockito.verify(messageService, Mockito.times(5)).backfillParameters(2);
+
+        // the next run carries on where this one stopped
+        backfill.backfill();
+        Mockito.verify(messageService, Mockito.times(10)).backfillParameters(2);
+    }
+
+    @Test
+    void backfill_stopsAfterARunFindingNothing() {
+        Mockito.when(messageService.backfillParameters(2)).thenReturn(1, 0);
+        MessageParametersBackfill backfill = new MessageParametersBackfill(messageService, 2, 5);
+
+        backfill.backfill();
+        backfill.backfill();
+        backfill.backfill();
+
+        Mockito.verify(messageService, Mockito.times(2)).backfillParameters(2);
+    }
+}
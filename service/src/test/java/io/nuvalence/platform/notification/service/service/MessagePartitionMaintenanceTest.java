@@ -0,0 +1,220 @@
+package io.nuvalence.platform.notification.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+import io.nuvalence.platform.notification.service.service.MessagePartitionMaintenance.Partition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import javax.sql.DataSource;
+
+@ExtendWith(MockitoExtension.class)
+class MessagePartitionMaintenanceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 5, 17);
+
+    @Mock private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void maintain_createsTheMissingUpcomingPartitions() {
+        MessagePartitionMaintenance maintenance = createMaintenance("drop");
+        givenPartitions(
+                Partition.parse(
+                        "message_legacy", "FOR VALUES FROM (MINVALUE) TO ('2024-06-01 00:00:00')"),
+                Partition.parse(
+                        "message_p202406",
+                        "FOR VALUES FROM ('2024-06-01 00:00:00') TO ('2024-07-01 00:00:00')"));
+
+        maintenance.maintainPartitions(jdbcTemplate, TODAY);
+
+        Mockito.verify(jdbcTemplate)
+                .execute(
+                        "CREATE TABLE IF NOT EXISTS message_p202407 PARTITION OF message FOR VALUES"
+                                + " FROM ('2024-07-01 00:00:00') TO ('2024-08-01 00:00:00')");
+        Mockito.verify(jdbcTemplate)
+                .execute(
+                        "CREATE TABLE IF NOT EXISTS message_p202408 PARTITION OF message FOR VALUES"
+                                + " FROM ('2024-08-01 00:00:00') TO ('2024-09-01 00:00:00')");
+        Mockito.verify(jdbcTemplate, Mockito.times(2)).execute(anyString());
+        Mockito.verify(jdbcTemplate, Mockito.never()).update(anyString());
+    }
+
+    @Test
+    void maintain_dropsExpiredPartitions() {
+        MessagePartitionMaintenance maintenance = createMaintenance("drop");
+        givenPartitions(
+                Partition.parse(
+                        "message_legacy", "FOR VALUES FROM (MINVALUE) TO ('2023-03-01 00:00:00')"),
+                Partition.parse(
+                        "message_p202303",
+                        "FOR VALUES FROM ('2023-03-01 00:00:00') TO ('2023-04-01 00:00:00')"),
+                Partition.parse(
+                        "message_p202304",
+                        "FOR VALUES FROM ('2023-04-01 00:00:00') TO ('2023-05-01 00:00:00')"));
+
+        maintenance.maintainPartitions(jdbcTemplate, TODAY);
+
+        // 13 months before May 2024 is April 2023, which is kept
+        InOrder inOrder = Mockito.inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("SET lock_timeout = '5000ms'");
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE message DETACH PARTITION message_legacy");
+        inOrder.verify(jdbcTemplate).execute("RESET lock_timeout");
+        inOrder.verify(jdbcTemplate).execute("DROP TABLE message_legacy");
+        Mockito.verify(jdbcTemplate).execute("DROP TABLE message_p202303");
+        Mockito.verify(jdbcTemplate, Mockito.never()).execute("DROP TABLE message_p202304");
+        Mockito.verify(jdbcTemplate, Mockito.never())
+                .execute("ALTER TABLE message DETACH PARTITION message_p202304");
+        Mockito.verify(jdbcTemplate)
+                .update(
+                        "DELETE FROM message_parameter WHERE message_id IN (SELECT id FROM"
+                                + " message_p202303)");
+        Mockito.verify(jdbcTemplate)
+                .update(
+                        "DELETE FROM message_outbox WHERE message_id IN (SELECT id FROM"
+                                + " message_p202303)");
+    }
+
+    @Test
+    void maintain_detachesExpiredPartitionsForArchiving() {
+        MessagePartitionMaintenance maintenance = createMaintenance("detach");
+        givenPartitions(
+                Partition.parse(
+                        "message_p202301",
+                        "FOR VALUES FROM ('2023-01-01 00:00:00') TO ('2023-02-01 00:00:00')"));
+
+        maintenance.maintainPartitions(jdbcTemplate, TODAY);
+
+        Mockito.verify(jdbcTemplate)
+                .execute("ALTER TABLE message DETACH PARTITION message_p202301");
+        Mockito.verify(jdbcTemplate, Mockito.never()).execute("DROP TABLE message_p202301");
+    }
+
+    @Test
+    void maintain_keepsAPartitionThatCouldNotBeDetached() {
+        MessagePartitionMaintenance maintenance = createMaintenance("drop");
+        givenPartitions(
+                Partition.parse(
+                        "message_p202301",
+                        "FOR VALUES FROM ('2023-01-01 00:00:00') TO ('2023-02-01 00:00:00')"),
+                Partition.parse(
+                        "message_p202302",
+                        "FOR VALUES FROM ('2023-02-01 00:00:00') TO ('2023-03-01 00:00:00')"));
+        Mockito.lenient()
+                .doThrow(new CannotAcquireLockException("lock timeout"))
+                .when(jdbcTemplate)
+                .execute("ALTER TABLE message DETACH PARTITION message_p202301");
+
+        maintenance.maintainPartitions(jdbcTemplate, TODAY);
+
+        Mockito.verify(jdbcTemplate, Mockito.times(2)).execute("RESET lock_timeout");
+        Mockito.verify(jdbcTemplate, Mockito.never()).execute("DROP TABLE message_p202301");
+        Mockito.verify(jdbcTemplate, Mockito.never())
+                .update(
+                        "DELETE FROM message_parameter WHERE message_id IN (SELECT id FROM"
+                                + " message_p202301)");
+        Mockito.verify(jdbcTemplate).execute("DROP TABLE message_p202302");
+    }
+
+    @Test
+    void maintain_movesMessagesOutOfTheDefaultPartition() throws SQLException {
+        MessagePartitionMaintenance maintenance = createMaintenance("drop");
+        givenPartitions(
+                Partition.parse("message_default", "DEFAULT"),
+                Partition.parse(
+                        "message_legacy", "FOR VALUES FROM (MINVALUE) TO ('2024-08-01 00:00:00')"));
+        Mockito.when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), any(), any()))
+                .thenReturn(true);
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        Mockito.when(dataSource.getConnection()).thenReturn(Mockito.mock(Connection.class));
+        Mockito.when(jdbcTemplate.getDataSource()).thenReturn(dataSource);
+
+        maintenance.maintainPartitions(jdbcTemplate, TODAY);
+
+        Mockito.verify(jdbcTemplate)
+                .execute("CREATE TABLE message_p202408 (LIKE message INCLUDING DEFAULTS)");
+        Mockito.verify(jdbcTemplate)
+                .update(
+                        "WITH moved AS (DELETE FROM message_default WHERE requested_timestamp >= ?"
+                                + " AND requested_timestamp < ? RETURNING *) INSERT INTO"
+                                + " message_p202408 SELECT * FROM moved",
+                        LocalDateTime.of(2024, 8, 1, 0, 0),
+                        LocalDateTime.of(2024, 9, 1, 0, 0));
+        Mockito.verify(jdbcTemplate)
+                .execute(
+                        "ALTER TABLE message ATTACH PARTITION message_p202408 FOR VALUES FROM"
+                                + " ('2024-08-01 00:00:00') TO ('2024-09-01 00:00:00')");
+        Mockito.verify(jdbcTemplate, Mockito.never()).execute("DROP TABLE message_default");
+    }
+
+    @Test
+    void maintain_doesNothingWhenTheTableIsNotPartitioned() {
+        MessagePartitionMaintenance maintenance = createMaintenance("drop");
+        Mockito.when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class))).thenReturn(0);
+
+        maintenance.maintainPartitions(jdbcTemplate, TODAY);
+
+        Mockito.verify(jdbcTemplate, Mockito.never()).execute(anyString());
+    }
+
+    @Test
+    void constructor_rejectsAnUnknownRetentionMode() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () ->
+                        new MessagePartitionMaintenance(
+                                jdbcTemplate, 3, 13, "archive", Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void parse_readsPostgresBounds() {
+        Partition partition =
+                Partition.parse(
+                        "message_legacy",
+                        "FOR VALUES FROM (MINVALUE) TO ('2024-06-01 00:00:00.123')");
+
+        assertNull(partition.getFrom());
+        assertEquals(LocalDateTime.of(2024, 6, 1, 0, 0), partition.getTo());
+    }
+
+    @Test
+    void parse_readsTheDefaultPartition() {
+        Partition partition = Partition.parse("message_default", "DEFAULT");
+
+        assertTrue(partition.isDefaultPartition());
+        assertFalse(
+                partition.overlaps(
+                        LocalDateTime.of(2024, 6, 1, 0, 0), LocalDateTime.of(2024, 7, 1, 0, 0)));
+    }
+
+    private MessagePartitionMaintenance createMaintenance(String retentionMode) {
+        return new MessagePartitionMaintenance(
+                jdbcTemplate, 3, 13, retentionMode, Duration.ofSeconds(5));
+    }
+
+    private void givenPartitions(Partition... partitions) {
+        Mockito.when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class))).thenReturn(1);
+        Mockito.doReturn(List.of(partitions))
+                .when(jdbcTemplate)
+                .query(anyString(), any(RowMapper.class));
+    }
+}
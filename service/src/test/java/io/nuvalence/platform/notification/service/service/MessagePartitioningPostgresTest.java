@@ -0,0 +1,174 @@
+package io.nuvalence.platform.notification.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.nuvalence.platform.notification.service.utils.PostgresTestDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+/**
+ * Runs the partitioning changesets and the partition maintenance against PostgreSQL, which the
+ * H2 test database cannot stand in for. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class MessagePartitioningPostgresTest {
+
+    // changesets applied on PostgreSQL before message-partitioning-prepare
+    private static final int CHANGESETS_BEFORE_PARTITIONING = 12;
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = PostgresTestDatabase.container();
+
+    private DriverManagerDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = PostgresTestDatabase.empty(POSTGRES);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // the legacy bound is computed from the database clock
+        today = jdbcTemplate.queryForObject("SELECT CAST(localtimestamp AS date)", LocalDate.class);
+    }
+
+    @Test
+    void migration_keepsExistingMessagesAndPartitionsNewOnes() throws Exception {
+        migrate(CHANGESETS_BEFORE_PARTITIONING);
+        UUID existing = insertMessage(today.minusMonths(1));
+        jdbcTemplate.update(
+                "INSERT INTO message_parameter (message_id, parameter_name, parameter_value)"
+                        + " VALUES (?, 'name', 'value')",
+                existing);
+
+        migrate(null);
+
+        assertEquals(
+                1,
+                jdbcTemplate.queryForObject(
+                        "SELECT count(*) FROM pg_partitioned_table"
+                                + " WHERE partrelid = 'message'::regclass",
+                        Integer.class));
+        assertEquals("message_legacy", partitionOf(existing));
+        LocalDate upcoming = today.plusMonths(3);
+        UUID created = insertMessage(upcoming);
+        assertEquals(partitionName(upcoming), partitionOf(created));
+        assertEquals("message_default", partitionOf(insertMessage(today.plusMonths(12))));
+        jdbcTemplate.update(
+                "INSERT INTO message_outbox (id, message_id, payload) VALUES (?, ?, '{}')",
+                UUID.randomUUID(),
+                created);
+    }
+
+    @Test
+    void maintain_movesMessagesOutOfTheDefaultPartition() throws Exception {
+        migrate(null);
+        LocalDate month = today.plusMonths(6);
+        UUID stored = insertMessage(month);
+        assertEquals("message_default", partitionOf(stored));
+
+        maintenance().maintain(today.plusMonths(4));
+
+        assertEquals(partitionName(month), partitionOf(stored));
+        assertEquals(
+                0,
+                jdbcTemplate.queryForObject("SELECT count(*) FROM message_default", Integer.class));
+    }
+
+    @Test
+    void maintain_dropsExpiredPartitions() throws Exception {
+        migrate(null);
+
+        maintenance().maintain(today.plusMonths(20));
+
+        assertFalse(exists("message_legacy"));
+        assertTrue(exists(partitionName(today.plusMonths(20))));
+        assertTrue(exists("message_default"));
+    }
+
+    @Test
+    void maintain_keepsExpiredPartitionsWhileTheMessageTableIsInUse() throws Exception {
+        migrate(null);
+        try (Connection reader = dataSource.getConnection()) {
+            reader.setAutoCommit(false);
+            reader.createStatement().execute("SELECT count(*) FROM message");
+
+            new MessagePartitionMaintenance(jdbcTemplate, 3, 13, "drop", Duration.ofMillis(100))
+                    .maintain(today.plusMonths(20));
+
+            assertTrue(exists("message_legacy"));
+            reader.rollback();
+        }
+
+        maintenance().maintain(today.plusMonths(20));
+
+        assertFalse(exists("message_legacy"));
+    }
+
+    @Test
+    void maintain_skipsWhileAnotherReplicaHoldsTheLock() throws Exception {
+        migrate(null);
+        try (Connection otherReplica = dataSource.getConnection()) {
+            otherReplica
+                    .createStatement()
+                    .execute("SELECT pg_advisory_lock(hashtext('message_partition_maintenance'))");
+
+            maintenance().maintain(today.plusMonths(6));
+
+            assertFalse(exists(partitionName(today.plusMonths(9))));
+        }
+
+        maintenance().maintain(today.plusMonths(6));
+
+        assertTrue(exists(partitionName(today.plusMonths(9))));
+    }
+
+    private MessagePartitionMaintenance maintenance() {
+        return new MessagePartitionMaintenance(jdbcTemplate, 3, 13, "drop", Duration.ofSeconds(5));
+    }
+
+    private void migrate(Integer changesets) throws Exception {
+        PostgresTestDatabase.migrate(dataSource, changesets);
+    }
+
+    private UUID insertMessage(LocalDate requested) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update(
+                "INSERT INTO message (id, status, requested_timestamp) VALUES (?, 'QUEUED', ?)",
+                id,
+                LocalDateTime.of(requested, LocalDateTime.MIN.toLocalTime()).plusHours(12));
+        return id;
+    }
+
+    private String partitionOf(UUID id) {
+        return jdbcTemplate.queryForObject(
+                "SELECT tableoid::regclass::text FROM message WHERE id = ?", String.class, id);
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(
+                jdbcTemplate.queryForObject(
+                        "SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    private static String partitionName(LocalDate month) {
+        return "message_p" + PARTITION_SUFFIX.format(month);
+    }
+}
@@ -1,7 +1,9 @@
 package io.nuvalence.platform.notification.service.service;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.mockito.ArgumentMatchers.any;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.nuvalence.platform.notification.service.domain.EmailFormat;
 import io.nuvalence.platform.notification.service.domain.EmailFormatContent;
@@ -9,8 +11,10 @@ import io.nuvalence.platform.notification.service.domain.EmailLayout;
 import io.nuvalence.platform.notification.service.domain.LocalizedStringTemplate;
 import io.nuvalence.platform.notification.service.domain.LocalizedStringTemplateLanguage;
 import io.nuvalence.platform.notification.service.domain.Message;
+import io.nuvalence.platform.notification.service.domain.MessageOutboxEntry;
 import io.nuvalence.platform.notification.service.domain.MessageTemplate;
 import io.nuvalence.platform.notification.service.domain.SmsFormat;
+import io.nuvalence.platform.notification.service.repository.MessageOutboxRepository;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
@@ -18,6 +22,7 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.ArrayList;
@@ -25,6 +30,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.stream.StreamSupport;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -34,6 +40,8 @@ class MessageServiceTest {
     @Autowired private EmailLayoutService emailLayoutService;
     @Autowired private TemplateService templateService;
     @Autowired private MessageService service;
+    @Autowired private MessageOutboxRepository messageOutboxRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
     @MockBean private PubSubService mockPubSubService;
 
     private MessageTemplate createdTemplate;
@@ -182,6 +190,88 @@ class MessageServiceTest {
         assertNotNull(savedMessage.getId());
         assertNotNull(savedMessage.getRequestedTimestamp());
 
-        Mockito.verify(mockPubSubService).publish(any());
+        MessageOutboxEntry outboxEntry =
+                StreamSupport.stream(messageOutboxRepository.findAll().spliterator(), false)
+                        .filter(entry -> savedMessage.getId().equals(entry.getMessageId()))
+                        .findFirst()
+                        .orElseThrow();
+        assertTrue(outboxEntry.getPayload().contains(savedMessage.getId().toString()));
+        assertNull(outboxEntry.getPublishedTimestamp());
+        Mockito.verifyNoInteractions(mockPubSubService);
+    }
+
+    @Test
+    void testUpdateMessageStatus_recordsSentTimestamp() {
+        Message message = new Message();
+        message.setUserId(UUID.randomUUID().toString());
+        message.setMessageTemplateKey(createdTemplate.getKey());
+        message.setParameters(
+                Map.of(
+                        "parameter-key-1",
+                        "parameter-value-1",
+                        "parameter-key-2",
+                        "parameter-value-2"));
+        Message savedMessage = service.save(message);
+
+        service.updateMessageStatus(savedMessage, "SENT");
+        Message sentMessage = service.findBy(savedMessage.getId()).orElseThrow();
+        assertEquals("SENT", sentMessage.getStatus());
+        assertNotNull(sentMessage.getSentTimestamp());
+
+        // the first outcome of a message is kept
+        service.updateMessageStatus(savedMessage, "UNPROCESSABLE");
+        Message unchangedMessage = service.findBy(savedMessage.getId()).orElseThrow();
+        assertEquals("SENT", unchangedMessage.getStatus());
+        assertEquals(sentMessage.getSentTimestamp(), unchangedMessage.getSentTimestamp());
+    }
+
+    @Test
+    void testFindBy_readsParametersNotBackfilledYet() {
+        UUID messageId = insertMessageWithLegacyParameters();
+
+        Message message = service.findBy(messageId).orElseThrow();
+
+        assertEquals(Map.of("parameter-key-1", "parameter-value-1"), message.getParameters());
+    }
+
+    @Test
+    void testBackfillParameters() {
+        UUID messageId = insertMessageWithLegacyParameters();
+
+        while (service.backfillParameters(10) > 0) {
+            // backfill every message left by other tests too
+        }
+
+        assertEquals(
+                "{\"parameter-key-1\":\"parameter-value-1\"}",
+                jdbcTemplate.queryForObject(
+                        "SELECT CAST(parameters AS VARCHAR) FROM message WHERE id = ?",
+                        String.class,
+                        messageId));
+        assertEquals(
+                0,
+                jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM message_parameter WHERE message_id = ?",
+                        Integer.class,
+                        messageId));
+        assertEquals(
+                Map.of("parameter-key-1", "parameter-value-1"),
+                service.findBy(messageId).orElseThrow().getParameters());
+    }
+
+    // a message saved before parameters moved to the message row
+    private UUID insertMessageWithLegacyParameters() {
+        UUID messageId = UUID.randomUUID();
+        jdbcTemplate.update(
+                "INSERT INTO message (id, user_id, message_template_key, status)"
+                        + " VALUES (?, ?, ?, 'SENT')",
+                messageId,
+                UUID.randomUUID().toString(),
+                createdTemplate.getKey());
+        jdbcTemplate.update(
+                "INSERT INTO message_parameter (message_id, parameter_name, parameter_value)"
+                        + " VALUES (?, 'parameter-key-1', 'parameter-value-1')",
+                messageId);
+        return messageId;
     }
 }
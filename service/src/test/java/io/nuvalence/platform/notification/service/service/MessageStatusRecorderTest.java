@@ -0,0 +1,144 @@
+package io.nuvalence.platform.notification.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuvalence.platform.notification.service.domain.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+class MessageStatusRecorderTest {
+
+    @Mock private MessageService messageService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private MessageStatusRecorder recorder;
+
+    @AfterEach
+    void shutdown() {
+        recorder.shutdown();
+    }
+
+    @Test
+    void record_coalescesAFullBatchIntoOneUpdatePerStatus() throws Exception {
+        recorder =
+                new MessageStatusRecorder(
+                        messageService, true, 3, Duration.ofHours(1), meterRegistry);
+        Message first = createMessage();
+        Message second = createMessage();
+        Message third = createMessage();
+
+        CompletableFuture<Void> firstRecorded = recorder.record(first, "SENT");
+        CompletableFuture<Void> secondRecorded = recorder.record(second, "UNPROCESSABLE");
+        assertFalse(firstRecorded.isDone());
+        CompletableFuture<Void> thirdRecorded = recorder.record(third, "SENT");
+
+        CompletableFuture.allOf(firstRecorded, secondRecorded, thirdRecorded)
+                .get(5, TimeUnit.SECONDS);
+        Mockito.verify(messageService).updateMessageStatuses(List.of(first, second, third));
+        Mockito.verify(messageService, Mockito.never())
+                .updateMessageStatus(Mockito.any(), Mockito.any());
+        assertEquals("UNPROCESSABLE", second.getStatus());
+        assertEquals(
+                3, meterRegistry.summary(MessageStatusRecorder.FLUSH_SIZE_METRIC).totalAmount());
+    }
+
+    @Test
+    void record_flushesWhenTheIntervalElapses() throws Exception {
+        recorder =
+                new MessageStatusRecorder(
+                        messageService, true, 500, Duration.ofMillis(50), meterRegistry);
+        Message message = createMessage();
+
+        recorder.record(message, "SENT").get(5, TimeUnit.SECONDS);
+
+        Mockito.verify(messageService).updateMessageStatuses(List.of(message));
+    }
+
+    @Test
+    void record_failsWhenTheFlushFails() {
+        recorder =
+                new MessageStatusRecorder(
+                        messageService, true, 1, Duration.ofHours(1), meterRegistry);
+        Mockito.doThrow(new IllegalStateException("database unavailable"))
+                .when(messageService)
+                .updateMessageStatuses(anyList());
+
+        CompletableFuture<Void> recorded = recorder.record(createMessage(), "SENT");
+
+        ExecutionException e =
+                assertThrows(ExecutionException.class, () -> recorded.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertTrue(meterRegistry.find(MessageStatusRecorder.LATENCY_METRIC).timers().isEmpty());
+    }
+
+    @Test
+    void record_writesStraightAwayWhenBufferingIsDisabled() {
+        recorder =
+                new MessageStatusRecorder(
+                        messageService, false, 500, Duration.ofHours(1), meterRegistry);
+        Message message = createMessage();
+
+        CompletableFuture<Void> recorded = recorder.record(message, "SENT");
+
+        assertTrue(recorded.isDone());
+        Mockito.verify(messageService).updateMessageStatuses(List.of(message));
+    }
+
+    @Test
+    void record_publishesStageLatencies() throws Exception {
+        recorder =
+                new MessageStatusRecorder(
+                        messageService, true, 1, Duration.ofHours(1), meterRegistry);
+
+        recorder.record(createMessage(), "SENT").get(5, TimeUnit.SECONDS);
+
+        assertEquals(
+                1000,
+                meterRegistry
+                        .get(MessageStatusRecorder.LATENCY_METRIC)
+                        .tag("stage", "end_to_end")
+                        .timer()
+                        .totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(
+                200,
+                meterRegistry
+                        .get(MessageStatusRecorder.LATENCY_METRIC)
+                        .tag("stage", "provider")
+                        .timer()
+                        .totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(5, meterRegistry.get(MessageStatusRecorder.LATENCY_METRIC).timers().size());
+    }
+
+    private Message createMessage() {
+        OffsetDateTime requested = OffsetDateTime.now();
+        return Message.builder()
+                .id(UUID.randomUUID())
+                .requestedTimestamp(requested)
+                .sentTimestamp(requested.plusSeconds(1))
+                .queueWaitMillis(500L)
+                .userLookupMillis(100L)
+                .renderMillis(50L)
+                .providerMillis(200L)
+                .build();
+    }
+}
@@ -1,7 +1,10 @@
 package io.nuvalence.platform.notification.service.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
@@ -19,6 +22,8 @@ import com.sendgrid.Response;
 import com.sendgrid.SendGrid;
 import com.twilio.rest.api.v2010.account.MessageCreator;
 import com.twilio.type.PhoneNumber;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.nuvalence.platform.notification.service.domain.EmailFormat;
 import io.nuvalence.platform.notification.service.domain.EmailFormatContent;
 import io.nuvalence.platform.notification.service.domain.EmailLayout;
@@ -26,12 +31,14 @@ import io.nuvalence.platform.notification.service.domain.LocalizedStringTemplate
 import io.nuvalence.platform.notification.service.domain.LocalizedStringTemplateLanguage;
 import io.nuvalence.platform.notification.service.domain.MessageTemplate;
 import io.nuvalence.platform.notification.service.domain.SmsFormat;
+import io.nuvalence.platform.notification.service.repository.MessageRepository;
 import io.nuvalence.platform.notification.service.service.usermanagementapi.UserManagementClientService;
 import io.nuvalence.platform.notification.usermanagent.client.ApiException;
 import io.nuvalence.platform.notification.usermanagent.client.generated.models.UserDTO;
 import io.nuvalence.platform.notification.usermanagent.client.generated.models.UserPreferenceDTO;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -46,15 +53,23 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 
 @SpringBootTest
@@ -62,6 +77,8 @@ import java.util.stream.Stream;
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 class NotificationProcessingSubscriberTest {
 
+    private static final long ACK_TIMEOUT_MILLIS = 5_000;
+
     @Autowired private ObjectMapper objectMapper;
 
     @Autowired private EmailLayoutService emailLayoutService;
@@ -70,8 +87,13 @@ class NotificationProcessingSubscriberTest {
 
     @Autowired private MessageService messageService;
 
+    @Autowired private MessageRepository messageRepository;
+
+    @Autowired private MeterRegistry meterRegistry;
+
     @Autowired
-    @Qualifier("notificationProcessingSubscriber") private NotificationProcessingSubscriber service;
+    @Qualifier("notificationProcessingSubscriber")
+    private NotificationProcessingSubscriber service;
 
     @MockBean private UserManagementClientService userManagementClientService;
 
@@ -366,7 +388,7 @@ class NotificationProcessingSubscriberTest {
             service.handleMessage(message);
         }
 
-        Mockito.verify(ack).ack();
+        Mockito.verify(ack, Mockito.timeout(ACK_TIMEOUT_MILLIS)).ack();
     }
 
     @Test
@@ -390,7 +412,157 @@ class NotificationProcessingSubscriberTest {
         ILoggingEvent logEvent = sendGridLogWatcher.list.get(0);
         assertEquals("Email sent to {} with status code {}", logEvent.getMessage());
 
-        Mockito.verify(ack).ack();
+        Mockito.verify(ack, Mockito.timeout(ACK_TIMEOUT_MILLIS)).ack();
+    }
+
+    @Test
+    void testHandleMessage_providerCalledOutsideTransaction() throws IOException, ApiException {
+        UUID userId = UUID.randomUUID();
+        BasicAcknowledgeablePubsubMessage ack =
+                Mockito.mock(BasicAcknowledgeablePubsubMessage.class);
+        byte[] payload = generateJsonMessage(userId);
+        Message<?> message =
+                MessageBuilder.withPayload(payload)
+                        .setHeader(GcpPubSubHeaders.ORIGINAL_MESSAGE, ack)
+                        .build();
+        Mockito.when(userManagementClientService.getUser(any()))
+                .thenReturn(createUser(userId, "en", "email", false));
+
+        AtomicBoolean transactionActive = new AtomicBoolean(true);
+        Mockito.when(sendGrid.api(any()))
+                .thenAnswer(
+                        invocation -> {
+                            transactionActive.set(
+                                    TransactionSynchronizationManager.isActualTransactionActive());
+                            return new Response();
+                        });
+
+        service.handleMessage(message);
+
+        assertFalse(transactionActive.get());
+        UUID messageId =
+                objectMapper
+                        .readValue(
+                                payload,
+                                io.nuvalence.platform.notification.service.domain.Message.class)
+                        .getId();
+        // acknowledged once the status is committed
+        Mockito.verify(ack, Mockito.timeout(ACK_TIMEOUT_MILLIS)).ack();
+        io.nuvalence.platform.notification.service.domain.Message sent =
+                messageService.findBy(messageId).orElseThrow();
+        assertEquals("SENT", sent.getStatus());
+        assertNotNull(sent.getSentTimestamp());
+        assertNotNull(sent.getQueueWaitMillis());
+        assertNotNull(sent.getUserLookupMillis());
+        assertNotNull(sent.getRenderMillis());
+        assertNotNull(sent.getProviderMillis());
+    }
+
+    @Test
+    void handleMessage_keepsTheFirstOutcomeOfAMessage() throws IOException, ApiException {
+        UUID userId = UUID.randomUUID();
+        BasicAcknowledgeablePubsubMessage ack =
+                Mockito.mock(BasicAcknowledgeablePubsubMessage.class);
+        byte[] payload = generateJsonMessage(userId);
+        messageService.updateMessageStatus(
+                objectMapper.readValue(
+                        payload, io.nuvalence.platform.notification.service.domain.Message.class),
+                "SENT");
+        Mockito.when(userManagementClientService.getUser(any()))
+                .thenReturn(createUser(userId, "en", "email", false));
+        Mockito.when(sendGrid.api(any())).thenReturn(new Response());
+
+        service.handleMessage(
+                MessageBuilder.withPayload(payload)
+                        .setHeader(GcpPubSubHeaders.ORIGINAL_MESSAGE, ack)
+                        .build());
+
+        Mockito.verify(ack, Mockito.timeout(ACK_TIMEOUT_MILLIS)).ack();
+        io.nuvalence.platform.notification.service.domain.Message recorded =
+                messageService.findBy(readMessageId(payload)).orElseThrow();
+        assertEquals("SENT", recorded.getStatus());
+        // the duplicate's timings were not written over the first outcome
+        assertNull(recorded.getProviderMillis());
+    }
+
+    @Test
+    void handleMessage_leavesTheMessageQueuedForRedelivery() throws IOException, ApiException {
+        UUID userId = UUID.randomUUID();
+        BasicAcknowledgeablePubsubMessage ack =
+                Mockito.mock(BasicAcknowledgeablePubsubMessage.class);
+        byte[] payload = generateJsonMessage(userId);
+        Mockito.when(userManagementClientService.getUser(any()))
+                .thenReturn(createUser(userId, "en", "email", false));
+        Mockito.when(sendGrid.api(any())).thenThrow(new IOException("connection reset"));
+
+        service.handleMessage(
+                MessageBuilder.withPayload(payload)
+                        .setHeader(GcpPubSubHeaders.ORIGINAL_MESSAGE, ack)
+                        .build());
+
+        Mockito.verify(ack, Mockito.timeout(ACK_TIMEOUT_MILLIS)).nack();
+        assertEquals(
+                "QUEUED", messageService.findBy(readMessageId(payload)).orElseThrow().getStatus());
+    }
+
+    /**
+     * Sends 200 emails concurrently with a slow provider. If a connection were held during the
+     * provider call, the pool would serialize the sends and the run could not finish before
+     * sends * latency / pool size.
+     */
+    @Test
+    @Tag("benchmark")
+    void loadTest_concurrentSendsDoNotWaitForConnections() throws Exception {
+        final int sends = 200;
+        final long providerLatencyMillis = 250;
+        Mockito.when(userManagementClientService.getUser(any()))
+                .thenAnswer(
+                        invocation -> createUser(invocation.getArgument(0), "en", "email", false));
+        Mockito.when(sendGrid.api(any()))
+                .thenAnswer(
+                        invocation -> {
+                            Thread.sleep(providerLatencyMillis);
+                            return new Response();
+                        });
+        List<Message<?>> messages = new ArrayList<>();
+        for (int i = 0; i < sends; i++) {
+            messages.add(
+                    MessageBuilder.withPayload(generateJsonMessage(UUID.randomUUID())).build());
+        }
+        Timer acquire = meterRegistry.get("hikaricp.connections.acquire").timer();
+        double acquireMillisBefore = acquire.totalTime(TimeUnit.MILLISECONDS);
+        long acquiredBefore = acquire.count();
+
+        ExecutorService senders = Executors.newFixedThreadPool(sends);
+        long start = System.nanoTime();
+        try {
+            CompletableFuture.allOf(
+                            messages.stream()
+                                    .map(
+                                            message ->
+                                                    CompletableFuture.runAsync(
+                                                            () -> service.handleMessage(message),
+                                                            senders))
+                                    .toArray(CompletableFuture[]::new))
+                    .get(5, TimeUnit.MINUTES);
+        } finally {
+            senders.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long acquired = acquire.count() - acquiredBefore;
+        double acquireMillis = acquire.totalTime(TimeUnit.MILLISECONDS) - acquireMillisBefore;
+        LoggerFactory.getLogger(getClass())
+                .info(
+                        "{} sends in {} s, {} connection acquisitions, {} ms mean wait, {} ms max"
+                                + " wait",
+                        sends,
+                        String.format("%.2f", seconds),
+                        acquired,
+                        String.format("%.2f", acquireMillis / acquired),
+                        String.format("%.2f", acquire.max(TimeUnit.MILLISECONDS)));
+        double poolSize = meterRegistry.get("hikaricp.connections.max").gauge().value();
+        assertTrue(seconds < sends * providerLatencyMillis / poolSize / 1000 / 2);
     }
 
     @Test
@@ -412,7 +584,7 @@ class NotificationProcessingSubscriberTest {
                 String.format("Message could not be sent. User not found %s", userId),
                 logEvent.getMessage());
 
-        Mockito.verify(ack).ack();
+        Mockito.verify(ack, Mockito.timeout(ACK_TIMEOUT_MILLIS)).ack();
     }
 
     private static Stream<Object[]> testData() {
@@ -457,7 +629,7 @@ class NotificationProcessingSubscriberTest {
         assertEquals(
                 String.format("Message could not be sent. %s for user %s", testName, userId),
                 logEvent.getMessage());
-        Mockito.verify(ack).ack();
+        Mockito.verify(ack, Mockito.timeout(ACK_TIMEOUT_MILLIS)).ack();
     }
 
     @Test
@@ -481,7 +653,7 @@ class NotificationProcessingSubscriberTest {
                         "Message could not be sent. Template not found for template key invalid"),
                 logEvent.getMessage());
 
-        Mockito.verify(ack).ack();
+        Mockito.verify(ack, Mockito.timeout(ACK_TIMEOUT_MILLIS)).ack();
     }
 
     @Test
@@ -505,7 +677,7 @@ class NotificationProcessingSubscriberTest {
                         "Message could not be sent. Template not found for template key invalid"),
                 logEvent.getMessage());
 
-        Mockito.verify(ack).ack();
+        Mockito.verify(ack, Mockito.timeout(ACK_TIMEOUT_MILLIS)).ack();
     }
 
     @Test
@@ -530,7 +702,7 @@ class NotificationProcessingSubscriberTest {
                         createdTemplate.getKey(), userId),
                 logEvent.getMessage());
 
-        Mockito.verify(ack).ack();
+        Mockito.verify(ack, Mockito.timeout(ACK_TIMEOUT_MILLIS)).ack();
     }
 
     @Test
@@ -555,7 +727,7 @@ class NotificationProcessingSubscriberTest {
                         createdTemplate.getKey(), userId),
                 logEvent.getMessage());
 
-        Mockito.verify(ack).ack();
+        Mockito.verify(ack, Mockito.timeout(ACK_TIMEOUT_MILLIS)).ack();
     }
 
     private byte[] generateJsonMessage(UUID userId) throws JsonProcessingException {
@@ -584,12 +756,21 @@ class NotificationProcessingSubscriberTest {
                 io.nuvalence.platform.notification.service.domain.Message.builder()
                         .messageTemplateKey("invalid")
                         .userId(userId.toString())
-                        .status("DRAFT")
+                        .status("QUEUED")
                         .parameters(parameters)
+                        .requestedTimestamp(OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS))
                         .build();
+        // saved without the template validation of the message service
+        messageRepository.save(message);
         return objectMapper.writeValueAsString(message).getBytes(StandardCharsets.UTF_8);
     }
 
+    private UUID readMessageId(byte[] payload) throws IOException {
+        return objectMapper
+                .readValue(payload, io.nuvalence.platform.notification.service.domain.Message.class)
+                .getId();
+    }
+
     private Optional<UserDTO> createUser(
             UUID id,
             String preferredLanguage,
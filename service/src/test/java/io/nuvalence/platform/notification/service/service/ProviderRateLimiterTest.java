@@ -0,0 +1,232 @@
+package io.nuvalence.platform.notification.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuvalence.platform.notification.service.domain.RateLimitBucket;
+import io.nuvalence.platform.notification.service.exception.RateLimitExceededException;
+import io.nuvalence.platform.notification.service.repository.RateLimitBucketRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProviderRateLimiterTest {
+
+    @Autowired private RateLimitBucketRepository rateLimitBuckets;
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void acquire_waitsForTheTokensOverTheBurst() {
+        ProviderRateLimiter rateLimiter =
+                new ProviderRateLimiter(
+                        "twilio", 20, 2, Duration.ofSeconds(1), null, 1, meterRegistry);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++) {
+            rateLimiter.acquire("+15550001");
+        }
+
+        // the last two calls wait 50 ms each
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+        assertEquals(
+                4,
+                meterRegistry
+                        .get(ProviderRateLimiter.WAIT_METRIC)
+                        .tag("provider", "twilio")
+                        .timer()
+                        .count());
+        assertTrue(
+                meterRegistry
+                                .get(ProviderRateLimiter.WAIT_METRIC)
+                                .timer()
+                                .totalTime(TimeUnit.MILLISECONDS)
+                        >= 90);
+    }
+
+    @Test
+    void acquire_failsWhenTheWaitExceedsTheMaximum() {
+        ProviderRateLimiter rateLimiter =
+                new ProviderRateLimiter("twilio", 1, 1, Duration.ZERO, null, 1, meterRegistry);
+        rateLimiter.acquire("+15550001");
+
+        assertThrows(RateLimitExceededException.class, () -> rateLimiter.acquire("+15550001"));
+        // each sender number has a budget of its own
+        rateLimiter.acquire("+15550002");
+        assertEquals(1, meterRegistry.get(ProviderRateLimiter.REJECTED_METRIC).counter().count());
+    }
+
+    @Test
+    void reserve_returnsTheWaitWithoutSleeping() {
+        ProviderRateLimiter rateLimiter =
+                new ProviderRateLimiter(
+                        "sendgrid", 10, 1, Duration.ofSeconds(1), null, 1, meterRegistry);
+
+        long start = System.nanoTime();
+        assertEquals(0, rateLimiter.reserve("account"));
+        long firstWait = rateLimiter.reserve("account");
+        long secondWait = rateLimiter.reserve("account");
+
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(90));
+        assertTrue(firstWait > 90_000 && firstWait <= 100_000, String.valueOf(firstWait));
+        assertTrue(secondWait > 190_000 && secondWait <= 200_000, String.valueOf(secondWait));
+    }
+
+    @Test
+    void acquire_sharesTheBudgetBetweenReplicas() {
+        String provider = "sendgrid-" + UUID.randomUUID();
+        ProviderRateLimiter replica =
+                new ProviderRateLimiter(
+                        provider, 1, 1, Duration.ZERO, rateLimitBuckets, 10, meterRegistry);
+        ProviderRateLimiter otherReplica =
+                new ProviderRateLimiter(
+                        provider,
+                        1,
+                        1,
+                        Duration.ZERO,
+                        rateLimitBuckets,
+                        10,
+                        new SimpleMeterRegistry());
+
+        replica.acquire("account");
+
+        assertThrows(RateLimitExceededException.class, () -> otherReplica.acquire("account"));
+    }
+
+    @Test
+    void acquire_locksTheSharedBucketOncePerLease() {
+        RateLimitBucketRepository buckets =
+                Mockito.spy(new RateLimitBucketRepository(jdbcTemplate, transactionTemplate));
+        ProviderRateLimiter rateLimiter =
+                new ProviderRateLimiter(
+                        "sendgrid-" + UUID.randomUUID(),
+                        1000,
+                        100,
+                        Duration.ZERO,
+                        buckets,
+                        10,
+                        meterRegistry);
+
+        for (int i = 0; i < 25; i++) {
+            rateLimiter.acquire("account");
+        }
+
+        Mockito.verify(buckets, Mockito.times(3))
+                .lease(any(), anyLong(), anyDouble(), anyDouble(), anyLong(), anyInt());
+    }
+
+    @Test
+    void reserve_fetchesOneSharedLeaseForConcurrentCalls() throws Exception {
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RateLimitBucketRepository buckets =
+                Mockito.spy(new RateLimitBucketRepository(jdbcTemplate, transactionTemplate));
+        Mockito.doAnswer(
+                        invocation -> {
+                            fetching.countDown();
+                            release.await(5, TimeUnit.SECONDS);
+                            return invocation.callRealMethod();
+                        })
+                .when(buckets)
+                .lease(any(), anyLong(), anyDouble(), anyDouble(), anyLong(), anyInt());
+        ProviderRateLimiter rateLimiter =
+                new ProviderRateLimiter(
+                        "sendgrid-" + UUID.randomUUID(),
+                        1000,
+                        100,
+                        Duration.ZERO,
+                        buckets,
+                        10,
+                        meterRegistry);
+        ExecutorService callers = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<Long>> waits = new ArrayList<>();
+            waits.add(callers.submit(() -> rateLimiter.reserve("account")));
+            assertTrue(fetching.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 4; i++) {
+                waits.add(callers.submit(() -> rateLimiter.reserve("account")));
+            }
+            release.countDown();
+
+            for (Future<Long> wait : waits) {
+                assertEquals(0, wait.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        Mockito.verify(buckets, Mockito.times(1))
+                .lease(any(), anyLong(), anyDouble(), anyDouble(), anyLong(), anyInt());
+    }
+
+    @Test
+    void acquire_letsEverythingThroughWhenUnlimited() {
+        ProviderRateLimiter rateLimiter = ProviderRateLimiter.unlimited("sendgrid");
+
+        for (int i = 0; i < 1000; i++) {
+            rateLimiter.acquire("account");
+        }
+    }
+
+    @Test
+    void reserve_refillsUpToTheBurst() {
+        RateLimitBucket bucket = new RateLimitBucket(0, 0);
+
+        assertEquals(0, bucket.reserve(10_000_000, 1, 2, 0));
+        assertEquals(1, bucket.getTokens(), 1e-9);
+        assertEquals(0, bucket.reserve(10_000_000, 1, 2, 0));
+        assertEquals(-1, bucket.reserve(10_000_000, 1, 2, 999_999));
+        assertEquals(1_000_000, bucket.reserve(10_000_000, 1, 2, 1_000_000));
+        assertEquals(-1, bucket.getTokens(), 1e-9);
+    }
+
+    @Test
+    void lease_handsOutTheTokensAtTheRateOfTheBucket() {
+        RateLimitBucket bucket = new RateLimitBucket(0, 0);
+
+        RateLimitBucket.Lease lease = bucket.lease(10_000_000, 1, 2, 1_000_000, 5);
+
+        // two tokens in the bucket and a third one within the maximum wait
+        assertEquals(-1, bucket.getTokens(), 1e-9);
+        assertEquals(0, lease.take(10_000_000, 1));
+        assertEquals(0, lease.take(10_000_000, 1));
+        assertEquals(1_000_000, lease.take(10_000_000, 1));
+        assertTrue(lease.isUsedUp());
+        assertEquals(-1, lease.take(10_000_000, 1));
+    }
+
+    @Test
+    void lease_takesNothingWhenTheFirstTokenWouldWaitTooLong() {
+        RateLimitBucket bucket = new RateLimitBucket(-1, 10_000_000);
+
+        RateLimitBucket.Lease lease = bucket.lease(10_000_000, 1, 2, 1_999_999, 5);
+
+        assertEquals(-1, bucket.getTokens(), 1e-9);
+        assertEquals(-1, lease.take(10_000_000, 1));
+    }
+}
@@ -1,8 +1,12 @@
 package io.nuvalence.platform.notification.service.service;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.nuvalence.platform.notification.service.config.PubSubOutboundConfig;
 import io.nuvalence.platform.notification.service.domain.Message;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,29 +15,34 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.MessageDeliveryException;
 
 import java.io.IOException;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @ExtendWith(MockitoExtension.class)
 @SuppressWarnings("PMD.BeanMembersShouldSerialize")
 class PubSubServiceTest {
 
     @Mock private PubSubOutboundConfig.PubSubOutboundGateway messagingGateway;
+    @Mock private PubSubTemplate pubSubTemplate;
     @Mock private ObjectMapper mockMapper;
 
-    private PubSubService service;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     public void beforeEach() {
-        service = new PubSubService(messagingGateway, mockMapper);
+        meterRegistry = new SimpleMeterRegistry();
     }
 
     @Test
     void testPublish() throws IOException {
+        PubSubService service = createService(false);
         Message message = new Message();
         message.setId(UUID.randomUUID());
         message.setUserId(UUID.randomUUID().toString());
@@ -45,8 +54,66 @@ class PubSubServiceTest {
         Mockito.when(mockMapper.writeValueAsString(any(Message.class)))
                 .thenReturn("serialized-string");
 
-        service.publish(message);
+        assertTrue(service.publish(message).isDone());
 
-        Mockito.verify(messagingGateway).publish(any());
+        Mockito.verify(messagingGateway)
+                .publish(
+                        Mockito.argThat(
+                                msg ->
+                                        "serialized-string".equals(msg.getPayload())
+                                                && !msg.getHeaders().containsKey("my-header")));
+    }
+
+    @Test
+    void testPublishSerialized_gatewayFailure() {
+        PubSubService service = createService(false);
+        Mockito.doThrow(new MessageDeliveryException("PubSub unavailable"))
+                .when(messagingGateway)
+                .publish(any());
+
+        assertTrue(service.publishSerialized("serialized-string").isCompletedExceptionally());
+        assertEquals(
+                1,
+                meterRegistry
+                        .get(PubSubService.PUBLISH_LATENCY_METRIC)
+                        .tag("outcome", "failure")
+                        .timer()
+                        .count());
+    }
+
+    @Test
+    void testPublishAll_async() {
+        PubSubService service = createService(true);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        Mockito.when(pubSubTemplate.publish("topic", "first")).thenReturn(first);
+        Mockito.when(pubSubTemplate.publish("topic", "second"))
+                .thenReturn(CompletableFuture.completedFuture("id-2"));
+
+        List<CompletableFuture<String>> futures = service.publishAll(List.of("first", "second"));
+
+        assertEquals(2, futures.size());
+        assertTrue(!futures.get(0).isDone() && futures.get(1).isDone());
+        first.complete("id-1");
+        assertEquals("id-1", futures.get(0).join());
+        assertEquals(
+                2,
+                meterRegistry
+                        .get(PubSubService.PUBLISH_LATENCY_METRIC)
+                        .tag("outcome", "success")
+                        .timer()
+                        .count());
+        assertEquals(
+                2.0, meterRegistry.get(PubSubService.BATCH_SIZE_METRIC).summary().totalAmount());
+        Mockito.verifyNoInteractions(messagingGateway);
+    }
+
+    private PubSubService createService(boolean asyncPublishing) {
+        return new PubSubService(
+                messagingGateway,
+                pubSubTemplate,
+                mockMapper,
+                "topic",
+                asyncPublishing,
+                meterRegistry);
     }
 }
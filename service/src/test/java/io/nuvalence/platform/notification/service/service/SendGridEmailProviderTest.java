@@ -1,7 +1,10 @@
 package io.nuvalence.platform.notification.service.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -9,14 +12,28 @@ import static org.mockito.Mockito.when;
 import com.sendgrid.Request;
 import com.sendgrid.Response;
 import com.sendgrid.SendGrid;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.nuvalence.platform.notification.service.exception.UnprocessableNotificationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 @ExtendWith(MockitoExtension.class)
 class SendGridEmailProviderTest {
@@ -25,6 +42,20 @@ class SendGridEmailProviderTest {
 
     @Mock private Response response;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final DependencyGuard guard =
+            new DependencyGuard(
+                    "sendgrid",
+                    50,
+                    10,
+                    Duration.ofMinutes(1),
+                    Duration.ZERO,
+                    1,
+                    10,
+                    Duration.ZERO,
+                    meterRegistry);
+
     private SendGridEmailProvider emailProvider;
 
     private String to = "test@example.com";
@@ -35,7 +66,9 @@ class SendGridEmailProviderTest {
 
     @BeforeEach
     void setUp() throws IOException {
-        emailProvider = new SendGridEmailProvider(sendGrid);
+        emailProvider =
+                new SendGridEmailProvider(
+                        sendGrid, ProviderRateLimiter.unlimited("sendgrid"), guard);
     }
 
     @Test
@@ -46,6 +79,23 @@ class SendGridEmailProviderTest {
         verify(sendGrid).api(any(Request.class));
     }
 
+    @Test
+    void testSendEmails_onePersonalizationPerRecipient() throws IOException {
+        when(sendGrid.api(any(Request.class))).thenReturn(response);
+
+        emailProvider.sendEmails(List.of(to, "other@example.com"), subject, body);
+
+        ArgumentCaptor<Request> request = ArgumentCaptor.forClass(Request.class);
+        verify(sendGrid).api(request.capture());
+        assertTrue(
+                request.getValue()
+                        .getBody()
+                        .contains(
+                                "\"personalizations\":[{\"to\":[{\"email\":\"test@example.com\"}]},"
+                                        + "{\"to\":[{\"email\":\"other@example.com\"}]}]"),
+                request.getValue().getBody());
+    }
+
     @Test
     void testSendEmail_BadRequest() throws IOException {
         IOException exception = new IOException("Request returned status Code 401Body: {}");
@@ -64,6 +114,112 @@ class SendGridEmailProviderTest {
                 actualException.getMessage());
     }
 
+    @ParameterizedTest
+    @ValueSource(ints = {400, 403, 404, 413})
+    void testSendEmail_rejectsClientErrors(int statusCode) throws IOException {
+        when(sendGrid.api(any()))
+                .thenThrow(
+                        new IOException("Request returned status Code " + statusCode + "Body: {}"));
+
+        assertThrows(
+                UnprocessableNotificationException.class,
+                () -> emailProvider.sendEmail(to, subject, body));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {429, 500, 503})
+    void testSendEmail_retriesThrottlingAndServerErrors(int statusCode) throws IOException {
+        IOException expectedException =
+                new IOException("Request returned status Code " + statusCode + "Body: {}");
+        when(sendGrid.api(any())).thenThrow(expectedException);
+
+        IOException actualException =
+                assertThrows(IOException.class, () -> emailProvider.sendEmail(to, subject, body));
+        assertEquals(expectedException, actualException);
+    }
+
+    @Test
+    void testSendEmails_rejectsABatchByItsSize() throws IOException {
+        when(sendGrid.api(any()))
+                .thenThrow(new IOException("Request returned status Code 400Body: {}"));
+
+        UnprocessableNotificationException actualException =
+                assertThrows(
+                        UnprocessableNotificationException.class,
+                        () ->
+                                emailProvider.sendEmails(
+                                        List.of(to, "other@example.com"), subject, body));
+
+        assertEquals(
+                "Bad request response obtained from SendGrid with code 400, could not send email"
+                        + " to 2 recipients",
+                actualException.getMessage());
+    }
+
+    @Test
+    void testSendEmail_recordsOneGuardOutcomePerBatch() throws Exception {
+        when(sendGrid.api(any()))
+                .thenThrow(new IOException("Request returned status Code 503Body: {}"));
+        emailProvider =
+                new SendGridEmailProvider(
+                        sendGrid,
+                        ProviderRateLimiter.unlimited("sendgrid"),
+                        guard,
+                        Duration.ofMinutes(1),
+                        2,
+                        meterRegistry);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Void>> sends = new ArrayList<>();
+            for (String recipient : List.of(to, "other@example.com")) {
+                sends.add(
+                        callers.submit(
+                                () -> {
+                                    emailProvider.sendEmail(recipient, subject, body);
+                                    return null;
+                                }));
+            }
+            for (Future<Void> send : sends) {
+                ExecutionException exception =
+                        assertThrows(ExecutionException.class, () -> send.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IOException.class, exception.getCause());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(1, guardCalls("failure"));
+    }
+
+    @Test
+    void testSendEmail_waitsForTheRateLimitOutsideTheBulkhead() throws Exception {
+        when(sendGrid.api(any(Request.class))).thenReturn(response);
+        emailProvider =
+                new SendGridEmailProvider(
+                        sendGrid,
+                        new ProviderRateLimiter(
+                                "sendgrid", 2, 1, Duration.ofSeconds(2), null, 1, meterRegistry),
+                        guard);
+        emailProvider.sendEmail(to, subject, body);
+
+        CompletableFuture<Void> throttled =
+                CompletableFuture.runAsync(
+                        () -> {
+                            try {
+                                emailProvider.sendEmail(to, subject, body);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+
+        Thread.sleep(200);
+        assertFalse(throttled.isDone());
+        assertEquals(0, guard.getInFlight());
+        throttled.get(5, TimeUnit.SECONDS);
+        assertEquals(2, guardCalls("success"));
+    }
+
     @Test
     void testSendEmail_IoExceptionHandling() throws IOException {
         IOException expectedException = new IOException("Expected exception");
@@ -84,4 +240,12 @@ class SendGridEmailProviderTest {
                         RuntimeException.class, () -> emailProvider.sendEmail(to, subject, body));
         assertEquals(expectedException, actualException);
     }
+
+    private double guardCalls(String outcome) {
+        return meterRegistry
+                .get(DependencyGuard.CALLS_METRIC)
+                .tag("outcome", outcome)
+                .counter()
+                .count();
+    }
 }
@@ -0,0 +1,218 @@
+package io.nuvalence.platform.notification.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuvalence.platform.notification.service.exception.DependencyUnavailableException;
+import io.nuvalence.platform.notification.service.exception.UnprocessableNotificationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class SendGridHttpEmailProviderTest {
+
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    private SendGridStubServer server;
+
+    private SendGridHttpEmailProvider emailProvider;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new SendGridStubServer();
+        emailProvider = provider(500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void sendEmail_postsTheMailToSendGrid() throws IOException {
+        emailProvider.sendEmail("test@example.com", "Subject", "Body");
+
+        assertEquals("Bearer apiKey", server.getLastAuthorization());
+        assertTrue(
+                server.getLastBody().contains("\"to\":[{\"email\":\"test@example.com\"}]"),
+                server.getLastBody());
+        assertTrue(server.getLastBody().contains("\"subject\":\"Subject\""), server.getLastBody());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {400, 401, 403, 404})
+    void sendEmail_rejectsTheEmailOnAClientError(int code) {
+        server.setStatusCode(code);
+
+        UnprocessableNotificationException exception =
+                assertThrows(
+                        UnprocessableNotificationException.class,
+                        () -> emailProvider.sendEmail("test@example.com", "Subject", "Body"));
+
+        assertEquals(
+                "Bad request response obtained from SendGrid with code "
+                        + code
+                        + ", could not send email to test@example.com",
+                exception.getMessage());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {429, 500, 503})
+    void sendEmailAsync_failsForRetryOnThrottlingAndServerErrors(int code) {
+        server.setStatusCode(code);
+
+        ExecutionException exception =
+                assertThrows(
+                        ExecutionException.class,
+                        () ->
+                                emailProvider
+                                        .sendEmailAsync("test@example.com", "Subject", "Body")
+                                        .get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(IOException.class, exception.getCause());
+    }
+
+    @Test
+    void sendEmailAsync_keepsManySendsInFlightFromOneThread() throws Exception {
+        server.holdAnswers();
+
+        List<CompletableFuture<Void>> sends = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            sends.add(emailProvider.sendEmailAsync("user" + i + "@example.com", "Subject", "Body"));
+        }
+
+        assertFalse(sends.stream().anyMatch(CompletableFuture::isDone));
+        server.releaseAnswers();
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        assertEquals(50, server.getRequests());
+    }
+
+    @Test
+    void sendEmailAsync_waitsForARequestToCompleteOnceTheLimitIsReached() throws Exception {
+        server.holdAnswers();
+        emailProvider = provider(1);
+        CompletableFuture<Void> first =
+                emailProvider.sendEmailAsync("first@example.com", "Subject", "Body");
+
+        CompletableFuture<CompletableFuture<Void>> second =
+                CompletableFuture.supplyAsync(
+                        () -> emailProvider.sendEmailAsync("second@example.com", "Subject", "Body"),
+                        callers);
+
+        Thread.sleep(200);
+        assertFalse(second.isDone());
+        server.releaseAnswers();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS);
+        assertEquals(2, server.getRequests());
+    }
+
+    @Test
+    void sendEmailAsync_schedulesTheSendsOverTheRateInsteadOfWaiting() throws Exception {
+        // warms the client up, so the timings only measure the rate limit
+        emailProvider.sendEmail("warmup@example.com", "Subject", "Body");
+        emailProvider =
+                provider(
+                        500,
+                        new ProviderRateLimiter(
+                                "sendgrid",
+                                2,
+                                1,
+                                Duration.ofSeconds(2),
+                                null,
+                                1,
+                                new SimpleMeterRegistry()));
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> sends = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            sends.add(emailProvider.sendEmailAsync("user" + i + "@example.com", "Subject", "Body"));
+        }
+
+        // a caller sleeping for the tokens would take a second
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        assertFalse(sends.get(2).isDone());
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        // the last send waited for its token, a second after the first one
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(990));
+        assertEquals(4, server.getRequests());
+    }
+
+    @Test
+    void sendEmailAsync_givesThePlaceInFlightBackWhenTheGuardRefusesTheEmail() throws Exception {
+        DependencyGuard guard =
+                new DependencyGuard(
+                        "sendgrid",
+                        50,
+                        1,
+                        Duration.ofMinutes(1),
+                        Duration.ZERO,
+                        1,
+                        10,
+                        Duration.ZERO,
+                        new SimpleMeterRegistry());
+        emailProvider = provider(1, ProviderRateLimiter.unlimited("sendgrid"), guard);
+        server.setStatusCode(503);
+        CompletableFuture<Void> failed =
+                emailProvider.sendEmailAsync("test@example.com", "Subject", "Body");
+        assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 2; i++) {
+            CompletableFuture<Void> refused =
+                    CompletableFuture.supplyAsync(
+                                    () ->
+                                            emailProvider.sendEmailAsync(
+                                                    "test@example.com", "Subject", "Body"),
+                                    callers)
+                            .thenCompose(send -> send);
+
+            ExecutionException exception =
+                    assertThrows(ExecutionException.class, () -> refused.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(DependencyUnavailableException.class, exception.getCause());
+        }
+        assertEquals(1, server.getRequests());
+    }
+
+    private SendGridHttpEmailProvider provider(int maxInFlight) {
+        return provider(maxInFlight, ProviderRateLimiter.unlimited("sendgrid"));
+    }
+
+    private SendGridHttpEmailProvider provider(int maxInFlight, ProviderRateLimiter rateLimiter) {
+        return provider(maxInFlight, rateLimiter, DependencyGuard.unguarded("sendgrid"));
+    }
+
+    private SendGridHttpEmailProvider provider(
+            int maxInFlight, ProviderRateLimiter rateLimiter, DependencyGuard guard) {
+        SendGridHttpEmailProvider provider =
+                new SendGridHttpEmailProvider(
+                        HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build(),
+                        server.baseUrl(),
+                        "apiKey",
+                        Duration.ofSeconds(10),
+                        maxInFlight,
+                        rateLimiter,
+                        guard);
+        provider.contentType = "text/html";
+        provider.sendEndpoint = "mail/send";
+        provider.from = "send@test.com";
+        return provider;
+    }
+}
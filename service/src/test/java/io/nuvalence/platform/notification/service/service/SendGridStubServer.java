@@ -0,0 +1,97 @@
+package io.nuvalence.platform.notification.service.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Local stand-in for the SendGrid mail send endpoint. Answers can be held back to keep requests
+ * in flight. Point the provider at {@link #baseUrl()} to test the HTTP transport without reaching
+ * SendGrid.
+ */
+class SendGridStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final AtomicInteger statusCode = new AtomicInteger(202);
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final AtomicReference<String> lastAuthorization = new AtomicReference<>();
+
+    private final AtomicReference<String> lastBody = new AtomicReference<>();
+
+    private volatile CountDownLatch answer = new CountDownLatch(0);
+
+    /**
+     * Starts the stub on an ephemeral port.
+     *
+     * @throws IOException if the server cannot be started
+     */
+    SendGridStubServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v3/mail/send", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    void setStatusCode(int statusCode) {
+        this.statusCode.set(statusCode);
+    }
+
+    /** Holds the answers back until {@link #releaseAnswers()}. */
+    void holdAnswers() {
+        answer = new CountDownLatch(1);
+    }
+
+    void releaseAnswers() {
+        answer.countDown();
+    }
+
+    int getRequests() {
+        return requests.get();
+    }
+
+    String getLastAuthorization() {
+        return lastAuthorization.get();
+    }
+
+    String getLastBody() {
+        return lastBody.get();
+    }
+
+    @Override
+    public void close() {
+        releaseAnswers();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        lastAuthorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+        lastBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        try {
+            answer.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exchange.sendResponseHeaders(statusCode.get(), -1);
+        exchange.close();
+    }
+}
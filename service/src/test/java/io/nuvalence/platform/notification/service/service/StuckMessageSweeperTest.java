@@ -0,0 +1,149 @@
+package io.nuvalence.platform.notification.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuvalence.platform.notification.service.domain.Message;
+import io.nuvalence.platform.notification.service.domain.MessageOutboxEntry;
+import io.nuvalence.platform.notification.service.repository.MessageOutboxRepository;
+import io.nuvalence.platform.notification.service.repository.MessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class StuckMessageSweeperTest {
+
+    private static final Duration STUCK_AFTER = Duration.ofMinutes(15);
+
+    private static final int MAX_SWEEPS = 3;
+
+    @Autowired private MessageService messageService;
+    @Autowired private MessageOutboxService outboxService;
+    @Autowired private MessageOutboxRepository outboxRepository;
+    @Autowired private MessageRepository messageRepository;
+
+    @Test
+    void sweep_requeuesStuckMessagesInChunks() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StuckMessageSweeper sweeper =
+                new StuckMessageSweeper(messageService, STUCK_AFTER, MAX_SWEEPS, 2, meterRegistry);
+        List<Message> stuck =
+                IntStream.range(0, 5)
+                        .mapToObj(i -> saveMessage("QUEUED", Duration.ofHours(1)))
+                        .collect(Collectors.toList());
+
+        sweeper.sweep();
+
+        for (Message message : stuck) {
+            assertEquals(1, findEntries(message).size());
+            Message swept = messageRepository.findById(message.getId()).orElseThrow();
+            assertNotNull(swept.getSweptTimestamp());
+            assertEquals(1, swept.getSweepCount());
+        }
+        assertEquals(
+                stuck.size(),
+                meterRegistry.counter(StuckMessageSweeper.REQUEUED_METRIC).count(),
+                0.0);
+
+        // leased until they are stuck for as long again
+        sweeper.sweep();
+        for (Message message : stuck) {
+            assertEquals(1, findEntries(message).size());
+        }
+    }
+
+    @Test
+    void sweep_leavesMessagesThatAreNotStuck() {
+        StuckMessageSweeper sweeper =
+                new StuckMessageSweeper(
+                        messageService, STUCK_AFTER, MAX_SWEEPS, 100, new SimpleMeterRegistry());
+        Message recent = saveMessage("QUEUED", Duration.ofMinutes(1));
+        Message sent = saveMessage("SENT", Duration.ofHours(1));
+        Message waitingInOutbox = saveMessage("QUEUED", Duration.ofHours(1));
+        outboxService.enqueue(waitingInOutbox);
+
+        sweeper.sweep();
+
+        assertEquals(0, findEntries(recent).size());
+        assertEquals(0, findEntries(sent).size());
+        assertEquals(1, findEntries(waitingInOutbox).size());
+        assertNull(messageRepository.findById(recent.getId()).orElseThrow().getSweptTimestamp());
+    }
+
+    @Test
+    void sweep_failsMessagesSweptTooManyTimes() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StuckMessageSweeper sweeper =
+                new StuckMessageSweeper(
+                        messageService, STUCK_AFTER, MAX_SWEEPS, 100, meterRegistry);
+        Message lastChance = saveMessage("QUEUED", Duration.ofHours(1));
+        lastChance.setSweepCount(MAX_SWEEPS - 1);
+        messageRepository.save(lastChance);
+        Message exhausted = saveMessage("QUEUED", Duration.ofHours(1));
+        exhausted.setSweepCount(MAX_SWEEPS);
+        messageRepository.save(exhausted);
+
+        sweeper.sweep();
+
+        Message requeued = messageRepository.findById(lastChance.getId()).orElseThrow();
+        assertEquals("QUEUED", requeued.getStatus());
+        assertEquals(MAX_SWEEPS, requeued.getSweepCount());
+        assertEquals(1, findEntries(lastChance).size());
+        assertEquals(
+                "FAILED", messageRepository.findById(exhausted.getId()).orElseThrow().getStatus());
+        assertEquals(0, findEntries(exhausted).size());
+        assertEquals(1, meterRegistry.counter(StuckMessageSweeper.REQUEUED_METRIC).count(), 0.0);
+        assertEquals(1, meterRegistry.counter(StuckMessageSweeper.FAILED_METRIC).count(), 0.0);
+    }
+
+    @Test
+    void stuckAfter_waitsForTheDeliveryAttemptsOrTheRetention() {
+        Duration retention = Duration.ofDays(7);
+
+        assertEquals(
+                Duration.ofMinutes(10),
+                StuckMessageSweeper.stuckAfter(
+                        retention, Duration.ofSeconds(20), 5, Duration.ofSeconds(100)));
+        assertEquals(
+                retention,
+                StuckMessageSweeper.stuckAfter(
+                        retention, Duration.ofSeconds(20), 0, Duration.ofSeconds(100)));
+        assertEquals(
+                Duration.ofHours(1),
+                StuckMessageSweeper.stuckAfter(
+                        Duration.ofHours(1), Duration.ofMinutes(10), 100, Duration.ZERO));
+    }
+
+    private Message saveMessage(String status, Duration age) {
+        return messageRepository.save(
+                Message.builder()
+                        .userId(UUID.randomUUID().toString())
+                        .messageTemplateKey("key")
+                        .status(status)
+                        .parameters(Map.of())
+                        .requestedTimestamp(
+                                OffsetDateTime.now().minus(age).truncatedTo(ChronoUnit.MICROS))
+                        .build());
+    }
+
+    private List<MessageOutboxEntry> findEntries(Message message) {
+        return StreamSupport.stream(outboxRepository.findAll().spliterator(), false)
+                .filter(entry -> message.getId().equals(entry.getMessageId()))
+                .collect(Collectors.toList());
+    }
+}
@@ -2,6 +2,7 @@ package io.nuvalence.platform.notification.service.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.nuvalence.platform.notification.service.domain.EmailFormat;
@@ -189,6 +190,38 @@ class TemplateServiceTest {
         assertTrue(foundTemplate.isPresent());
     }
 
+    @Test
+    void testGetTemplate_nullKey() {
+        assertTrue(service.getTemplate(null).isEmpty());
+    }
+
+    @Test
+    void testGetTemplate_servesADetachedReadOnlyCopy() {
+        MessageTemplate foundTemplate = service.getTemplate(createdTemplate.getKey()).orElseThrow();
+
+        assertEquals(createdTemplate.getId(), foundTemplate.getId());
+        assertTrue(foundTemplate.getParameters().containsKey("parameter1"));
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> foundTemplate.getParameters().put("parameter2", "value"));
+        assertThrows(
+                UnsupportedOperationException.class,
+                () -> foundTemplate.getEmailFormat().getEmailFormatContents().clear());
+    }
+
+    @Test
+    void testGetTemplate_afterUpdate() {
+        String updatedDescription = "cached description";
+        service.getTemplate(createdTemplate.getKey());
+
+        createdTemplate.setDescription(updatedDescription);
+        service.createOrUpdateTemplate(createdTemplate.getKey(), createdTemplate);
+
+        Optional<MessageTemplate> foundTemplate = service.getTemplate(createdTemplate.getKey());
+        assertTrue(foundTemplate.isPresent());
+        assertEquals(updatedDescription, foundTemplate.get().getDescription());
+    }
+
     @Test
     void testGetTemplates() {
         SearchTemplateFilter filter =
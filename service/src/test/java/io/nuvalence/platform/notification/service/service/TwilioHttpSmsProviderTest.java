@@ -0,0 +1,144 @@
+package io.nuvalence.platform.notification.service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.twilio.exception.ApiException;
+import io.nuvalence.platform.notification.service.exception.UnprocessableNotificationException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+class TwilioHttpSmsProviderTest {
+
+    private TwilioStubServer twilio;
+
+    private TwilioHttpSmsProvider smsProvider;
+
+    @AfterEach
+    void tearDown() {
+        smsProvider.shutdown();
+        twilio.close();
+    }
+
+    @Test
+    void sendSms_postsTheMessageToTwilio() throws IOException {
+        start(Duration.ZERO, 10);
+
+        smsProvider.sendSms("+15550002", "Hello & welcome");
+
+        assertEquals(
+                Map.of("To", "+15550002", "From", "+15550001", "Body", "Hello & welcome"),
+                twilio.getLastForm());
+        assertEquals(
+                "Basic "
+                        + Base64.getEncoder()
+                                .encodeToString(
+                                        "accountSid:authToken".getBytes(StandardCharsets.UTF_8)),
+                twilio.getLastAuthorization());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {400, 401, 403, 404})
+    void sendSms_rejectsTheSmsOnAClientError(int statusCode) throws IOException {
+        start(Duration.ZERO, 10);
+        twilio.setStatusCode(statusCode);
+
+        assertThrows(
+                UnprocessableNotificationException.class,
+                () -> smsProvider.sendSms("+15550002", "Hello"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {429, 500, 503})
+    void sendSmsAsync_failsForRetryOnThrottlingAndServerErrors(int statusCode) throws IOException {
+        start(Duration.ZERO, 10);
+        twilio.setStatusCode(statusCode);
+
+        ExecutionException exception =
+                assertThrows(
+                        ExecutionException.class,
+                        () ->
+                                smsProvider
+                                        .sendSmsAsync("+15550002", "Hello")
+                                        .get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(ApiException.class, exception.getCause());
+        assertEquals(statusCode, ((ApiException) exception.getCause()).getStatusCode());
+    }
+
+    @Test
+    void sendSmsAsync_boundsTheRequestsInFlight() throws Exception {
+        start(Duration.ofMillis(100), 5);
+
+        List<CompletableFuture<Void>> sends = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            sends.add(smsProvider.sendSmsAsync("+1555100" + i, "Hello"));
+        }
+
+        assertFalse(sends.stream().allMatch(CompletableFuture::isDone));
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        assertEquals(20, twilio.getRequests());
+        assertTrue(twilio.getMaxInFlight() <= 5, "max in flight " + twilio.getMaxInFlight());
+    }
+
+    /**
+     * Sends SMS from a single thread to the stub, answering as slowly as Twilio typically does.
+     * Run with {@code ./gradlew benchmark}.
+     */
+    @Test
+    @Tag("benchmark")
+    void benchmark_sendSmsAsync() throws Exception {
+        int messages = 5000;
+        start(Duration.ofMillis(150), 200);
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> sends = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            sends.add(smsProvider.sendSmsAsync("+1555" + i, "Hello"));
+        }
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(5, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        log.info(
+                "Twilio over HTTP: {} SMS in {} s, {} SMS/s, at most {} in flight",
+                messages,
+                String.format("%.2f", seconds),
+                String.format("%.0f", messages / seconds),
+                twilio.getMaxInFlight());
+    }
+
+    private void start(Duration latency, int maxInFlight) throws IOException {
+        twilio = new TwilioStubServer(latency);
+        smsProvider =
+                new TwilioHttpSmsProvider(
+                        twilio.baseUrl(),
+                        Duration.ofSeconds(5),
+                        Duration.ofSeconds(10),
+                        maxInFlight,
+                        2,
+                        ProviderRateLimiter.unlimited("twilio"),
+                        DependencyGuard.unguarded("twilio"));
+        smsProvider.setTwilioPhoneNumber("+15550001");
+        smsProvider.setTwilioAccountSid("accountSid");
+        smsProvider.setTwilioAuthToken("authToken");
+    }
+}
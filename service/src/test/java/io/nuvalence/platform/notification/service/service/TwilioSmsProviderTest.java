@@ -13,9 +13,12 @@ import com.twilio.exception.ApiException;
 import com.twilio.rest.api.v2010.account.Message;
 import com.twilio.rest.api.v2010.account.MessageCreator;
 import com.twilio.type.PhoneNumber;
+import io.nuvalence.platform.notification.service.exception.UnprocessableNotificationException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
 
@@ -120,6 +123,59 @@ class TwilioSmsProviderTest {
         }
     }
 
+    @ParameterizedTest
+    @ValueSource(ints = {400, 401, 403, 404})
+    void testSendSms_rejectsClientErrors(int code) {
+        try (MockedStatic<Message> messageMock = mockStatic(Message.class)) {
+            messageMock
+                    .when(
+                            () ->
+                                    Message.creator(
+                                            any(PhoneNumber.class),
+                                            any(PhoneNumber.class),
+                                            anyString()))
+                    .thenReturn(messageCreator);
+
+            doThrow(new ApiException("Rejected", null, null, code, null))
+                    .when(messageCreator)
+                    .create();
+
+            UnprocessableNotificationException exception =
+                    assertThrows(
+                            UnprocessableNotificationException.class,
+                            () -> smsProvider.sendSms("to_number", "test_message"));
+            assertEquals(
+                    "Bad request response obtained from Twilio with code "
+                            + code
+                            + ", could not send sms to to_number",
+                    exception.getMessage());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {429, 500, 503})
+    void testSendSms_retriesThrottlingAndServerErrors(int code) {
+        try (MockedStatic<Message> messageMock = mockStatic(Message.class)) {
+            messageMock
+                    .when(
+                            () ->
+                                    Message.creator(
+                                            any(PhoneNumber.class),
+                                            any(PhoneNumber.class),
+                                            anyString()))
+                    .thenReturn(messageCreator);
+
+            ApiException expectedException = new ApiException("Retry", null, null, code, null);
+            doThrow(expectedException).when(messageCreator).create();
+
+            ApiException actualException =
+                    assertThrows(
+                            ApiException.class,
+                            () -> smsProvider.sendSms("to_number", "test_message"));
+            assertEquals(expectedException, actualException);
+        }
+    }
+
     @Test
     void testSendSms_UnexpectedException() {
         try (MockedStatic<Message> messageMock = mockStatic(Message.class)) {
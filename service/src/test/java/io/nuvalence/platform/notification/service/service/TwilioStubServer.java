@@ -0,0 +1,128 @@
+package io.nuvalence.platform.notification.service.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Local stand-in for the Twilio Messages endpoint, answering every SMS after a fixed latency.
+ * Point {@code twilio.http.base-url} at {@link #baseUrl()} to load test the HTTP transport
+ * without reaching Twilio.
+ */
+class TwilioStubServer implements AutoCloseable {
+
+    private static final String CREATED =
+            "{\"sid\":\"SM00000000000000000000000000000000\",\"status\":\"queued\"}";
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final Duration latency;
+
+    private final AtomicInteger statusCode = new AtomicInteger(201);
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private final AtomicReference<String> lastAuthorization = new AtomicReference<>();
+
+    private final AtomicReference<Map<String, String>> lastForm = new AtomicReference<>();
+
+    /**
+     * Starts the stub on an ephemeral port.
+     *
+     * @param latency time taken to answer each request
+     * @throws IOException if the server cannot be started
+     */
+    TwilioStubServer(Duration latency) throws IOException {
+        this.latency = latency;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/2010-04-01/Accounts/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    void setStatusCode(int statusCode) {
+        this.statusCode.set(statusCode);
+    }
+
+    int getRequests() {
+        return requests.get();
+    }
+
+    int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    String getLastAuthorization() {
+        return lastAuthorization.get();
+    }
+
+    Map<String, String> getLastForm() {
+        return lastForm.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            lastAuthorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            lastForm.set(
+                    parseForm(
+                            new String(
+                                    exchange.getRequestBody().readAllBytes(),
+                                    StandardCharsets.UTF_8)));
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // before answering, as the client sends its next request once it has the answer
+            inFlight.decrementAndGet();
+        }
+
+        byte[] body = CREATED.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode.get(), body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        exchange.close();
+    }
+
+    private static Map<String, String> parseForm(String form) {
+        Map<String, String> fields = new HashMap<>();
+        for (String field : form.split("&")) {
+            String[] pair = field.split("=", 2);
+            fields.put(
+                    URLDecoder.decode(pair[0], StandardCharsets.UTF_8),
+                    pair.length > 1 ? URLDecoder.decode(pair[1], StandardCharsets.UTF_8) : "");
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,155 @@
+package io.nuvalence.platform.notification.service.service.usermanagementapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.nuvalence.platform.notification.usermanagent.client.ApiException;
+import io.nuvalence.platform.notification.usermanagent.client.generated.models.UserDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@ExtendWith(MockitoExtension.class)
+class BatchUserResolverTest {
+
+    @Mock private UserManagementClientService userManagementClientService;
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(3);
+
+    private BatchUserResolver resolver;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (resolver != null) {
+            resolver.shutdown();
+        }
+    }
+
+    @Test
+    void getUser_withoutWindowResolvesDirectly() throws ApiException {
+        resolver = new BatchUserResolver(userManagementClientService, Duration.ZERO, 10);
+        UUID userId = UUID.randomUUID();
+        when(userManagementClientService.getUser(userId)).thenReturn(Optional.of(user(userId)));
+
+        assertEquals(userId, resolver.getUser(userId).get().getId());
+        verify(userManagementClientService, never()).getUsers(anyCollection());
+    }
+
+    @Test
+    void getUser_withoutWindowPropagatesErrors() throws ApiException {
+        resolver = new BatchUserResolver(userManagementClientService, Duration.ZERO, 10);
+        UUID userId = UUID.randomUUID();
+        ApiException error = new ApiException(503, "Service Unavailable");
+        when(userManagementClientService.getUser(userId)).thenThrow(error);
+
+        assertSame(error, assertThrows(ApiException.class, () -> resolver.getUser(userId)));
+    }
+
+    @Test
+    void getUser_failsTheUsersOfABatchThatCouldNotBeRetrieved() {
+        resolver = new BatchUserResolver(userManagementClientService, Duration.ofMinutes(1), 1);
+        UUID userId = UUID.randomUUID();
+        when(userManagementClientService.getCachedUsers(any())).thenReturn(Map.of());
+        when(userManagementClientService.getUsers(anyCollection())).thenReturn(Map.of());
+
+        assertThrows(ApiException.class, () -> resolver.getUser(userId));
+    }
+
+    @Test
+    void getUser_cachedUserSkipsBatch() throws ApiException {
+        resolver = new BatchUserResolver(userManagementClientService, Duration.ofMinutes(1), 10);
+        UUID userId = UUID.randomUUID();
+        when(userManagementClientService.getCachedUsers(Set.of(userId)))
+                .thenReturn(Map.of(userId, Optional.of(user(userId))));
+
+        assertEquals(userId, resolver.getUser(userId).get().getId());
+        verify(userManagementClientService, never()).getUsers(anyCollection());
+    }
+
+    @Test
+    void getUser_fullBatchResolvedTogether() {
+        resolver = new BatchUserResolver(userManagementClientService, Duration.ofMinutes(1), 3);
+        whenGetUsersReturnAll();
+        List<UUID> userIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        List<Optional<UserDTO>> users = resolveConcurrently(userIds);
+
+        for (int i = 0; i < userIds.size(); i++) {
+            assertEquals(userIds.get(i), users.get(i).get().getId());
+        }
+        ArgumentCaptor<Collection<UUID>> batch = ArgumentCaptor.forClass(Collection.class);
+        verify(userManagementClientService).getUsers(batch.capture());
+        assertEquals(Set.copyOf(userIds), Set.copyOf(batch.getValue()));
+    }
+
+    @Test
+    void getUser_partialBatchResolvedAfterWindow() {
+        resolver = new BatchUserResolver(userManagementClientService, Duration.ofMillis(100), 10);
+        whenGetUsersReturnAll();
+        List<UUID> userIds = List.of(UUID.randomUUID(), UUID.randomUUID());
+
+        List<Optional<UserDTO>> users = resolveConcurrently(userIds);
+
+        assertTrue(users.stream().allMatch(Optional::isPresent));
+        verify(userManagementClientService).getUsers(anyCollection());
+    }
+
+    private List<Optional<UserDTO>> resolveConcurrently(List<UUID> userIds) {
+        List<CompletableFuture<Optional<UserDTO>>> futures =
+                userIds.stream()
+                        .map(
+                                userId ->
+                                        CompletableFuture.supplyAsync(
+                                                () -> {
+                                                    try {
+                                                        return resolver.getUser(userId);
+                                                    } catch (ApiException e) {
+                                                        throw new IllegalStateException(e);
+                                                    }
+                                                },
+                                                callers))
+                        .toList();
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private void whenGetUsersReturnAll() {
+        when(userManagementClientService.getCachedUsers(any())).thenReturn(Map.of());
+        when(userManagementClientService.getUsers(anyCollection()))
+                .thenAnswer(
+                        invocation -> {
+                            Collection<UUID> userIds = invocation.getArgument(0);
+                            Map<UUID, Optional<UserDTO>> users = new HashMap<>();
+                            userIds.forEach(userId -> users.put(userId, Optional.of(user(userId))));
+                            return users;
+                        });
+    }
+
+    private static UserDTO user(UUID userId) {
+        UserDTO user = new UserDTO();
+        user.setId(userId);
+        return user;
+    }
+}
@@ -0,0 +1,279 @@
+package io.nuvalence.platform.notification.service.service.usermanagementapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.spring.pubsub.PubSubAdmin;
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.nuvalence.platform.notification.service.exception.DependencyUnavailableException;
+import io.nuvalence.platform.notification.service.service.CacheInvalidationService;
+import io.nuvalence.platform.notification.service.service.DependencyGuard;
+import io.nuvalence.platform.notification.usermanagent.client.ApiClient;
+import io.nuvalence.platform.notification.usermanagent.client.ApiException;
+import io.nuvalence.platform.notification.usermanagent.client.generated.models.UserDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@ExtendWith(MockitoExtension.class)
+class UserManagementClientServiceTest {
+
+    private static final int MAX_CONCURRENCY = 2;
+
+    @Mock private AuthTokenProvider authTokenProvider;
+
+    @Mock private PubSubTemplate pubSubTemplate;
+
+    @Mock private PubSubAdmin pubSubAdmin;
+
+    private UserManagementStubServer server;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private UserManagementClientService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new UserManagementStubServer();
+        meterRegistry = new SimpleMeterRegistry();
+        service = createService(server);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        server.close();
+    }
+
+    private UserManagementClientService createService(UserManagementStubServer server) {
+        return createService(server, guard(20));
+    }
+
+    private DependencyGuard guard(int slidingWindowSize) {
+        return new DependencyGuard(
+                "user-management",
+                100,
+                slidingWindowSize,
+                Duration.ofMinutes(1),
+                Duration.ZERO,
+                1,
+                50,
+                Duration.ofSeconds(1),
+                meterRegistry);
+    }
+
+    private UserManagementClientService createService(
+            UserManagementStubServer server, DependencyGuard guard) {
+        UserManagementClientConfiguration configuration = new UserManagementClientConfiguration();
+        ApiClient apiClient =
+                configuration.userManagementApiClient(
+                        server.getBaseUrl(),
+                        HttpClient.Version.HTTP_1_1,
+                        Duration.ofSeconds(2),
+                        Duration.ofSeconds(5),
+                        authTokenProvider,
+                        meterRegistry);
+        return new UserManagementClientService(
+                configuration.usersApi(apiClient),
+                apiClient,
+                new CacheInvalidationService(pubSubTemplate, pubSubAdmin, false, "", false),
+                100,
+                Duration.ofMinutes(1),
+                Duration.ofMinutes(1),
+                Duration.ZERO,
+                MAX_CONCURRENCY,
+                guard,
+                meterRegistry);
+    }
+
+    @Test
+    void getUser_reusesConnection() throws ApiException {
+        when(authTokenProvider.getToken()).thenReturn("token");
+
+        for (int i = 0; i < 10; i++) {
+            UUID userId = UUID.randomUUID();
+            Optional<UserDTO> user = service.getUser(userId);
+            assertTrue(user.isPresent());
+            assertEquals(userId, user.get().getId());
+        }
+
+        // a connection is dropped when the body is closed before its end was signaled
+        assertTrue(server.getClientPorts().size() < 10);
+        assertEquals(Collections.nCopies(10, "Bearer token"), server.getAuthorizationHeaders());
+        assertEquals(
+                10.0,
+                meterRegistry
+                        .get(UserManagementClientConfiguration.RESPONSES_METRIC)
+                        .tag("status", "200")
+                        .counter()
+                        .count());
+        assertEquals(10, requestCount("success"));
+    }
+
+    @Test
+    void getUser_cached() throws ApiException {
+        when(authTokenProvider.getToken()).thenReturn("token");
+        UUID userId = UUID.randomUUID();
+
+        Optional<UserDTO> first = service.getUser(userId);
+        Optional<UserDTO> second = service.getUser(userId);
+
+        assertSame(first.get(), second.get());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void getUser_notFoundIsCached() throws ApiException {
+        when(authTokenProvider.getToken()).thenReturn("token");
+        UUID userId = UUID.randomUUID();
+        server.notFound(userId);
+
+        assertTrue(service.getUser(userId).isEmpty());
+        assertTrue(service.getUser(userId).isEmpty());
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, requestCount("not_found"));
+    }
+
+    @Test
+    void getUser_errorIsNotCached() {
+        when(authTokenProvider.getToken()).thenReturn("token");
+        UUID userId = UUID.randomUUID();
+        server.failing(userId);
+
+        // an error is not a missing user, the message is retried
+        assertThrows(ApiException.class, () -> service.getUser(userId));
+        assertThrows(ApiException.class, () -> service.getUser(userId));
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(2, requestCount("error"));
+    }
+
+    @Test
+    void getUser_refusedWhileTheCircuitBreakerIsOpen() throws ApiException {
+        when(authTokenProvider.getToken()).thenReturn("token");
+        service.shutdown();
+        service = createService(server, guard(2));
+        UUID missingUser = UUID.randomUUID();
+        server.notFound(missingUser);
+        UUID failingUser = UUID.randomUUID();
+        server.failing(failingUser);
+
+        // users that are not found do not count as failures
+        assertTrue(service.getUser(missingUser).isEmpty());
+        assertThrows(ApiException.class, () -> service.getUser(failingUser));
+        assertThrows(ApiException.class, () -> service.getUser(failingUser));
+        int requests = server.getRequestCount();
+
+        assertThrows(
+                DependencyUnavailableException.class, () -> service.getUser(UUID.randomUUID()));
+        assertEquals(requests, server.getRequestCount());
+    }
+
+    @Test
+    void invalidateUser_reloadsUser() throws ApiException {
+        when(authTokenProvider.getToken()).thenReturn("token");
+        UUID userId = UUID.randomUUID();
+
+        Optional<UserDTO> first = service.getUser(userId);
+        service.invalidateUser(userId);
+        Optional<UserDTO> second = service.getUser(userId);
+
+        assertNotSame(first.get(), second.get());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void getUsers_boundedParallelCalls() throws IOException {
+        when(authTokenProvider.getToken()).thenReturn("token");
+        service.shutdown();
+        server.close();
+        server = new UserManagementStubServer(MAX_CONCURRENCY * 2);
+        service = createService(server);
+        server.setResponseDelay(Duration.ofMillis(50));
+        UUID notFound = UUID.randomUUID();
+        server.notFound(notFound);
+        UUID failing = UUID.randomUUID();
+        server.failing(failing);
+        List<UUID> found = Stream.generate(UUID::randomUUID).limit(6).collect(Collectors.toList());
+        List<UUID> userIds = new ArrayList<>(found);
+        userIds.add(notFound);
+        userIds.add(failing);
+
+        Map<UUID, Optional<UserDTO>> users = service.getUsers(userIds);
+
+        assertEquals(userIds.size() - 1, users.size());
+        found.forEach(userId -> assertEquals(userId, users.get(userId).get().getId()));
+        assertTrue(users.get(notFound).isEmpty());
+        // users that could not be retrieved are left out instead of reported as not found
+        assertFalse(users.containsKey(failing));
+        assertEquals(userIds.size(), server.getRequestCount());
+        assertEquals(MAX_CONCURRENCY, server.getMaxInFlight());
+    }
+
+    @Test
+    void findUserIds_readsPagesOfTheSearch() throws ApiException {
+        when(authTokenProvider.getToken()).thenReturn("token");
+        List<UUID> directory =
+                Stream.generate(UUID::randomUUID).limit(5).collect(Collectors.toList());
+        server.setDirectory(directory);
+
+        assertEquals(
+                directory.subList(0, 2), service.findUserIds(Map.of("name", "Jane Doe"), 0, 2));
+        assertEquals(directory.subList(4, 5), service.findUserIds(Map.of(), 2, 2));
+        assertTrue(service.findUserIds(Map.of(), 3, 2).isEmpty());
+        assertEquals("pageNumber=0&pageSize=2&name=Jane+Doe", server.getSearchQueries().get(0));
+        assertEquals(Collections.nCopies(3, "Bearer token"), server.getAuthorizationHeaders());
+    }
+
+    @Test
+    void findUserIds_failsOnErrorStatus() {
+        when(authTokenProvider.getToken()).thenReturn("token");
+        server.setDirectory(null);
+
+        ApiException e =
+                assertThrows(ApiException.class, () -> service.findUserIds(Map.of(), 0, 2));
+        assertEquals(500, e.getCode());
+    }
+
+    @Test
+    void getUsers_onlyRequestsMissingUsers() throws ApiException {
+        when(authTokenProvider.getToken()).thenReturn("token");
+        UUID cached = UUID.randomUUID();
+        service.getUser(cached);
+
+        Map<UUID, Optional<UserDTO>> users = service.getUsers(List.of(cached, UUID.randomUUID()));
+
+        assertEquals(2, users.size());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    private long requestCount(String outcome) {
+        return meterRegistry
+                .get(UserManagementClientService.REQUESTS_METRIC)
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+}
@@ -0,0 +1,187 @@
+package io.nuvalence.platform.notification.service.service.usermanagementapi;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Local stand-in for the user management service, answering user lookups by id and paged user
+ * searches over a directory of users.
+ */
+class UserManagementStubServer implements AutoCloseable {
+
+    private final Set<UUID> notFoundUsers = ConcurrentHashMap.newKeySet();
+
+    private final Set<UUID> failingUsers = ConcurrentHashMap.newKeySet();
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private final List<String> authorizationHeaders = new CopyOnWriteArrayList<>();
+
+    private final List<String> searchQueries = new CopyOnWriteArrayList<>();
+
+    private volatile List<UUID> directory = List.of();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private final ExecutorService executor;
+
+    private final HttpServer server;
+
+    private volatile Duration responseDelay = Duration.ZERO;
+
+    UserManagementStubServer() throws IOException {
+        this(0);
+    }
+
+    /**
+     * Starts the server.
+     *
+     * @param handlerThreads number of requests answered in parallel, 0 to answer them one at a
+     *     time on the server thread
+     */
+    UserManagementStubServer(int handlerThreads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        if (handlerThreads > 0) {
+            executor = Executors.newFixedThreadPool(handlerThreads);
+            server.setExecutor(executor);
+        } else {
+            executor = null;
+        }
+        server.start();
+    }
+
+    String getBaseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    void notFound(UUID userId) {
+        notFoundUsers.add(userId);
+    }
+
+    void failing(UUID userId) {
+        failingUsers.add(userId);
+    }
+
+    /**
+     * Sets the users returned by searches, regardless of the search criteria.
+     *
+     * @param directory users in search order, null to fail searches
+     */
+    void setDirectory(List<UUID> directory) {
+        this.directory = directory;
+    }
+
+    List<String> getSearchQueries() {
+        return searchQueries;
+    }
+
+    void setResponseDelay(Duration responseDelay) {
+        this.responseDelay = responseDelay;
+    }
+
+    int getRequestCount() {
+        return authorizationHeaders.size();
+    }
+
+    List<String> getAuthorizationHeaders() {
+        return authorizationHeaders;
+    }
+
+    Set<Integer> getClientPorts() {
+        return clientPorts;
+    }
+
+    int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            authorizationHeaders.add(exchange.getRequestHeaders().getFirst("authorization"));
+            exchange.getRequestBody().readAllBytes();
+            Thread.sleep(responseDelay.toMillis());
+
+            String path = exchange.getRequestURI().getPath();
+            if (path.endsWith("/users")) {
+                handleSearch(exchange);
+                return;
+            }
+            UUID userId = UUID.fromString(path.substring(path.lastIndexOf('/') + 1));
+            if (notFoundUsers.contains(userId)) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if (failingUsers.contains(userId)) {
+                exchange.sendResponseHeaders(500, -1);
+            } else {
+                sendJson(exchange, "{\"id\":\"" + userId + "\",\"email\":\"someone@example.com\"}");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        searchQueries.add(query);
+        List<UUID> users = directory;
+        if (users == null) {
+            exchange.sendResponseHeaders(500, -1);
+            return;
+        }
+        Map<String, String> parameters = new HashMap<>();
+        for (String parameter : query.split("&")) {
+            String[] nameAndValue = parameter.split("=", 2);
+            parameters.put(nameAndValue[0], nameAndValue.length > 1 ? nameAndValue[1] : "");
+        }
+        int pageNumber = Integer.parseInt(parameters.get("pageNumber"));
+        int pageSize = Integer.parseInt(parameters.get("pageSize"));
+        String page =
+                users.stream()
+                        .skip((long) pageNumber * pageSize)
+                        .limit(pageSize)
+                        .map(userId -> "{\"id\":\"" + userId + "\"}")
+                        .collect(Collectors.joining(","));
+        sendJson(exchange, "{\"users\":[" + page + "]}");
+    }
+
+    private static void sendJson(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
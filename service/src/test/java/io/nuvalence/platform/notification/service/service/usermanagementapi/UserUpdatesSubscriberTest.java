@@ -0,0 +1,74 @@
+package io.nuvalence.platform.notification.service.service.usermanagementapi;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+import com.google.protobuf.ByteString;
+import com.google.pubsub.v1.PubsubMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.UUID;
+
+@ExtendWith(MockitoExtension.class)
+class UserUpdatesSubscriberTest {
+
+    @Mock private PubSubTemplate pubSubTemplate;
+    @Mock private UserManagementClientService userManagementClientService;
+    @Mock private BasicAcknowledgeablePubsubMessage message;
+
+    private UserUpdatesSubscriber subscriber;
+
+    @BeforeEach
+    void setUp() {
+        subscriber =
+                new UserUpdatesSubscriber(
+                        pubSubTemplate, userManagementClientService, new ObjectMapper(), "sub");
+    }
+
+    @Test
+    void handleMessage_invalidatesUser() {
+        UUID userId = UUID.randomUUID();
+        givenPayload("{\"userId\":\"" + userId + "\"}");
+
+        subscriber.handleMessage(message);
+
+        verify(userManagementClientService).invalidateUser(userId);
+        verify(message).ack();
+    }
+
+    @Test
+    void handleMessage_unreadablePayload() {
+        givenPayload("not json");
+
+        subscriber.handleMessage(message);
+
+        verify(userManagementClientService, never()).invalidateUser(any());
+        verify(message).ack();
+    }
+
+    @Test
+    void subscribe_disabledWithoutSubscription() {
+        new UserUpdatesSubscriber(
+                        pubSubTemplate, userManagementClientService, new ObjectMapper(), "")
+                .subscribe();
+
+        verify(pubSubTemplate, never()).subscribe(any(), any());
+    }
+
+    private void givenPayload(String payload) {
+        when(message.getPubsubMessage())
+                .thenReturn(
+                        PubsubMessage.newBuilder()
+                                .setData(ByteString.copyFromUtf8(payload))
+                                .build());
+    }
+}
@@ -0,0 +1,74 @@
+package io.nuvalence.platform.notification.service.utils;
+
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import javax.sql.DataSource;
+
+/**
+ * PostgreSQL database of the tests covering SQL the H2 test database cannot run, started in a
+ * Testcontainers container. Those tests are skipped when Docker is not available.
+ */
+public final class PostgresTestDatabase {
+
+    private static final String IMAGE = "postgres:15-alpine";
+
+    private PostgresTestDatabase() {}
+
+    /**
+     * Creates the container of a test class.
+     *
+     * @return PostgreSQL container, started by the Testcontainers extension
+     */
+    public static PostgreSQLContainer<?> container() {
+        return new PostgreSQLContainer<>(IMAGE);
+    }
+
+    /**
+     * Connects to the database of a container after dropping everything a previous test created.
+     *
+     * @param postgres running container
+     * @return data source of the empty database
+     */
+    public static DriverManagerDataSource empty(PostgreSQLContainer<?> postgres) {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource(
+                        postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP SCHEMA public CASCADE");
+        jdbcTemplate.execute("CREATE SCHEMA public");
+        return dataSource;
+    }
+
+    /**
+     * Runs the service's changesets.
+     *
+     * @param dataSource database to migrate
+     * @param changesets number of changesets to run, null to run them all
+     * @throws Exception if a changeset fails
+     */
+    public static void migrate(DataSource dataSource, Integer changesets) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            Liquibase liquibase =
+                    new Liquibase(
+                            "db/changelog/changelog-master.xml",
+                            new ClassLoaderResourceAccessor(),
+                            DatabaseFactory.getInstance()
+                                    .findCorrectDatabaseImplementation(
+                                            new JdbcConnection(connection)));
+            if (changesets == null) {
+                liquibase.update(new Contexts(), new LabelExpression());
+            } else {
+                liquibase.update(changesets, new Contexts(), new LabelExpression());
+            }
+        }
+    }
+}